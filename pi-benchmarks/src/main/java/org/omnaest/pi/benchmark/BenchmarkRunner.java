@@ -0,0 +1,35 @@
+package org.omnaest.pi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes the results as JSON, so the time and the allocations per operation
+ * ({@code gc.alloc.rate.norm}) can be compared between builds.<br>
+ * <br>
+ * Usage: {@code java -jar target/benchmarks.jar [include regex] [result file]}, the result file defaults to {@value #DEFAULT_RESULT_FILE}
+ *
+ * @author omnaest
+ */
+public class BenchmarkRunner
+{
+    public static final String DEFAULT_INCLUDE     = "org\\.omnaest\\.pi\\.benchmark\\..*";
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException
+    {
+        String include = args.length >= 1 ? args[0] : DEFAULT_INCLUDE;
+        String resultFile = args.length >= 2 ? args[1] : DEFAULT_RESULT_FILE;
+
+        Options options = new OptionsBuilder().include(include)
+                                              .addProfiler(GCProfiler.class)
+                                              .resultFormat(ResultFormatType.JSON)
+                                              .result(resultFile)
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package org.omnaest.pi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.utils.BitNumberUtils;
+import org.omnaest.utils.bitset.Bits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the decoding of a 24 bit signed NAU7802 ADC value by the former {@link Bits} based implementation with the primitive shift and
+ * mask implementation of {@link BitNumberUtils}, as well as the bit field extraction and replacement used by the register accessors
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitNumberUtilsBenchmark
+{
+    private final byte[] adcBytes = new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0x38 };
+    private final byte[] buffer   = new byte[3];
+
+    @Benchmark
+    public int legacySignedIntegerFromBits()
+    {
+        return LegacyBitNumberUtils.mapBitsFromMsbToLsbAsSignedInteger(Bits.of(this.adcBytes));
+    }
+
+    @Benchmark
+    public int signedIntegerFromBits()
+    {
+        return BitNumberUtils.mapBitsFromMsbToLsbAsSignedInteger(Bits.of(this.adcBytes));
+    }
+
+    @Benchmark
+    public int signedIntegerFromPrimitive()
+    {
+        long bitSequence = BitNumberUtils.toBitSequence(this.adcBytes, 0, 3);
+        return (int) BitNumberUtils.signExtend(BitNumberUtils.reorderFromMsbToLsb(bitSequence, 24), 24);
+    }
+
+    @Benchmark
+    public long legacyUnsignedLongFromBits()
+    {
+        return LegacyBitNumberUtils.asLongFromMsbToLsb(Bits.of(this.adcBytes));
+    }
+
+    @Benchmark
+    public long unsignedLongFromPrimitive()
+    {
+        return BitNumberUtils.reorderFromMsbToLsb(BitNumberUtils.toBitSequence(this.adcBytes, 0, 3), 24);
+    }
+
+    @Benchmark
+    public long extractBits()
+    {
+        return BitNumberUtils.extractBits(BitNumberUtils.toBitSequence(this.adcBytes, 0, 3), 3, 5);
+    }
+
+    @Benchmark
+    public byte[] replaceBits()
+    {
+        long bitSequence = BitNumberUtils.replaceBits(BitNumberUtils.toBitSequence(this.adcBytes, 0, 3), 3, 5, 0b10101);
+        BitNumberUtils.fromBitSequence(bitSequence, this.buffer, 0, 3);
+        return this.buffer;
+    }
+}
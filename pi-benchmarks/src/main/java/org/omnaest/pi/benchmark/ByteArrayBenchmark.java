@@ -0,0 +1,70 @@
+package org.omnaest.pi.benchmark;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link ByteArray} decoding of the raw sensor values, e.g. the 24 bit big endian NAU7802 ADC value, the 24 bit little
+ * endian LPS28 pressure value and the 16 bit MS5837 PROM coefficients
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteArrayBenchmark
+{
+    private final byte[]    data      = new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0x38, (byte) 0x6A, (byte) 0x5B, (byte) 0x0C, (byte) 0x9E,
+            (byte) 0x71, (byte) 0x04, (byte) 0xD2, (byte) 0x8F, (byte) 0x33 };
+    private final ByteArray byteArray = new ByteArray(this.data);
+
+    @Benchmark
+    public int decodeInt24BigEndian()
+    {
+        return ByteArray.decodeInt24(this.data, 0, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Benchmark
+    public int decodeInt24LittleEndian()
+    {
+        return ByteArray.decodeInt24(this.data, 3, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Benchmark
+    public int asInt16()
+    {
+        return this.byteArray.asInt16(6, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Benchmark
+    public long asUnsignedInt32()
+    {
+        return this.byteArray.asUnsignedInt32(8, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Benchmark
+    public long asLongFromMsbToLsb()
+    {
+        return this.byteArray.asLongFromMsbToLsb(0, 2);
+    }
+
+    @Benchmark
+    public int[] asIntArrayFromMsbToLsb()
+    {
+        return this.byteArray.asIntArrayFromMsbToLsb();
+    }
+}
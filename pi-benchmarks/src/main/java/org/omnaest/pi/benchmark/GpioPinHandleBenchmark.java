@@ -0,0 +1,89 @@
+package org.omnaest.pi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPinHandle;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputPinHandle;
+import org.omnaest.pi.service.gpio.internal.SimulatedGPIOServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of a clock toggle and a data read of a bit banging loop via the {@link DigitalOutputGPIOPort} and
+ * {@link DigitalInputGPIOPort} accessors with the one via their pre-resolved {@link DigitalOutputPinHandle} and {@link DigitalInputPinHandle}.
+ * The simulated pins have no hardware latency, so the difference is the per call lookup and logging of the port accessors.
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GpioPinHandleBenchmark
+{
+    private static final int         CLOCK_PORT = 1;
+    private static final int         DATA_PORT  = 2;
+
+    private SimulatedGPIOServiceImpl gpioService;
+    private DigitalOutputGPIOPort    clockPort;
+    private DigitalInputGPIOPort     dataPort;
+    private DigitalOutputPinHandle   clockPin;
+    private DigitalInputPinHandle    dataPin;
+
+    @Setup
+    public void setup()
+    {
+        this.gpioService = new SimulatedGPIOServiceImpl();
+        this.clockPort = this.gpioService.getDigitalOutputGPIOPort(CLOCK_PORT)
+                                         .enable();
+        this.dataPort = this.gpioService.getDigitalInputGPIOPort(DATA_PORT)
+                                        .enable();
+        this.clockPin = this.clockPort.asPinHandle();
+        this.dataPin = this.dataPort.asPinHandle();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.gpioService.destroy();
+    }
+
+    @Benchmark
+    public void togglePort()
+    {
+        this.clockPort.setState(true);
+        this.clockPort.setState(false);
+    }
+
+    @Benchmark
+    public void togglePinHandle()
+    {
+        this.clockPin.setState(true);
+        this.clockPin.setState(false);
+    }
+
+    @Benchmark
+    public boolean readPort()
+    {
+        return this.dataPort.getState();
+    }
+
+    @Benchmark
+    public boolean readPinHandle()
+    {
+        return this.dataPin.getState();
+    }
+}
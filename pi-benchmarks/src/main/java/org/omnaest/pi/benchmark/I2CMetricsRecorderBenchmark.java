@@ -0,0 +1,48 @@
+package org.omnaest.pi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder;
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder.DeviceRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead the {@link I2CMetricsRecorder} adds to every I2C operation, which has to stay well below a microsecond, single
+ * threaded as on the bus scheduler thread and contended by several request threads
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class I2CMetricsRecorderBenchmark
+{
+    private final DeviceRecorder deviceRecorder = new I2CMetricsRecorder().getOrCreateDeviceRecorder(1, 0x77);
+
+    @Benchmark
+    public void recordRead()
+    {
+        long start = System.nanoTime();
+        this.deviceRecorder.recordRead(System.nanoTime() - start, 3);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordReadContended()
+    {
+        long start = System.nanoTime();
+        this.deviceRecorder.recordRead(System.nanoTime() - start, 3);
+    }
+}
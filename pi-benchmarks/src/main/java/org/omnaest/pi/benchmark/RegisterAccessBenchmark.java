@@ -0,0 +1,107 @@
+package org.omnaest.pi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.i2c.AbstractAddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.internal.SimulatedI2CServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the bit and bit field accessors of {@link AbstractAddressConnector#accessRegister(int)} and
+ * {@link AbstractAddressConnector#accessCachedRegister(int)} on a simulated device, so the cost of the register access stack itself is
+ * measured without any bus latency
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegisterAccessBenchmark
+{
+    private static final int DEVICE_ADDRESS = 0x2A;
+
+    private AddressConnector connector;
+    private boolean          bitValue;
+    private int              bitsValue;
+
+    @Setup
+    public void setup()
+    {
+        SimulatedI2CServiceImpl i2cService = new SimulatedI2CServiceImpl();
+        i2cService.presetRegister(1, DEVICE_ADDRESS, 0x00, (byte) 0b0010_1110);
+        i2cService.presetRegister(1, DEVICE_ADDRESS, 0x01, (byte) 0b0010_0111);
+        i2cService.presetRegister(1, DEVICE_ADDRESS, 0x12, (byte) 0xFF, (byte) 0xFF, (byte) 0x38);
+        this.connector = i2cService.provision(1)
+                                   .flatMap(busControl -> busControl.connectTo(DEVICE_ADDRESS))
+                                   .get();
+    }
+
+    @Benchmark
+    public boolean readBit()
+    {
+        return this.connector.accessRegister(0x00)
+                             .readBit(5);
+    }
+
+    @Benchmark
+    public void writeBit()
+    {
+        this.bitValue = !this.bitValue;
+        this.connector.accessRegister(0x00)
+                      .writeBit(4, this.bitValue);
+    }
+
+    @Benchmark
+    public int readBits()
+    {
+        return this.connector.accessRegister(0x01)
+                             .accessBits(3, 3)
+                             .readAsBigEndianUnsignedInteger();
+    }
+
+    @Benchmark
+    public void writeBits()
+    {
+        this.bitsValue = (this.bitsValue + 1) & 0b111;
+        this.connector.accessRegister(0x01)
+                      .accessBits(3, 3)
+                      .write(this.bitsValue);
+    }
+
+    @Benchmark
+    public int readMultiByteBits()
+    {
+        return this.connector.accessRegister(0x12)
+                             .accessBits(24)
+                             .readAsBigEndianSignedInteger();
+    }
+
+    @Benchmark
+    public boolean readCachedBit()
+    {
+        return this.connector.accessCachedRegister(0x01)
+                             .readBit(2);
+    }
+
+    @Benchmark
+    public void writeCachedBits()
+    {
+        this.bitsValue = (this.bitsValue + 1) & 0b111;
+        this.connector.accessCachedRegister(0x01)
+                      .accessBits(3, 3)
+                      .write(this.bitsValue);
+    }
+}
@@ -0,0 +1,160 @@
+package org.omnaest.pi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.i2c.RegisterMap;
+import org.omnaest.pi.service.i2c.RegisterMap.Endianness;
+import org.omnaest.pi.service.i2c.RegisterMap.RegisterAccessor;
+import org.omnaest.pi.service.i2c.RegisterMap.Volatility;
+import org.omnaest.pi.service.i2c.internal.SimulatedI2CServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the register read sequence of a single measurement of the NAU7802, LPS28 and MS5837 sensors against the simulated I2C service.
+ * The sequences mirror the data path of the sensor services, the one time initialization and the conversion delays of the chips are left
+ * out, as those measure the chips and not the access stack.
+ *
+ * @author omnaest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SensorReadSequenceBenchmark
+{
+    private static final int NAU7802_ADDRESS = 0x2A;
+    private static final int LPS28_ADDRESS   = 0x5C;
+    private static final int MS5837_ADDRESS  = 0x76;
+
+    private static enum Nau7802Field
+    {
+        CYCLE_READY, ADC
+    }
+
+    private static enum LPS28Field
+    {
+        PRESSURE_READY, PRESSURE, TEMPERATURE
+    }
+
+    private static final RegisterMap<Nau7802Field> NAU7802_REGISTER_MAP = RegisterMap.builder(Nau7802Field.class)
+                                                                                     .bit(Nau7802Field.CYCLE_READY, 0x00, 5, Volatility.VOLATILE)
+                                                                                     .value(Nau7802Field.ADC, 0x12, 24, Endianness.BIG_ENDIAN, true,
+                                                                                            Volatility.VOLATILE)
+                                                                                     .build();
+
+    private static final RegisterMap<LPS28Field>   LPS28_REGISTER_MAP   = RegisterMap.builder(LPS28Field.class)
+                                                                                     .bit(LPS28Field.PRESSURE_READY, 0x27, 0, Volatility.VOLATILE)
+                                                                                     .value(LPS28Field.PRESSURE, 0x28, 24, Endianness.LITTLE_ENDIAN, false,
+                                                                                            Volatility.VOLATILE)
+                                                                                     .value(LPS28Field.TEMPERATURE, 0x2B, 16, Endianness.LITTLE_ENDIAN, false,
+                                                                                            Volatility.VOLATILE)
+                                                                                     .build();
+
+    private RegisterAccessor<Nau7802Field>         nau7802;
+    private RegisterAccessor<LPS28Field>           lps28;
+    private AddressConnector                       ms5837;
+
+    @Setup
+    public void setup()
+    {
+        SimulatedI2CServiceImpl i2cService = new SimulatedI2CServiceImpl();
+
+        i2cService.presetRegister(1, NAU7802_ADDRESS, 0x00, (byte) 0b0010_1110);
+        i2cService.presetRegister(1, NAU7802_ADDRESS, 0x12, (byte) 0xFF, (byte) 0xFF, (byte) 0x38);
+
+        i2cService.presetRegister(1, LPS28_ADDRESS, 0x27, (byte) 0b0000_0011);
+        i2cService.presetRegister(1, LPS28_ADDRESS, 0x28, (byte) 0x00, (byte) 0x50, (byte) 0x3F, (byte) 0x6A, (byte) 0x08);
+
+        i2cService.presetRegister(1, MS5837_ADDRESS, 0xA2, (byte) 0x8C, (byte) 0x3D, (byte) 0x8F, (byte) 0x5A, (byte) 0x54, (byte) 0x9E,
+                                  (byte) 0x53, (byte) 0x0C, (byte) 0x6B, (byte) 0x84, (byte) 0x6A, (byte) 0x5E);
+        i2cService.presetRegister(1, MS5837_ADDRESS, 0x00, (byte) 0x44, (byte) 0x77, (byte) 0x3E);
+
+        this.nau7802 = NAU7802_REGISTER_MAP.bind(this.connectTo(i2cService, NAU7802_ADDRESS));
+        this.lps28 = LPS28_REGISTER_MAP.bind(this.connectTo(i2cService, LPS28_ADDRESS));
+        this.ms5837 = this.connectTo(i2cService, MS5837_ADDRESS);
+    }
+
+    private AddressConnector connectTo(SimulatedI2CServiceImpl i2cService, int deviceAddress)
+    {
+        return i2cService.provision(1)
+                         .flatMap(busControl -> busControl.connectTo(deviceAddress))
+                         .get();
+    }
+
+    @Benchmark
+    public int readNau7802()
+    {
+        if (!this.nau7802.isSet(Nau7802Field.CYCLE_READY))
+        {
+            throw new IllegalStateException("NAU7802 conversion not ready");
+        }
+        return (int) this.nau7802.read(Nau7802Field.ADC);
+    }
+
+    @Benchmark
+    public double readLPS28()
+    {
+        if (!this.lps28.isSet(LPS28Field.PRESSURE_READY))
+        {
+            throw new IllegalStateException("LPS28 pressure not ready");
+        }
+        double pressure = this.lps28.read(LPS28Field.PRESSURE) / 4096.0;
+        double temperature = ((short) this.lps28.read(LPS28Field.TEMPERATURE)) / 100.0;
+        return pressure + temperature;
+    }
+
+    @Benchmark
+    public double readMS5837()
+    {
+        TransactionResult result = this.ms5837.transaction()
+                                              .read(0xA2, 2)
+                                              .read(0xA4, 2)
+                                              .read(0xA6, 2)
+                                              .read(0xA8, 2)
+                                              .read(0xAA, 2)
+                                              .read(0xAC, 2)
+                                              .write((byte) 0x40)
+                                              .read(0x00, 3)
+                                              .write((byte) 0x50)
+                                              .read(0x00, 3)
+                                              .execute()
+                                              .orElseThrow(() -> new IllegalStateException("Unable to read MS5837 via I2C"));
+
+        long C1 = result.get(0)
+                        .asLongFromMsbToLsb(0, 1);
+        long C2 = result.get(1)
+                        .asLongFromMsbToLsb(0, 1);
+        long C3 = result.get(2)
+                        .asLongFromMsbToLsb(0, 1);
+        long C4 = result.get(3)
+                        .asLongFromMsbToLsb(0, 1);
+        long C5 = result.get(4)
+                        .asLongFromMsbToLsb(0, 1);
+        long C6 = result.get(5)
+                        .asLongFromMsbToLsb(0, 1);
+        long D1 = result.get(6)
+                        .asLongFromMsbToLsb(0, 2);
+        long D2 = result.get(7)
+                        .asLongFromMsbToLsb(0, 2);
+
+        long dT = D2 - C5 * 256;
+        long TEMP = 2000 + dT * C6 / 8388608;
+        long OFF = C2 * 65536 + (C4 * dT) / 128;
+        long SENS = C1 * 32768 + (C3 * dT) / 256;
+        double pressure = (((D1 * SENS) / 2097152) - OFF) / 8192 / 10.0;
+        return pressure + TEMP / 100.0;
+    }
+}
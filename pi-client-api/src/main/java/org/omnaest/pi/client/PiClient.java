@@ -3,6 +3,7 @@ package org.omnaest.pi.client;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderAddress;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderPort;
 import org.omnaest.pi.client.domain.gyro.Orientation;
@@ -95,6 +96,15 @@ public interface PiClient
 
     public static interface DigitalPortControl
     {
+        /**
+         * Enables the port as digital input, whose edges are filtered by the given {@link DigitalInputFilter}. {@link #getState()} then
+         * returns the filtered level.
+         *
+         * @param filter
+         * @return
+         */
+        public DigitalPortControl enableInput(DigitalInputFilter filter);
+
         public boolean getState();
 
         public void setState(boolean state);
@@ -0,0 +1,66 @@
+package org.omnaest.pi.client.domain.gpio;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filter of the edges of a digital input port, which is configured when the port is enabled. The stages are applied to every edge in
+ * order:
+ * <ol>
+ * <li>debounce: an edge within the debounce time after the last accepted edge is rejected, and the level is sampled again at the end of the
+ * debounce time, so a transition within the debounce time is delivered then</li>
+ * <li>minimum pulse width: the level is sampled again after the minimum pulse width, so a shorter pulse is rejected</li>
+ * <li>majority sampling: the level is sampled the given number of times and the majority decides</li>
+ * </ol>
+ * An edge, which reports a new level, but whose level equals the last accepted level after these stages, is rejected as glitch, while a
+ * repeated report of the current level is ignored without counting it. All values of zero disable the corresponding stage.<br>
+ * <br>
+ * The samples after the debounce time and the minimum pulse width are taken by a dispatcher thread of the port, so the accepted edge is
+ * delivered with that delay. The minimum pulse width is meant for short electrical glitches, while the bouncing of mechanical contacts is handled by the
+ * debounce time.
+ *
+ * @author omnaest
+ */
+@Data
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class DigitalInputFilter
+{
+    @JsonProperty
+    private long debounceTimeInMicroseconds;
+
+    @JsonProperty
+    private long minimumPulseWidthInMicroseconds;
+
+    /**
+     * Number of samples for the majority decision, values below 2 disable the sampling
+     */
+    @JsonProperty
+    private int  numberOfSamples;
+
+    /**
+     * Filter, which only rejects edges that do not change the level
+     *
+     * @return
+     */
+    public static DigitalInputFilter none()
+    {
+        return builder().build();
+    }
+
+    /**
+     * @param debounceTimeInMicroseconds
+     * @return
+     */
+    public static DigitalInputFilter debounce(long debounceTimeInMicroseconds)
+    {
+        return builder().debounceTimeInMicroseconds(debounceTimeInMicroseconds)
+                        .build();
+    }
+}
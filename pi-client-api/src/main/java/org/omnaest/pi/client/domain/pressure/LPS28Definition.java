@@ -1,5 +1,8 @@
 package org.omnaest.pi.client.domain.pressure;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
 /**
  * API for the LPS28 pressure sensor that communicates over I2C
  * 
@@ -15,6 +18,41 @@ public interface LPS28Definition
 
     public double readTemperature();
 
+    /**
+     * Configures the sensor once at the given {@link OutputDataRate} and enables its hardware FIFO, which is drained in bursts by a
+     * background schedule into a ring buffer. While the continuous mode is active {@link #readPressure()} and {@link #readTemperature()}
+     * return the latest sample without accessing the sensor.
+     *
+     * @see #readLatestSample()
+     * @see #readBufferedSamples()
+     * @see #stopContinuousMode()
+     * @param outputDataRate
+     */
+    public void startContinuousMode(OutputDataRate outputDataRate);
+
+    /**
+     * Stops the continuous mode and powers the sensor down
+     *
+     * @see #startContinuousMode(OutputDataRate)
+     */
+    public void stopContinuousMode();
+
+    /**
+     * Returns the latest sample of the continuous mode
+     *
+     * @see #startContinuousMode(OutputDataRate)
+     * @return
+     */
+    public LPS28Sample readLatestSample();
+
+    /**
+     * Returns the buffered samples of the continuous mode from the oldest to the latest one
+     *
+     * @see #startContinuousMode(OutputDataRate)
+     * @return
+     */
+    public LPS28Sample[] readBufferedSamples();
+
     /**
      * @see #usingPrimaryAddress()
      * @see #usingSecondaryAddress()
@@ -45,4 +83,17 @@ public interface LPS28Definition
     {
         _4060HPA, _1260HPA
     }
+
+    /**
+     * Output data rate of the continuous mode
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static enum OutputDataRate
+    {
+        _1HZ(0b0001, 1), _4HZ(0b0010, 4), _10HZ(0b0011, 10), _25HZ(0b0100, 25), _50HZ(0b0101, 50), _75HZ(0b0110, 75), _100HZ(0b0111, 100), _200HZ(0b1000, 200);
+
+        private final int code;
+        private final int frequencyInHz;
+    }
 }
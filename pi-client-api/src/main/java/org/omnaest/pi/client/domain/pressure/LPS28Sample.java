@@ -0,0 +1,34 @@
+package org.omnaest.pi.client.domain.pressure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sample of a LPS28 in continuous mode
+ *
+ * @see LPS28Definition#startContinuousMode(LPS28Definition.OutputDataRate)
+ * @author omnaest
+ */
+@Data
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class LPS28Sample
+{
+    @JsonProperty
+    private double pressure;
+
+    @JsonProperty
+    private double temperature;
+
+    /**
+     * Epoch milliseconds of the conversion, derived from the time of the FIFO readout and the output data rate
+     */
+    @JsonProperty
+    private long timestamp;
+}
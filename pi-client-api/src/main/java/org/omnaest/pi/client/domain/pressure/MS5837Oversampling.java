@@ -0,0 +1,18 @@
+package org.omnaest.pi.client.domain.pressure;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Oversampling ratio of the MS5837 ADC together with the maximum conversion time of the datasheet. A higher ratio lowers the noise of a
+ * sample at the cost of a longer conversion.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MS5837Oversampling
+{
+    OSR_256(256, 600), OSR_512(512, 1170), OSR_1024(1024, 2280), OSR_2048(2048, 4540), OSR_4096(4096, 9040), OSR_8192(8192, 18080);
+
+    private final int ratio;
+    private final int conversionTimeInMicroseconds;
+}
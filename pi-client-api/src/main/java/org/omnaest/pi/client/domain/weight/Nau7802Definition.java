@@ -2,12 +2,63 @@ package org.omnaest.pi.client.domain.weight;
 
 import org.omnaest.pi.client.PiClient.Interaction;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
 public interface Nau7802Definition extends Interaction
 {
     Nau7802Definition usingBus(int bus);
 
+    /**
+     * Defines the {@link WeightFilter} the conversions are fed through. Default is {@link WeightFilter#trimmedMean(int, double)} over 10
+     * conversions without the lowest and the highest one. Outside of the persistent mode every {@link #readValue()} feeds a burst of
+     * conversions through a fresh filter, only the persistent mode filters a continuous stream. A running persistent mode keeps the filter it
+     * has been started with.
+     *
+     * @param filter
+     * @return
+     */
+    Nau7802Definition withFilter(WeightFilter filter);
+
+    /**
+     * Reads the filtered ADC value. While the persistent mode is active on the bus, the running filtered value of the streamed conversions is
+     * returned without accessing the chip. Otherwise the chip is powered up for a one shot burst of conversions, which is filtered from
+     * scratch, so no filter state carries over between calls.
+     *
+     * @see #startPersistentMode(ConversionRate)
+     * @return
+     */
     int readValue();
 
     void calibrate();
 
+    /**
+     * Initializes the chip once and keeps it powered, converting continuously at the given {@link ConversionRate}. The conversions are
+     * streamed into a ring buffer in the background and filtered incrementally.
+     *
+     * @see #stopPersistentMode()
+     * @param conversionRate
+     */
+    void startPersistentMode(ConversionRate conversionRate);
+
+    /**
+     * Stops the persistent mode and powers the chip down
+     *
+     * @see #startPersistentMode(ConversionRate)
+     */
+    void stopPersistentMode();
+
+    /**
+     * Samples per second of the NAU7802 ADC
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static enum ConversionRate
+    {
+        _10SPS(0b000, 10), _20SPS(0b001, 20), _40SPS(0b010, 40), _80SPS(0b011, 80), _320SPS(0b111, 320);
+
+        private final int code;
+        private final int samplesPerSecond;
+    }
+
 }
@@ -0,0 +1,154 @@
+package org.omnaest.pi.client.domain.weight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration of the filter pipeline, which the conversions of a weight sensor are fed through one by one. The {@link Stage}s are applied
+ * in order, e.g. a running median to drop outliers followed by an exponential smoothing:
+ *
+ * <pre>
+ * WeightFilter.runningMedian(5)
+ *             .andThen(WeightFilter.exponentialSmoothing(0.2))
+ * </pre>
+ *
+ * @author omnaest
+ */
+@Data
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class WeightFilter
+{
+    @JsonProperty
+    private List<Stage> stages = new ArrayList<>();
+
+    /**
+     * Returns a new pipeline with the stages of the given {@link WeightFilter} appended
+     *
+     * @param filter
+     * @return
+     */
+    public WeightFilter andThen(WeightFilter filter)
+    {
+        List<Stage> stages = new ArrayList<>(this.stages);
+        stages.addAll(filter.getStages());
+        return new WeightFilter(stages);
+    }
+
+    /**
+     * Pipeline without any stage, which passes the raw conversions through
+     *
+     * @return
+     */
+    public static WeightFilter none()
+    {
+        return new WeightFilter(new ArrayList<>());
+    }
+
+    /**
+     * Median of the latest conversions within the given window
+     *
+     * @param window
+     * @return
+     */
+    public static WeightFilter runningMedian(int window)
+    {
+        return of(Stage.builder()
+                       .type(StageType.RUNNING_MEDIAN)
+                       .window(window)
+                       .build());
+    }
+
+    /**
+     * Mean of the latest conversions within the given window, after the given fraction of the lowest and the same fraction of the highest
+     * conversions has been dropped
+     *
+     * @param window
+     * @param trimFraction
+     *            between 0.0 and below 0.5
+     * @return
+     */
+    public static WeightFilter trimmedMean(int window, double trimFraction)
+    {
+        return of(Stage.builder()
+                       .type(StageType.TRIMMED_MEAN)
+                       .window(window)
+                       .trimFraction(trimFraction)
+                       .build());
+    }
+
+    /**
+     * @param alpha
+     *            weight of a new conversion between 0.0 and 1.0
+     * @return
+     */
+    public static WeightFilter exponentialSmoothing(double alpha)
+    {
+        return of(Stage.builder()
+                       .type(StageType.EXPONENTIAL_SMOOTHING)
+                       .alpha(alpha)
+                       .build());
+    }
+
+    /**
+     * One dimensional Kalman filter for a constant value
+     *
+     * @param processNoise
+     *            variance of the weight change between two conversions
+     * @param measurementNoise
+     *            variance of a single conversion
+     * @return
+     */
+    public static WeightFilter kalman(double processNoise, double measurementNoise)
+    {
+        return of(Stage.builder()
+                       .type(StageType.KALMAN)
+                       .processNoise(processNoise)
+                       .measurementNoise(measurementNoise)
+                       .build());
+    }
+
+    private static WeightFilter of(Stage stage)
+    {
+        return new WeightFilter(new ArrayList<>(Collections.singletonList(stage)));
+    }
+
+    public static enum StageType
+    {
+        RUNNING_MEDIAN, TRIMMED_MEAN, EXPONENTIAL_SMOOTHING, KALMAN
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    @AllArgsConstructor
+    public static class Stage
+    {
+        @JsonProperty
+        private StageType type;
+
+        @JsonProperty
+        private int       window;
+
+        @JsonProperty
+        private double    trimFraction;
+
+        @JsonProperty
+        private double    alpha;
+
+        @JsonProperty
+        private double    processNoise;
+
+        @JsonProperty
+        private double    measurementNoise;
+    }
+}
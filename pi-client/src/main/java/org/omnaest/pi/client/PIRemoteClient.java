@@ -8,6 +8,7 @@ import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.omnaest.pi.client.domain.flow.FlowSensorDefinition;
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderAddress;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderPort;
 import org.omnaest.pi.client.domain.gyro.Orientation;
@@ -61,6 +62,14 @@ public class PIRemoteClient implements PiClient
         int port = this.port;
 
         return new DigitalPortControl() {
+            @Override
+            public DigitalPortControl enableInput(DigitalInputFilter filter)
+            {
+                String url = "http://" + host + ":" + port + "/gpio/" + pin + "/digital/input/enable";
+                RestHelper.requestPut(url, JSONHelper.prettyPrint(filter));
+                return this;
+            }
+
             @Override
             public void setState(boolean state)
             {
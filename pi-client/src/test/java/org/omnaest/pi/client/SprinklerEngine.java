@@ -5,6 +5,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.omnaest.pi.client.PiClient.ServoControl;
 import org.omnaest.pi.client.SprinklerEngine.SprinklerHead.Speed;
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
 import org.omnaest.utils.MapUtils;
 import org.omnaest.utils.ThreadUtils;
 
@@ -91,12 +92,19 @@ public class SprinklerEngine
 
     public static class DiscEndSensors
     {
-        private final PiClient client;
+        /**
+         * The end switches are mechanical contacts, so their bouncing is filtered on the server
+         */
+        private static final DigitalInputFilter END_SENSOR_FILTER = DigitalInputFilter.debounce(20000);
+
+        private final PiClient                  client;
 
         public DiscEndSensors(PiClient client)
         {
             super();
             this.client = client;
+            this.client.forDigitalPort(0)
+                       .enableInput(END_SENSOR_FILTER);
         }
 
         public boolean isEndReached(Direction direction)
@@ -1,15 +1,29 @@
 package org.omnaest.pi.service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.omnaest.pi.domain.BMP180Measurement;
+import org.omnaest.pi.service.i2c.I2CService.BusNumber;
 
 public interface EnvironmentService
 {
+    /**
+     * Bus and address the BMP180 sensor is connected to
+     */
+    public static final BusNumber BUS_NUMBER     = BusNumber.BUS_1;
+    public static final int       DEVICE_ADDRESS = 0x77;
 
     public static interface BMP180Sensor
     {
         public Optional<BMP180Measurement> measure();
+
+        /**
+         * Non blocking variant of {@link #measure()}
+         * 
+         * @return
+         */
+        public CompletableFuture<Optional<BMP180Measurement>> measureAsync();
     }
 
     public Optional<BMP180Sensor> getOrCreateBMP180SensorInstance();
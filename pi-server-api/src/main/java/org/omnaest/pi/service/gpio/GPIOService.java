@@ -18,8 +18,16 @@
 */
 package org.omnaest.pi.service.gpio;
 
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+
+import lombok.Builder;
+import lombok.Value;
+
 public interface GPIOService
 {
     public void enableGPIOPort(int port, boolean active);
@@ -36,6 +44,48 @@ public interface GPIOService
 
     public PwmGPIOPort getPwmGPIOPort(int port);
 
+    /**
+     * Returns a {@link DigitalOutputGPIOPortGroup} of the given ports. The bit index of a port within the masks of the group is its position
+     * within the given ports.
+     *
+     * @param ports
+     *            up to 64 ports
+     * @return
+     */
+    public DigitalOutputGPIOPortGroup getDigitalOutputGPIOPortGroup(int... ports);
+
+    /**
+     * Returns a {@link DigitalInputGPIOPortGroup} of the given ports. The bit index of a port within the states of the group is its position
+     * within the given ports.
+     *
+     * @param ports
+     *            up to 64 ports
+     * @return
+     */
+    public DigitalInputGPIOPortGroup getDigitalInputGPIOPortGroup(int... ports);
+
+    /**
+     * Returns the {@link DigitalInputMetrics} of all enabled digital input ports
+     *
+     * @return
+     */
+    public List<DigitalInputMetrics> getDigitalInputMetrics();
+
+    /**
+     * Counters of the edges of a digital input port since it has been enabled
+     *
+     * @see DigitalInputFilter
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class DigitalInputMetrics
+    {
+        private final int  port;
+        private final long numberOfAcceptedEdges;
+        private final long numberOfRejectedGlitches;
+    }
+
     public static interface DigitalGPIOPort
     {
         /**
@@ -65,12 +115,22 @@ public interface GPIOService
         public DigitalInputGPIOPort disable();
 
         /**
-         * Returns true for high signal and false for a low signal
+         * Returns true for high signal and false for a low signal. If a {@link DigitalInputFilter} is configured, this is the level after the
+         * last accepted edge.
          * 
          * @return
          */
         public boolean getState();
 
+        /**
+         * Filters the edges of this port before they reach the listeners and the recorded edges. Call this before {@link #enable()}, if the
+         * port is enabled already, the new filter replaces the current one with the next call of {@link #enable()}.
+         *
+         * @param filter
+         * @return
+         */
+        public DigitalInputGPIOPort withInputFilter(DigitalInputFilter filter);
+
         /**
          * Disables any resistance. Call this before {@link #enable()} otherwise this will throw an {@link IllegalArgumentException}.
          * 
@@ -99,6 +159,50 @@ public interface GPIOService
 
         public boolean isEnabled();
 
+        /**
+         * Returns a {@link DigitalInputPinHandle} of this port, which has to be enabled
+         *
+         * @return
+         * @throws IllegalStateException
+         *             if the port is not enabled
+         */
+        public DigitalInputPinHandle asPinHandle();
+
+        /**
+         * Starts to record the edges of this enabled port into a preallocated ring buffer of the given capacity, which a single consumer drains
+         * in batches via the returned {@link DigitalInputEdgeRecorder}. Recording neither allocates per edge nor runs consumer code on the
+         * thread, which delivers the edges.<br>
+         * <br>
+         * If the edges of the port are recorded already, the existing {@link DigitalInputEdgeRecorder} is returned. Disabling the port stops
+         * the recording.
+         *
+         * @param capacity
+         *            number of edges, which is rounded up to the next power of two
+         * @return
+         * @throws IllegalStateException
+         *             if the port is not enabled
+         */
+        public DigitalInputEdgeRecorder recordEdges(int capacity);
+
+        public DigitalInputGPIOPort stopRecordingEdges();
+
+        /**
+         * Starts to measure the pulses of this enabled port from the timestamps of its edges, so the pulse widths and periods are available via
+         * the returned {@link DigitalInputPulseMeter} without polling the pin.<br>
+         * <br>
+         * If the pulses of the port are measured already, the existing {@link DigitalInputPulseMeter} is returned. Disabling the port stops
+         * the measurement.
+         *
+         * @param windowSize
+         *            number of periods, the rolling period is averaged over
+         * @return
+         * @throws IllegalStateException
+         *             if the port is not enabled
+         */
+        public DigitalInputPulseMeter measurePulses(int windowSize);
+
+        public DigitalInputGPIOPort stopMeasuringPulses();
+
         public static class DigitalInputPinStateChange
         {
             private boolean previous;
@@ -178,6 +282,268 @@ public interface GPIOService
          * @return
          */
         public boolean isEnabled();
+
+        /**
+         * Returns a {@link DigitalOutputPinHandle} of this port, which has to be enabled
+         *
+         * @return
+         * @throws IllegalStateException
+         *             if the port is not enabled
+         */
+        public DigitalOutputPinHandle asPinHandle();
+    }
+
+    /**
+     * Handle of an enabled digital output port for hot paths like bit banging. The pin is resolved once, when the handle is created, so a
+     * call neither looks the port up nor logs, except of a sampled trace log line. A handle is meant to be used by a single thread and
+     * becomes invalid when its port is disabled.
+     *
+     * @see DigitalOutputGPIOPort#asPinHandle()
+     */
+    public static interface DigitalOutputPinHandle
+    {
+        public int getPort();
+
+        /**
+         * Returns true for high signal and false for a low signal
+         *
+         * @return
+         */
+        public boolean getState();
+
+        /**
+         * True sets the output signal to high/active, false to low
+         *
+         * @param active
+         */
+        public void setState(boolean active);
+    }
+
+    /**
+     * Consumer side of the edges recorded by {@link DigitalInputGPIOPort#recordEdges(int)}. Every edge is recorded as pair of the
+     * {@link System#nanoTime()} when the interrupt of the edge has been reported and the level after the edge. If the consumer falls behind
+     * and the buffer is full, new edges are dropped and counted, so the drained edges are always in order and without gaps in between.<br>
+     * <br>
+     * The timestamps are not the exact time of the edge. On a Raspberry Pi the interrupt is reported by a native thread waiting for it, so a
+     * timestamp lags the edge by the wake up latency of that thread, which is typically some ten microseconds and can be more under load.
+     * This latency is the resolution of the recorded edges and of the {@link DigitalInputPulseMeter}.<br>
+     * <br>
+     * The drain methods must only be called by a single consumer thread.
+     */
+    public static interface DigitalInputEdgeRecorder
+    {
+        public int getPort();
+
+        public int getCapacity();
+
+        /**
+         * Moves the recorded edges from the oldest to the latest one into the given arrays, at most as many as the shorter array can hold
+         *
+         * @param timestamps
+         * @param levels
+         * @return the number of edges moved into the arrays
+         */
+        public int drainTo(long[] timestamps, boolean[] levels);
+
+        /**
+         * Passes all recorded edges from the oldest to the latest one to the given {@link EdgeConsumer}
+         *
+         * @param consumer
+         * @return the number of consumed edges
+         */
+        public int drain(EdgeConsumer consumer);
+
+        /**
+         * Returns the number of edges, which have been dropped since the start of the recording, because the buffer was full
+         *
+         * @return
+         */
+        public long getNumberOfDroppedEdges();
+
+        @FunctionalInterface
+        public static interface EdgeConsumer
+        {
+            /**
+             * @param timestamp
+             *            {@link System#nanoTime()} of the edge
+             * @param level
+             *            true for a high signal after the edge
+             */
+            public void accept(long timestamp, boolean level);
+        }
+    }
+
+    /**
+     * Pulse measurement of a digital input port, which is based on the {@link System#nanoTime()} timestamps of the accepted edges. All
+     * durations are in nanoseconds and have the resolution of the edge timestamps, see {@link DigitalInputEdgeRecorder}.<br>
+     * <br>
+     * The rolling period is measured between consecutive rising edges and can be read by any thread. A pulse width measurement can be armed
+     * and awaited by different threads. The awaiting thread is parked while it waits, so no cpu core is held in a spin loop.
+     *
+     * @see DigitalInputGPIOPort#measurePulses(int)
+     */
+    public static interface DigitalInputPulseMeter
+    {
+        public int getPort();
+
+        /**
+         * Arms the measurement of the next pulse of the given level, which starts after this call. Arming again discards the previous
+         * measurement.
+         *
+         * @param level
+         *            true for a high pulse, false for a low pulse
+         * @return
+         */
+        public DigitalInputPulseMeter armPulseWidth(boolean level);
+
+        /**
+         * Waits for the end of the pulse armed by {@link #armPulseWidth(boolean)} and returns its width
+         *
+         * @param timeout
+         *            maximum time to wait for the start and the end of the pulse
+         * @param timeUnit
+         * @return the pulse width in nanoseconds, or empty if the timeout has been reached
+         * @throws IllegalStateException
+         *             if no pulse width measurement is armed
+         */
+        public OptionalLong awaitPulseWidth(long timeout, TimeUnit timeUnit);
+
+        /**
+         * Measures the width of the next pulse of the given level
+         *
+         * @see #armPulseWidth(boolean)
+         * @see #awaitPulseWidth(long, TimeUnit)
+         * @param level
+         * @param timeout
+         * @param timeUnit
+         * @return
+         */
+        public default OptionalLong measurePulseWidth(boolean level, long timeout, TimeUnit timeUnit)
+        {
+            return this.armPulseWidth(level)
+                       .awaitPulseWidth(timeout, timeUnit);
+        }
+
+        /**
+         * Returns the average period of the last rising edges in nanoseconds, or 0 if less than two rising edges have been measured. If the
+         * time since the last rising edge exceeds the average period, this time is returned instead, so the period grows when the pulses stop.
+         *
+         * @return
+         */
+        public long getPeriod();
+
+        /**
+         * Returns the frequency in Hz derived from {@link #getPeriod()}, or 0.0 if no period has been measured yet
+         *
+         * @return
+         */
+        public double getFrequency();
+    }
+
+    /**
+     * Handle of an enabled digital input port for hot paths like polling a signal edge
+     *
+     * @see DigitalOutputPinHandle
+     * @see DigitalInputGPIOPort#asPinHandle()
+     */
+    public static interface DigitalInputPinHandle
+    {
+        public int getPort();
+
+        /**
+         * Returns true for high signal and false for a low signal
+         *
+         * @return
+         */
+        public boolean getState();
+    }
+
+    /**
+     * Group of digital output ports, which are changed together by a single operation
+     *
+     * @see GPIOService#getDigitalOutputGPIOPortGroup(int...)
+     */
+    public static interface DigitalOutputGPIOPortGroup
+    {
+        public DigitalOutputGPIOPortGroup enable();
+
+        public DigitalOutputGPIOPortGroup disable();
+
+        public List<Integer> getPorts();
+
+        /**
+         * Sets the ports of the set mask to high and the ports of the clear mask to low in a single operation. Ports in neither mask keep
+         * their state. If the platform can not change all ports at the same instant, the ports of the clear mask are changed first, so
+         * mutually exclusive ports are never high together.
+         *
+         * @param setMask
+         * @param clearMask
+         * @return
+         * @throws IllegalArgumentException
+         *             if the masks overlap or address a bit beyond the ports of the group
+         */
+        public DigitalOutputGPIOPortGroup setStates(long setMask, long clearMask);
+
+        /**
+         * Sets all ports of the group to the given states, a set bit for high and a cleared bit for low
+         *
+         * @see #setStates(long, long)
+         * @param states
+         * @return
+         */
+        public DigitalOutputGPIOPortGroup setStates(long states);
+
+        /**
+         * Returns the states of all ports of the group, a set bit for high and a cleared bit for low
+         *
+         * @return
+         */
+        public long getStates();
+    }
+
+    /**
+     * Group of digital input ports, which are sampled together by a single operation
+     *
+     * @see GPIOService#getDigitalInputGPIOPortGroup(int...)
+     */
+    public static interface DigitalInputGPIOPortGroup
+    {
+        public DigitalInputGPIOPortGroup enable();
+
+        public DigitalInputGPIOPortGroup disable();
+
+        /**
+         * Call this before {@link #enable()}
+         *
+         * @see DigitalInputGPIOPort#withNoPullResistance()
+         * @return
+         */
+        public DigitalInputGPIOPortGroup withNoPullResistance();
+
+        /**
+         * Call this before {@link #enable()}
+         *
+         * @see DigitalInputGPIOPort#withPullDownResistance()
+         * @return
+         */
+        public DigitalInputGPIOPortGroup withPullDownResistance();
+
+        /**
+         * Call this before {@link #enable()}. This is enabled by default.
+         *
+         * @see DigitalInputGPIOPort#withPullUpResistance()
+         * @return
+         */
+        public DigitalInputGPIOPortGroup withPullUpResistance();
+
+        public List<Integer> getPorts();
+
+        /**
+         * Returns the states of all ports of the group sampled together, a set bit for high and a cleared bit for low
+         *
+         * @return
+         */
+        public long getStates();
     }
 
     public static interface PwmGPIOPort
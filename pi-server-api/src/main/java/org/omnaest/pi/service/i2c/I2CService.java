@@ -1,14 +1,23 @@
 package org.omnaest.pi.service.i2c;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import org.omnaest.utils.bitset.Bits;
 
+import lombok.Builder;
+import lombok.Value;
+
 public interface I2CService
 {
     public static class ByteArray implements Supplier<byte[]>
@@ -67,29 +76,203 @@ public interface I2CService
 
         public int asIntFromMsbToLsb()
         {
-            return this.asIntStreamFromMsbToLsb()
-                       .findFirst()
-                       .orElse(0);
+            return this.data.length >= 2 ? this.asIntFromMsbToLsb(0) : 0;
         }
 
         public int[] asIntArrayFromMsbToLsb()
         {
-            return IntStream.range(0, this.data.length / 2)
-                            .map(startIndex -> startIndex * 2)
-                            .map(startIndex -> this.asIntFromMsbToLsb(startIndex))
-                            .toArray();
+            int[] result = new int[this.data.length / 2];
+            for (int ii = 0; ii < result.length; ii++)
+            {
+                result[ii] = decodeUnsignedInt16(this.data, ii * 2, ByteOrder.BIG_ENDIAN);
+            }
+            return result;
         }
 
         public IntStream asIntStreamFromMsbToLsb()
         {
-            int[] values = this.asIntArrayFromMsbToLsb();
-            return IntStream.range(0, values.length)
-                            .map(i -> values[i]);
+            return IntStream.of(this.asIntArrayFromMsbToLsb());
+        }
+
+        /**
+         * Similar to {@link #decodeInt16(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public int asInt16(int index, ByteOrder byteOrder)
+        {
+            return decodeInt16(this.data, index, byteOrder);
+        }
+
+        /**
+         * Similar to {@link #decodeUnsignedInt16(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public int asUnsignedInt16(int index, ByteOrder byteOrder)
+        {
+            return decodeUnsignedInt16(this.data, index, byteOrder);
+        }
+
+        /**
+         * Similar to {@link #decodeInt24(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public int asInt24(int index, ByteOrder byteOrder)
+        {
+            return decodeInt24(this.data, index, byteOrder);
+        }
+
+        /**
+         * Similar to {@link #decodeUnsignedInt24(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public int asUnsignedInt24(int index, ByteOrder byteOrder)
+        {
+            return decodeUnsignedInt24(this.data, index, byteOrder);
+        }
+
+        /**
+         * Similar to {@link #decodeInt32(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public int asInt32(int index, ByteOrder byteOrder)
+        {
+            return decodeInt32(this.data, index, byteOrder);
+        }
+
+        /**
+         * Similar to {@link #decodeUnsignedInt32(byte[], int, ByteOrder)}
+         * 
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public long asUnsignedInt32(int index, ByteOrder byteOrder)
+        {
+            return decodeUnsignedInt32(this.data, index, byteOrder);
+        }
+
+        /**
+         * Decodes the two bytes starting at the given index as signed 16 bit integer in two's complement. The decode helpers do not allocate
+         * any memory and can be used on reused read buffers.
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static int decodeInt16(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return (decodeUnsignedInt16(data, index, byteOrder) << 16) >> 16;
+        }
+
+        /**
+         * Decodes the two bytes starting at the given index as unsigned 16 bit integer
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static int decodeUnsignedInt16(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return (int) decodeUnsigned(data, index, 2, byteOrder);
+        }
+
+        /**
+         * Decodes the three bytes starting at the given index as signed 24 bit integer in two's complement
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static int decodeInt24(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return (decodeUnsignedInt24(data, index, byteOrder) << 8) >> 8;
+        }
+
+        /**
+         * Decodes the three bytes starting at the given index as unsigned 24 bit integer
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static int decodeUnsignedInt24(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return (int) decodeUnsigned(data, index, 3, byteOrder);
+        }
+
+        /**
+         * Decodes the four bytes starting at the given index as signed 32 bit integer in two's complement
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static int decodeInt32(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return (int) decodeUnsigned(data, index, 4, byteOrder);
+        }
+
+        /**
+         * Decodes the four bytes starting at the given index as unsigned 32 bit integer
+         * 
+         * @param data
+         * @param index
+         * @param byteOrder
+         * @return
+         */
+        public static long decodeUnsignedInt32(byte[] data, int index, ByteOrder byteOrder)
+        {
+            return decodeUnsigned(data, index, 4, byteOrder);
+        }
+
+        private static long decodeUnsigned(byte[] data, int index, int numberOfBytes, ByteOrder byteOrder)
+        {
+            long result = 0;
+            if (ByteOrder.BIG_ENDIAN.equals(byteOrder))
+            {
+                for (int ii = 0; ii < numberOfBytes; ii++)
+                {
+                    result = (result << 8) | (data[index + ii] & 0xFF);
+                }
+            }
+            else
+            {
+                for (int ii = numberOfBytes - 1; ii >= 0; ii--)
+                {
+                    result = (result << 8) | (data[index + ii] & 0xFF);
+                }
+            }
+            return result;
         }
     }
 
     public static interface AddressConnector
     {
+        /**
+         * Timeout of {@link #waitUntil(Predicate)} and {@link #waitUntilBitIsTrue(int, byte)}
+         */
+        public static final int DEFAULT_WAIT_TIMEOUT_IN_MILLISECONDS = 10000;
+
         /**
          * Reads a given number of bytes from the given address and start offset
          * 
@@ -109,6 +292,28 @@ public interface I2CService
          */
         public Optional<ByteArray> read(int start, int size);
 
+        /**
+         * Reads the given number of bytes from the given local address into the given buffer starting at the given offset. In contrast to
+         * {@link #read(int, int, int)} this does not allocate any memory, so a buffer can be reused for high frequency sampling.
+         * 
+         * @param localAddress
+         * @param buffer
+         * @param offset
+         * @param size
+         * @return true, if the read succeeded
+         */
+        public boolean read(int localAddress, byte[] buffer, int offset, int size);
+
+        /**
+         * Similar to {@link #read(int, byte[], int, int)} filling the remaining bytes of the given {@link ByteBuffer}. On success the position of
+         * the {@link ByteBuffer} is advanced to its limit.
+         * 
+         * @param localAddress
+         * @param buffer
+         * @return true, if the read succeeded
+         */
+        public boolean read(int localAddress, ByteBuffer buffer);
+
         public AddressConnector write(int localAddress, byte... data);
 
         /**
@@ -121,11 +326,403 @@ public interface I2CService
 
         public AddressConnector wait(int duration, TimeUnit timeUnit);
 
+        /**
+         * Similar to {@link #waitUntil(Predicate, int, TimeUnit)} with a timeout of {@value #DEFAULT_WAIT_TIMEOUT_IN_MILLISECONDS} milliseconds
+         * 
+         * @param predicate
+         * @return
+         */
         public AddressConnector waitUntil(Predicate<AddressConnector> predicate);
 
+        /**
+         * Blocks until the given {@link Predicate} is true. The points in time the {@link Predicate} is checked at are determined by the
+         * {@link WaitStrategy} of this connector. Throws an {@link IllegalStateException} if the {@link Predicate} is still false after the given
+         * timeout.
+         * 
+         * @see #withWaitStrategy(WaitStrategy)
+         * @param predicate
+         * @param timeout
+         * @param timeUnit
+         * @return
+         */
+        public AddressConnector waitUntil(Predicate<AddressConnector> predicate, int timeout, TimeUnit timeUnit);
+
         public AddressConnector waitUntilBitIsTrue(int localAddress, byte mask);
 
         public Register accessRegister(int localAddress);
+
+        /**
+         * Similar to {@link #accessRegister(int)} but backed by a per device shadow copy of the register held in memory. Reads are served from the
+         * shadow copy once it is populated and bit writes only modify the shadow copy before sending the final byte to the device, so a
+         * read-modify-write costs a single bus transaction instead of two.<br>
+         * <br>
+         * Only use this for configuration registers which are exclusively changed by the host. Status registers whose bits are changed by the chip
+         * itself (e.g. ready or error flags) or self clearing bits (e.g. software reset) have to be accessed via {@link #accessRegister(int)}.
+         * 
+         * @see #invalidateRegisterCache()
+         * @param localAddress
+         * @return
+         */
+        public Register accessCachedRegister(int localAddress);
+
+        /**
+         * Drops all shadow register values held for this device, so that the next access of a cached register reads the device again. Call this
+         * after the chip has been reset, as a reset restores the register defaults behind the back of the shadow copies.
+         * 
+         * @see #accessCachedRegister(int)
+         * @return
+         */
+        public AddressConnector invalidateRegisterCache();
+
+        /**
+         * Returns a new {@link Transaction} builder which queues writes, reads and delays and executes them in order while holding the device
+         * exclusively. This saves the locking and scheduling per step, but every read and write stays a bus transaction of its own, except
+         * the combined write-then-read messages described at {@link Transaction}.
+         * 
+         * @return
+         */
+        public Transaction transaction();
+
+        /**
+         * Returns a view on this {@link AddressConnector} whose bus accesses are scheduled with the given {@link Priority}. The view shares the
+         * device lock and the shadow register cache with this {@link AddressConnector}. Connectors of an unscheduled bus ignore the
+         * {@link Priority}.
+         * 
+         * @param priority
+         * @return
+         */
+        public AddressConnector withPriority(Priority priority);
+
+        /**
+         * Returns the {@link AsyncAddressConnector} view of this {@link AddressConnector}
+         * 
+         * @return
+         */
+        public AsyncAddressConnector async();
+
+        /**
+         * Returns a view on this {@link AddressConnector} whose {@link #waitUntil(Predicate)}, {@link #waitUntilBitIsTrue(int, byte)} and
+         * {@link AsyncAddressConnector#waitUntilAsync(Predicate, int, TimeUnit)} follow the given {@link WaitStrategy}. Like
+         * {@link #withPriority(Priority)} the view shares the device lock, the shadow register cache and the wait statistics with this
+         * {@link AddressConnector}, which keeps its own {@link WaitStrategy}. The default strategy checks the condition every 10 milliseconds.
+         * 
+         * @param waitStrategy
+         * @return
+         */
+        public AddressConnector withWaitStrategy(WaitStrategy waitStrategy);
+
+        /**
+         * Returns the name of the current {@link WaitStrategy} together with the measured wait times of this device
+         * 
+         * @return
+         */
+        public WaitStatistics getWaitStatistics();
+    }
+
+    /**
+     * Determines when a waiting {@link AddressConnector} checks the condition it waits for, e.g. a data ready flag of a sensor. A strategy
+     * driven by a data ready pin of the device ends a delay as soon as the device signals readiness.
+     * 
+     * @see AddressConnector#withWaitStrategy(WaitStrategy)
+     * @author Danny Kunz
+     */
+    public static interface WaitStrategy
+    {
+        public String getName();
+
+        /**
+         * Returns the delay in nanoseconds before the condition is checked for the given time. The first check has the index 0 and a delay of 0
+         * checks immediately.
+         * 
+         * @param checkIndex
+         * @return
+         */
+        public long getDelayBeforeCheckInNanos(int checkIndex);
+
+        /**
+         * Blocks the current thread for at most the given delay
+         * 
+         * @param delayInNanos
+         */
+        public void awaitDelay(long delayInNanos);
+
+        /**
+         * Registers a listener which is called once as soon as the device signals readiness. Returns {@link Optional#empty()}, if this
+         * {@link WaitStrategy} has no such signal, so the caller has to rely on {@link #getDelayBeforeCheckInNanos(int)} alone. A listener which
+         * is not needed anymore, e.g. because the wait timed out, has to be removed via the returned {@link ReadyListenerRegistration}.
+         * 
+         * @param listener
+         * @return
+         */
+        public default Optional<ReadyListenerRegistration> addReadyListener(Runnable listener)
+        {
+            return Optional.empty();
+        }
+
+        /**
+         * Handle of a listener registered via {@link WaitStrategy#addReadyListener(Runnable)}
+         * 
+         * @author Danny Kunz
+         */
+        public static interface ReadyListenerRegistration
+        {
+            /**
+             * Removes the listener, if it has not been called yet
+             */
+            public void remove();
+        }
+    }
+
+    /**
+     * Measured wait times of a single device
+     * 
+     * @see AddressConnector#getWaitStatistics()
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class WaitStatistics
+    {
+        private final String waitStrategy;
+        private final long   numberOfWaits;
+        private final long   numberOfChecks;
+        private final long   numberOfTimeouts;
+        private final double averageWaitTimeInMilliseconds;
+        private final double maxWaitTimeInMilliseconds;
+    }
+
+    /**
+     * Non blocking variant of the {@link AddressConnector}. Bus accesses are executed on a small I/O executor of the bus and delays and polls
+     * are scheduled on a shared timer, so no thread is parked while a sensor conversion is running.
+     * 
+     * @see AddressConnector#async()
+     * @author Danny Kunz
+     */
+    public static interface AsyncAddressConnector
+    {
+        /**
+         * Reads the given number of bytes from the given local address. The returned {@link CompletableFuture} completes exceptionally with an
+         * {@link IllegalStateException} if the read failed.
+         * 
+         * @param localAddress
+         * @param size
+         * @return
+         */
+        public CompletableFuture<ByteArray> readAsync(int localAddress, int size);
+
+        public CompletableFuture<AsyncAddressConnector> writeAsync(int localAddress, byte... data);
+
+        /**
+         * Similar to {@link #writeAsync(int, byte...)} without any local address
+         * 
+         * @param data
+         * @return
+         */
+        public CompletableFuture<AsyncAddressConnector> writeAsync(byte... data);
+
+        /**
+         * Returns a {@link CompletableFuture} which completes after the given duration without blocking any thread
+         * 
+         * @param duration
+         * @param timeUnit
+         * @return
+         */
+        public CompletableFuture<AsyncAddressConnector> delayAsync(int duration, TimeUnit timeUnit);
+
+        /**
+         * Polls the given {@link Predicate} until it is true. The returned {@link CompletableFuture} completes exceptionally with a
+         * {@link java.util.concurrent.TimeoutException} if the {@link Predicate} is still false after the given timeout.
+         * 
+         * @param predicate
+         * @param timeout
+         * @param timeUnit
+         * @return
+         */
+        public CompletableFuture<AsyncAddressConnector> waitUntilAsync(Predicate<AddressConnector> predicate, int timeout, TimeUnit timeUnit);
+
+        /**
+         * Executes the given operation against the blocking {@link AddressConnector} on the I/O executor, e.g. to access registers
+         * 
+         * @param operation
+         * @return
+         */
+        public <R> CompletableFuture<R> supplyAsync(Function<AddressConnector, R> operation);
+
+        /**
+         * Returns the blocking {@link AddressConnector}
+         * 
+         * @return
+         */
+        public AddressConnector sync();
+    }
+
+    /**
+     * Priority class of a bus access. A scheduled bus always executes the waiting access of the highest priority class first and in order of
+     * submission within the same class. Accesses of a lower class which wait for too long are executed nevertheless, so background sampling
+     * can not starve completely.
+     * 
+     * @author Danny Kunz
+     */
+    public static enum Priority
+    {
+        /**
+         * Time critical output, e.g. servo or motor updates
+         */
+        ACTUATOR,
+
+        /**
+         * Reads a caller is waiting for, e.g. a REST or MCP request. This is the default.
+         */
+        INTERACTIVE,
+
+        /**
+         * Periodic sampling in the background
+         */
+        BACKGROUND
+    }
+
+    /**
+     * Queue depth and wait time metrics of the command scheduler of a single bus
+     * 
+     * @see I2CBusControl#getSchedulerStatistics()
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class BusSchedulerStatistics
+    {
+        private final int                      busNumber;
+        private final int                      queueDepth;
+        private final List<PriorityStatistics> priorityStatistics;
+    }
+
+    @Value
+    @Builder
+    public static class PriorityStatistics
+    {
+        private final Priority priority;
+        private final int      queueDepth;
+        private final long     numberOfExecutedCommands;
+        private final double   averageWaitTimeInMilliseconds;
+        private final double   maxWaitTimeInMilliseconds;
+    }
+
+    /**
+     * Builder for a batch of I2C operations against a single device. Nothing is sent to the device until {@link #execute()} is called. The
+     * steps are executed in order while the device is locked, so no other caller can interleave its own operations. A read with a local
+     * address and a raw write directly followed by a raw read are each sent as a single combined write-then-read message with repeated
+     * start, all other reads and writes are sent as messages of their own.
+     * 
+     * @see AddressConnector#transaction()
+     * @author Danny Kunz
+     */
+    public static interface Transaction
+    {
+        /**
+         * Queues a write of the given data to the given local address
+         * 
+         * @param localAddress
+         * @param data
+         * @return
+         */
+        public Transaction write(int localAddress, byte... data);
+
+        /**
+         * Queues a write of the given raw data without any local address, e.g. a single command byte
+         * 
+         * @param data
+         * @return
+         */
+        public Transaction write(byte... data);
+
+        /**
+         * Queues a read of the given number of bytes from the given local address. The result is available from the {@link TransactionResult} at
+         * the index of this read within all queued reads.
+         * 
+         * @param localAddress
+         * @param size
+         * @return
+         */
+        public Transaction read(int localAddress, int size);
+
+        /**
+         * Queues a raw read of the given number of bytes without sending any local address before
+         * 
+         * @param size
+         * @return
+         */
+        public Transaction read(int size);
+
+        /**
+         * Queues a delay, e.g. to wait for a conversion to be finished
+         * 
+         * @param duration
+         * @param timeUnit
+         * @return
+         */
+        public Transaction delay(int duration, TimeUnit timeUnit);
+
+        /**
+         * Queues a poll of the given local address until the bit of the given mask is set
+         * 
+         * @see AddressConnector#waitUntilBitIsTrue(int, byte)
+         * @param localAddress
+         * @param mask
+         * @return
+         */
+        public Transaction waitUntilBitIsTrue(int localAddress, byte mask);
+
+        /**
+         * Executes all queued steps. Returns {@link Optional#empty()} if any of the reads failed.
+         * 
+         * @throws IllegalStateException
+         *             if a write failed
+         * @return
+         */
+        public Optional<TransactionResult> execute();
+    }
+
+    /**
+     * Result of {@link Transaction#execute()} holding all read buffers in the order the reads were queued
+     * 
+     * @author Danny Kunz
+     */
+    public static class TransactionResult
+    {
+        private final List<ByteArray> reads;
+
+        public TransactionResult(List<ByteArray> reads)
+        {
+            super();
+            this.reads = Collections.unmodifiableList(reads);
+        }
+
+        /**
+         * Returns the {@link ByteArray} of the read at the given index within all queued reads of the {@link Transaction}
+         * 
+         * @param index
+         * @return
+         */
+        public ByteArray get(int index)
+        {
+            return this.reads.get(index);
+        }
+
+        public int size()
+        {
+            return this.reads.size();
+        }
+
+        public List<ByteArray> asList()
+        {
+            return this.reads;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "TransactionResult [reads=" + this.reads + "]";
+        }
     }
 
     public static interface Register
@@ -155,8 +752,18 @@ public interface I2CService
         public void writeValue(int value);
     }
 
+    /**
+     * Accessor of a bit field within one or more consecutive register bytes. The bytes are mapped onto a bit sequence starting with the lowest
+     * bit of the first byte, so bit index 8 is the lowest bit of the second byte. All number based reads and writes are plain shifts and masks
+     * on primitive values, {@link Bits} are only created by {@link #read()}.
+     */
     public static interface RegisterBits
     {
+        /**
+         * Reads the {@link RegisterBits} as {@link Bits}. Prefer the number based reads, as those do not allocate any {@link Bits}.
+         * 
+         * @return
+         */
         public Bits read();
 
         /**
@@ -180,6 +787,20 @@ public interface I2CService
          */
         public int readAsBigEndianSignedInteger();
 
+        /**
+         * Similar to {@link #readAsBigEndianUnsignedInteger()} for up to 64 bits
+         * 
+         * @return
+         */
+        public long readAsBigEndianUnsignedLong();
+
+        /**
+         * Similar to {@link #readAsLittleEndianUnsignedInteger()} for up to 64 bits
+         * 
+         * @return
+         */
+        public long readAsLittleEndianUnsignedLong();
+
         public RegisterBits write(Bits bits);
 
         /**
@@ -189,11 +810,48 @@ public interface I2CService
          * @return
          */
         public RegisterBits write(int value);
+
+        /**
+         * Writes the lowest bits of the given long value
+         * 
+         * @param value
+         * @return
+         */
+        public RegisterBits write(long value);
     }
 
     public static interface I2CBusControl
     {
         public Optional<AddressConnector> connectTo(int deviceAddress);
+
+        /**
+         * Returns the {@link BusSchedulerStatistics} of the command scheduler which serializes all accesses of this bus, or
+         * {@link Optional#empty()} if the bus is not scheduled.
+         * 
+         * @return
+         */
+        public Optional<BusSchedulerStatistics> getSchedulerStatistics();
+
+        /**
+         * Returns true, if a device acknowledges the given address. In contrast to {@link #connectTo(int)} a probe does not create a connector,
+         * is not recorded in the {@link I2CMetrics} and ignores the circuit breaker of the device, so a whole bus can be scanned without
+         * counting every empty address as error. On a scheduled bus the probe runs with {@link Priority#BACKGROUND} and holds the device lock
+         * of the address, so it never interleaves with a {@link Transaction} of a connected device.
+         * 
+         * @param deviceAddress
+         * @return
+         */
+        public boolean probe(int deviceAddress);
+
+        /**
+         * Similar to {@link #probe(int)} reading a single register, e.g. a WHO_AM_I or chip id register to identify the device. The register
+         * pointer is written to the device, so this must not be used on command based devices like the MS5837.
+         * 
+         * @param deviceAddress
+         * @param localAddress
+         * @return {@link Optional#empty()} if the device does not respond
+         */
+        public Optional<Byte> probe(int deviceAddress, int localAddress);
     }
 
     public static enum BusNumber
@@ -204,4 +862,104 @@ public interface I2CService
     public Optional<I2CBusControl> provision(int busNumber);
 
     public Optional<I2CBusControl> provision(BusNumber busNumber);
+
+    /**
+     * Returns the numbers of all buses which have been provisioned successfully, in ascending order
+     * 
+     * @return
+     */
+    public List<Integer> getProvisionedBusNumbers();
+
+    /**
+     * Returns the {@link I2CMetrics} of all provisioned buses and their connected devices since the start of the service
+     * 
+     * @return
+     */
+    public I2CMetrics getMetrics();
+
+    /**
+     * Counters and latency histograms of all I2C buses
+     * 
+     * @see I2CService#getMetrics()
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class I2CMetrics
+    {
+        private final List<BusMetrics> buses;
+    }
+
+    /**
+     * Metrics of a single bus, aggregated over all of its devices. The bus occupancy is the share of time since the bus was provisioned in
+     * which a read or write was running on the bus.
+     * 
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class BusMetrics
+    {
+        private final int                 busNumber;
+        private final double              busOccupancyInPercent;
+        private final long                bytesRead;
+        private final long                bytesWritten;
+        private final long                numberOfErrors;
+        private final long                numberOfNacks;
+        private final long                numberOfRejections;
+        private final LatencyStatistics   read;
+        private final LatencyStatistics   write;
+        private final LatencyStatistics   wait;
+        private final List<DeviceMetrics> devices;
+    }
+
+    /**
+     * Metrics of a single device. Accesses which are rejected by the open circuit breaker of the device are counted as rejections, not as
+     * errors.
+     * 
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class DeviceMetrics
+    {
+        private final int                 deviceAddress;
+        private final long                bytesRead;
+        private final long                bytesWritten;
+        private final long                numberOfErrors;
+        private final long                numberOfNacks;
+        private final CircuitBreakerState circuitBreakerState;
+        private final long                numberOfCircuitBreakerTrips;
+        private final long                numberOfRejections;
+        private final LatencyStatistics   read;
+        private final LatencyStatistics   write;
+        private final LatencyStatistics   wait;
+    }
+
+    /**
+     * State of the circuit breaker of a single device. A device trips into {@link #OPEN} after a number of consecutive failed accesses and
+     * rejects all accesses immediately, until after a cooldown a single {@link #HALF_OPEN} probing access decides whether it is
+     * {@link #CLOSED} again.
+     */
+    public static enum CircuitBreakerState
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Latency distribution of a single kind of operation, the percentiles are resolved with a relative error of at most about 6 percent
+     * 
+     * @author Danny Kunz
+     */
+    @Value
+    @Builder
+    public static class LatencyStatistics
+    {
+        private final long   count;
+        private final double averageInMicroseconds;
+        private final double p50InMicroseconds;
+        private final double p90InMicroseconds;
+        private final double p99InMicroseconds;
+        private final double maxInMicroseconds;
+    }
 }
@@ -52,14 +52,51 @@ public interface I2CSimulationControl
     public Optional<byte[]> readRegister(int busNumber, int deviceAddress, int localAddress, int size);
 
     /**
-     * Resets all simulated register state back to its initial state.
+     * Returns the number of bus transactions the given simulated device has seen so far. Every single read or write counts as one bus
+     * transaction, also within a {@link I2CService.Transaction}, except a raw write directly followed by a raw read of a transaction, which
+     * is sent as one combined write-then-read message.
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @return
+     */
+    public long getNumberOfBusTransactions(int busNumber, int deviceAddress);
+
+    /**
+     * Queues a response for a later read of the given register of a simulated device. The next read of exactly the given size starting at
+     * the given register stores the data into the registers, takes the given latency and returns the data. Queued responses of a register
+     * are consumed in the order they were queued, e.g. to replay a recorded workload.
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @param localAddress
+     * @param latencyInNanos
+     * @param data
+     * @return
+     */
+    public I2CSimulationControl queueReadResponse(int busNumber, int deviceAddress, int localAddress, long latencyInNanos, byte... data);
+
+    /**
+     * Similar to {@link #queueReadResponse(int, int, int, long, byte...)} for the next write to the given register, which only takes the given
+     * latency
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @param localAddress
+     * @param latencyInNanos
+     * @return
+     */
+    public I2CSimulationControl queueWriteLatency(int busNumber, int deviceAddress, int localAddress, long latencyInNanos);
+
+    /**
+     * Resets all simulated register state, bus transaction counters and queued responses back to their initial state.
      *
      * @return
      */
     public I2CSimulationControl reset();
 
     /**
-     * Resets the simulated register state of a single device back to its initial state.
+     * Resets the simulated register state, bus transaction counter and queued responses of a single device back to its initial state.
      *
      * @param busNumber
      * @param deviceAddress
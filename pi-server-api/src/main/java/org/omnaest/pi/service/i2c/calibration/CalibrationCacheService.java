@@ -0,0 +1,43 @@
+package org.omnaest.pi.service.i2c.calibration;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches the factory calibration coefficients of I2C devices, e.g. the PROM of a MS5837 or the calibration EEPROM of a BMP180. The
+ * coefficients are read once per device and kept in memory, and if {@code pi.i2c.calibration.file} is configured they are persisted to that
+ * file keyed by bus, address and device type, so a restart does not have to read the calibration from the device again.<br>
+ * <br>
+ * Coefficients are only cached if they pass the validation of the device, e.g. a CRC, and persisted coefficients are validated again when
+ * they are loaded.
+ *
+ * @author omnaest
+ */
+public interface CalibrationCacheService
+{
+    /**
+     * Returns the cached calibration coefficients of the given device, or reads them via the given reader and caches them if they are
+     * valid
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @param deviceType
+     *            e.g. MS5837, as different devices can be attached to the same address over time
+     * @param reader
+     *            reads the coefficients from the device, e.g. as 16 bit PROM words
+     * @param validator
+     *            returns true for valid coefficients
+     * @return {@link Optional#empty()} if the coefficients could not be read or are invalid
+     */
+    public Optional<int[]> getOrRead(int busNumber, int deviceAddress, String deviceType, Supplier<Optional<int[]>> reader,
+                                     Predicate<int[]> validator);
+
+    /**
+     * Removes the cached coefficients of all device types at the given address, e.g. after a device has been replaced
+     *
+     * @param busNumber
+     * @param deviceAddress
+     */
+    public void invalidate(int busNumber, int deviceAddress);
+}
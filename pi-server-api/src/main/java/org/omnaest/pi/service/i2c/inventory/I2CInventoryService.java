@@ -0,0 +1,102 @@
+package org.omnaest.pi.service.i2c.inventory;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.omnaest.pi.service.i2c.I2CService.I2CBusControl;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Keeps an in memory inventory of the devices which respond on the I2C buses. A scan probes every 7 bit address from 0x08 to 0x77 on
+ * every provisioned and configured bus, with all buses scanned in parallel, and identifies known devices by their id registers, e.g.
+ * WHO_AM_I. The inventory is refreshed in the background every {@code pi.i2c.inventory.refresh-millis}.<br>
+ * <br>
+ * Services can check {@link #isPresent(int, int)} instead of finding a missing or misconfigured device via timeouts on the bus.
+ *
+ * @see I2CBusControl#probe(int)
+ * @author omnaest
+ */
+public interface I2CInventoryService
+{
+    /**
+     * Scans all buses now and replaces the cached {@link I2CInventory}
+     *
+     * @return
+     */
+    public I2CInventory scan();
+
+    /**
+     * Returns the cached {@link I2CInventory} of the last scan, or scans once if no scan has finished yet
+     *
+     * @return
+     */
+    public I2CInventory getInventory();
+
+    /**
+     * Returns the {@link DeviceInventory} of the given device, if the last scan of the bus found it
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @return
+     */
+    public Optional<DeviceInventory> findDevice(int busNumber, int deviceAddress);
+
+    /**
+     * Returns true, if the last scan of the given bus found the device. As long as the bus has not been scanned, the presence is unknown and
+     * false is returned, so callers which must not fail because of a missing scan check {@link #isScanned(int)} first.
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @return
+     */
+    public boolean isPresent(int busNumber, int deviceAddress);
+
+    /**
+     * Returns true, if the given bus has been scanned, so {@link #isPresent(int, int)} reflects the devices on the bus
+     *
+     * @param busNumber
+     * @return
+     */
+    public boolean isScanned(int busNumber);
+
+    /**
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class I2CInventory
+    {
+        private final long               scanTime;
+        private final double             scanDurationInMilliseconds;
+        private final List<BusInventory> buses;
+    }
+
+    /**
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class BusInventory
+    {
+        private final int                   busNumber;
+        private final List<DeviceInventory> devices;
+    }
+
+    /**
+     * A device which acknowledged its address. The device type and id register are only set if the device could be identified by the value
+     * of its id register.
+     *
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class DeviceInventory
+    {
+        private final int     deviceAddress;
+        private final String  deviceType;
+        private final Integer idRegister;
+        private final Integer idValue;
+    }
+}
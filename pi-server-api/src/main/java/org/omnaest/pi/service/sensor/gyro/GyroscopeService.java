@@ -1,10 +1,26 @@
 package org.omnaest.pi.service.sensor.gyro;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.omnaest.pi.client.domain.gyro.Orientation;
+import org.omnaest.pi.service.i2c.I2CService.BusNumber;
 
 public interface GyroscopeService
 {
+    /**
+     * Bus and address the sensor is connected to
+     */
+    public static final BusNumber BUS_NUMBER     = BusNumber.BUS_1;
+    public static final int       DEVICE_ADDRESS = 0x68;
     public Orientation getOrientation();
 
     public Orientation getOrientation(int numberOfSamplings);
+
+    /**
+     * Non blocking variant of {@link #getOrientation(int)}
+     * 
+     * @param numberOfSamplings
+     * @return
+     */
+    public CompletableFuture<Orientation> getOrientationAsync(int numberOfSamplings);
 }
@@ -1,9 +1,23 @@
 package org.omnaest.pi.service.sensor.pressure;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.omnaest.pi.client.PiClient.Interaction;
 import org.omnaest.pi.client.domain.pressure.LPS28Definition;
 
 public interface LPS28PressureService extends LPS28Definition, Interaction
 {
+    /**
+     * Non blocking variant of {@link #readPressure()}
+     * 
+     * @return
+     */
+    public CompletableFuture<Double> readPressureAsync();
 
+    /**
+     * Non blocking variant of {@link #readTemperature()}
+     * 
+     * @return
+     */
+    public CompletableFuture<Double> readTemperatureAsync();
 }
@@ -3,15 +3,68 @@ package org.omnaest.pi.service.sensor.pressure;
 import java.util.Optional;
 
 import org.omnaest.pi.client.domain.pressure.MS5837Model;
+import org.omnaest.pi.client.domain.pressure.MS5837Oversampling;
 import org.omnaest.pi.client.domain.pressure.PressureAndTemperature;
+import org.omnaest.pi.service.i2c.I2CService.BusNumber;
+
+import lombok.Builder;
+import lombok.Value;
 
 public interface PressureSensorMS5837Service
 {
+    /**
+     * Bus and address the sensor is connected to
+     */
+    public static final BusNumber BUS_NUMBER     = BusNumber.BUS_1;
+    public static final int       DEVICE_ADDRESS = 0x76;
 
     public Optional<PressureAndTemperature> readSensor(String sensorId);
 
     public String enableSensorAndGetSensorId(MS5837Model model);
 
+    /**
+     * Enables the sensor with a background sampler, which alternates the pressure and temperature conversions back to back at the given
+     * {@link MS5837Oversampling} and compensates a new sample after every conversion. {@link #readSensor(String)} then returns the latest
+     * sample without accessing the bus. While the sampler runs, the device accesses of all other sensor ids are executed in between two of
+     * its conversions. Only one sensor id can sample the device continuously at a time, otherwise an {@link IllegalStateException} is
+     * thrown.
+     *
+     * @param model
+     * @param oversampling
+     * @return
+     */
+    public String enableSensorAndGetSensorId(MS5837Model model, MS5837Oversampling oversampling);
+
     public void disableSensor(String sensorId);
 
+    /**
+     * Returns the {@link SamplerStatistics} of a sensor enabled with a background sampler
+     *
+     * @see #enableSensorAndGetSensorId(MS5837Model, MS5837Oversampling)
+     * @param sensorId
+     * @return
+     */
+    public Optional<SamplerStatistics> getSamplerStatistics(String sensorId);
+
+    /**
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class SamplerStatistics
+    {
+        private final MS5837Oversampling oversampling;
+
+        /**
+         * Sample rate given by the datasheet conversion time, as every conversion yields a new sample
+         */
+        private final double             maximumSampleRateInHz;
+
+        /**
+         * Sample rate achieved since the sampler has been started
+         */
+        private final double             sampleRateInHz;
+        private final long               numberOfSamples;
+        private final long               numberOfErrors;
+    }
 }
@@ -1,8 +1,15 @@
 package org.omnaest.pi.service.sensor.weight;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.omnaest.pi.client.domain.weight.Nau7802Definition;
 
 public interface Nau7802Service extends Nau7802Definition
 {
-
+    /**
+     * Non blocking variant of {@link #readValue()}. The power up and conversion waits of the NAU7802 do not occupy the calling thread.
+     * 
+     * @return
+     */
+    public CompletableFuture<Integer> readValueAsync();
 }
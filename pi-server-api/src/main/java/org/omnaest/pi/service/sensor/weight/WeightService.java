@@ -1,5 +1,7 @@
 package org.omnaest.pi.service.sensor.weight;
 
+import org.omnaest.pi.client.domain.weight.WeightFilter;
+
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Getter;
@@ -24,7 +26,9 @@ public interface WeightService
     }
 
     /**
-     * Reads the raw (uncalibrated) value of the HX711 sensor using the given {@link HX711PortConfiguration}
+     * Reads the raw (uncalibrated) value of the HX711 sensor using the given {@link HX711PortConfiguration}. The HX711 is not sampled in the
+     * background, so the {@link WeightFilter} of the ports is advanced per read: every call contributes exactly one conversion and a window
+     * of n samples spans the last n calls, however far apart they are. The default {@link WeightFilter#none()} returns the raw value.
      * 
      * @param portConfiguration
      * @return
@@ -35,12 +39,15 @@ public interface WeightService
     @Builder
     public static class HX711PortConfiguration
     {
-        private final int  dataPort;
+        private final int          dataPort;
+
+        private final int          clockPort;
 
-        private final int  clockPort;
+        @Default
+        private final Gain         gain   = Gain.CHANNEL_A_HIGH;
 
         @Default
-        private final Gain gain = Gain.CHANNEL_A_HIGH;
+        private final WeightFilter filter = WeightFilter.none();
     }
 
     @Getter
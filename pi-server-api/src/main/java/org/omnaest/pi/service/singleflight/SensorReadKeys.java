@@ -0,0 +1,37 @@
+package org.omnaest.pi.service.singleflight;
+
+import org.omnaest.pi.service.compass.CompassService.Module;
+import org.omnaest.pi.service.singleflight.SingleFlightService.SingleFlightKey;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link SingleFlightKey}s of the sensor reads which are coalesced by the {@link SingleFlightService}. The REST controllers and the MCP
+ * tools share these keys, so a REST and a MCP caller reading the same sensor at the same time share a single bus exchange.
+ *
+ * @author omnaest
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SensorReadKeys
+{
+    public static SingleFlightKey bmp180(int bus, int address)
+    {
+        return SingleFlightKey.of(bus, address, "bmp180.measure");
+    }
+
+    public static SingleFlightKey compass(int bus, Module module)
+    {
+        return SingleFlightKey.of(bus, module.getAddress(), "compass.direction");
+    }
+
+    public static SingleFlightKey gyroscope(int bus, int address, int numberOfSamplings)
+    {
+        return SingleFlightKey.of(bus, address, "gyroscope.orientation." + numberOfSamplings);
+    }
+
+    public static SingleFlightKey ms5837(int bus, int address, String sensorId)
+    {
+        return SingleFlightKey.of(bus, address, "ms5837.read." + sensorId);
+    }
+}
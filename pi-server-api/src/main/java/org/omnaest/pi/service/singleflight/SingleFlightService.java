@@ -0,0 +1,52 @@
+package org.omnaest.pi.service.singleflight;
+
+import java.util.function.Supplier;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Coalesces concurrent identical sensor reads. While a read of a given {@link SingleFlightKey} is in flight, further callers with the same
+ * {@link SingleFlightKey} wait for and share its result instead of issuing their own bus exchange. A finished result is additionally reused
+ * within the configured freshness window.<br>
+ * <br>
+ * The coalescing is opt-in via {@code pi.singleflight.enabled}, otherwise every operation is executed directly.
+ *
+ * @author omnaest
+ */
+public interface SingleFlightService
+{
+    /**
+     * Executes the given operation, or returns the result of an in flight or still fresh execution with the same {@link SingleFlightKey}.
+     * An exception of the operation is rethrown to every caller sharing the execution.
+     *
+     * @param key
+     * @param operation
+     * @return
+     */
+    public <T> T execute(SingleFlightKey key, Supplier<T> operation);
+
+    public boolean isEnabled();
+
+    /**
+     * Identifies a single read operation of a device on a bus, e.g. a measurement with specific parameters
+     *
+     * @author omnaest
+     */
+    @Value
+    @Builder
+    public static class SingleFlightKey
+    {
+        private final int    bus;
+        private final int    device;
+        private final String operation;
+
+        public static SingleFlightKey of(int bus, int device, String operation)
+        {
+            return builder().bus(bus)
+                            .device(device)
+                            .operation(operation)
+                            .build();
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package org.omnaest.pi.service;
 
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import org.omnaest.pi.domain.BMP180Measurement;
 import org.omnaest.pi.domain.Temperature;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
-import org.omnaest.pi.service.i2c.I2CService.BusNumber;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
 import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.calibration.CalibrationCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,21 +27,30 @@ public class EnvironmentServiceImpl implements EnvironmentService
     @Autowired
     private I2CService                    i2cService;
 
-    private AtomicReference<BMP180Sensor> bmp180Sensor = new AtomicReference<>();
+    @Autowired
+    private CalibrationCacheService       calibrationCacheService;
+
+    private AtomicReference<BMP180Sensor> bmp180Sensor   = new AtomicReference<>();
 
     @Override
     public Optional<BMP180Sensor> getOrCreateBMP180SensorInstance()
     {
-        Supplier<BMP180Sensor> supplier = () -> this.i2cService.provision(BusNumber.BUS_1)
-                                                               .flatMap(bus -> bus.connectTo(0x77))
+        Supplier<BMP180Sensor> supplier = () -> this.i2cService.provision(BUS_NUMBER)
+                                                               .flatMap(bus -> bus.connectTo(DEVICE_ADDRESS))
                                                                .map(BPM180Device::new)
-                                                               .flatMap(BPM180Device::calibrate)
+                                                               .flatMap(device -> device.calibrate(this.calibrationCacheService))
                                                                .map(device -> new BMP180Sensor() {
                                                                    @Override
                                                                    public Optional<BMP180Measurement> measure()
                                                                    {
                                                                        return device.measure();
                                                                    }
+
+                                                                   @Override
+                                                                   public CompletableFuture<Optional<BMP180Measurement>> measureAsync()
+                                                                   {
+                                                                       return device.measureAsync();
+                                                                   }
                                                                })
                                                                .orElse(null);
         return Optional.ofNullable(this.bmp180Sensor.updateAndGet(instance ->
@@ -53,7 +68,8 @@ public class EnvironmentServiceImpl implements EnvironmentService
 
     private static class BPM180Device
     {
-        private static final Logger LOG = LoggerFactory.getLogger(BPM180Device.class);
+        private static final Logger LOG                         = LoggerFactory.getLogger(BPM180Device.class);
+        private static final int    NUMBER_OF_CALIBRATION_WORDS = 11;
 
         private AddressConnector    addressConnector;
 
@@ -75,35 +91,52 @@ public class EnvironmentServiceImpl implements EnvironmentService
             this.addressConnector = addressConnector;
         }
 
-        public Optional<BPM180Device> calibrate()
+        /**
+         * Takes the calibration coefficients from the given {@link CalibrationCacheService}, so the EEPROM is only read once per device
+         *
+         * @param calibrationCacheService
+         * @return
+         */
+        public Optional<BPM180Device> calibrate(CalibrationCacheService calibrationCacheService)
+        {
+            return calibrationCacheService.getOrRead(BUS_NUMBER.ordinal(), DEVICE_ADDRESS, "BMP180", this::readCalibrationWords,
+                                                     BPM180Device::isValidCalibration)
+                                          .map(words ->
+                                          {
+                                              this.AC1 = (short) words[0];
+                                              this.AC2 = (short) words[1];
+                                              this.AC3 = (short) words[2];
+                                              this.AC4 = words[3];
+                                              this.AC5 = words[4];
+                                              this.AC6 = words[5];
+                                              this.B1 = (short) words[6];
+                                              this.B2 = (short) words[7];
+                                              this.MB = (short) words[8];
+                                              this.MC = (short) words[9];
+                                              this.MD = (short) words[10];
+                                              return this;
+                                          });
+        }
+
+        private Optional<int[]> readCalibrationWords()
         {
             return this.addressConnector.read(0xAA, 0, 22)
                                         .map(ByteArray::get)
-                                        .map(data ->
-                                        {
-                                            this.AC1 = data[0] * 256 + data[1];
-                                            this.AC2 = data[2] * 256 + data[3];
-                                            this.AC3 = data[4] * 256 + data[5];
-                                            this.AC4 = ((data[6] & 0xFF) * 256) + (data[7] & 0xFF);
-                                            this.AC5 = ((data[8] & 0xFF) * 256) + (data[9] & 0xFF);
-                                            this.AC6 = ((data[10] & 0xFF) * 256) + (data[11] & 0xFF);
-                                            this.B1 = data[12] * 256 + data[13];
-                                            this.B2 = data[14] * 256 + data[15];
-                                            this.MB = data[16] * 256 + data[17];
-                                            this.MC = data[18] * 256 + data[19];
-                                            this.MD = data[20] * 256 + data[21];
-
-                                            try
-                                            {
-                                                Thread.sleep(500);
-                                            }
-                                            catch (InterruptedException e)
-                                            {
-                                                //
-                                            }
-
-                                            return this;
-                                        });
+                                        .map(data -> IntStream.range(0, NUMBER_OF_CALIBRATION_WORDS)
+                                                              .map(index -> ByteArray.decodeUnsignedInt16(data, index * 2, ByteOrder.BIG_ENDIAN))
+                                                              .toArray());
+        }
+
+        /**
+         * The datasheet guarantees that no calibration word is 0x0000 or 0xFFFF, which is what a missing or not responding device reads as
+         *
+         * @param words
+         * @return
+         */
+        private static boolean isValidCalibration(int[] words)
+        {
+            return words.length == NUMBER_OF_CALIBRATION_WORDS && Arrays.stream(words)
+                                                                        .noneMatch(word -> word == 0x0000 || word == 0xFFFF);
         }
 
         public Optional<BMP180Measurement> measure()
@@ -112,70 +145,103 @@ public class EnvironmentServiceImpl implements EnvironmentService
             {
                 // Select measurement control register
                 // Enable temperature measurement
-                this.addressConnector.write(0xF4, (byte) 0x2E);
-                Thread.sleep(100);
-
-                byte[] temperatureData = this.addressConnector.read(0xF6, 0, 2)
-                                                              .get()
+                byte[] temperatureData = this.addressConnector.write(0xF4, (byte) 0x2E)
+                                                              .wait(100, TimeUnit.MILLISECONDS)
+                                                              .read(0xF6, 0, 2)
+                                                              .orElseThrow(() -> new IllegalStateException("Failed to read the BMP180 temperature"))
                                                               .get();
-                int temp = ((temperatureData[0] & 0xFF) * 256 + (temperatureData[1] & 0xFF));
 
                 // Select measurement control register
                 // Enable pressure measurement, OSS = 1
-                this.addressConnector.write(0xF4, (byte) 0x74);
-                Thread.sleep(100);
-
                 // Read 3 bytes of data from address 0xF6(246)
                 // pres msb1, pres msb, pres lsb
-                byte[] pressureData = this.addressConnector.read(0xF6, 0, 3)
-                                                           .get()
+                byte[] pressureData = this.addressConnector.write(0xF4, (byte) 0x74)
+                                                           .wait(100, TimeUnit.MILLISECONDS)
+                                                           .read(0xF6, 0, 3)
+                                                           .orElseThrow(() -> new IllegalStateException("Failed to read the BMP180 pressure"))
                                                            .get();
-                double rawPressure = (((pressureData[0] & 0xFF) * 65536) + ((pressureData[1] & 0xFF) * 256) + (pressureData[2] & 0xFF)) / 128;
-
-                // Callibration for Temperature
-                double X1 = (temp - this.AC6) * this.AC5 / 32768.0;
-                double X2 = (this.MC * 2048.0) / (X1 + this.MD);
-                double B5 = X1 + X2;
-                double temperatureCelsius = ((B5 + 8.0) / 16.0) / 10.0;
-
-                // Calibration for Pressure
-                double B6 = B5 - 4000;
-                X1 = (this.B2 * (B6 * B6 / 4096.0)) / 2048.0;
-                X2 = this.AC2 * B6 / 2048.0;
-                double X3 = X1 + X2;
-                double B3 = (((this.AC1 * 4 + X3) * 2) + 2) / 4.0;
-                X1 = this.AC3 * B6 / 8192.0;
-                X2 = (this.B1 * (B6 * B6 / 2048.0)) / 65536.0;
-                X3 = ((X1 + X2) + 2) / 4.0;
-                double B4 = this.AC4 * (X3 + 32768) / 32768.0;
-                double B7 = ((rawPressure - B3) * (25000.0));
-
-                double pressure = 0.0;
-                if (B7 < 2147483648L)
-                {
-                    pressure = (B7 * 2) / B4;
-                }
-                else
-                {
-                    pressure = (B7 / B4) * 2;
-                }
-                X1 = (pressure / 256.0) * (pressure / 256.0);
-                X1 = (X1 * 3038.0) / 65536.0;
-                X2 = ((-7357) * pressure) / 65536.0;
-                pressure = (pressure + (X1 + X2 + 3791) / 16.0) / 100;
-
-                // Calculate Altitude
-                double altitude = 44330 * (1 - Math.pow((pressure / 1013.25), 0.1903));
-
-                Temperature temperature = new Temperature(temperatureCelsius);
-                return Optional.of(new BMP180Measurement(altitude, pressure, temperature));
+
+                return this.calculateMeasurement(temperatureData, pressureData);
             }
             catch (Exception e)
             {
                 LOG.error("Failed to read data from BPM180", e);
                 return Optional.empty();
             }
+        }
+
+        public CompletableFuture<Optional<BMP180Measurement>> measureAsync()
+        {
+            AsyncAddressConnector connector = this.addressConnector.async();
+
+            // Select measurement control register
+            // Enable temperature measurement
+            return connector.writeAsync(0xF4, (byte) 0x2E)
+                            .thenCompose(c -> c.delayAsync(100, TimeUnit.MILLISECONDS))
+                            .thenCompose(c -> c.readAsync(0xF6, 2))
+                            .thenCompose(temperatureData -> this.measurePressureAsync(connector)
+                                                                .thenApply(pressureData -> this.calculateMeasurement(temperatureData.get(),
+                                                                                                                     pressureData.get())))
+                            .exceptionally(e ->
+                            {
+                                LOG.error("Failed to read data from BPM180", e);
+                                return Optional.empty();
+                            });
+        }
+
+        private CompletableFuture<ByteArray> measurePressureAsync(AsyncAddressConnector connector)
+        {
+            // Select measurement control register
+            // Enable pressure measurement, OSS = 1
+            // Read 3 bytes of data from address 0xF6(246)
+            // pres msb1, pres msb, pres lsb
+            return connector.writeAsync(0xF4, (byte) 0x74)
+                            .thenCompose(c -> c.delayAsync(100, TimeUnit.MILLISECONDS))
+                            .thenCompose(c -> c.readAsync(0xF6, 3));
+        }
+
+        private Optional<BMP180Measurement> calculateMeasurement(byte[] temperatureData, byte[] pressureData)
+        {
+            int temp = ((temperatureData[0] & 0xFF) * 256 + (temperatureData[1] & 0xFF));
+            double rawPressure = (((pressureData[0] & 0xFF) * 65536) + ((pressureData[1] & 0xFF) * 256) + (pressureData[2] & 0xFF)) / 128;
+
+            // Callibration for Temperature
+            double X1 = (temp - this.AC6) * this.AC5 / 32768.0;
+            double X2 = (this.MC * 2048.0) / (X1 + this.MD);
+            double B5 = X1 + X2;
+            double temperatureCelsius = ((B5 + 8.0) / 16.0) / 10.0;
+
+            // Calibration for Pressure
+            double B6 = B5 - 4000;
+            X1 = (this.B2 * (B6 * B6 / 4096.0)) / 2048.0;
+            X2 = this.AC2 * B6 / 2048.0;
+            double X3 = X1 + X2;
+            double B3 = (((this.AC1 * 4 + X3) * 2) + 2) / 4.0;
+            X1 = this.AC3 * B6 / 8192.0;
+            X2 = (this.B1 * (B6 * B6 / 2048.0)) / 65536.0;
+            X3 = ((X1 + X2) + 2) / 4.0;
+            double B4 = this.AC4 * (X3 + 32768) / 32768.0;
+            double B7 = ((rawPressure - B3) * (25000.0));
+
+            double pressure = 0.0;
+            if (B7 < 2147483648L)
+            {
+                pressure = (B7 * 2) / B4;
+            }
+            else
+            {
+                pressure = (B7 / B4) * 2;
+            }
+            X1 = (pressure / 256.0) * (pressure / 256.0);
+            X1 = (X1 * 3038.0) / 65536.0;
+            X2 = ((-7357) * pressure) / 65536.0;
+            pressure = (pressure + (X1 + X2 + 3791) / 16.0) / 100;
+
+            // Calculate Altitude
+            double altitude = 44330 * (1 - Math.pow((pressure / 1013.25), 0.1903));
 
+            Temperature temperature = new Temperature(temperatureCelsius);
+            return Optional.of(new BMP180Measurement(altitude, pressure, temperature));
         }
 
     }
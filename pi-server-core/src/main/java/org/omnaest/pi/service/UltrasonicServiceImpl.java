@@ -2,14 +2,14 @@ package org.omnaest.pi.service;
 
 import java.util.Arrays;
 import java.util.Map;
-import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.omnaest.pi.domain.UltrasonicSensorConfiguration;
 import org.omnaest.pi.service.gpio.GPIOService;
-import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
-import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPulseMeter;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputPinHandle;
 import org.omnaest.pi.service.utils.NanoDuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,16 +34,16 @@ public class UltrasonicServiceImpl implements UltrasonicService
 
     public static class UltrasonicDistanceSensorImpl implements UltrasonicDistanceSensor
     {
-        private long                  pingTimeout   = 1000;
-        private long                  signalTimeout = 1000;
+        private long                   pingTimeout   = 1000;
+        private long                   signalTimeout = 1000;
 
-        private final GPIOService     gpioService;
+        private final GPIOService      gpioService;
 
-        private DigitalOutputGPIOPort triggerPort;
-        private DigitalInputGPIOPort  echoPort;
+        private DigitalOutputPinHandle triggerPort;
+        private DigitalInputPulseMeter echoPulseMeter;
 
-        private boolean               initialized   = false;
-        private int[]                 signals;
+        private boolean                initialized   = false;
+        private int[]                  signals;
 
         public UltrasonicDistanceSensorImpl(GPIOService gpioService)
         {
@@ -61,16 +61,17 @@ public class UltrasonicServiceImpl implements UltrasonicService
                 this.pingTimeout = configuration.getPingTimeout();
                 this.signalTimeout = configuration.getSignalTimeout();
 
-                // Note: pi4j's setShutdownOptions(true, PinState.LOW) on the trigger pin has no GPIOService
-                // equivalent, so the trigger port is no longer forced low automatically on JVM shutdown. Accepted,
-                // documented trade-off (see plan-56 open risks) - sendSignal() drives the trigger port explicitly on
-                // every measurement regardless.
+                // the trigger signal is sent with busy waits, so the trigger port is resolved once into a pin handle, while the echo
+                // pulse is measured from the interrupt timestamps of its edges without polling the echo port. Each 100 us of timestamp
+                // latency are about 17 mm, see the resolution of DigitalInputEdgeRecorder.
                 this.triggerPort = this.gpioService.getDigitalOutputGPIOPort(configuration.getTriggerPort())
-                                                   .enable();
+                                                   .enable()
+                                                   .asPinHandle();
 
-                this.echoPort = this.gpioService.getDigitalInputGPIOPort(configuration.getEchoPort())
-                                                .withPullDownResistance()
-                                                .enable();
+                this.echoPulseMeter = this.gpioService.getDigitalInputGPIOPort(configuration.getEchoPort())
+                                                      .withPullDownResistance()
+                                                      .enable()
+                                                      .measurePulses(1);
 
                 this.signals = configuration.getSignals();
             }
@@ -82,22 +83,21 @@ public class UltrasonicServiceImpl implements UltrasonicService
             //
             this.assertInitialized();
 
-            //
+            // the echo pulse is armed before the signal is sent, so even an immediate echo is not missed
+            this.echoPulseMeter.armPulseWidth(true);
             this.sendSignal();
 
             //
-            return this.waitForIncomingSignal()
-                       .flatMap(startTime -> this.waitForSignalEnd()
-                                                 .map(endTime ->
-                                                 {
-                                                     long signalTravelDuration = endTime - startTime;
-                                                     double distance = signalTravelDuration / 5830.9037900874635568513119533528;
-
-                                                     LOG.debug("Ultrasonic signal received after " + signalTravelDuration + " ns with a distance of " + distance
-                                                               + " mm");
-                                                     return distance;
-                                                 }))
-                       .orElse(Double.NEGATIVE_INFINITY);
+            OptionalLong signalTravelDuration = this.echoPulseMeter.awaitPulseWidth(this.pingTimeout + this.signalTimeout, TimeUnit.NANOSECONDS);
+            if (!signalTravelDuration.isPresent())
+            {
+                LOG.warn("Ultrasonic signal timeout after " + (this.pingTimeout + this.signalTimeout) + " ns");
+                return Double.NEGATIVE_INFINITY;
+            }
+
+            double distance = signalTravelDuration.getAsLong() / 5830.9037900874635568513119533528;
+            LOG.debug("Ultrasonic signal received after " + signalTravelDuration.getAsLong() + " ns with a distance of " + distance + " mm");
+            return distance;
         }
 
         private void assertInitialized()
@@ -121,54 +121,6 @@ public class UltrasonicServiceImpl implements UltrasonicService
             }
         }
 
-        private Optional<Long> waitForIncomingSignal()
-        {
-            Long startTime = null;
-
-            NanoDuration duration = NanoDuration.start();
-            boolean timeout = false;
-            while (!this.echoPort.getState())
-            {
-                if (duration.stop() >= this.pingTimeout)
-                {
-                    LOG.warn("Signal start wait timeout after " + duration.stop() + " ns");
-                    timeout = true;
-                    break;
-                }
-            }
-
-            if (!timeout)
-            {
-                startTime = System.nanoTime();
-            }
-
-            return Optional.ofNullable(startTime);
-        }
-
-        private Optional<Long> waitForSignalEnd()
-        {
-            Long endTime = null;
-            {
-                NanoDuration duration = NanoDuration.start();
-                boolean timeout = false;
-                while (this.echoPort.getState())
-                {
-                    if (duration.stop() >= this.signalTimeout)
-                    {
-                        LOG.warn("Signal end wait timeout after " + duration.stop() + " ns");
-                        timeout = true;
-                        break;
-                    }
-                }
-
-                if (!timeout)
-                {
-                    endTime = System.nanoTime();
-                }
-            }
-            return Optional.ofNullable(endTime);
-        }
-
         private static void busyWait(long duration, TimeUnit timeUnit)
         {
             NanoDuration durationCounter = NanoDuration.start();
@@ -2,6 +2,7 @@ package org.omnaest.pi.service.compass.internal;
 
 import org.omnaest.pi.service.compass.CompassService;
 import org.omnaest.pi.service.i2c.I2CService;
+import org.omnaest.pi.service.i2c.I2CService.ByteArray;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -30,13 +31,16 @@ public class CompassServiceImpl implements CompassService
                         int address = module.getAddress();
                         return i2cService.provision(bus)
                                          .flatMap(control -> control.connectTo(address))
-                                         .flatMap(connector -> connector.write(0xB, (byte) 0x01)
+                                         .flatMap(connector -> connector.transaction()
+                                                                        .write(0xB, (byte) 0x01)
                                                                         .write(0x9, (byte) /* 0x1D */ 0B11010001)
-                                                                        //                                                                        .wait(500, TimeUnit.MILLISECONDS)
                                                                         .waitUntilBitIsTrue(0x06, (byte) 0B00000001)
-                                                                        .read(0x00, 0, 6)
-                                                                        .map(data ->
+                                                                        .read(0x00, 6)
+                                                                        .execute()
+                                                                        .map(transactionResult ->
                                                                         {
+                                                                            ByteArray data = transactionResult.get(0);
+
                                                                             int x = data.asIntFromMsbToLsb(0, 1);
                                                                             if (x > 32767)
                                                                             {
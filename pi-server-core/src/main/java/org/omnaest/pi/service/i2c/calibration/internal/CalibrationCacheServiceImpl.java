@@ -0,0 +1,169 @@
+package org.omnaest.pi.service.i2c.calibration.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.omnaest.pi.service.i2c.calibration.CalibrationCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link CalibrationCacheService} which persists the coefficients as {@link Properties} file with one entry per device, e.g.
+ * {@code 1.0x76.MS5837=0x10c5,0x88a6,...}. The file is rewritten as a whole via a temporary file, so a crash never leaves a partially
+ * written file behind.
+ *
+ * @author omnaest
+ */
+@Service
+public class CalibrationCacheServiceImpl implements CalibrationCacheService
+{
+    private static final Logger      LOG               = LoggerFactory.getLogger(CalibrationCacheServiceImpl.class);
+
+    private final Path               file;
+    private final Map<String, int[]> keyToCoefficients = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CalibrationCacheServiceImpl(@Value("${pi.i2c.calibration.file:}") String file)
+    {
+        super();
+        this.file = StringUtils.isNotBlank(file) ? Paths.get(file) : null;
+        this.load();
+    }
+
+    @Override
+    public Optional<int[]> getOrRead(int busNumber, int deviceAddress, String deviceType, Supplier<Optional<int[]>> reader,
+                                     Predicate<int[]> validator)
+    {
+        String key = this.createKey(busNumber, deviceAddress, deviceType);
+        int[] coefficients = this.keyToCoefficients.get(key);
+        if (coefficients == null || !validator.test(coefficients))
+        {
+            coefficients = this.readAndCache(key, reader, validator);
+        }
+        return Optional.ofNullable(coefficients)
+                       .map(int[]::clone);
+    }
+
+    private synchronized int[] readAndCache(String key, Supplier<Optional<int[]>> reader, Predicate<int[]> validator)
+    {
+        int[] cachedCoefficients = this.keyToCoefficients.get(key);
+        if (cachedCoefficients != null && validator.test(cachedCoefficients))
+        {
+            return cachedCoefficients;
+        }
+
+        Optional<int[]> coefficients = reader.get();
+        if (!coefficients.isPresent() || !validator.test(coefficients.get()))
+        {
+            LOG.warn("Invalid calibration coefficients read for " + key + ": " + coefficients.map(Arrays::toString)
+                                                                                              .orElse("none"));
+            this.keyToCoefficients.remove(key);
+            return null;
+        }
+
+        this.keyToCoefficients.put(key, coefficients.get()
+                                                    .clone());
+        this.persist();
+        return coefficients.get();
+    }
+
+    @Override
+    public synchronized void invalidate(int busNumber, int deviceAddress)
+    {
+        String prefix = this.createKey(busNumber, deviceAddress, "");
+        if (this.keyToCoefficients.keySet()
+                                  .removeIf(key -> key.startsWith(prefix)))
+        {
+            this.persist();
+        }
+    }
+
+    private String createKey(int busNumber, int deviceAddress, String deviceType)
+    {
+        return busNumber + ".0x" + Integer.toHexString(deviceAddress) + "." + deviceType;
+    }
+
+    private void load()
+    {
+        if (this.file == null || !Files.exists(this.file))
+        {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8))
+        {
+            properties.load(reader);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to load calibration cache file " + this.file, e);
+            return;
+        }
+
+        for (String key : properties.stringPropertyNames())
+        {
+            try
+            {
+                this.keyToCoefficients.put(key, Arrays.stream(properties.getProperty(key)
+                                                                       .split(","))
+                                                      .map(String::trim)
+                                                      .mapToInt(Integer::decode)
+                                                      .toArray());
+            }
+            catch (NumberFormatException e)
+            {
+                LOG.warn("Ignoring invalid calibration cache entry " + key);
+            }
+        }
+    }
+
+    private void persist()
+    {
+        if (this.file == null)
+        {
+            return;
+        }
+
+        Properties properties = new Properties();
+        this.keyToCoefficients.forEach((key, coefficients) -> properties.setProperty(key, Arrays.stream(coefficients)
+                                                                                                .mapToObj(value -> "0x" + Integer.toHexString(value))
+                                                                                                .collect(Collectors.joining(","))));
+        try
+        {
+            Path directory = this.file.toAbsolutePath()
+                                      .getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, this.file.getFileName()
+                                                                          .toString(),
+                                                      ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8))
+            {
+                properties.store(writer, "I2C device calibration coefficients");
+            }
+            Files.move(temporaryFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to persist calibration cache file " + this.file, e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.omnaest.pi.service.i2c.inventory.internal;
+
+/**
+ * Id registers of the known I2C devices. A device is identified, if it responds on one of its addresses and the masked value of its id
+ * register equals the expected id. Devices without an id register, e.g. the MS5837 or the PCA9685, are listed in the inventory without a
+ * device type.
+ *
+ * @author omnaest
+ */
+public enum DeviceFingerprint
+{
+    MPU6050(0x75, 0x7E, 0x68, 0x68, 0x69),
+    BMP180(0xD0, 0xFF, 0x55, 0x77),
+    BMP280(0xD0, 0xFF, 0x58, 0x76, 0x77),
+    BME280(0xD0, 0xFF, 0x60, 0x76, 0x77),
+    NAU7802(0x1F, 0x0F, 0x0F, 0x2A),
+    LPS28DFW(0x0F, 0xFF, 0xB4, 0x5C, 0x5D),
+    QMC5883L(0x0D, 0xFF, 0xFF, 0x0D),
+    HMC5883(0x0A, 0xFF, 0x48, 0x1E);
+
+    private final int   idRegister;
+    private final int   mask;
+    private final int   id;
+    private final int[] addresses;
+
+    private DeviceFingerprint(int idRegister, int mask, int id, int... addresses)
+    {
+        this.idRegister = idRegister;
+        this.mask = mask;
+        this.id = id;
+        this.addresses = addresses;
+    }
+
+    public int getIdRegister()
+    {
+        return this.idRegister;
+    }
+
+    public boolean isCandidate(int deviceAddress)
+    {
+        for (int address : this.addresses)
+        {
+            if (address == deviceAddress)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matches(byte idValue)
+    {
+        return (idValue & this.mask) == this.id;
+    }
+}
@@ -0,0 +1,190 @@
+package org.omnaest.pi.service.i2c.inventory.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.omnaest.pi.service.i2c.I2CService;
+import org.omnaest.pi.service.i2c.I2CService.I2CBusControl;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService;
+import org.omnaest.pi.service.utils.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link I2CInventoryService} which scans every bus on its own thread, while the addresses of a single bus are probed one after another,
+ * as they share the bus anyway. The scanned inventory is replaced as a whole, so readers never see a partially scanned inventory.<br>
+ * <br>
+ * Id registers are only probed on addresses which are not configured as {@code pi.i2c.inventory.command-based-addresses}, e.g. 0x76 of
+ * the MS5837, as writing an id register pointer like 0xD0 to a command based device executes it as a command.
+ *
+ * @author omnaest
+ */
+@Service
+public class I2CInventoryServiceImpl implements I2CInventoryService
+{
+    private static final Logger                                  LOG                = LoggerFactory.getLogger(I2CInventoryServiceImpl.class);
+
+    /**
+     * Addresses below and above are reserved by the I2C specification
+     */
+    private static final int                                     FIRST_ADDRESS      = 0x08;
+    private static final int                                     LAST_ADDRESS       = 0x77;
+
+    private final I2CService                                     i2cService;
+    private final int[]                                          configuredBusNumbers;
+    private final int[]                                          commandBasedAddresses;
+    private final ExecutorService                                executorService    = Executors.newCachedThreadPool(I2CInventoryServiceImpl::newDaemonThread);
+
+    private volatile I2CInventory                                inventory;
+    private volatile Map<Integer, Map<Integer, DeviceInventory>> busNumberToDevices = Collections.emptyMap();
+
+    @Autowired
+    public I2CInventoryServiceImpl(I2CService i2cService, @Value("${pi.i2c.inventory.buses:1}") int[] configuredBusNumbers,
+                                   @Value("${pi.i2c.inventory.command-based-addresses:0x76}") int[] commandBasedAddresses)
+    {
+        super();
+        this.i2cService = i2cService;
+        this.configuredBusNumbers = configuredBusNumbers;
+        this.commandBasedAddresses = commandBasedAddresses;
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executorService.shutdownNow();
+    }
+
+    @Scheduled(initialDelayString = "${pi.i2c.inventory.initial-delay-millis:1000}", fixedDelayString = "${pi.i2c.inventory.refresh-millis:60000}")
+    public void refresh()
+    {
+        try
+        {
+            this.scan();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Error scanning the I2C buses", e);
+        }
+    }
+
+    @Override
+    public synchronized I2CInventory scan()
+    {
+        long startTime = System.nanoTime();
+        List<CompletableFuture<Optional<BusInventory>>> futures = Stream.concat(Arrays.stream(this.configuredBusNumbers)
+                                                                                      .boxed(),
+                                                                                this.i2cService.getProvisionedBusNumbers()
+                                                                                               .stream())
+                                                                        .distinct()
+                                                                        .sorted()
+                                                                        .map(busNumber -> CompletableFuture.supplyAsync(() -> this.scanBus(busNumber),
+                                                                                                                        this.executorService))
+                                                                        .collect(Collectors.toList());
+        List<BusInventory> buses = futures.stream()
+                                          .map(FutureUtils::join)
+                                          .filter(Optional::isPresent)
+                                          .map(Optional::get)
+                                          .collect(Collectors.toList());
+
+        I2CInventory inventory = I2CInventory.builder()
+                                             .scanTime(System.currentTimeMillis())
+                                             .scanDurationInMilliseconds((System.nanoTime() - startTime) / 1000000.0)
+                                             .buses(buses)
+                                             .build();
+        this.busNumberToDevices = buses.stream()
+                                       .collect(Collectors.toMap(BusInventory::getBusNumber, bus -> bus.getDevices()
+                                                                                                       .stream()
+                                                                                                       .collect(Collectors.toMap(DeviceInventory::getDeviceAddress,
+                                                                                                                                 Function.identity()))));
+        this.inventory = inventory;
+        return inventory;
+    }
+
+    @Override
+    public I2CInventory getInventory()
+    {
+        I2CInventory inventory = this.inventory;
+        return inventory != null ? inventory : this.scan();
+    }
+
+    @Override
+    public Optional<DeviceInventory> findDevice(int busNumber, int deviceAddress)
+    {
+        return Optional.ofNullable(this.busNumberToDevices.get(busNumber))
+                       .map(devices -> devices.get(deviceAddress));
+    }
+
+    @Override
+    public boolean isPresent(int busNumber, int deviceAddress)
+    {
+        Map<Integer, DeviceInventory> devices = this.busNumberToDevices.get(busNumber);
+        return devices != null && devices.containsKey(deviceAddress);
+    }
+
+    @Override
+    public boolean isScanned(int busNumber)
+    {
+        return this.busNumberToDevices.containsKey(busNumber);
+    }
+
+    private static Thread newDaemonThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "i2c-scan");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private Optional<BusInventory> scanBus(int busNumber)
+    {
+        return this.i2cService.provision(busNumber)
+                              .map(busControl -> BusInventory.builder()
+                                                             .busNumber(busNumber)
+                                                             .devices(IntStream.rangeClosed(FIRST_ADDRESS, LAST_ADDRESS)
+                                                                               .filter(busControl::probe)
+                                                                               .mapToObj(address -> this.identify(busControl, address))
+                                                                               .collect(Collectors.toList()))
+                                                             .build());
+    }
+
+    private DeviceInventory identify(I2CBusControl busControl, int deviceAddress)
+    {
+        boolean commandBased = Arrays.stream(this.commandBasedAddresses)
+                                     .anyMatch(address -> address == deviceAddress);
+        for (DeviceFingerprint fingerprint : DeviceFingerprint.values())
+        {
+            if (!commandBased && fingerprint.isCandidate(deviceAddress))
+            {
+                Optional<Byte> idValue = busControl.probe(deviceAddress, fingerprint.getIdRegister())
+                                                   .filter(fingerprint::matches);
+                if (idValue.isPresent())
+                {
+                    return DeviceInventory.builder()
+                                          .deviceAddress(deviceAddress)
+                                          .deviceType(fingerprint.name())
+                                          .idRegister(fingerprint.getIdRegister())
+                                          .idValue(idValue.get() & 0xFF)
+                                          .build();
+                }
+            }
+        }
+        return DeviceInventory.builder()
+                              .deviceAddress(deviceAddress)
+                              .build();
+    }
+}
@@ -8,7 +8,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.omnaest.pi.client.domain.motor.L298nMotorControlDefinition;
 import org.omnaest.pi.client.domain.motor.MotorMovementDirection;
 import org.omnaest.pi.service.gpio.GPIOService;
-import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPortGroup;
 import org.omnaest.pi.service.gpio.GPIOService.PwmGPIOPort;
 import org.omnaest.pi.service.motor.MotorControlService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +17,13 @@ import org.springframework.stereotype.Service;
 @Service
 public class MotorControlServiceImpl implements MotorControlService
 {
+    /**
+     * Bits of the forward and backward port within the direction port group
+     */
+    private static final long                        FORWARD                                = 0b01;
+    private static final long                        BACKWARD                               = 0b10;
+    private static final long                        NO_DIRECTION                           = 0b00;
+
     @Autowired
     private GPIOService                              gpioService;
 
@@ -31,18 +38,16 @@ public class MotorControlServiceImpl implements MotorControlService
             String id = UUID.randomUUID()
                             .toString();
 
-            DigitalOutputGPIOPort forwardPort = this.gpioService.getDigitalOutputGPIOPort(definition.getForwardPort());
-            DigitalOutputGPIOPort backwardPort = this.gpioService.getDigitalOutputGPIOPort(definition.getBackwardPort());
+            DigitalOutputGPIOPortGroup directionPorts = this.gpioService.getDigitalOutputGPIOPortGroup(definition.getForwardPort(),
+                                                                                                      definition.getBackwardPort());
             PwmGPIOPort pwmGPIOPort = this.gpioService.getPwmGPIOPort(definition.getPwmPort());
 
-            forwardPort.enable()
-                       .setState(false);
-            backwardPort.enable()
-                        .setState(false);
+            directionPorts.enable()
+                          .setStates(NO_DIRECTION);
             pwmGPIOPort.enable()
                        .setState(0.0);
 
-            this.motorControlIdToMotorControl.put(id, new MotorControlImpl(id, forwardPort, backwardPort, pwmGPIOPort));
+            this.motorControlIdToMotorControl.put(id, new MotorControlImpl(id, directionPorts, pwmGPIOPort));
 
             return id;
         }))
@@ -55,19 +60,22 @@ public class MotorControlServiceImpl implements MotorControlService
         return Optional.ofNullable(this.motorControlIdToMotorControl.get(id));
     }
 
+    /**
+     * The forward and backward port are switched by port group operations, which clear a port before another one is set, so the L298N never
+     * sees both directions enabled. Like before the port groups, a movement first clears the opposite direction, then sets the speed and
+     * only then enables the new direction, so the bridge is never driven in the new direction with the speed of the previous movement.
+     */
     private static class MotorControlImpl implements MotorControl
     {
-        private final String                id;
-        private final DigitalOutputGPIOPort forwardPort;
-        private final DigitalOutputGPIOPort backwardPort;
-        private final PwmGPIOPort           pwmGPIOPort;
+        private final String                     id;
+        private final DigitalOutputGPIOPortGroup directionPorts;
+        private final PwmGPIOPort                pwmGPIOPort;
 
-        private MotorControlImpl(String id, DigitalOutputGPIOPort forwardPort, DigitalOutputGPIOPort backwardPort, PwmGPIOPort pwmGPIOPort)
+        private MotorControlImpl(String id, DigitalOutputGPIOPortGroup directionPorts, PwmGPIOPort pwmGPIOPort)
         {
-            this.backwardPort = backwardPort;
-            this.pwmGPIOPort = pwmGPIOPort;
             this.id = id;
-            this.forwardPort = forwardPort;
+            this.directionPorts = directionPorts;
+            this.pwmGPIOPort = pwmGPIOPort;
         }
 
         @Override
@@ -79,8 +87,7 @@ public class MotorControlServiceImpl implements MotorControlService
         @Override
         public MotorControl stop()
         {
-            this.backwardPort.setState(false);
-            this.forwardPort.setState(false);
+            this.directionPorts.setStates(NO_DIRECTION);
             this.pwmGPIOPort.setState(0.0);
             return this;
         }
@@ -88,30 +95,13 @@ public class MotorControlServiceImpl implements MotorControlService
         @Override
         public MotorControl move(MotorMovementDirection direction, double speed)
         {
-            if (MotorMovementDirection.FORWARDS.equals(direction))
-            {
-                this.backwardPort.setState(false);
-                if (this.backwardPort.getState())
-                {
-                    throw new IllegalStateException("Cannot activate foward pin as backward pin is still enabled.");
-                }
-
-                this.pwmGPIOPort.setState(speed);
-
-                this.forwardPort.setState(true);
-            }
-            else
-            {
-                this.forwardPort.setState(false);
-                if (this.forwardPort.getState())
-                {
-                    throw new IllegalStateException("Cannot activate backward pin as forward pin is still enabled.");
-                }
-
-                this.pwmGPIOPort.setState(speed);
-
-                this.backwardPort.setState(true);
-            }
+            boolean forwards = MotorMovementDirection.FORWARDS.equals(direction);
+            long directionPort = forwards ? FORWARD : BACKWARD;
+            long oppositeDirectionPort = forwards ? BACKWARD : FORWARD;
+
+            this.directionPorts.setStates(NO_DIRECTION, oppositeDirectionPort);
+            this.pwmGPIOPort.setState(speed);
+            this.directionPorts.setStates(directionPort, NO_DIRECTION);
             return this;
         }
     }
@@ -3,10 +3,8 @@ package org.omnaest.pi.service.rotary.internal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -16,7 +14,9 @@ import java.util.function.Consumer;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
 import org.omnaest.pi.service.gpio.GPIOService;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputEdgeRecorder;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
 import org.omnaest.pi.service.rotary.RotaryEncoderService;
 import org.slf4j.Logger;
@@ -29,6 +29,19 @@ public class RotaryEncoderServiceImpl implements RotaryEncoderService
 {
     private static final Logger                                LOG                              = LoggerFactory.getLogger(RotaryEncoderServiceImpl.class);
 
+    /**
+     * Edges recorded per pin between two calculations of the rotary state
+     */
+    private static final int                                   EDGE_BUFFER_CAPACITY             = 1024;
+
+    /**
+     * The contacts of a mechanical rotary encoder bounce for up to about a millisecond
+     */
+    private static final DigitalInputFilter                    INPUT_FILTER                     = DigitalInputFilter.builder()
+                                                                                                                    .debounceTimeInMicroseconds(1000)
+                                                                                                                    .numberOfSamples(3)
+                                                                                                                    .build();
+
     @Autowired
     private GPIOService                                        gpioService;
 
@@ -105,11 +118,21 @@ public class RotaryEncoderServiceImpl implements RotaryEncoderService
 
     private static class RotaryEncoderContext
     {
-        private BlockingQueue<RotaryEncoderState> rotaryEncoderStates = new LinkedBlockingQueue<>();
-        private AtomicBoolean                     nextActiveState     = new AtomicBoolean(true);
-        private AtomicBoolean                     currentClkState     = new AtomicBoolean(false);
-        private AtomicBoolean                     currentDtState      = new AtomicBoolean(false);
-        private AtomicLong                        value               = new AtomicLong();
+        private AtomicBoolean                     nextActiveState = new AtomicBoolean(true);
+        private AtomicBoolean                     currentClkState = new AtomicBoolean(false);
+        private AtomicBoolean                     currentDtState  = new AtomicBoolean(false);
+        private AtomicLong                        value           = new AtomicLong();
+
+        private volatile DigitalInputEdgeRecorder clkEdgeRecorder;
+        private volatile DigitalInputEdgeRecorder dtEdgeRecorder;
+
+        /*
+         * Drain buffers, which are only used by the single thread calculating the rotary state
+         */
+        private final long[]                      clkTimestamps   = new long[EDGE_BUFFER_CAPACITY];
+        private final boolean[]                   clkLevels       = new boolean[EDGE_BUFFER_CAPACITY];
+        private final long[]                      dtTimestamps    = new long[EDGE_BUFFER_CAPACITY];
+        private final boolean[]                   dtLevels        = new boolean[EDGE_BUFFER_CAPACITY];
 
         public RotaryEncoderContext()
         {
@@ -166,10 +189,44 @@ public class RotaryEncoderServiceImpl implements RotaryEncoderService
             }
         }
 
+        public void setEdgeRecorders(DigitalInputEdgeRecorder clkEdgeRecorder, DigitalInputEdgeRecorder dtEdgeRecorder)
+        {
+            this.clkEdgeRecorder = clkEdgeRecorder;
+            this.dtEdgeRecorder = dtEdgeRecorder;
+        }
+
+        /**
+         * Drains the recorded edges of both pins and merges them in the order of their timestamps
+         *
+         * @return
+         */
         public List<RotaryEncoderState> getRotaryEncoderStates()
         {
             List<RotaryEncoderState> states = new ArrayList<>();
-            this.rotaryEncoderStates.drainTo(states);
+            DigitalInputEdgeRecorder clkEdgeRecorder = this.clkEdgeRecorder;
+            DigitalInputEdgeRecorder dtEdgeRecorder = this.dtEdgeRecorder;
+            if (clkEdgeRecorder == null || dtEdgeRecorder == null)
+            {
+                return states;
+            }
+
+            int numberOfClkEdges = clkEdgeRecorder.drainTo(this.clkTimestamps, this.clkLevels);
+            int numberOfDtEdges = dtEdgeRecorder.drainTo(this.dtTimestamps, this.dtLevels);
+            int clkIndex = 0;
+            int dtIndex = 0;
+            while (clkIndex < numberOfClkEdges || dtIndex < numberOfDtEdges)
+            {
+                boolean isClkEdgeNext = dtIndex >= numberOfDtEdges
+                        || (clkIndex < numberOfClkEdges && this.clkTimestamps[clkIndex] - this.dtTimestamps[dtIndex] <= 0);
+                if (isClkEdgeNext)
+                {
+                    states.add(new RotaryEncoderState(RotaryEncoderInputSource.CLK, this.clkLevels[clkIndex++]));
+                }
+                else
+                {
+                    states.add(new RotaryEncoderState(RotaryEncoderInputSource.DT, this.dtLevels[dtIndex++]));
+                }
+            }
             return states;
         }
 
@@ -188,18 +245,6 @@ public class RotaryEncoderServiceImpl implements RotaryEncoderService
             return this.currentDtState.get();
         }
 
-        public void addState(RotaryEncoderState rotaryEncoderState)
-        {
-            try
-            {
-                this.rotaryEncoderStates.put(rotaryEncoderState);
-            }
-            catch (InterruptedException e)
-            {
-                LOG.warn("Unexpected interrupt signal", e);
-            }
-        }
-
         public long getValue()
         {
             return this.value.get();
@@ -277,14 +322,15 @@ public class RotaryEncoderServiceImpl implements RotaryEncoderService
 
         DigitalInputGPIOPort dtPortAccessor = this.gpioService.getDigitalInputGPIOPort(dtPort)
                                                               .withPullUpResistance()
+                                                              .withInputFilter(INPUT_FILTER)
                                                               .enable();
 
         DigitalInputGPIOPort clkPortAccessor = this.gpioService.getDigitalInputGPIOPort(clkPort)
                                                                .withPullUpResistance()
+                                                               .withInputFilter(INPUT_FILTER)
                                                                .enable();
 
-        clkPortAccessor.addStateChangeListener(stateChange -> context.addState(new RotaryEncoderState(RotaryEncoderInputSource.CLK, stateChange.getCurrent())));
-        dtPortAccessor.addStateChangeListener(stateChange -> context.addState(new RotaryEncoderState(RotaryEncoderInputSource.DT, stateChange.getCurrent())));
+        context.setEdgeRecorders(clkPortAccessor.recordEdges(EDGE_BUFFER_CAPACITY), dtPortAccessor.recordEdges(EDGE_BUFFER_CAPACITY));
 
         return new RotaryEncoder() {
             private int     minimum          = 0;
@@ -3,28 +3,28 @@ package org.omnaest.pi.service.sensor.flow.internal;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PreDestroy;
 
 import org.omnaest.pi.client.domain.flow.FlowSensorDefinition;
 import org.omnaest.pi.service.gpio.GPIOService;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPulseMeter;
 import org.omnaest.pi.service.sensor.flow.FlowSensorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.google.common.util.concurrent.AtomicDouble;
-
 import lombok.Builder;
 import lombok.Data;
 
 @Service
 public class FlowSensorServiceImpl implements FlowSensorService
 {
+    /**
+     * Number of pulse periods the flow rate is averaged over
+     */
+    private static final int                PULSE_WINDOW_SIZE             = 16;
+
     @Autowired
     private GPIOService                     gpioService;
 
@@ -43,27 +43,9 @@ public class FlowSensorServiceImpl implements FlowSensorService
                                                                 .withPullUpResistance()
                                                                 .enable();
 
-            AtomicLong counter = new AtomicLong();
-
-            portAccessor.addStateChangeListener(stateChange ->
-            {
-                if (stateChange.isFallingEdge())
-                {
-                    counter.incrementAndGet();
-                }
-            });
-
-            AtomicDouble flowRate = new AtomicDouble();
-            ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-            executorService.scheduleAtFixedRate(() ->
-            {
-                long currentCount = counter.getAndSet(0);
-                flowRate.set(currentCount / flowRateCoefficient);
-            }, 10, 1, TimeUnit.SECONDS);
-
             return FlowSensorContext.builder()
-                                    .executorService(executorService)
-                                    .flowRate(flowRate)
+                                    .pulseMeter(portAccessor.measurePulses(PULSE_WINDOW_SIZE))
+                                    .flowRateCoefficient(flowRateCoefficient)
                                     .portAccessor(portAccessor)
                                     .build();
         });
@@ -79,8 +61,9 @@ public class FlowSensorServiceImpl implements FlowSensorService
     public double getFlowRate(int signalPort)
     {
         return Optional.ofNullable(this.signalPortToFlowSensorContext.get(signalPort))
-                       .map(FlowSensorContext::getFlowRate)
-                       .map(AtomicDouble::get)
+                       .map(context -> context.getPulseMeter()
+                                              .getFrequency()
+                                       / context.getFlowRateCoefficient())
                        .orElse(Double.NaN);
     }
 
@@ -93,8 +76,6 @@ public class FlowSensorServiceImpl implements FlowSensorService
 
     private void disableFlowSensor(FlowSensorContext context)
     {
-        context.getExecutorService()
-               .shutdownNow();
         context.getPortAccessor()
                .disable();
     }
@@ -103,8 +84,8 @@ public class FlowSensorServiceImpl implements FlowSensorService
     @Builder
     private static class FlowSensorContext
     {
-        private final ScheduledExecutorService executorService;
-        private final AtomicDouble             flowRate;
-        private final DigitalInputGPIOPort     portAccessor;
+        private final DigitalInputPulseMeter pulseMeter;
+        private final double                 flowRateCoefficient;
+        private final DigitalInputGPIOPort   portAccessor;
     }
 }
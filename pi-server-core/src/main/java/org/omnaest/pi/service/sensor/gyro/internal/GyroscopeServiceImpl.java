@@ -1,8 +1,11 @@
 package org.omnaest.pi.service.sensor.gyro.internal;
 
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -10,7 +13,8 @@ import java.util.stream.IntStream;
 import org.omnaest.pi.client.domain.gyro.Orientation;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
-import org.omnaest.pi.service.i2c.I2CService.BusNumber;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.ByteArray;
 import org.omnaest.pi.service.sensor.gyro.GyroscopeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,18 +40,38 @@ public class GyroscopeServiceImpl implements GyroscopeService
 
     @Override
     public Orientation getOrientation(int numberOfSamplings)
+    {
+        return this.getOrCreateGyroscope()
+                   .getOrientation(numberOfSamplings)
+                   .orElse(null);
+    }
+
+    @Override
+    public CompletableFuture<Orientation> getOrientationAsync(int numberOfSamplings)
+    {
+        return this.getOrCreateGyroscope()
+                   .getOrientationAsync(numberOfSamplings);
+    }
+
+    private Gyroscope getOrCreateGyroscope()
     {
         return this.gyroscope.updateAndGet(gyroscope -> gyroscope != null ? gyroscope
-                : new Gyroscope(this.i2cService.provision(BusNumber.BUS_1)
-                                               .flatMap(bus -> bus.connectTo(0x68))))
-                             .getOrientation(numberOfSamplings)
-                             .orElse(null);
+                : new Gyroscope(this.i2cService.provision(BUS_NUMBER)
+                                               .flatMap(bus -> bus.connectTo(DEVICE_ADDRESS))));
     }
 
     private static class Gyroscope
     {
+        private static final int           GYROSCOPE_REGISTERS_SIZE = 6;
+        private static final Orientation   INVALID_ORIENTATION      = new Orientation(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
         private Optional<AddressConnector> addressConnector;
 
+        /**
+         * Reused buffer for the burst read of the x, y and z gyroscope registers
+         */
+        private final byte[]               gyroscopeBuffer          = new byte[GYROSCOPE_REGISTERS_SIZE];
+
         public Gyroscope(Optional<AddressConnector> addressConnector)
         {
             this.addressConnector = addressConnector;
@@ -61,47 +85,84 @@ public class GyroscopeServiceImpl implements GyroscopeService
                                                           .forEach(register -> applyRegister(register, connector)));
         }
 
-        public Optional<Orientation> getOrientation(int numberOfSamplings)
+        /**
+         * Composes the samples of single burst reads, so no I/O thread is blocked for the whole sampling
+         *
+         * @param numberOfSamplings
+         * @return
+         */
+        public CompletableFuture<Orientation> getOrientationAsync(int numberOfSamplings)
+        {
+            return this.addressConnector.map(addressConnector -> readSamplesAsync(addressConnector.async(), numberOfSamplings, new ArrayList<>()))
+                                        .map(samples -> samples.thenApply(Gyroscope::average))
+                                        .orElse(CompletableFuture.completedFuture(null));
+        }
+
+        private static CompletableFuture<List<Orientation>> readSamplesAsync(AsyncAddressConnector connector, int numberOfSamplings,
+                                                                             List<Orientation> samples)
+        {
+            if (samples.size() >= numberOfSamplings)
+            {
+                return CompletableFuture.completedFuture(samples);
+            }
+
+            return connector.readAsync(ReadRegister.GYROSCOPE_X.getHighAddress(), GYROSCOPE_REGISTERS_SIZE)
+                            .handle((data, exception) ->
+                            {
+                                samples.add(exception == null ? new Orientation(data.asUnsignedInt16(0, ByteOrder.BIG_ENDIAN),
+                                                                                data.asUnsignedInt16(2, ByteOrder.BIG_ENDIAN),
+                                                                                data.asUnsignedInt16(4, ByteOrder.BIG_ENDIAN))
+                                        : INVALID_ORIENTATION);
+                                return samples;
+                            })
+                            .thenCompose(previousSamples -> readSamplesAsync(connector, numberOfSamplings, previousSamples));
+        }
+
+        public synchronized Optional<Orientation> getOrientation(int numberOfSamplings)
         {
             return this.addressConnector.map(addressConnector ->
             {
                 List<Orientation> samples = IntStream.range(0, numberOfSamplings)
                                                      .mapToObj(sampleIndex ->
                                                      {
-                                                         int x = readRegister(ReadRegister.GYROSCOPE_X, addressConnector).orElse(Integer.MAX_VALUE);
-                                                         int y = readRegister(ReadRegister.GYROSCOPE_Y, addressConnector).orElse(Integer.MAX_VALUE);
-                                                         int z = readRegister(ReadRegister.GYROSCOPE_Z, addressConnector).orElse(Integer.MAX_VALUE);
+                                                         // the x, y and z registers are consecutive, so a single burst read fetches all of them
+                                                         if (!readGyroscopeRegisters(addressConnector, this.gyroscopeBuffer))
+                                                         {
+                                                             return INVALID_ORIENTATION;
+                                                         }
+
+                                                         int x = ByteArray.decodeUnsignedInt16(this.gyroscopeBuffer, 0, ByteOrder.BIG_ENDIAN);
+                                                         int y = ByteArray.decodeUnsignedInt16(this.gyroscopeBuffer, 2, ByteOrder.BIG_ENDIAN);
+                                                         int z = ByteArray.decodeUnsignedInt16(this.gyroscopeBuffer, 4, ByteOrder.BIG_ENDIAN);
 
                                                          return new Orientation(x, y, z);
                                                      })
                                                      .collect(Collectors.toList());
 
-                double x = samples.stream()
-                                  .mapToDouble(Orientation::getX)
-                                  .average()
-                                  .orElse(Integer.MAX_VALUE);
-                double y = samples.stream()
-                                  .mapToDouble(Orientation::getY)
-                                  .average()
-                                  .orElse(Integer.MAX_VALUE);
-                double z = samples.stream()
-                                  .mapToDouble(Orientation::getZ)
-                                  .average()
-                                  .orElse(Integer.MAX_VALUE);
-                return new Orientation(x, y, z);
+                return average(samples);
             });
         }
 
-        private static Optional<Integer> readRegister(ReadRegister readRegister, AddressConnector addressConnector)
+        private static Orientation average(List<Orientation> samples)
+        {
+            double x = samples.stream()
+                              .mapToDouble(Orientation::getX)
+                              .average()
+                              .orElse(Integer.MAX_VALUE);
+            double y = samples.stream()
+                              .mapToDouble(Orientation::getY)
+                              .average()
+                              .orElse(Integer.MAX_VALUE);
+            double z = samples.stream()
+                              .mapToDouble(Orientation::getZ)
+                              .average()
+                              .orElse(Integer.MAX_VALUE);
+            return new Orientation(x, y, z);
+        }
+
+        private static boolean readGyroscopeRegisters(AddressConnector addressConnector, byte[] buffer)
         {
-            LOG.debug("Read register: " + readRegister);
-            return addressConnector.read(readRegister.getHighAddress(), 0, 2)
-                                   .map(register ->
-                                   {
-                                       int value = register.asIntFromMsbToLsb(0);
-                                       LOG.debug("Register (" + readRegister + ") value: " + value);
-                                       return value;
-                                   });
+            return addressConnector.read(ReadRegister.GYROSCOPE_X.getHighAddress(), buffer, 0, buffer.length);
         }
 
         private static void applyRegister(SetupRegister register, AddressConnector addressConnector)
@@ -2,91 +2,279 @@ package org.omnaest.pi.service.sensor.pressure.internal;
 
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.omnaest.pi.client.domain.pressure.LPS28Definition;
+import org.omnaest.pi.client.domain.pressure.LPS28Sample;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
-import org.omnaest.pi.service.i2c.I2CService.Register;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
 import org.omnaest.pi.service.i2c.I2CService.RegisterBit;
-import org.omnaest.pi.service.i2c.I2CService.RegisterBits;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+import org.omnaest.pi.service.i2c.RegisterMap;
+import org.omnaest.pi.service.i2c.RegisterMap.Endianness;
+import org.omnaest.pi.service.i2c.RegisterMap.RegisterAccessor;
+import org.omnaest.pi.service.i2c.RegisterMap.Volatility;
+import org.omnaest.pi.service.i2c.WaitStrategies;
 import org.omnaest.pi.service.sensor.pressure.LPS28PressureService;
-import org.omnaest.pi.service.utils.ThreadUtils;
 import org.omnaest.utils.bitset.Bits;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
-import lombok.Data;
-
 @Service
 @Scope(SCOPE_PROTOTYPE)
 public class LPS28PressureServiceImpl implements LPS28PressureService
 {
+    /**
+     * A one shot conversion takes a few milliseconds, so the data ready bits are polled with a short backoff
+     */
+    private static final WaitStrategy WAIT_STRATEGY      = WaitStrategies.exponentialBackoff(1, 8, TimeUnit.MILLISECONDS);
+
+    /**
+     * The one shot reads run the sensor at 200Hz, so a conversion is available shortly after the initialization
+     */
+    private static final int          ONE_SHOT_DATA_RATE = OutputDataRate._200HZ.getCode();
+
+    static enum LPS28Field
+    {
+        DATA_RATE,
+        SOFTWARE_RESET,
+        FULL_SCALE_MODE,
+        CONTROL_2,
+        POLARITY,
+        OPEN_DRAIN,
+        DATA_READY_PULSE,
+        PRESSURE_READY,
+        TEMPERATURE_READY,
+        PRESSURE,
+        TEMPERATURE,
+        FIFO_MODE,
+        FIFO_LEVEL,
+        FIFO_OVERRUN
+    }
+
+    /**
+     * The control registers are only changed by the host and are served from the shadow register cache, except of CTRL_REG2 (0x11), which
+     * contains the self clearing software reset bit and is therefore always accessed on the device together with its configuration bits. The
+     * STATUS and FIFO_STATUS registers are updated by the chip and therefore always read from the device.
+     */
+    private static final RegisterMap<LPS28Field> REGISTER_MAP = RegisterMap.builder(LPS28Field.class)
+                                                                           .bits(LPS28Field.DATA_RATE, 0x10, 3, 4, Volatility.CACHED)
+                                                                           .bit(LPS28Field.SOFTWARE_RESET, 0x11, 2, Volatility.VOLATILE)
+                                                                           .bit(LPS28Field.FULL_SCALE_MODE, 0x11, 6, Volatility.VOLATILE)
+                                                                           .bits(LPS28Field.CONTROL_2, 0x11, 0, 8, Volatility.VOLATILE)
+                                                                           .bit(LPS28Field.POLARITY, 0x12, 3, Volatility.CACHED)
+                                                                           .bit(LPS28Field.OPEN_DRAIN, 0x12, 1, Volatility.CACHED)
+                                                                           .bit(LPS28Field.DATA_READY_PULSE, 0x13, 6, Volatility.CACHED)
+                                                                           .bits(LPS28Field.FIFO_MODE, 0x14, 0, 3, Volatility.CACHED)
+                                                                           .bits(LPS28Field.FIFO_LEVEL, 0x25, 0, 8, Volatility.VOLATILE)
+                                                                           .bit(LPS28Field.FIFO_OVERRUN, 0x26, 6, Volatility.VOLATILE)
+                                                                           .bit(LPS28Field.PRESSURE_READY, 0x27, 0, Volatility.VOLATILE)
+                                                                           .bit(LPS28Field.TEMPERATURE_READY, 0x27, 1, Volatility.VOLATILE)
+                                                                           .value(LPS28Field.PRESSURE, 0x28, 24, Endianness.LITTLE_ENDIAN, false, Volatility.VOLATILE)
+                                                                           .value(LPS28Field.TEMPERATURE, 0x2B, 16, Endianness.LITTLE_ENDIAN, true, Volatility.VOLATILE)
+                                                                           .build();
+
+    @Autowired
+    private I2CService                            i2cService;
+
     @Autowired
-    private I2CService    i2cService;
+    private LPS28SessionRegistry                  sessionRegistry;
 
-    private int           bus           = 1;
-    private int           address       = 0x5C;
-    private PressureScale pressureScale = PressureScale._4060HPA;
+    private int                                   bus           = 1;
+    private int                                   address       = 0x5C;
+    private PressureScale                         pressureScale = PressureScale._4060HPA;
+    private volatile RegisterAccessor<LPS28Field> registerAccessor;
 
     @Override
     public double readPressure()
     {
-        LPS28Accessor accessor = this.createLPS28Accessor();
+        Optional<LPS28Session> session = this.sessionRegistry.get(this.bus, this.address);
+        if (session.isPresent())
+        {
+            return this.getLatestSample(session.get())
+                       .getPressure();
+        }
 
-        this.initialize(accessor);
+        RegisterAccessor<LPS28Field> accessor = this.getOrCreateRegisterAccessor();
+        boolean isHighPressureScale = this.isHighPressureScale();
+
+        this.initialize(accessor, isHighPressureScale);
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
+                                            accessor.bit(LPS28Field.PRESSURE_READY));
+        return accessor.read(LPS28Field.PRESSURE) / this.getPressureDivisor(isHighPressureScale);
+    }
+
+    @Override
+    public CompletableFuture<Double> readPressureAsync()
+    {
+        Optional<LPS28Session> session = this.sessionRegistry.get(this.bus, this.address);
+        if (session.isPresent())
+        {
+            return CompletableFuture.completedFuture(this.getLatestSample(session.get())
+                                                         .getPressure());
+        }
 
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
-                                                                        accessor.getPressureReadyRegisterBit());
+        RegisterAccessor<LPS28Field> accessor = this.getOrCreateRegisterAccessor();
+        AsyncAddressConnector connector = accessor.getConnector()
+                                                  .async();
+        boolean isHighPressureScale = this.isHighPressureScale();
 
-        double rawValue = accessor.getPressureRegisterBits()
-                                  .readAsLittleEndianUnsignedInteger();
+        return this.initializeAsync(accessor, connector, isHighPressureScale)
+                   .thenCompose(c -> this.waitForRegisterBitToBecomeTrueAsync(connector, 1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
+                                                                              accessor.bit(LPS28Field.PRESSURE_READY)))
+                   .thenCompose(c -> c.supplyAsync(syncConnector ->
+                   {
+                       double rawValue = accessor.read(LPS28Field.PRESSURE);
 
-        return rawValue / (this.isHighPressureScale() ? 2048.0 : 4096.0);
+                       return rawValue / this.getPressureDivisor(isHighPressureScale);
+                   }));
     }
 
     @Override
     public double readTemperature()
     {
-        LPS28Accessor accessor = this.createLPS28Accessor();
+        Optional<LPS28Session> session = this.sessionRegistry.get(this.bus, this.address);
+        if (session.isPresent())
+        {
+            return this.getLatestSample(session.get())
+                       .getTemperature();
+        }
+
+        RegisterAccessor<LPS28Field> accessor = this.getOrCreateRegisterAccessor();
+
+        this.initialize(accessor, this.isHighPressureScale());
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
+                                            accessor.bit(LPS28Field.TEMPERATURE_READY));
+        return accessor.read(LPS28Field.TEMPERATURE) / 100.0;
+    }
+
+    @Override
+    public CompletableFuture<Double> readTemperatureAsync()
+    {
+        Optional<LPS28Session> session = this.sessionRegistry.get(this.bus, this.address);
+        if (session.isPresent())
+        {
+            return CompletableFuture.completedFuture(this.getLatestSample(session.get())
+                                                         .getTemperature());
+        }
 
-        this.initialize(accessor);
+        RegisterAccessor<LPS28Field> accessor = this.getOrCreateRegisterAccessor();
+        AsyncAddressConnector connector = accessor.getConnector()
+                                                  .async();
 
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
-                                                                        accessor.getTemperatureReadyRegisterBit());
+        return this.initializeAsync(accessor, connector, this.isHighPressureScale())
+                   .thenCompose(c -> this.waitForRegisterBitToBecomeTrueAsync(connector, 1000, TimeUnit.MILLISECONDS, "Timeout waiting for pressure data",
+                                                                              accessor.bit(LPS28Field.TEMPERATURE_READY)))
+                   .thenCompose(c -> c.supplyAsync(syncConnector ->
+                   {
+                       double rawValue = accessor.read(LPS28Field.TEMPERATURE);
 
-        double rawValue = accessor.getTemperatureRegisterBits()
-                                  .readAsLittleEndianUnsignedInteger();
+                       return rawValue / 100.0;
+                   }));
+    }
 
-        return rawValue / 100.0;
+    private void initialize(RegisterAccessor<LPS28Field> accessor, boolean isHighPressureScale)
+    {
+        accessor.write(LPS28Field.SOFTWARE_RESET, true)
+                .getConnector()
+                .wait(10, TimeUnit.MILLISECONDS)
+                .invalidateRegisterCache();
+        this.configure(accessor, isHighPressureScale, ONE_SHOT_DATA_RATE);
     }
 
-    private void initialize(LPS28Accessor accessor)
+    private CompletableFuture<AsyncAddressConnector> initializeAsync(RegisterAccessor<LPS28Field> accessor, AsyncAddressConnector connector, boolean isHighPressureScale)
     {
-        accessor.getSwResetRegisterBit()
-                .writeValue(true);
-        ThreadUtils.sleep(10, TimeUnit.MILLISECONDS);
+        return connector.supplyAsync(syncConnector ->
+        {
+            accessor.write(LPS28Field.SOFTWARE_RESET, true);
+            return connector;
+        })
+                        .thenCompose(c -> c.delayAsync(10, TimeUnit.MILLISECONDS))
+                        .thenCompose(c -> c.supplyAsync(syncConnector ->
+                        {
+                            syncConnector.invalidateRegisterCache();
+                            this.configure(accessor, isHighPressureScale, ONE_SHOT_DATA_RATE);
+                            return c;
+                        }));
+    }
 
+    @Override
+    public void startContinuousMode(OutputDataRate outputDataRate)
+    {
+        RegisterAccessor<LPS28Field> accessor = this.getOrCreateRegisterAccessor();
         boolean isHighPressureScale = this.isHighPressureScale();
+
+        this.sessionRegistry.start(this.bus, this.address, () ->
+        {
+            accessor.write(LPS28Field.SOFTWARE_RESET, true)
+                    .getConnector()
+                    .wait(10, TimeUnit.MILLISECONDS)
+                    .invalidateRegisterCache();
+            this.configure(accessor, isHighPressureScale, outputDataRate.getCode());
+            return new LPS28Session(REGISTER_MAP.bind(accessor.getConnector()
+                                                             .withPriority(Priority.BACKGROUND)),
+                                    outputDataRate, this.getPressureDivisor(isHighPressureScale));
+        });
+    }
+
+    @Override
+    public void stopContinuousMode()
+    {
+        this.sessionRegistry.stop(this.bus, this.address);
+    }
+
+    @Override
+    public LPS28Sample readLatestSample()
+    {
+        return this.getLatestSample(this.getSession());
+    }
+
+    @Override
+    public LPS28Sample[] readBufferedSamples()
+    {
+        return this.getSession()
+                   .getBufferedSamples()
+                   .toArray(new LPS28Sample[0]);
+    }
+
+    private LPS28Session getSession()
+    {
+        return this.sessionRegistry.get(this.bus, this.address)
+                                   .orElseThrow(() -> new IllegalStateException("Continuous mode of LPS28 is not started on bus " + this.bus + " at address "
+                                           + Bits.of(this.address)
+                                                 .toHexDigits()
+                                                 .toUpperCaseString()));
+    }
+
+    private LPS28Sample getLatestSample(LPS28Session session)
+    {
+        return session.getLatestSample()
+                      .orElseThrow(() -> new IllegalStateException("No LPS28 sample has been read from the FIFO yet"));
+    }
+
+    private void configure(RegisterAccessor<LPS28Field> accessor, boolean isHighPressureScale, int dataRate)
+    {
         Bits ctrlRegisterValue = Bits.of(0x30)
                                      .setLength(8)
                                      .setIndex(6, isHighPressureScale); // true = 4060hPa , false = 1260hPa
-        accessor.getControl2RegisterBits()
+        accessor.bits(LPS28Field.CONTROL_2)
                 .write(ctrlRegisterValue); // Write control register
 
-        accessor.getFullScaleModeRegisterBit()
-                .writeValue(isHighPressureScale);
-        accessor.getPolarityRegisterBit()
-                .writeValue(true);
-        accessor.getOpenDrainRegisterBit()
-                .writeValue(false);
-
-        accessor.getDataRateRegisterBits()
-                .write(0b1000);
+        accessor.write(LPS28Field.FULL_SCALE_MODE, isHighPressureScale)
+                .write(LPS28Field.POLARITY, true)
+                .write(LPS28Field.OPEN_DRAIN, false)
+                .write(LPS28Field.DATA_RATE, dataRate)
+                .write(LPS28Field.DATA_READY_PULSE, true);
+    }
 
-        accessor.getDataReadyPulseRegisterBit()
-                .writeValue(true);
+    private double getPressureDivisor(boolean isHighPressureScale)
+    {
+        return isHighPressureScale ? 2048.0 : 4096.0;
     }
 
     private boolean isHighPressureScale()
@@ -94,67 +282,35 @@ public class LPS28PressureServiceImpl implements LPS28PressureService
         return PressureScale._4060HPA.equals(this.pressureScale);
     }
 
-    private LPS28Accessor createLPS28Accessor()
+    private RegisterAccessor<LPS28Field> getOrCreateRegisterAccessor()
+    {
+        RegisterAccessor<LPS28Field> accessor = this.registerAccessor;
+        if (accessor == null)
+        {
+            accessor = this.createRegisterAccessor();
+            this.registerAccessor = accessor;
+        }
+        return accessor;
+    }
+
+    private RegisterAccessor<LPS28Field> createRegisterAccessor()
     {
         AddressConnector connector = this.i2cService.provision(this.bus)
                                                     .orElseThrow(() -> new IllegalArgumentException("Unable to provision bus " + this.bus))
                                                     .connectTo(this.address)
                                                     .orElseThrow(() -> new IllegalArgumentException("Unable to access I2C address " + Bits.of(this.address)
                                                                                                                                           .toHexDigits()
-                                                                                                                                          .toUpperCaseString()));
-
-        return new LPS28Accessor(connector);
-    }
-
-    @Data
-    private static class LPS28Accessor
-    {
-
-        private final RegisterBits temperatureRegisterBits;
-        private final RegisterBits pressureRegisterBits;
-        private final RegisterBit  pressureReadyRegisterBit;
-        private final RegisterBit  temperatureReadyRegisterBit;
-        private final RegisterBit  swResetRegisterBit;
-        private final RegisterBits control2RegisterBits;
-        private final RegisterBit  dataReadyPulseRegisterBit;
-        private final RegisterBits dataRateRegisterBits;
-        private final RegisterBit  fullScaleModeRegisterBit;
-        private final RegisterBit  polarityRegisterBit;
-        private final RegisterBit  openDrainRegisterBit;
-
-        public LPS28Accessor(AddressConnector connector)
-        {
-            super();
-
-            this.temperatureRegisterBits = connector.accessRegister(0x2B)
-                                                    .accessBits(16);
-            this.pressureRegisterBits = connector.accessRegister(0x28)
-                                                 .accessBits(24);
-
-            Register control1Register = connector.accessRegister(0x10);
-            this.dataRateRegisterBits = control1Register.accessBits(3, 4);
-            Register control2Register = connector.accessRegister(0x11);
-            this.swResetRegisterBit = control2Register.accessBit(2);
-            this.fullScaleModeRegisterBit = control2Register.accessBit(6);
-            this.control2RegisterBits = control2Register.accessBits(8);
-
-            Register control3Register = connector.accessRegister(0x12);
-            this.polarityRegisterBit = control3Register.accessBit(3);
-            this.openDrainRegisterBit = control3Register.accessBit(1);
-            Register control4Register = connector.accessRegister(0x13);
-            this.dataReadyPulseRegisterBit = control4Register.accessBit(6);
-
-            Register statusRegister = connector.accessRegister(0x27);
-            this.pressureReadyRegisterBit = statusRegister.accessBit(0);
-            this.temperatureReadyRegisterBit = statusRegister.accessBit(1);
-        }
+                                                                                                                                          .toUpperCaseString()))
+                                                    .withWaitStrategy(WAIT_STRATEGY);
 
+        return REGISTER_MAP.bind(connector);
     }
 
     @Override
     public LPS28Definition usingBus(int bus)
     {
         this.bus = bus;
+        this.registerAccessor = null;
         return this;
     }
 
@@ -174,6 +330,7 @@ public class LPS28PressureServiceImpl implements LPS28PressureService
     public LPS28Definition usingAddress(int address)
     {
         this.address = address;
+        this.registerAccessor = null;
         return this;
     }
 
@@ -184,12 +341,28 @@ public class LPS28PressureServiceImpl implements LPS28PressureService
         return this;
     }
 
-    private void waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(int duration, TimeUnit timeUnit, String message, RegisterBit registerBit)
+    private void waitForRegisterBitToBecomeTrue(RegisterAccessor<LPS28Field> accessor, int duration, TimeUnit timeUnit, String message,
+                                                RegisterBit registerBit)
     {
-        ThreadUtils.sleepWhile(duration, timeUnit, () -> !registerBit.readValue(), () ->
+        try
         {
-            throw new IllegalStateException(message);
-        });
+            accessor.getConnector()
+                    .waitUntil(syncConnector -> registerBit.readValue(), duration, timeUnit);
+        }
+        catch (IllegalStateException e)
+        {
+            throw new IllegalStateException(message, e);
+        }
+    }
+
+    private CompletableFuture<AsyncAddressConnector> waitForRegisterBitToBecomeTrueAsync(AsyncAddressConnector connector, int duration, TimeUnit timeUnit,
+                                                                                          String message, RegisterBit registerBit)
+    {
+        return connector.waitUntilAsync(syncConnector -> registerBit.readValue(), duration, timeUnit)
+                        .exceptionally(e ->
+                        {
+                            throw new IllegalStateException(message, e);
+                        });
     }
 
 }
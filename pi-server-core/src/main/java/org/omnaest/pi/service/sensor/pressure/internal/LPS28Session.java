@@ -0,0 +1,155 @@
+package org.omnaest.pi.service.sensor.pressure.internal;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.client.domain.pressure.LPS28Definition.OutputDataRate;
+import org.omnaest.pi.client.domain.pressure.LPS28Sample;
+import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.i2c.RegisterMap.RegisterAccessor;
+import org.omnaest.pi.service.sensor.pressure.internal.LPS28PressureServiceImpl.LPS28Field;
+import org.omnaest.pi.service.utils.SampleRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Continuous mode of a LPS28. The sensor converts at the configured {@link OutputDataRate} into its hardware FIFO in continuous mode, which
+ * is drained on a background schedule: the FIFO level is read first and then all pending pressure samples together with the temperature are
+ * read in one transaction. The FIFO only stores pressure samples, so all samples of one readout share the temperature read at its end.
+ *
+ * @author omnaest
+ */
+class LPS28Session
+{
+    private static final Logger                    LOG                            = LoggerFactory.getLogger(LPS28Session.class);
+
+    private static final int                       FIFO_DATA_OUT_PRESSURE_ADDRESS = 0x78;
+    private static final int                       TEMPERATURE_ADDRESS            = 0x2B;
+    private static final int                       FIFO_CAPACITY                  = 128;
+    private static final int                       FIFO_MODE_BYPASS               = 0b000;
+    private static final int                       FIFO_MODE_CONTINUOUS           = 0b010;
+    private static final int                       BUFFER_CAPACITY                = 1024;
+
+    /**
+     * The FIFO is drained when it is half full, but at least every quarter second to keep the latest sample fresh
+     */
+    private static final long                      MAXIMUM_DRAIN_PERIOD           = 250;
+
+    private final RegisterAccessor<LPS28Field>     accessor;
+    private final OutputDataRate                   outputDataRate;
+    private final double                           pressureDivisor;
+    private final SampleRingBuffer<LPS28Sample>    samples                        = new SampleRingBuffer<>(BUFFER_CAPACITY);
+    private final ScheduledExecutorService         executorService                = Executors.newSingleThreadScheduledExecutor(LPS28Session::newDaemonThread);
+
+    private boolean                                overrunLogged                  = false;
+
+    /**
+     * @param accessor
+     *            of the already configured sensor, bound to a connector with {@link org.omnaest.pi.service.i2c.I2CService.Priority#BACKGROUND}
+     * @param outputDataRate
+     * @param pressureDivisor
+     *            divides the raw pressure value into hPa, depending on the pressure scale
+     */
+    public LPS28Session(RegisterAccessor<LPS28Field> accessor, OutputDataRate outputDataRate, double pressureDivisor)
+    {
+        super();
+        this.accessor = accessor;
+        this.outputDataRate = outputDataRate;
+        this.pressureDivisor = pressureDivisor;
+    }
+
+    public LPS28Session start()
+    {
+        // the bypass mode clears samples of a previous session, before the continuous mode starts to collect
+        this.accessor.write(LPS28Field.FIFO_MODE, FIFO_MODE_BYPASS)
+                     .write(LPS28Field.FIFO_MODE, FIFO_MODE_CONTINUOUS);
+
+        long drainPeriod = Math.min(MAXIMUM_DRAIN_PERIOD, FIFO_CAPACITY / 2 * 1000 / this.outputDataRate.getFrequencyInHz());
+        this.executorService.scheduleWithFixedDelay(this::drain, drainPeriod, drainPeriod, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public void stop()
+    {
+        this.executorService.shutdownNow();
+        try
+        {
+            this.accessor.write(LPS28Field.FIFO_MODE, FIFO_MODE_BYPASS)
+                         .write(LPS28Field.DATA_RATE, 0);
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("Failed to power down LPS28 after the continuous mode", e);
+        }
+    }
+
+    public Optional<LPS28Sample> getLatestSample()
+    {
+        return this.samples.getLatest();
+    }
+
+    public List<LPS28Sample> getBufferedSamples()
+    {
+        return this.samples.toList();
+    }
+
+    private void drain()
+    {
+        try
+        {
+            int level = (int) this.accessor.read(LPS28Field.FIFO_LEVEL);
+            if (level >= FIFO_CAPACITY && this.accessor.isSet(LPS28Field.FIFO_OVERRUN) && !this.overrunLogged)
+            {
+                LOG.warn("LPS28 FIFO overrun at " + this.outputDataRate + ", the oldest samples have been lost");
+                this.overrunLogged = true;
+            }
+            if (level > 0)
+            {
+                this.readSamples(level);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("Failed to drain LPS28 FIFO", e);
+        }
+    }
+
+    private void readSamples(int level)
+    {
+        long timestamp = System.currentTimeMillis();
+        TransactionResult result = this.accessor.getConnector()
+                                                .transaction()
+                                                .read(FIFO_DATA_OUT_PRESSURE_ADDRESS, 3 * level)
+                                                .read(TEMPERATURE_ADDRESS, 2)
+                                                .execute()
+                                                .orElseThrow(() -> new IllegalStateException("Unable to read LPS28 FIFO via I2C"));
+        ByteArray pressures = result.get(0);
+        // TEMP_OUT is a two's complement value in hundredths of a degree, so temperatures below 0 degrees Celsius are negative
+        double temperature = result.get(1)
+                                   .asInt16(0, ByteOrder.LITTLE_ENDIAN)
+                / 100.0;
+
+        // the latest sample has been converted at the time of the readout, the earlier ones each one period before
+        double periodInMilliseconds = 1000.0 / this.outputDataRate.getFrequencyInHz();
+        for (int ii = 0; ii < level; ii++)
+        {
+            this.samples.add(LPS28Sample.builder()
+                                        .pressure(pressures.asUnsignedInt24(3 * ii, ByteOrder.LITTLE_ENDIAN) / this.pressureDivisor)
+                                        .temperature(temperature)
+                                        .timestamp(timestamp - Math.round((level - 1 - ii) * periodInMilliseconds))
+                                        .build());
+        }
+    }
+
+    private static Thread newDaemonThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "lps28-fifo");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
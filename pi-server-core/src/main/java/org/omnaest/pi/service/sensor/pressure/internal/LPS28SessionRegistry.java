@@ -0,0 +1,63 @@
+package org.omnaest.pi.service.sensor.pressure.internal;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the {@link LPS28Session}s per bus and address. The {@link LPS28PressureServiceImpl} is a prototype, so a session has to outlive the
+ * instance, which started it.
+ *
+ * @author omnaest
+ */
+@Service
+class LPS28SessionRegistry
+{
+    private final Map<String, LPS28Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a new session, after the session running on the same bus and address has been stopped
+     *
+     * @param bus
+     * @param address
+     * @param sessionFactory
+     * @return
+     */
+    public synchronized LPS28Session start(int bus, int address, Supplier<LPS28Session> sessionFactory)
+    {
+        this.stop(bus, address);
+        LPS28Session session = sessionFactory.get()
+                                             .start();
+        this.sessions.put(this.createKey(bus, address), session);
+        return session;
+    }
+
+    public synchronized void stop(int bus, int address)
+    {
+        Optional.ofNullable(this.sessions.remove(this.createKey(bus, address)))
+                .ifPresent(LPS28Session::stop);
+    }
+
+    public Optional<LPS28Session> get(int bus, int address)
+    {
+        return Optional.ofNullable(this.sessions.get(this.createKey(bus, address)));
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        this.sessions.values()
+                     .forEach(LPS28Session::stop);
+        this.sessions.clear();
+    }
+
+    private String createKey(int bus, int address)
+    {
+        return bus + "." + address;
+    }
+}
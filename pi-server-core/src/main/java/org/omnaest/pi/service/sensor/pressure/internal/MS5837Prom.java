@@ -0,0 +1,65 @@
+package org.omnaest.pi.service.sensor.pressure.internal;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Validation of the factory calibration PROM of the MS5837. The PROM consists of 7 words at 0xA0 to 0xAC, where the upper 4 bits of the
+ * first word hold a CRC-4 over all words and the words 1 to 6 hold the coefficients C1 to C6.
+ *
+ * @author omnaest
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class MS5837Prom
+{
+    public static final int NUMBER_OF_WORDS = 7;
+
+    /**
+     * Returns true, if the given PROM words have the expected length, match the CRC-4 stored in the first word and none of the coefficients
+     * C1 to C6 is 0x0000 or 0xFFFF. A bus which reads all zeros or all ones, e.g. a missing device, passes the CRC-4 check, as the CRC-4 of
+     * all zero words is 0.
+     *
+     * @param words
+     * @return
+     */
+    public static boolean isValid(int[] words)
+    {
+        return words != null && words.length == NUMBER_OF_WORDS && hasValidCoefficients(words) && crc4(words) == (words[0] >> 12 & 0x0F);
+    }
+
+    private static boolean hasValidCoefficients(int[] words)
+    {
+        for (int ii = 1; ii < NUMBER_OF_WORDS; ii++)
+        {
+            if (words[ii] == 0x0000 || words[ii] == 0xFFFF)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the CRC-4 of the given PROM words as specified in the MS5837 datasheet, with the CRC bits of the first word and the missing
+     * eighth word taken as 0
+     *
+     * @param words
+     * @return
+     */
+    public static int crc4(int[] words)
+    {
+        int remainder = 0;
+        for (int ii = 0; ii < 16; ii++)
+        {
+            int wordIndex = ii >> 1;
+            int word = wordIndex == 0 ? words[0] & 0x0FFF : wordIndex < NUMBER_OF_WORDS ? words[wordIndex] : 0;
+            remainder ^= ii % 2 == 1 ? word & 0xFF : word >> 8 & 0xFF;
+            for (int bit = 0; bit < 8; bit++)
+            {
+                remainder = (remainder & 0x8000) != 0 ? (remainder << 1) ^ 0x3000 : remainder << 1;
+                remainder &= 0xFFFF;
+            }
+        }
+        return remainder >> 12 & 0x0F;
+    }
+}
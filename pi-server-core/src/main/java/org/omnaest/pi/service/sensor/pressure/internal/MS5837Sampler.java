@@ -0,0 +1,242 @@
+package org.omnaest.pi.service.sensor.pressure.internal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.omnaest.pi.client.domain.pressure.MS5837Oversampling;
+import org.omnaest.pi.client.domain.pressure.PressureAndTemperature;
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.sensor.pressure.PressureSensorMS5837Service.SamplerStatistics;
+import org.omnaest.pi.service.utils.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples a MS5837 continuously by alternating the D1 pressure and the D2 temperature conversion. The ADC result of a finished conversion
+ * is read and the next conversion is started within one transaction, so the chip converts back to back, and after every conversion a new
+ * sample is compensated from the latest D1 and D2 value.<br>
+ * <br>
+ * All conversions run on a single thread, so the D1 and D2 values are confined to that thread and only the compensated sample is shared.
+ * Other accesses of the device are executed on that thread as well via {@link #executeExclusively(Supplier)}, as any command sent while a
+ * conversion is running corrupts its result.
+ *
+ * @author omnaest
+ */
+class MS5837Sampler
+{
+    private static final Logger                                  LOG                 = LoggerFactory.getLogger(MS5837Sampler.class);
+
+    private static final int                                     PRESSURE_COMMAND    = 0x40;
+    private static final int                                     TEMPERATURE_COMMAND = 0x50;
+
+    private final AddressConnector                               address;
+    private final MS5837Oversampling                             oversampling;
+    private final BiFunction<Long, Long, PressureAndTemperature> compensation;
+    private final ScheduledExecutorService                       executorService     = Executors.newSingleThreadScheduledExecutor(MS5837Sampler::newDaemonThread);
+
+    private final LongAdder                                      numberOfSamples     = new LongAdder();
+    private final LongAdder                                      numberOfErrors      = new LongAdder();
+    private volatile PressureAndTemperature                      latestSample;
+    private volatile long                                        startTime;
+
+    private long                                                 D1                  = -1;
+    private long                                                 D2                  = -1;
+    private boolean                                              convertingPressure  = false;
+    private boolean                                              converting          = false;
+    private long                                                 conversionStartTime;
+    private int                                                  pendingExclusiveAccesses;
+
+    /**
+     * @param address
+     *            the conversions are scheduled with {@link Priority#BACKGROUND} on it
+     * @param oversampling
+     * @param compensation
+     *            maps the D1 and D2 value to a compensated sample
+     */
+    public MS5837Sampler(AddressConnector address, MS5837Oversampling oversampling, BiFunction<Long, Long, PressureAndTemperature> compensation)
+    {
+        super();
+        this.address = address.withPriority(Priority.BACKGROUND);
+        this.oversampling = oversampling;
+        this.compensation = compensation;
+    }
+
+    public MS5837Sampler start()
+    {
+        this.startTime = System.nanoTime();
+        this.executorService.execute(this::convert);
+        return this;
+    }
+
+    public void stop()
+    {
+        this.executorService.shutdownNow();
+    }
+
+    /**
+     * Executes the given operation on the sampler thread in between two conversions, so it has exclusive access to the device. A running
+     * conversion is finished and its result is kept before, and the next conversion is started after the operation. The end of the running
+     * conversion is awaited on the timer of the sampler thread, which does not start any further conversion meanwhile.
+     *
+     * @param operation
+     * @return
+     */
+    public <R> R executeExclusively(Supplier<R> operation)
+    {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        this.executorService.execute(() ->
+        {
+            this.pendingExclusiveAccesses++;
+            long remainingConversionTime = this.converting ? this.getRemainingConversionTimeInNanos() : 0;
+            this.executorService.schedule(() ->
+            {
+                try
+                {
+                    this.finishConversion();
+                    result.complete(operation.get());
+                }
+                catch (Throwable e)
+                {
+                    result.completeExceptionally(e);
+                }
+                finally
+                {
+                    this.pendingExclusiveAccesses--;
+                }
+            }, Math.max(0, remainingConversionTime), TimeUnit.NANOSECONDS);
+        });
+        return FutureUtils.join(result);
+    }
+
+    public PressureAndTemperature getLatestSample()
+    {
+        return this.latestSample;
+    }
+
+    public SamplerStatistics getStatistics()
+    {
+        double durationInSeconds = (System.nanoTime() - this.startTime) / 1000000000.0;
+        long numberOfSamples = this.numberOfSamples.sum();
+        return SamplerStatistics.builder()
+                                .oversampling(this.oversampling)
+                                .maximumSampleRateInHz(1000000.0 / this.oversampling.getConversionTimeInMicroseconds())
+                                .sampleRateInHz(durationInSeconds > 0 ? numberOfSamples / durationInSeconds : 0.0)
+                                .numberOfSamples(numberOfSamples)
+                                .numberOfErrors(this.numberOfErrors.sum())
+                                .build();
+    }
+
+    private void convert()
+    {
+        // a pending exclusive access finishes the running conversion itself and the next conversion is started afterwards
+        if (this.pendingExclusiveAccesses == 0)
+        {
+            try
+            {
+                if (this.converting)
+                {
+                    this.readAndStartNextConversion();
+                }
+                else
+                {
+                    // after the start or an error the ADC holds no result, so only a new conversion is started
+                    this.convertingPressure = true;
+                    this.address.write((byte) this.getCommand(true));
+                    this.conversionStartTime = System.nanoTime();
+                    this.converting = true;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                if (this.numberOfErrors.sum() == 0)
+                {
+                    LOG.warn("Failed to sample MS5837, retrying with the next conversion", e);
+                }
+                this.numberOfErrors.increment();
+                this.converting = false;
+            }
+        }
+
+        if (!this.executorService.isShutdown())
+        {
+            this.executorService.schedule(this::convert, this.oversampling.getConversionTimeInMicroseconds(), TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void readAndStartNextConversion()
+    {
+        TransactionResult result = this.address.transaction()
+                                               .read(0x00, 3)
+                                               .write((byte) this.getCommand(!this.convertingPressure))
+                                               .execute()
+                                               .orElseThrow(() -> new IllegalStateException("Unable to read MS5837 ADC via I2C"));
+        this.conversionStartTime = System.nanoTime();
+        this.acceptConversion(result.get(0)
+                                    .asLongFromMsbToLsb(0, 2));
+    }
+
+    /**
+     * Reads the result of the running conversion without starting the next conversion, which is started by the next {@link #convert()}. The
+     * caller has awaited the end of the conversion.
+     */
+    private void finishConversion()
+    {
+        if (this.converting)
+        {
+            this.converting = false;
+            try
+            {
+                this.acceptConversion(this.address.read(0x00, 0, 3)
+                                                  .orElseThrow(() -> new IllegalStateException("Unable to read MS5837 ADC via I2C"))
+                                                  .asLongFromMsbToLsb(0, 2));
+            }
+            catch (RuntimeException e)
+            {
+                this.numberOfErrors.increment();
+            }
+        }
+    }
+
+    private long getRemainingConversionTimeInNanos()
+    {
+        return TimeUnit.MICROSECONDS.toNanos(this.oversampling.getConversionTimeInMicroseconds()) - (System.nanoTime() - this.conversionStartTime);
+    }
+
+    private void acceptConversion(long value)
+    {
+        if (this.convertingPressure)
+        {
+            this.D1 = value;
+        }
+        else
+        {
+            this.D2 = value;
+        }
+        this.convertingPressure = !this.convertingPressure;
+
+        if (this.D1 >= 0 && this.D2 >= 0)
+        {
+            this.latestSample = this.compensation.apply(this.D1, this.D2);
+            this.numberOfSamples.increment();
+        }
+    }
+
+    private int getCommand(boolean pressure)
+    {
+        return (pressure ? PRESSURE_COMMAND : TEMPERATURE_COMMAND) + 2 * this.oversampling.ordinal();
+    }
+
+    private static Thread newDaemonThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "ms5837-sampler");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
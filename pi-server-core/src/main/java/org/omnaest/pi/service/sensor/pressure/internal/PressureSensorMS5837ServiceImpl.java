@@ -1,20 +1,24 @@
 package org.omnaest.pi.service.sensor.pressure.internal;
 
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
 
 import org.omnaest.pi.client.domain.pressure.MS5837Model;
+import org.omnaest.pi.client.domain.pressure.MS5837Oversampling;
 import org.omnaest.pi.client.domain.pressure.PressureAndTemperature;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
-import org.omnaest.pi.service.i2c.I2CService.BusNumber;
 import org.omnaest.pi.service.i2c.I2CService.I2CBusControl;
+import org.omnaest.pi.service.i2c.calibration.CalibrationCacheService;
 import org.omnaest.pi.service.sensor.pressure.PressureSensorMS5837Service;
-import org.omnaest.utils.ThreadUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -29,64 +33,181 @@ public class PressureSensorMS5837ServiceImpl implements PressureSensorMS5837Serv
     @Autowired
     private I2CService                               i2cService;
 
+    @Autowired
+    private CalibrationCacheService                  calibrationCacheService;
+
     private final Map<String, PressureSensorContext> sensorIdToContext = new ConcurrentHashMap<>();
 
+    /**
+     * Guards the ownership of the device, which is shared by all sensor ids, and the {@link MS5837Sampler}. It is only held to change them and
+     * never while waiting for a conversion.
+     */
+    private final Object                             deviceLock        = new Object();
+
+    /**
+     * A command sent while a conversion is running corrupts the conversion, so a caller owns the device from its first command to its last ADC
+     * read. While a sensor is sampled continuously, the accesses of the other sensor ids are executed by its {@link MS5837Sampler} in between
+     * two conversions. Guarded by the device lock.
+     */
+    private boolean                                  deviceOwned       = false;
+
+    /**
+     * The only {@link MS5837Sampler} of the device, guarded by the device lock
+     */
+    private MS5837Sampler                            sampler;
+
     @Override
     public String enableSensorAndGetSensorId(MS5837Model model)
     {
-        I2CBusControl busControl = this.i2cService.provision(BusNumber.BUS_1)
+        return this.enableSensorAndGetSensorId(model, null, false);
+    }
+
+    @Override
+    public String enableSensorAndGetSensorId(MS5837Model model, MS5837Oversampling oversampling)
+    {
+        return this.enableSensorAndGetSensorId(model, oversampling, true);
+    }
+
+    private String enableSensorAndGetSensorId(MS5837Model model, MS5837Oversampling oversampling, boolean continuousSampling)
+    {
+        I2CBusControl busControl = this.i2cService.provision(BUS_NUMBER)
                                                   .orElseThrow(() -> new IllegalStateException("Unable to provision I2C bus for pressure sensor"));
-        AddressConnector address = busControl.connectTo(0x76)
+        AddressConnector address = busControl.connectTo(DEVICE_ADDRESS)
                                              .orElseThrow(() -> new IllegalArgumentException("Unable to connect to pressure sensor address via I2C"));
 
-        double initialPressure = this.readPressureAndTemperature(address, 0, model)
-                                     .getPressureAbsolute();
-        PressureSensorContext context = PressureSensorContext.builder()
-                                                             .address(address)
-                                                             .initalPressure(initialPressure)
-                                                             .model(model)
-                                                             .build();
-
-        String sensorId = UUID.randomUUID()
-                              .toString();
-        this.sensorIdToContext.put(sensorId, context);
-
-        return sensorId;
-    }
-
-    private Function<Long, PressureAndTemperature> createPressureAndTemperatureFunction(AddressConnector address, double initalPressure, MS5837Model model)
-    {
-        address.write((byte) 0x1E);
-        ThreadUtils.sleepSilently(20, TimeUnit.MILLISECONDS);
-
-        int C1 = address.read(0xA2, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C1"))
-                        .asIntFromMsbToLsb(0);
-        int C2 = address.read(0xA4, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C2"))
-                        .asIntFromMsbToLsb(0);
-        int C3 = address.read(0xA6, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C3"))
-                        .asIntFromMsbToLsb(0);
-        int C4 = address.read(0xA8, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C4"))
-                        .asIntFromMsbToLsb(0);
-        int C5 = address.read(0xAA, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C5"))
-                        .asIntFromMsbToLsb(0);
-        int C6 = address.read(0xAC, 0, 2)
-                        .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for C6"))
-                        .asIntFromMsbToLsb(0);
-
-        address.write((byte) 0x40);
-        ThreadUtils.sleepSilently(20, TimeUnit.MILLISECONDS);
-
-        long D1 = address.read(0x00, 0, 3)
-                         .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for D1"))
-                         .asLongFromMsbToLsb(0, 2);
-
-        address.write((byte) 0x50);
-        ThreadUtils.sleepSilently(20, TimeUnit.MILLISECONDS);
+        MS5837Sampler runningSampler = this.acquireDevice();
+        try
+        {
+            if (continuousSampling && runningSampler != null)
+            {
+                throw new IllegalStateException("The pressure sensor is already sampled continuously");
+            }
+
+            int[] prom = this.executeOnDevice(runningSampler,
+                                              () -> this.calibrationCacheService.getOrRead(BUS_NUMBER.ordinal(), DEVICE_ADDRESS, "MS5837",
+                                                                                           () -> this.readProm(address), MS5837Prom::isValid))
+                             .orElseThrow(() -> new IllegalStateException("Unable to read a valid calibration PROM of the pressure sensor via I2C"));
+            double initialPressure = this.executeOnDevice(runningSampler, () -> this.readPressureAndTemperature(address, prom, 0, model))
+                                         .getPressureAbsolute();
+            MS5837Sampler sampler = continuousSampling ? this.startSampler(address, prom, initialPressure, model, oversampling) : null;
+            PressureSensorContext context = PressureSensorContext.builder()
+                                                                 .address(address)
+                                                                 .prom(prom)
+                                                                 .initalPressure(initialPressure)
+                                                                 .model(model)
+                                                                 .sampler(sampler)
+                                                                 .build();
+
+            String sensorId = UUID.randomUUID()
+                                  .toString();
+            this.sensorIdToContext.put(sensorId, context);
+            if (sampler != null)
+            {
+                synchronized (this.deviceLock)
+                {
+                    this.sampler = sampler;
+                }
+            }
+
+            return sensorId;
+        }
+        finally
+        {
+            this.releaseDevice();
+        }
+    }
+
+    /**
+     * Waits until no other caller owns the device and takes over the ownership. The device lock is released while waiting.
+     *
+     * @return the running {@link MS5837Sampler} or null
+     */
+    private MS5837Sampler acquireDevice()
+    {
+        synchronized (this.deviceLock)
+        {
+            while (this.deviceOwned)
+            {
+                try
+                {
+                    this.deviceLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread()
+                          .interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the pressure sensor", e);
+                }
+            }
+            this.deviceOwned = true;
+            return this.sampler;
+        }
+    }
+
+    private void releaseDevice()
+    {
+        synchronized (this.deviceLock)
+        {
+            this.deviceOwned = false;
+            this.deviceLock.notifyAll();
+        }
+    }
+
+    /**
+     * Executes the given device access directly or, while the device is sampled continuously, by the {@link MS5837Sampler} in between two
+     * conversions. The caller has to own the device.
+     *
+     * @param runningSampler
+     * @param operation
+     * @return
+     */
+    private <R> R executeOnDevice(MS5837Sampler runningSampler, Supplier<R> operation)
+    {
+        return runningSampler != null ? runningSampler.executeExclusively(operation) : operation.get();
+    }
+
+    private MS5837Sampler startSampler(AddressConnector address, int[] prom, double initialPressure, MS5837Model model,
+                                       MS5837Oversampling oversampling)
+    {
+        return new MS5837Sampler(address, oversampling, (D1, D2) -> this.createPressureAndTemperatureFunction(prom, D1, initialPressure, model)
+                                                                        .apply(D2)).start();
+    }
+
+    /**
+     * Resets the chip, which loads the PROM, and reads all PROM words including the CRC word at 0xA0. The reset is awaited outside of any
+     * transaction, so the device lock of the connector is not held meanwhile.
+     *
+     * @param address
+     * @return
+     */
+    private Optional<int[]> readProm(AddressConnector address)
+    {
+        return address.write((byte) 0x1E)
+                      .wait(20, TimeUnit.MILLISECONDS)
+                      .transaction()
+                      .read(0xA0, 2)
+                      .read(0xA2, 2)
+                      .read(0xA4, 2)
+                      .read(0xA6, 2)
+                      .read(0xA8, 2)
+                      .read(0xAA, 2)
+                      .read(0xAC, 2)
+                      .execute()
+                      .map(result -> result.asList()
+                                           .stream()
+                                           .mapToInt(word -> word.asUnsignedInt16(0, ByteOrder.BIG_ENDIAN))
+                                           .toArray());
+    }
+
+    private Function<Long, PressureAndTemperature> createPressureAndTemperatureFunction(int[] prom, long D1, double initalPressure, MS5837Model model)
+    {
+        int C1 = prom[1];
+        int C2 = prom[2];
+        int C3 = prom[3];
+        int C4 = prom[4];
+        int C5 = prom[5];
+        int C6 = prom[6];
+
         return D2 ->
         {
             if (MS5837Model.MS5837_02BA.equals(model))
@@ -166,23 +287,84 @@ public class PressureSensorMS5837ServiceImpl implements PressureSensorMS5837Serv
     @Override
     public void disableSensor(String sensorId)
     {
-        this.sensorIdToContext.remove(sensorId);
+        Optional<MS5837Sampler> sampler = Optional.ofNullable(this.sensorIdToContext.remove(sensorId))
+                                                  .map(PressureSensorContext::getSampler);
+        if (sampler.isPresent())
+        {
+            // an access of another sensor id may just be executed by the sampler
+            this.acquireDevice();
+            try
+            {
+                sampler.get()
+                       .stop();
+                synchronized (this.deviceLock)
+                {
+                    this.sampler = null;
+                }
+            }
+            finally
+            {
+                this.releaseDevice();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        this.sensorIdToContext.keySet()
+                              .forEach(this::disableSensor);
     }
 
     @Override
     public Optional<PressureAndTemperature> readSensor(String sensorId)
     {
         return Optional.ofNullable(this.sensorIdToContext.get(sensorId))
-                       .map(context -> this.readPressureAndTemperature(context.getAddress(), context.getInitalPressure(), context.getModel()));
+                       .flatMap(this::readSensor);
     }
 
-    private PressureAndTemperature readPressureAndTemperature(AddressConnector address, double initalPressure, MS5837Model model)
+    private Optional<PressureAndTemperature> readSensor(PressureSensorContext context)
     {
-        Function<Long, PressureAndTemperature> pressureAndTemperatureFunction = this.createPressureAndTemperatureFunction(address, initalPressure, model);
+        if (context.getSampler() != null)
+        {
+            return Optional.ofNullable(context.getSampler()
+                                              .getLatestSample());
+        }
+        else
+        {
+            MS5837Sampler runningSampler = this.acquireDevice();
+            try
+            {
+                return Optional.of(this.executeOnDevice(runningSampler, () -> this.readPressureAndTemperature(context.getAddress(), context.getProm(),
+                                                                                                              context.getInitalPressure(),
+                                                                                                              context.getModel())));
+            }
+            finally
+            {
+                this.releaseDevice();
+            }
+        }
+    }
 
-        long D2 = address.read(0x00, 0, 3)
-                         .orElseThrow(() -> new IllegalStateException("Unable read pressure sensor I2C address for D2"))
-                         .asLongFromMsbToLsb(0, 2);
+    @Override
+    public Optional<SamplerStatistics> getSamplerStatistics(String sensorId)
+    {
+        return Optional.ofNullable(this.sensorIdToContext.get(sensorId))
+                       .map(PressureSensorContext::getSampler)
+                       .map(MS5837Sampler::getStatistics);
+    }
+
+    /**
+     * Converts D1 and D2 one after another. The caller owns the device, so no other caller can interleave a conversion command, whereas the
+     * device lock of the connector is only held for the single command and ADC read and not while the conversion is awaited. The PROM is read
+     * once on enabling.
+     */
+    private PressureAndTemperature readPressureAndTemperature(AddressConnector address, int[] prom, double initalPressure, MS5837Model model)
+    {
+        long D1 = this.convert(address, 0x40);
+        long D2 = this.convert(address, 0x50);
+
+        Function<Long, PressureAndTemperature> pressureAndTemperatureFunction = this.createPressureAndTemperatureFunction(prom, D1, initalPressure, model);
 
         PressureAndTemperature pressureAndTemperature = pressureAndTemperatureFunction.apply(D2);
 
@@ -192,12 +374,27 @@ public class PressureSensorMS5837ServiceImpl implements PressureSensorMS5837Serv
         return pressureAndTemperature;
     }
 
+    private long convert(AddressConnector address, int command)
+    {
+        return address.write((byte) command)
+                      .wait(MS5837Oversampling.OSR_256.getConversionTimeInMicroseconds(), TimeUnit.MICROSECONDS)
+                      .read(0x00, 0, 3)
+                      .orElseThrow(() -> new IllegalStateException("Unable to read pressure sensor via I2C"))
+                      .asLongFromMsbToLsb(0, 2);
+    }
+
     @Data
     @Builder
     private static class PressureSensorContext
     {
         private final AddressConnector address;
+        private final int[]            prom;
         private final double           initalPressure;
         private final MS5837Model      model;
+
+        /**
+         * Only set for a sensor with continuous sampling
+         */
+        private final MS5837Sampler    sampler;
     }
 }
@@ -0,0 +1,38 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Optional;
+
+/**
+ * Exponential moving average, which starts with the first sample
+ *
+ * @author omnaest
+ */
+class ExponentialSmoothingFilter implements SampleFilter
+{
+    private final double alpha;
+    private Double       value;
+
+    public ExponentialSmoothingFilter(double alpha)
+    {
+        super();
+        if (alpha <= 0.0 || alpha > 1.0)
+        {
+            throw new IllegalArgumentException("Alpha must be within (0.0, 1.0]: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public double add(double sample)
+    {
+        double value = this.value == null ? sample : this.value + this.alpha * (sample - this.value);
+        this.value = value;
+        return value;
+    }
+
+    @Override
+    public Optional<Double> getValue()
+    {
+        return Optional.ofNullable(this.value);
+    }
+}
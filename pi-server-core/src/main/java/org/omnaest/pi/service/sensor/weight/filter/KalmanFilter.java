@@ -0,0 +1,53 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Optional;
+
+/**
+ * One dimensional Kalman filter, which models the weight as constant with a small process noise. The first sample initializes the estimate
+ * with the measurement noise as its variance.
+ *
+ * @author omnaest
+ */
+class KalmanFilter implements SampleFilter
+{
+    private final double processNoise;
+    private final double measurementNoise;
+
+    private Double       estimate;
+    private double       variance;
+
+    public KalmanFilter(double processNoise, double measurementNoise)
+    {
+        super();
+        if (processNoise < 0.0 || measurementNoise <= 0.0)
+        {
+            throw new IllegalArgumentException("Noise variances must be positive: process=" + processNoise + ", measurement=" + measurementNoise);
+        }
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+    }
+
+    @Override
+    public double add(double sample)
+    {
+        if (this.estimate == null)
+        {
+            this.estimate = sample;
+            this.variance = this.measurementNoise;
+            return sample;
+        }
+
+        double predictedVariance = this.variance + this.processNoise;
+        double gain = predictedVariance / (predictedVariance + this.measurementNoise);
+        double estimate = this.estimate + gain * (sample - this.estimate);
+        this.estimate = estimate;
+        this.variance = (1.0 - gain) * predictedVariance;
+        return estimate;
+    }
+
+    @Override
+    public Optional<Double> getValue()
+    {
+        return Optional.ofNullable(this.estimate);
+    }
+}
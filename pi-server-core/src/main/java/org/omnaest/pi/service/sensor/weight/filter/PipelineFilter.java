@@ -0,0 +1,40 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Feeds every sample through the stages in order, each stage with the output of the previous one. Without any stage the latest sample is
+ * passed through.
+ *
+ * @author omnaest
+ */
+class PipelineFilter implements SampleFilter
+{
+    private final SampleFilter[] stages;
+    private Double               value;
+
+    public PipelineFilter(List<SampleFilter> stages)
+    {
+        super();
+        this.stages = stages.toArray(new SampleFilter[0]);
+    }
+
+    @Override
+    public double add(double sample)
+    {
+        double value = sample;
+        for (SampleFilter stage : this.stages)
+        {
+            value = stage.add(value);
+        }
+        this.value = value;
+        return value;
+    }
+
+    @Override
+    public Optional<Double> getValue()
+    {
+        return Optional.ofNullable(this.value);
+    }
+}
@@ -0,0 +1,38 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Optional;
+
+/**
+ * Median of the latest samples within a window
+ *
+ * @author omnaest
+ */
+class RunningMedianFilter implements SampleFilter
+{
+    private final SortedWindow window;
+
+    public RunningMedianFilter(int window)
+    {
+        super();
+        this.window = new SortedWindow(window);
+    }
+
+    @Override
+    public double add(double sample)
+    {
+        this.window.add(sample);
+        return this.getMedian();
+    }
+
+    @Override
+    public Optional<Double> getValue()
+    {
+        return this.window.size() > 0 ? Optional.of(this.getMedian()) : Optional.empty();
+    }
+
+    private double getMedian()
+    {
+        int size = this.window.size();
+        return size % 2 == 1 ? this.window.getSorted(size / 2) : (this.window.getSorted(size / 2 - 1) + this.window.getSorted(size / 2)) / 2.0;
+    }
+}
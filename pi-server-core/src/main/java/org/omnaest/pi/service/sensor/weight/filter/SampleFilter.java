@@ -0,0 +1,28 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Optional;
+
+/**
+ * Filter, which is fed with the conversions of a sensor one by one and keeps the filtered value up to date with a constant effort per
+ * conversion. A {@link SampleFilter} is not thread safe, so it has to be fed by a single thread.
+ *
+ * @see SampleFilters
+ * @author omnaest
+ */
+public interface SampleFilter
+{
+    /**
+     * Feeds the next conversion into the filter
+     *
+     * @param sample
+     * @return the filtered value including the given sample
+     */
+    public double add(double sample);
+
+    /**
+     * Returns the filtered value, which is empty before the first sample
+     *
+     * @return
+     */
+    public Optional<Double> getValue();
+}
@@ -0,0 +1,51 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.omnaest.pi.client.domain.weight.WeightFilter;
+import org.omnaest.pi.client.domain.weight.WeightFilter.Stage;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Creates the {@link SampleFilter} pipeline of a {@link WeightFilter} configuration
+ *
+ * @author omnaest
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SampleFilters
+{
+    /**
+     * @param filter
+     * @return
+     * @throws IllegalArgumentException
+     *             for invalid stage parameters
+     */
+    public static SampleFilter create(WeightFilter filter)
+    {
+        List<SampleFilter> stages = filter.getStages()
+                                          .stream()
+                                          .map(SampleFilters::createStage)
+                                          .collect(Collectors.toList());
+        return new PipelineFilter(stages);
+    }
+
+    private static SampleFilter createStage(Stage stage)
+    {
+        switch (stage.getType())
+        {
+            case RUNNING_MEDIAN:
+                return new RunningMedianFilter(stage.getWindow());
+            case TRIMMED_MEAN:
+                return new TrimmedMeanFilter(stage.getWindow(), stage.getTrimFraction());
+            case EXPONENTIAL_SMOOTHING:
+                return new ExponentialSmoothingFilter(stage.getAlpha());
+            case KALMAN:
+                return new KalmanFilter(stage.getProcessNoise(), stage.getMeasurementNoise());
+            default:
+                throw new IllegalArgumentException("Unsupported filter stage: " + stage.getType());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Arrays;
+
+/**
+ * Window of the latest samples, which is additionally kept sorted. Adding a sample removes the oldest one by a binary search and shifts
+ * only the slots in between, so the effort per sample is bound by the fixed window size.
+ *
+ * @author omnaest
+ */
+class SortedWindow
+{
+    private final double[] samples;
+    private final double[] sorted;
+    private int            size  = 0;
+    private int            index = 0;
+
+    public SortedWindow(int window)
+    {
+        super();
+        if (window <= 0)
+        {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.samples = new double[window];
+        this.sorted = new double[window];
+    }
+
+    public void add(double sample)
+    {
+        if (this.size == this.samples.length)
+        {
+            int removeIndex = Arrays.binarySearch(this.sorted, 0, this.size, this.samples[this.index]);
+            System.arraycopy(this.sorted, removeIndex + 1, this.sorted, removeIndex, this.size - removeIndex - 1);
+            this.size--;
+        }
+
+        int insertIndex = Arrays.binarySearch(this.sorted, 0, this.size, sample);
+        if (insertIndex < 0)
+        {
+            insertIndex = -insertIndex - 1;
+        }
+        System.arraycopy(this.sorted, insertIndex, this.sorted, insertIndex + 1, this.size - insertIndex);
+        this.sorted[insertIndex] = sample;
+        this.size++;
+
+        this.samples[this.index] = sample;
+        this.index = (this.index + 1) % this.samples.length;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @param index
+     *            within the ascending order
+     * @return
+     */
+    public double getSorted(int index)
+    {
+        return this.sorted[index];
+    }
+}
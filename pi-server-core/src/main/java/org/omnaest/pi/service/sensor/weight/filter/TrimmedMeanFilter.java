@@ -0,0 +1,51 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import java.util.Optional;
+
+/**
+ * Mean of the latest samples within a window, without the given fraction of the lowest and of the highest samples
+ *
+ * @author omnaest
+ */
+class TrimmedMeanFilter implements SampleFilter
+{
+    private final SortedWindow window;
+    private final double       trimFraction;
+
+    public TrimmedMeanFilter(int window, double trimFraction)
+    {
+        super();
+        if (trimFraction < 0.0 || trimFraction >= 0.5)
+        {
+            throw new IllegalArgumentException("Trim fraction must be within [0.0, 0.5): " + trimFraction);
+        }
+        this.window = new SortedWindow(window);
+        this.trimFraction = trimFraction;
+    }
+
+    @Override
+    public double add(double sample)
+    {
+        this.window.add(sample);
+        return this.getMean();
+    }
+
+    @Override
+    public Optional<Double> getValue()
+    {
+        return this.window.size() > 0 ? Optional.of(this.getMean()) : Optional.empty();
+    }
+
+    private double getMean()
+    {
+        int size = this.window.size();
+        int trim = (int) (size * this.trimFraction);
+
+        double sum = 0.0;
+        for (int ii = trim; ii < size - trim; ii++)
+        {
+            sum += this.window.getSorted(ii);
+        }
+        return sum / (size - 2 * trim);
+    }
+}
@@ -2,19 +2,28 @@ package org.omnaest.pi.service.sensor.weight.internal;
 
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
 
 import org.omnaest.pi.client.domain.weight.Nau7802Definition;
+import org.omnaest.pi.client.domain.weight.WeightFilter;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
 import org.omnaest.pi.service.i2c.I2CService.I2CBusControl;
 import org.omnaest.pi.service.i2c.I2CService.RegisterBit;
 import org.omnaest.pi.service.i2c.I2CService.RegisterBits;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+import org.omnaest.pi.service.i2c.RegisterMap;
+import org.omnaest.pi.service.i2c.RegisterMap.Endianness;
+import org.omnaest.pi.service.i2c.RegisterMap.RegisterAccessor;
+import org.omnaest.pi.service.i2c.RegisterMap.Volatility;
+import org.omnaest.pi.service.i2c.WaitStrategies;
 import org.omnaest.pi.service.sensor.weight.Nau7802Service;
+import org.omnaest.pi.service.sensor.weight.filter.SampleFilter;
+import org.omnaest.pi.service.sensor.weight.filter.SampleFilters;
 import org.omnaest.pi.service.utils.ThreadUtils;
-import org.omnaest.utils.bitset.Bits;
-import org.omnaest.utils.math.MathUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
@@ -26,383 +35,479 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Nau7802ServiceImpl implements Nau7802Service
 {
+    /**
+     * A conversion takes up to 100 milliseconds at the default 10 samples per second, whereas the power up bits are ready within a millisecond
+     */
+    private static final WaitStrategy   WAIT_STRATEGY            = WaitStrategies.exponentialBackoff(1, 16, TimeUnit.MILLISECONDS);
+
+    private static final ConversionRate ONE_SHOT_CONVERSION_RATE = ConversionRate._10SPS;
+    private static final int            ONE_SHOT_SAMPLES         = 10;
+
+    /**
+     * Drops the lowest and the highest of 10 conversions
+     */
+    private static final WeightFilter   DEFAULT_FILTER           = WeightFilter.trimmedMean(ONE_SHOT_SAMPLES, 0.1);
+
+    private static enum Nau7802Field
+    {
+        RESET,
+        POWER_UP_DIGITAL,
+        POWER_UP_ANALOG,
+        POWER_UP_READY,
+        CYCLE_START,
+        CYCLE_READY,
+        LDO_SOURCE,
+        LDO_VOLTAGE,
+        GAINS,
+        CALIBRATION_MODE,
+        CALIBRATION_START,
+        CALIBRATION_ERROR,
+        CONVERSION_RATE,
+        CHANNEL_SELECT,
+        ADC,
+        ADC_CHOP_CLOCK,
+        PGA_LDO_MODE,
+        PGA_CAP_ENABLE
+    }
+
+    /**
+     * PU_CTRL (0x00) and CTRL2 (0x02) contain bits, which are changed by the chip itself, like the ready flags, the self clearing calibration
+     * start bit and the calibration error flag. A read-modify-write of a cached configuration bit would write stale values of those bits back,
+     * so both registers are always accessed on the device and only the pure configuration registers are served from the shadow register cache.
+     */
+    private static final RegisterMap<Nau7802Field> REGISTER_MAP = RegisterMap.builder(Nau7802Field.class)
+                                                                             .bit(Nau7802Field.RESET, 0x00, 0, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.POWER_UP_DIGITAL, 0x00, 1, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.POWER_UP_ANALOG, 0x00, 2, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.POWER_UP_READY, 0x00, 3, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.CYCLE_START, 0x00, 4, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.CYCLE_READY, 0x00, 5, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.LDO_SOURCE, 0x00, 7, Volatility.VOLATILE)
+                                                                             .bits(Nau7802Field.LDO_VOLTAGE, 0x01, 3, 3, Volatility.CACHED)
+                                                                             .bits(Nau7802Field.GAINS, 0x01, 0, 3, Volatility.CACHED)
+                                                                             .bits(Nau7802Field.CALIBRATION_MODE, 0x02, 0, 2, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.CALIBRATION_START, 0x02, 2, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.CALIBRATION_ERROR, 0x02, 3, Volatility.VOLATILE)
+                                                                             .bits(Nau7802Field.CONVERSION_RATE, 0x02, 4, 3, Volatility.VOLATILE)
+                                                                             .bit(Nau7802Field.CHANNEL_SELECT, 0x02, 7, Volatility.VOLATILE)
+                                                                             .value(Nau7802Field.ADC, 0x12, 24, Endianness.BIG_ENDIAN, true, Volatility.VOLATILE)
+                                                                             .bits(Nau7802Field.ADC_CHOP_CLOCK, 0x15, 4, 2, Volatility.CACHED)
+                                                                             .bit(Nau7802Field.PGA_LDO_MODE, 0x1B, 6, Volatility.CACHED)
+                                                                             .bit(Nau7802Field.PGA_CAP_ENABLE, 0x1C, 7, Volatility.CACHED)
+                                                                             .build();
+
     @Autowired
-    private I2CService i2cService;
+    private I2CService                              i2cService;
 
-    private int        bus;
+    @Autowired
+    private Nau7802SessionRegistry                  sessionRegistry;
+
+    private int                                     bus;
+    private WeightFilter                            filter = DEFAULT_FILTER;
+    private volatile RegisterAccessor<Nau7802Field> registerAccessor;
 
     @Override
     public Nau7802Definition usingBus(int bus)
     {
         this.bus = bus;
+        this.registerAccessor = null;
         return this;
     }
 
+    @Override
+    public Nau7802Definition withFilter(WeightFilter filter)
+    {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Returns the filtered value of the running persistent mode session or otherwise powers the chip up for a one-shot read and down again,
+     * while the calling thread waits for the conversions.
+     */
     @Override
     public int readValue()
     {
-        Nau7802I2CAccessor accessor = this.createNau7802I2CAccessor(this.bus);
+        Optional<Nau7802Session> session = this.sessionRegistry.get(this.bus);
+        if (session.isPresent())
+        {
+            return this.getSessionValue(session.get())
+                       .orElseThrow(this::newNoRecentConversionException);
+        }
 
-        this.reset(accessor);
+        RegisterAccessor<Nau7802Field> accessor = this.getOrCreateRegisterAccessor();
+        this.initialize(accessor, ONE_SHOT_CONVERSION_RATE);
 
-        this.enable(accessor);
+        SampleFilter sampleFilter = SampleFilters.create(this.filter);
+        for (int ii = 0; ii < ONE_SHOT_SAMPLES; ii++)
+        {
+            int value = this.readAdcRegisterValue(accessor);
+            log.debug("NAU7802 single value: " + value);
+            sampleFilter.add(value);
+        }
+        int result = (int) Math.round(this.getFilteredValue(sampleFilter));
 
-        this.setVoltage(accessor);
+        log.debug("NAU7802 average value: " + result);
 
-        accessor.getPULDOSourceBit()
-                .writeValue(1);
+        this.disable(accessor);
+        return result;
+    }
 
-        accessor.getGainsBits()
-                .write(Bits.of(0x7)
-                           .setLength(3)); // 128
+    /**
+     * Returns the filtered value of the running persistent mode session or otherwise powers the chip up for a one-shot read and down again. As
+     * the one-shot read resets the chip, it is never taken while a session exists, instead a session with a stale value fails the read.
+     */
+    @Override
+    public CompletableFuture<Integer> readValueAsync()
+    {
+        Optional<Nau7802Session> session = this.sessionRegistry.get(this.bus);
+        if (session.isPresent())
+        {
+            return this.getSessionValue(session.get())
+                       .map(CompletableFuture::completedFuture)
+                       .orElseGet(() -> CompletableFuture.failedFuture(this.newNoRecentConversionException()));
+        }
+
+        RegisterAccessor<Nau7802Field> accessor = this.getOrCreateRegisterAccessor();
+        AsyncAddressConnector connector = accessor.getConnector()
+                                                  .async();
+
+        return this.initializeAsync(accessor, connector, ONE_SHOT_CONVERSION_RATE)
+                   .thenCompose(c -> this.readAdcRegisterValuesAsync(accessor, connector, SampleFilters.create(this.filter), ONE_SHOT_SAMPLES))
+                   .thenCompose(value ->
+                   {
+                       int result = (int) Math.round(value);
+
+                       log.debug("NAU7802 average value: " + result);
+
+                       return this.disableAsync(accessor, connector)
+                                  .thenApply(c -> result);
+                   });
+    }
 
-        accessor.getConversionRateBits()
-                .write(Bits.of(0x0)
-                           .setLength(3));
+    private Optional<Integer> getSessionValue(Nau7802Session session)
+    {
+        return Optional.of(session)
+                       .filter(s -> !s.isStale())
+                       .flatMap(Nau7802Session::getFilteredValue)
+                       .map(value -> (int) Math.round(value));
+    }
 
-        accessor.getADCChopClockBits()
-                .write(Bits.of(0x3) // disable
-                           .setLength(2));
+    private IllegalStateException newNoRecentConversionException()
+    {
+        return new IllegalStateException("The NAU7802 persistent mode on bus " + this.bus + " has no recent conversion");
+    }
 
-        accessor.getPGALDOModeBit()
-                .writeValue(0); // low ESR capacitors
+    @Override
+    public void startPersistentMode(ConversionRate conversionRate)
+    {
+        // a running session would poll the chip during the initialization
+        this.sessionRegistry.stop(this.bus);
 
-        accessor.getPCCapEnableBit()
-                .writeValue(1); // pga stabilization
+        RegisterAccessor<Nau7802Field> accessor = this.getOrCreateRegisterAccessor();
+        SampleFilter sampleFilter = SampleFilters.create(this.filter);
 
-        this.enable(accessor);
+        this.initialize(accessor, conversionRate);
+        int firstValue = this.readAdcRegisterValue(accessor);
+        this.sessionRegistry.start(this.bus, () -> new Nau7802Session(accessor.getConnector(), conversionRate, sampleFilter).start(firstValue));
+    }
 
-        this.selectChannel(accessor);
+    @Override
+    public void stopPersistentMode()
+    {
+        if (this.sessionRegistry.stop(this.bus)
+                                .isPresent())
+        {
+            this.disable(this.getOrCreateRegisterAccessor());
+        }
+    }
 
-        double[] dataPoints = IntStream.range(0, 10)
-                                       .map(i ->
-                                       {
-                                           int result = this.readAdcRegisterValue(accessor);
-                                           log.debug("NAU7802 single value: " + result);
-                                           return result;
-                                       })
-                                       .mapToDouble(value -> value)
-                                       .toArray();
-        int result = (int) Math.round(MathUtils.analyze()
-                                               .data(dataPoints)
-                                               .splitByLowerAndUpperPercentile(80)
-                                               .included()
-                                               .calculateAverage());
+    private void initialize(RegisterAccessor<Nau7802Field> accessor, ConversionRate conversionRate)
+    {
+        this.reset(accessor);
+        this.enable(accessor);
+        this.configure(accessor, conversionRate);
+        this.enable(accessor);
+        this.selectChannel(accessor);
+    }
 
-        log.debug("NAU7802 average value: " + result);
+    private CompletableFuture<AsyncAddressConnector> initializeAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector,
+                                                                     ConversionRate conversionRate)
+    {
+        return this.resetAsync(accessor, connector)
+                   .thenCompose(c -> this.enableAsync(accessor, connector))
+                   .thenCompose(c -> connector.supplyAsync(syncConnector ->
+                   {
+                       this.configure(accessor, conversionRate);
+                       return connector;
+                   }))
+                   .thenCompose(c -> this.enableAsync(accessor, connector))
+                   .thenCompose(c -> this.selectChannelAsync(accessor, connector));
+    }
 
-        this.disable(accessor);
+    private void configure(RegisterAccessor<Nau7802Field> accessor, ConversionRate conversionRate)
+    {
+        this.setVoltage(accessor);
 
-        return result;
+        accessor.write(Nau7802Field.LDO_SOURCE, true)
+                .write(Nau7802Field.GAINS, 0x7) // 128
+                .write(Nau7802Field.CONVERSION_RATE, conversionRate.getCode())
+                .write(Nau7802Field.ADC_CHOP_CLOCK, 0x3) // disable
+                .write(Nau7802Field.PGA_LDO_MODE, false) // low ESR capacitors
+                .write(Nau7802Field.PGA_CAP_ENABLE, true); // pga stabilization
     }
 
     @Override
     public void calibrate()
     {
-        this.calibrateNau7802(this.bus);
+        this.calibrateNau7802(this.getOrCreateRegisterAccessor());
     }
 
-    private void selectChannel(Nau7802I2CAccessor accessor)
+    private void selectChannel(RegisterAccessor<Nau7802Field> accessor)
     {
         this.readAdcRegisterValue(accessor);
-        accessor.getChannelSelectBit()
-                .writeValue(0);
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Unable to select channel", accessor.getPUCycleReadyBit());
+        accessor.write(Nau7802Field.CHANNEL_SELECT, false);
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Unable to select channel", accessor.bit(Nau7802Field.CYCLE_READY));
     }
 
-    private void calibrateNau7802(int bus)
+    private CompletableFuture<AsyncAddressConnector> selectChannelAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector)
     {
-        this.calibrateNau7802(this.createNau7802I2CAccessor(bus));
+        return this.readAdcRegisterValueAsync(accessor, connector)
+                   .thenCompose(value -> connector.supplyAsync(syncConnector ->
+                   {
+                       accessor.write(Nau7802Field.CHANNEL_SELECT, false);
+                       return connector;
+                   }))
+                   .thenCompose(c -> this.waitForRegisterBitToBecomeTrueAsync(connector, 1000, TimeUnit.MILLISECONDS, "Unable to select channel",
+                                                                              accessor.bit(Nau7802Field.CYCLE_READY)));
     }
 
-    private Nau7802I2CAccessor createNau7802I2CAccessor(int bus)
+    private RegisterAccessor<Nau7802Field> getOrCreateRegisterAccessor()
     {
-        I2CBusControl i2cBus = this.i2cService.provision(bus)
-                                              .orElseThrow(() -> new IllegalStateException("Unable to provision I2C bus " + bus));
-
-        AddressConnector addressConnector = i2cBus.connectTo(0x2A)
-                                                  .orElseThrow(() -> new IllegalStateException("Unable to provision I2C device address 0x2A"));
-
-        RegisterBit resetBit = addressConnector.accessRegister(0x00)
-                                               .accessBit(0);
-        RegisterBit puDigitalBit = addressConnector.accessRegister(0x00)
-                                                   .accessBit(1);
-        RegisterBit puAnalogBit = addressConnector.accessRegister(0x00)
-                                                  .accessBit(2);
-        RegisterBit puReadyBit = addressConnector.accessRegister(0x00)
-                                                 .accessBit(3);
-        RegisterBit puStartBit = addressConnector.accessRegister(0x00)
-                                                 .accessBit(4);
-        RegisterBit puCycleReadyBit = addressConnector.accessRegister(0x00)
-                                                      .accessBit(5);
-        RegisterBit puLdoSource = addressConnector.accessRegister(0x00)
-                                                  .accessBit(7);
-
-        RegisterBits ctrl1Voltage = addressConnector.accessRegister(0x01)
-                                                    .accessBits(3, 3);
-        RegisterBits ctrl1Gains = addressConnector.accessRegister(0x01)
-                                                  .accessBits(0, 3);
-
-        RegisterBits calibrationMode = addressConnector.accessRegister(0x02)
-                                                       .accessBits(2);
-        RegisterBit calibrationStart = addressConnector.accessRegister(0x02)
-                                                       .accessBit(2);
-        RegisterBit calibrationError = addressConnector.accessRegister(0x02)
-                                                       .accessBit(3);
-        RegisterBits conversionRate = addressConnector.accessRegister(0x02)
-                                                      .accessBits(4, 3);
-        RegisterBit channelSelect = addressConnector.accessRegister(0x02)
-                                                    .accessBit(7);
-
-        RegisterBits adcRegisterBits = addressConnector.accessRegister(0x12)
-                                                       .accessBits(24);
-
-        RegisterBits adcChopClockBits = addressConnector.accessRegister(0x15)
-                                                        .accessBits(4, 2);
-
-        RegisterBit pgaLdoMode = addressConnector.accessRegister(0x1B)
-                                                 .accessBit(6);
-
-        RegisterBit pcCapEnable = addressConnector.accessRegister(0x1C)
-                                                  .accessBit(7);
-
-        Nau7802I2CAccessor accessor = new Nau7802I2CAccessor() {
-
-            @Override
-            public RegisterBits getCalibrationModeBits()
-            {
-                return calibrationMode;
-            }
-
-            @Override
-            public RegisterBits getVoltageBits()
-            {
-                return ctrl1Voltage;
-            }
-
-            @Override
-            public RegisterBits getGainsBits()
-            {
-                return ctrl1Gains;
-            }
-
-            @Override
-            public RegisterBits getConversionRateBits()
-            {
-                return conversionRate;
-            }
-
-            @Override
-            public RegisterBit getCalibrationStartBit()
-            {
-                return calibrationStart;
-            }
-
-            @Override
-            public RegisterBit getCalibrationErrorBit()
-            {
-                return calibrationError;
-            }
-
-            @Override
-            public RegisterBit getResetBit()
-            {
-                return resetBit;
-            }
-
-            @Override
-            public RegisterBit getPUDigitalBit()
-            {
-                return puDigitalBit;
-            }
-
-            @Override
-            public RegisterBit getPUAnalogBit()
-            {
-                return puAnalogBit;
-            }
-
-            @Override
-            public RegisterBit getPUReadyBit()
-            {
-                return puReadyBit;
-            }
-
-            @Override
-            public RegisterBit getPUStartBit()
-            {
-                return puStartBit;
-            }
-
-            @Override
-            public RegisterBit getPULDOSourceBit()
-            {
-                return puLdoSource;
-            }
-
-            @Override
-            public RegisterBit getPUCycleReadyBit()
-            {
-                return puCycleReadyBit;
-            }
-
-            @Override
-            public RegisterBit getPGALDOModeBit()
-            {
-                return pgaLdoMode;
-            }
-
-            @Override
-            public RegisterBit getChannelSelectBit()
-            {
-                return channelSelect;
-            }
-
-            @Override
-            public RegisterBits getADCRegisterBits()
-            {
-                return adcRegisterBits;
-            }
-
-            @Override
-            public RegisterBits getADCChopClockBits()
-            {
-                return adcChopClockBits;
-            }
-
-            @Override
-            public RegisterBit getPCCapEnableBit()
-            {
-                return pcCapEnable;
-            }
-        };
+        RegisterAccessor<Nau7802Field> accessor = this.registerAccessor;
+        if (accessor == null)
+        {
+            accessor = this.createRegisterAccessor(this.bus);
+            this.registerAccessor = accessor;
+        }
         return accessor;
     }
 
-    private static interface Nau7802I2CAccessor
+    private RegisterAccessor<Nau7802Field> createRegisterAccessor(int bus)
     {
-        public RegisterBits getCalibrationModeBits();
-
-        public RegisterBit getChannelSelectBit();
-
-        public RegisterBit getPCCapEnableBit();
-
-        public RegisterBit getPGALDOModeBit();
-
-        public RegisterBits getADCChopClockBits();
-
-        public RegisterBits getConversionRateBits();
-
-        public RegisterBits getGainsBits();
-
-        public RegisterBit getPULDOSourceBit();
+        I2CBusControl i2cBus = this.i2cService.provision(bus)
+                                              .orElseThrow(() -> new IllegalStateException("Unable to provision I2C bus " + bus));
 
-        public RegisterBits getVoltageBits();
+        AddressConnector addressConnector = i2cBus.connectTo(0x2A)
+                                                  .orElseThrow(() -> new IllegalStateException("Unable to provision I2C device address 0x2A"))
+                                                  .withWaitStrategy(WAIT_STRATEGY);
 
-        public RegisterBits getADCRegisterBits();
+        return REGISTER_MAP.bind(addressConnector);
+    }
 
-        public RegisterBit getPUCycleReadyBit();
+    private void setVoltage(RegisterAccessor<Nau7802Field> accessor)
+    {
+        accessor.write(Nau7802Field.LDO_VOLTAGE, 0x5);
+    }
 
-        public RegisterBit getPUAnalogBit();
+    private double getFilteredValue(SampleFilter sampleFilter)
+    {
+        return sampleFilter.getValue()
+                           .orElseThrow(() -> new IllegalStateException("No NAU7802 conversion has been read"));
+    }
 
-        public RegisterBit getPUStartBit();
+    private CompletableFuture<Double> readAdcRegisterValuesAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector,
+                                                                 SampleFilter sampleFilter, int remainingSamples)
+    {
+        if (remainingSamples <= 0)
+        {
+            return CompletableFuture.completedFuture(this.getFilteredValue(sampleFilter));
+        }
+
+        return this.readAdcRegisterValueAsync(accessor, connector)
+                   .thenCompose(value ->
+                   {
+                       log.debug("NAU7802 single value: " + value);
+                       sampleFilter.add(value);
+                       return this.readAdcRegisterValuesAsync(accessor, connector, sampleFilter, remainingSamples - 1);
+                   });
+    }
 
-        public RegisterBit getPUReadyBit();
+    private int readAdcRegisterValue(RegisterAccessor<Nau7802Field> accessor)
+    {
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Unable to read NAU7802 ADC register",
+                                            accessor.bit(Nau7802Field.CYCLE_READY));
+        return this.readAdc(accessor);
+    }
 
-        public RegisterBit getResetBit();
+    private CompletableFuture<Integer> readAdcRegisterValueAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector)
+    {
+        return this.waitForRegisterBitToBecomeTrueAsync(connector, 1000, TimeUnit.MILLISECONDS, "Unable to read NAU7802 ADC register",
+                                                        accessor.bit(Nau7802Field.CYCLE_READY))
+                   .thenCompose(c -> connector.supplyAsync(syncConnector -> this.readAdc(accessor)));
+    }
 
-        public RegisterBit getPUDigitalBit();
+    private int readAdc(RegisterAccessor<Nau7802Field> accessor)
+    {
+        int value = (int) accessor.read(Nau7802Field.ADC);
 
-        public RegisterBit getCalibrationStartBit();
+        log.debug("Register adc value: " + Integer.toBinaryString(value & 0xFFFFFF));
 
-        public RegisterBit getCalibrationErrorBit();
+        return value;
     }
 
-    private void setVoltage(Nau7802I2CAccessor accessor)
+    private void enable(RegisterAccessor<Nau7802Field> accessor)
     {
-        RegisterBits ctrl1Voltage = accessor.getVoltageBits();
-        ctrl1Voltage.write(Bits.of(0x5)
-                               .setLength(3));
+        this.powerUp(accessor);
+        accessor.getConnector()
+                .wait(500, TimeUnit.MILLISECONDS);
+        this.startCycle(accessor);
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Unable to start the NAU7802 chip",
+                                            accessor.bit(Nau7802Field.POWER_UP_READY));
     }
 
-    private int readAdcRegisterValue(Nau7802I2CAccessor accessor)
+    private CompletableFuture<AsyncAddressConnector> enableAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector)
     {
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Unable to read NAU7802 ADC register",
-                                                                        accessor.getPUCycleReadyBit());
-
-        RegisterBits registerBits = accessor.getADCRegisterBits();
-
-        log.debug("Register adc bits: " + registerBits.read()
-                                                      .toBinaryString());
-
-        return registerBits.readAsBigEndianSignedInteger();
+        return connector.supplyAsync(syncConnector ->
+        {
+            this.powerUp(accessor);
+            return connector;
+        })
+                        .thenCompose(c -> c.delayAsync(500, TimeUnit.MILLISECONDS))
+                        .thenCompose(c -> c.supplyAsync(syncConnector ->
+                        {
+                            this.startCycle(accessor);
+                            return c;
+                        }))
+                        .thenCompose(c -> this.waitForRegisterBitToBecomeTrueAsync(c, 1000, TimeUnit.MILLISECONDS, "Unable to start the NAU7802 chip",
+                                                                                   accessor.bit(Nau7802Field.POWER_UP_READY)));
     }
 
-    private void enable(Nau7802I2CAccessor accessor)
+    private void powerUp(RegisterAccessor<Nau7802Field> accessor)
     {
-        RegisterBit puDigitalBit = accessor.getPUDigitalBit();
-        RegisterBit puAnalogBit = accessor.getPUAnalogBit();
-        RegisterBit puReadyBit = accessor.getPUReadyBit();
-        RegisterBit puStartBit = accessor.getPUStartBit();
+        accessor.bit(Nau7802Field.POWER_UP_DIGITAL)
+                .writeValue(1);
+        accessor.bit(Nau7802Field.POWER_UP_ANALOG)
+                .writeValue(1);
+    }
 
-        puDigitalBit.writeValue(1);
-        puAnalogBit.writeValue(1);
-        ThreadUtils.sleep(500, TimeUnit.MILLISECONDS);
-        puStartBit.writeValue(1);
+    private void startCycle(RegisterAccessor<Nau7802Field> accessor)
+    {
+        accessor.bit(Nau7802Field.CYCLE_START)
+                .writeValue(1);
+    }
 
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Unable to start the NAU7802 chip", puReadyBit);
+    private void disable(RegisterAccessor<Nau7802Field> accessor)
+    {
+        this.powerDown(accessor);
+        accessor.getConnector()
+                .wait(10, TimeUnit.MILLISECONDS);
     }
 
-    private void disable(Nau7802I2CAccessor accessor)
+    private CompletableFuture<AsyncAddressConnector> disableAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector)
     {
-        RegisterBit puDigitalBit = accessor.getPUDigitalBit();
-        RegisterBit puAnalogBit = accessor.getPUAnalogBit();
+        return connector.supplyAsync(syncConnector ->
+        {
+            this.powerDown(accessor);
+            return connector;
+        })
+                        .thenCompose(c -> c.delayAsync(10, TimeUnit.MILLISECONDS));
+    }
 
-        puDigitalBit.writeValue(0);
-        puAnalogBit.writeValue(0);
-        ThreadUtils.sleep(10, TimeUnit.MILLISECONDS);
+    private void powerDown(RegisterAccessor<Nau7802Field> accessor)
+    {
+        accessor.bit(Nau7802Field.POWER_UP_DIGITAL)
+                .writeValue(0);
+        accessor.bit(Nau7802Field.POWER_UP_ANALOG)
+                .writeValue(0);
     }
 
-    private void reset(Nau7802I2CAccessor accessor)
+    private void reset(RegisterAccessor<Nau7802Field> accessor)
     {
-        RegisterBit resetBit = accessor.getResetBit();
-        RegisterBit puDigitalBit = accessor.getPUDigitalBit();
-        RegisterBit puReadyBit = accessor.getPUReadyBit();
+        this.startReset(accessor);
+        accessor.getConnector()
+                .wait(100, TimeUnit.MILLISECONDS);
+        this.finishReset(accessor);
+        accessor.getConnector()
+                .wait(400, TimeUnit.MILLISECONDS);
+        this.waitForRegisterBitToBecomeTrue(accessor, 1000, TimeUnit.MILLISECONDS, "Unable to reset the NAU7802 chip",
+                                            accessor.bit(Nau7802Field.POWER_UP_READY));
+    }
 
-        resetBit.writeValue(1);
-        ThreadUtils.sleep(100, TimeUnit.MILLISECONDS);
-        resetBit.writeValue(0);
+    private CompletableFuture<AsyncAddressConnector> resetAsync(RegisterAccessor<Nau7802Field> accessor, AsyncAddressConnector connector)
+    {
+        return connector.supplyAsync(syncConnector ->
+        {
+            this.startReset(accessor);
+            return connector;
+        })
+                        .thenCompose(c -> c.delayAsync(100, TimeUnit.MILLISECONDS))
+                        .thenCompose(c -> c.supplyAsync(syncConnector ->
+                        {
+                            this.finishReset(accessor);
+                            return c;
+                        }))
+                        .thenCompose(c -> c.delayAsync(400, TimeUnit.MILLISECONDS))
+                        .thenCompose(c -> this.waitForRegisterBitToBecomeTrueAsync(c, 1000, TimeUnit.MILLISECONDS, "Unable to reset the NAU7802 chip",
+                                                                                   accessor.bit(Nau7802Field.POWER_UP_READY)));
+    }
 
-        puDigitalBit.writeValue(1);
-        ThreadUtils.sleep(400, TimeUnit.MILLISECONDS);
+    private void startReset(RegisterAccessor<Nau7802Field> accessor)
+    {
+        accessor.bit(Nau7802Field.RESET)
+                .writeValue(1);
+    }
 
-        this.waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(1000, TimeUnit.MILLISECONDS, "Unable to reset the NAU7802 chip", puReadyBit);
+    private void finishReset(RegisterAccessor<Nau7802Field> accessor)
+    {
+        accessor.bit(Nau7802Field.RESET)
+                .writeValue(0);
+        accessor.getConnector()
+                .invalidateRegisterCache();
+        accessor.bit(Nau7802Field.POWER_UP_DIGITAL)
+                .writeValue(1);
     }
 
-    private void calibrateNau7802(Nau7802I2CAccessor accessor)
+    private void calibrateNau7802(RegisterAccessor<Nau7802Field> accessor)
     {
-        RegisterBits calibrationMode = accessor.getCalibrationModeBits();
-        RegisterBit calibrationStart = accessor.getCalibrationStartBit();
-        RegisterBit calibrationError = accessor.getCalibrationErrorBit();
+        RegisterBits calibrationMode = accessor.bits(Nau7802Field.CALIBRATION_MODE);
+        RegisterBit calibrationStart = accessor.bit(Nau7802Field.CALIBRATION_START);
+        RegisterBit calibrationError = accessor.bit(Nau7802Field.CALIBRATION_ERROR);
 
-        calibrationMode.write(Bits.of(0x0)); // INTERNAL
+        calibrationMode.write(0x0); // INTERNAL
         calibrationStart.writeValue(1);
         ThreadUtils.sleep(10, TimeUnit.MILLISECONDS);
         calibrationStart.writeValue(0);
         log.debug("NAU7802 internal calibration error: " + calibrationError.readValue());
 
-        calibrationMode.write(Bits.of(0x2)); // OFFSET
+        calibrationMode.write(0x2); // OFFSET
         calibrationStart.writeValue(1);
         ThreadUtils.sleep(10, TimeUnit.MILLISECONDS);
         calibrationStart.writeValue(0);
         log.debug("NAU7802 offset calibration error: " + calibrationError.readValue());
     }
 
-    private void waitForRegisterBitToBecomeTrueOrThrowIllegalStateException(int duration, TimeUnit timeUnit, String message, RegisterBit registerBit)
+    private void waitForRegisterBitToBecomeTrue(RegisterAccessor<Nau7802Field> accessor, int duration, TimeUnit timeUnit, String message,
+                                                RegisterBit registerBit)
     {
-        ThreadUtils.sleepWhile(duration, timeUnit, () -> !registerBit.readValue(), () ->
+        try
+        {
+            accessor.getConnector()
+                    .waitUntil(syncConnector -> registerBit.readValue(), duration, timeUnit);
+        }
+        catch (IllegalStateException e)
         {
-            throw new IllegalStateException(message);
-        });
+            throw new IllegalStateException(message, e);
+        }
+    }
+
+    private CompletableFuture<AsyncAddressConnector> waitForRegisterBitToBecomeTrueAsync(AsyncAddressConnector connector, int duration, TimeUnit timeUnit,
+                                                                                          String message, RegisterBit registerBit)
+    {
+        return connector.waitUntilAsync(syncConnector -> registerBit.readValue(), duration, timeUnit)
+                        .exceptionally(e ->
+                        {
+                            throw new IllegalStateException(message, e);
+                        });
     }
 }
@@ -0,0 +1,159 @@
+package org.omnaest.pi.service.sensor.weight.internal;
+
+import java.nio.ByteOrder;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.client.domain.weight.Nau7802Definition.ConversionRate;
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.sensor.weight.filter.SampleFilter;
+import org.omnaest.pi.service.utils.IntSampleRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent mode of a powered up NAU7802, which converts continuously at the configured {@link ConversionRate}. The PU_CTRL register and
+ * the ADC result are polled in one transaction at twice the conversion rate, and every finished conversion is added to a ring buffer and fed
+ * into a {@link SampleFilter}.<br>
+ * <br>
+ * Polling runs on a single thread, so the filter state is confined to that thread and only the filtered value is shared. The first
+ * conversion is taken over before the polling starts, so a started session always has a filtered value.
+ *
+ * @author omnaest
+ */
+class Nau7802Session
+{
+    private static final Logger             LOG                         = LoggerFactory.getLogger(Nau7802Session.class);
+
+    private static final int                PU_CTRL_ADDRESS             = 0x00;
+    private static final int                ADC_ADDRESS                 = 0x12;
+    private static final int                CYCLE_READY_MASK            = 0x20;
+    private static final int                BUFFER_CAPACITY             = 1024;
+
+    /**
+     * Ten conversions at the slowest conversion rate of 10 samples per second
+     */
+    private static final long               MAXIMUM_SAMPLE_AGE_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AddressConnector          connector;
+    private final ConversionRate            conversionRate;
+    private final SampleFilter              filter;
+    private final IntSampleRingBuffer       samples                     = new IntSampleRingBuffer(BUFFER_CAPACITY);
+    private final ScheduledExecutorService  executorService             = Executors.newSingleThreadScheduledExecutor(Nau7802Session::newDaemonThread);
+
+    private boolean                         errorLogged                 = false;
+    private volatile double                 filteredValue               = Double.NaN;
+    private volatile long                   latestSampleTime;
+
+    /**
+     * @param connector
+     *            of the powered up chip with the channel selected
+     * @param conversionRate
+     * @param filter
+     */
+    public Nau7802Session(AddressConnector connector, ConversionRate conversionRate, SampleFilter filter)
+    {
+        super();
+        this.connector = connector.withPriority(Priority.BACKGROUND);
+        this.conversionRate = conversionRate;
+        this.filter = filter;
+    }
+
+    /**
+     * Takes over the given first conversion in the calling thread and then starts the background polling
+     *
+     * @param firstValue
+     * @return
+     */
+    public Nau7802Session start(int firstValue)
+    {
+        this.addSample(firstValue);
+
+        long pollPeriod = 1000000 / (2 * this.conversionRate.getSamplesPerSecond());
+        this.executorService.scheduleWithFixedDelay(this::poll, pollPeriod, pollPeriod, TimeUnit.MICROSECONDS);
+        return this;
+    }
+
+    public void stop()
+    {
+        this.executorService.shutdownNow();
+    }
+
+    /**
+     * Returns the output of the {@link SampleFilter} after the latest conversion
+     *
+     * @return
+     */
+    public Optional<Double> getFilteredValue()
+    {
+        double filteredValue = this.filteredValue;
+        return Double.isNaN(filteredValue) ? Optional.empty() : Optional.of(filteredValue);
+    }
+
+    /**
+     * Returns true, if the latest conversion is older than a second, e.g. because the chip stopped converting or the polling keeps failing
+     *
+     * @return
+     */
+    public boolean isStale()
+    {
+        return System.nanoTime() - this.latestSampleTime > MAXIMUM_SAMPLE_AGE_IN_NANOS;
+    }
+
+    public OptionalInt getLatestSample()
+    {
+        return this.samples.getLatest();
+    }
+
+    public int[] getBufferedSamples()
+    {
+        return this.samples.toArray();
+    }
+
+    private void poll()
+    {
+        try
+        {
+            TransactionResult result = this.connector.transaction()
+                                                     .read(PU_CTRL_ADDRESS, 1)
+                                                     .read(ADC_ADDRESS, 3)
+                                                     .execute()
+                                                     .orElseThrow(() -> new IllegalStateException("Unable to read NAU7802 ADC via I2C"));
+            boolean isCycleReady = (result.get(0)
+                                          .asIntFromMsbToLsb()
+                    & CYCLE_READY_MASK) != 0;
+            if (isCycleReady)
+            {
+                this.addSample(result.get(1)
+                                     .asInt24(0, ByteOrder.BIG_ENDIAN));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            if (!this.errorLogged)
+            {
+                LOG.warn("Failed to poll NAU7802 conversion, retrying with the next poll", e);
+                this.errorLogged = true;
+            }
+        }
+    }
+
+    private void addSample(int value)
+    {
+        this.samples.add(value);
+        this.filteredValue = this.filter.add(value);
+        this.latestSampleTime = System.nanoTime();
+    }
+
+    private static Thread newDaemonThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "nau7802-conversions");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,57 @@
+package org.omnaest.pi.service.sensor.weight.internal;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the {@link Nau7802Session}s per bus. The {@link Nau7802ServiceImpl} is a prototype, so a session has to outlive the instance, which
+ * started it.
+ *
+ * @author omnaest
+ */
+@Service
+class Nau7802SessionRegistry
+{
+    private final Map<Integer, Nau7802Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a new session, after the session running on the same bus has been stopped
+     *
+     * @param bus
+     * @param sessionFactory
+     * @return
+     */
+    public synchronized Nau7802Session start(int bus, Supplier<Nau7802Session> sessionFactory)
+    {
+        this.stop(bus);
+        Nau7802Session session = sessionFactory.get();
+        this.sessions.put(bus, session);
+        return session;
+    }
+
+    public synchronized Optional<Nau7802Session> stop(int bus)
+    {
+        Optional<Nau7802Session> session = Optional.ofNullable(this.sessions.remove(bus));
+        session.ifPresent(Nau7802Session::stop);
+        return session;
+    }
+
+    public Optional<Nau7802Session> get(int bus)
+    {
+        return Optional.ofNullable(this.sessions.get(bus));
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        this.sessions.values()
+                     .forEach(Nau7802Session::stop);
+        this.sessions.clear();
+    }
+}
@@ -1,13 +1,20 @@
 package org.omnaest.pi.service.sensor.weight.internal;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.BooleanUtils;
+import org.omnaest.pi.client.domain.weight.WeightFilter;
 import org.omnaest.pi.service.gpio.GPIOService;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPinHandle;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputPinHandle;
 import org.omnaest.pi.service.sensor.weight.Nau7802Service;
 import org.omnaest.pi.service.sensor.weight.WeightService;
+import org.omnaest.pi.service.sensor.weight.filter.SampleFilter;
+import org.omnaest.pi.service.sensor.weight.filter.SampleFilters;
 import org.omnaest.pi.service.utils.ThreadUtils;
 import org.omnaest.utils.bitset.Bits;
 import org.omnaest.utils.duration.DurationCapture;
@@ -17,6 +24,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Service;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -25,10 +34,12 @@ import lombok.extern.slf4j.Slf4j;
 public class WeightServiceImpl implements WeightService
 {
     @Autowired
-    private GPIOService    gpioService;
+    private GPIOService                         gpioService;
 
     @Autowired
-    private Nau7802Service nau7802Service;
+    private Nau7802Service                      nau7802Service;
+
+    private final Map<String, HX711FilterState> hx711FilterStates = new ConcurrentHashMap<>();
 
     @Override
     public int readValueFromNau7802(int bus)
@@ -39,6 +50,44 @@ public class WeightServiceImpl implements WeightService
 
     @Override
     public long readValueFromHX711(HX711PortConfiguration portConfiguration)
+    {
+        long value = this.readRawValueFromHX711(portConfiguration);
+
+        WeightFilter filter = portConfiguration.getFilter();
+        if (filter.getStages()
+                  .isEmpty())
+        {
+            return value;
+        }
+
+        // there is no background sampling of the HX711, so the filter state of the ports only advances with the reads
+        String ports = portConfiguration.getDataPort() + "." + portConfiguration.getClockPort();
+        HX711FilterState filterState = this.hx711FilterStates.compute(ports, (key, state) -> this.reuseOrCreateFilterState(state, filter));
+        synchronized (filterState)
+        {
+            return Math.round(filterState.getSampleFilter()
+                                         .add(value));
+        }
+    }
+
+    /**
+     * A changed filter configuration of the same ports starts with a new filter state
+     */
+    private HX711FilterState reuseOrCreateFilterState(HX711FilterState state, WeightFilter filter)
+    {
+        return state != null && state.getFilter()
+                                     .equals(filter) ? state : new HX711FilterState(filter, SampleFilters.create(filter));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class HX711FilterState
+    {
+        private final WeightFilter filter;
+        private final SampleFilter sampleFilter;
+    }
+
+    private long readRawValueFromHX711(HX711PortConfiguration portConfiguration)
     {
         DigitalInputGPIOPort dataPort = this.gpioService.getDigitalInputGPIOPort(portConfiguration.getDataPort())
                                                         .withNoPullResistance()
@@ -51,14 +100,18 @@ public class WeightServiceImpl implements WeightService
         {
             Gain gain = portConfiguration.getGain();
 
-            clockPort.setState(false);
-            this.waitUntilDataPortIsReady(dataPort);
-            this.readRawData(gain, dataPort, clockPort); // dummy read to set the gain correctly
+            // the clock is bit banged with 200ns pulses, so the ports are resolved once into pin handles
+            DigitalInputPinHandle dataPin = dataPort.asPinHandle();
+            DigitalOutputPinHandle clockPin = clockPort.asPinHandle();
+
+            clockPin.setState(false);
+            this.waitUntilDataPortIsReady(dataPin);
+            this.readRawData(gain, dataPin, clockPin); // dummy read to set the gain correctly
 
             this.sleep(1, TimeUnit.MILLISECONDS);
-            clockPort.setState(false);
-            this.waitUntilDataPortIsReady(dataPort);
-            long value = this.readRawData(gain, dataPort, clockPort);
+            clockPin.setState(false);
+            this.waitUntilDataPortIsReady(dataPin);
+            long value = this.readRawData(gain, dataPin, clockPin);
 
             log.info("Weight value read from sensor on (" + dataPort + ") : " + value);
 
@@ -89,27 +142,27 @@ public class WeightServiceImpl implements WeightService
         }
     }
 
-    private long readRawData(Gain gain, DigitalInputGPIOPort dataPort, DigitalOutputGPIOPort clockPort)
+    private long readRawData(Gain gain, DigitalInputPinHandle dataPin, DigitalOutputPinHandle clockPin)
     {
         Bits bits = Bits.newInstance();
 
         int numberOfDataBits = 24 + gain.getAdditionalBits();
         for (int i = 0; i < numberOfDataBits; i++)
         {
-            clockPort.setState(true);
+            clockPin.setState(true);
             this.sleep(200, TimeUnit.NANOSECONDS);
-            clockPort.setState(false);
+            clockPin.setState(false);
             this.sleep(200, TimeUnit.NANOSECONDS);
 
-            bits.setIndex(i, dataPort.getState());
+            bits.setIndex(i, dataPin.getState());
         }
 
-        clockPort.setState(true);
+        clockPin.setState(true);
         this.sleep(200, TimeUnit.NANOSECONDS);
-        clockPort.setState(false);
+        clockPin.setState(false);
 
-        log.info("Received HX711 sensor data on (" + dataPort + ") : " + bits.toBinaryDigits()
-                                                                             .toUpperCaseString());
+        log.info("Received HX711 sensor data on data port " + dataPin.getPort() + " : " + bits.toBinaryDigits()
+                                                                                              .toUpperCaseString());
 
         long result = 0;
         for (boolean value : bits.toBooleanArray())
@@ -121,12 +174,12 @@ public class WeightServiceImpl implements WeightService
         return result ^ 0x800000;
     }
 
-    private void waitUntilDataPortIsReady(DigitalInputGPIOPort dataPort)
+    private void waitUntilDataPortIsReady(DigitalInputPinHandle dataPin)
     {
         DurationMeasurement durationMeasurement = DurationCapture.newInstance()
                                                                  .start();
         this.sleep(1, TimeUnit.MILLISECONDS);
-        while (dataPort.getState())
+        while (dataPin.getState())
         {
             this.sleep(1, TimeUnit.MILLISECONDS);
 
@@ -134,7 +187,7 @@ public class WeightServiceImpl implements WeightService
             if (durationMeasurementResult.getDuration(TimeUnit.SECONDS) >= 5)
             {
                 throw new IllegalStateException("Waiting for data port to be ready timed out after " + durationMeasurementResult.getDurationAsCanonicalString()
-                                                + ". Port = " + dataPort);
+                                                + ". Port = " + dataPin.getPort());
             }
         }
     }
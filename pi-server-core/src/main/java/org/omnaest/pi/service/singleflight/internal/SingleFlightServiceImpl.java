@@ -0,0 +1,130 @@
+package org.omnaest.pi.service.singleflight.internal;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.omnaest.pi.service.singleflight.SingleFlightService;
+import org.omnaest.pi.service.utils.FutureUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link SingleFlightService} keeping the last execution per {@link SingleFlightKey} in a {@link ConcurrentHashMap}. The caller which
+ * creates a new execution runs the operation in its own thread, all other callers block on its {@link CompletableFuture}.<br>
+ * <br>
+ * An execution is removed as soon as it completes, unless its result is kept for the freshness window. Results which fell out of the
+ * freshness window are removed whenever a new execution starts, so keys which are never requested again do not pile up.
+ *
+ * @author omnaest
+ */
+@Service
+public class SingleFlightServiceImpl implements SingleFlightService
+{
+    private final boolean                     enabled;
+    private final long                        freshnessInNanos;
+    private final Map<SingleFlightKey, Flight> keyToFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlightServiceImpl(@Value("${pi.singleflight.enabled:false}") boolean enabled,
+                                   @Value("${pi.singleflight.freshness-millis:0}") long freshnessInMilliseconds)
+    {
+        super();
+        this.enabled = enabled;
+        this.freshnessInNanos = TimeUnit.MILLISECONDS.toNanos(freshnessInMilliseconds);
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(SingleFlightKey key, Supplier<T> operation)
+    {
+        if (!this.enabled)
+        {
+            return operation.get();
+        }
+
+        Flight newFlight = new Flight();
+        this.keyToFlight.values()
+                        .removeIf(existingFlight -> !existingFlight.isReusable(this.freshnessInNanos));
+        Flight flight = this.keyToFlight.compute(key, (k, existingFlight) -> existingFlight != null && existingFlight.isReusable(this.freshnessInNanos)
+                ? existingFlight
+                : newFlight);
+        if (flight != newFlight)
+        {
+            return (T) FutureUtils.join(flight.getFuture());
+        }
+
+        try
+        {
+            T result = operation.get();
+            flight.complete(result);
+            if (this.freshnessInNanos <= 0)
+            {
+                this.keyToFlight.remove(key, flight);
+            }
+            return result;
+        }
+        catch (RuntimeException | Error e)
+        {
+            flight.fail(e);
+            this.keyToFlight.remove(key, flight);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of executions currently held, which are either running or kept for the freshness window
+     *
+     * @return
+     */
+    int getNumberOfFlights()
+    {
+        return this.keyToFlight.size();
+    }
+
+    private static class Flight
+    {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long                   completionTime;
+
+        public CompletableFuture<Object> getFuture()
+        {
+            return this.future;
+        }
+
+        public void complete(Object result)
+        {
+            this.completionTime = System.nanoTime();
+            this.future.complete(result);
+        }
+
+        public void fail(Throwable exception)
+        {
+            this.future.completeExceptionally(exception);
+        }
+
+        /**
+         * Returns true, if this {@link Flight} is still running or has finished successfully within the given freshness window
+         *
+         * @param freshnessInNanos
+         * @return
+         */
+        public boolean isReusable(long freshnessInNanos)
+        {
+            if (!this.future.isDone())
+            {
+                return true;
+            }
+            return !this.future.isCompletedExceptionally() && System.nanoTime() - this.completionTime <= freshnessInNanos;
+        }
+    }
+}
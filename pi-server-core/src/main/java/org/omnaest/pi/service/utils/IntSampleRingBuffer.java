@@ -0,0 +1,107 @@
+package org.omnaest.pi.service.utils;
+
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link SampleRingBuffer} for int samples, which keeps the samples in a primitive array, so adding a sample does not allocate anything.
+ * Like the {@link SampleRingBuffer} it supports a single producer and any number of readers, which never block the producer.
+ *
+ * @see SampleRingBuffer
+ * @author omnaest
+ */
+public class IntSampleRingBuffer
+{
+    private final AtomicIntegerArray slots;
+    private final AtomicLong         sequence        = new AtomicLong();
+
+    /**
+     * Sequence of the sample, which the producer is about to write. It is raised before the slot is overwritten, so a reader detects an
+     * overwritten slot even before the sample is published via the sequence.
+     */
+    private final AtomicLong         claimedSequence = new AtomicLong();
+
+    /**
+     * @param capacity
+     *            maximum number of samples held
+     */
+    public IntSampleRingBuffer(int capacity)
+    {
+        super();
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.slots = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Adds a sample. Must only be called by the single producer.
+     *
+     * @param sample
+     * @return
+     */
+    public IntSampleRingBuffer add(int sample)
+    {
+        long sequence = this.sequence.get();
+        this.claimedSequence.set(sequence + 1);
+        this.slots.set(this.indexOf(sequence), sample);
+        this.sequence.lazySet(sequence + 1);
+        return this;
+    }
+
+    /**
+     * Returns the most recently added sample
+     *
+     * @return
+     */
+    public OptionalInt getLatest()
+    {
+        long sequence = this.sequence.get();
+        return sequence > 0 ? OptionalInt.of(this.slots.get(this.indexOf(sequence - 1))) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the buffered samples from the oldest to the latest one
+     *
+     * @return
+     */
+    public int[] toArray()
+    {
+        long end = this.sequence.get();
+        long start = Math.max(0, end - this.getCapacity());
+
+        int[] samples = new int[(int) (end - start)];
+        for (int ii = 0; ii < samples.length; ii++)
+        {
+            samples[ii] = this.slots.get(this.indexOf(start + ii));
+        }
+
+        // the producer may have overwritten the oldest slots during the copy, including the slot of a sample it has not published yet
+        long numberOfOverwrittenSamples = Math.max(0, this.claimedSequence.get() - this.getCapacity() - start);
+        return numberOfOverwrittenSamples > 0 ? Arrays.copyOfRange(samples, (int) Math.min(numberOfOverwrittenSamples, samples.length), samples.length)
+                : samples;
+    }
+
+    /**
+     * Returns the total number of samples added since the creation, including the overwritten ones
+     *
+     * @return
+     */
+    public long getNumberOfAddedSamples()
+    {
+        return this.sequence.get();
+    }
+
+    public int getCapacity()
+    {
+        return this.slots.length();
+    }
+
+    private int indexOf(long sequence)
+    {
+        return (int) (sequence % this.slots.length());
+    }
+}
@@ -0,0 +1,109 @@
+package org.omnaest.pi.service.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed capacity ring buffer for a single producer, which overwrites the oldest sample when it is full. Readers never block the producer:
+ * a snapshot copies the slots and afterwards drops every sample, which has been overwritten while it was copied. For primitive samples
+ * {@link IntSampleRingBuffer} avoids the boxing.
+ *
+ * @author omnaest
+ * @param <E>
+ */
+public class SampleRingBuffer<E>
+{
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLong              sequence        = new AtomicLong();
+
+    /**
+     * Sequence of the sample, which the producer is about to write. It is raised before the slot is overwritten, so a reader detects an
+     * overwritten slot even before the sample is published via the sequence.
+     */
+    private final AtomicLong              claimedSequence = new AtomicLong();
+
+    /**
+     * @param capacity
+     *            maximum number of samples held
+     */
+    public SampleRingBuffer(int capacity)
+    {
+        super();
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Adds a sample. Must only be called by the single producer.
+     *
+     * @param sample
+     * @return
+     */
+    public SampleRingBuffer<E> add(E sample)
+    {
+        long sequence = this.sequence.get();
+        this.claimedSequence.set(sequence + 1);
+        this.slots.set(this.indexOf(sequence), sample);
+        this.sequence.lazySet(sequence + 1);
+        return this;
+    }
+
+    /**
+     * Returns the most recently added sample
+     *
+     * @return
+     */
+    public Optional<E> getLatest()
+    {
+        long sequence = this.sequence.get();
+        return sequence > 0 ? Optional.ofNullable(this.slots.get(this.indexOf(sequence - 1))) : Optional.empty();
+    }
+
+    /**
+     * Returns the buffered samples from the oldest to the latest one
+     *
+     * @return
+     */
+    public List<E> toList()
+    {
+        long end = this.sequence.get();
+        long start = Math.max(0, end - this.getCapacity());
+
+        List<E> samples = new ArrayList<>((int) (end - start));
+        for (long ii = start; ii < end; ii++)
+        {
+            samples.add(this.slots.get(this.indexOf(ii)));
+        }
+
+        // the producer may have overwritten the oldest slots during the copy, including the slot of a sample it has not published yet
+        long numberOfOverwrittenSamples = Math.max(0, this.claimedSequence.get() - this.getCapacity() - start);
+        return numberOfOverwrittenSamples > 0 ? new ArrayList<>(samples.subList((int) Math.min(numberOfOverwrittenSamples, samples.size()), samples.size()))
+                : samples;
+    }
+
+    /**
+     * Returns the total number of samples added since the creation, including the overwritten ones
+     *
+     * @return
+     */
+    public long getNumberOfAddedSamples()
+    {
+        return this.sequence.get();
+    }
+
+    public int getCapacity()
+    {
+        return this.slots.length();
+    }
+
+    private int indexOf(long sequence)
+    {
+        return (int) (sequence % this.slots.length());
+    }
+}
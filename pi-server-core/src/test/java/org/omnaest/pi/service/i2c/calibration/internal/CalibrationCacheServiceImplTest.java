@@ -0,0 +1,87 @@
+package org.omnaest.pi.service.i2c.calibration.internal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @see CalibrationCacheServiceImpl
+ */
+public class CalibrationCacheServiceImplTest
+{
+    private static final Predicate<int[]> NO_ZERO_WORD = words -> Arrays.stream(words)
+                                                                        .noneMatch(word -> word == 0);
+
+    @Test
+    public void testReadOnce()
+    {
+        CalibrationCacheServiceImpl calibrationCacheService = new CalibrationCacheServiceImpl("");
+        AtomicInteger numberOfReads = new AtomicInteger();
+        Supplier<Optional<int[]>> reader = () ->
+        {
+            numberOfReads.incrementAndGet();
+            return Optional.of(new int[] { 0x1234, 0xABCD });
+        };
+
+        assertArrayEquals(new int[] { 0x1234, 0xABCD }, calibrationCacheService.getOrRead(1, 0x76, "MS5837", reader, NO_ZERO_WORD)
+                                                                               .get());
+        assertArrayEquals(new int[] { 0x1234, 0xABCD }, calibrationCacheService.getOrRead(1, 0x76, "MS5837", reader, NO_ZERO_WORD)
+                                                                               .get());
+        assertEquals(1, numberOfReads.get());
+
+        calibrationCacheService.getOrRead(2, 0x76, "MS5837", reader, NO_ZERO_WORD);
+        assertEquals(2, numberOfReads.get());
+
+        calibrationCacheService.invalidate(1, 0x76);
+        calibrationCacheService.getOrRead(1, 0x76, "MS5837", reader, NO_ZERO_WORD);
+        assertEquals(3, numberOfReads.get());
+    }
+
+    @Test
+    public void testInvalidCoefficientsAreNotCached()
+    {
+        CalibrationCacheServiceImpl calibrationCacheService = new CalibrationCacheServiceImpl("");
+        AtomicInteger numberOfReads = new AtomicInteger();
+        Supplier<Optional<int[]>> reader = () -> Optional.of(new int[] { numberOfReads.getAndIncrement(), 0x0001 });
+
+        assertFalse(calibrationCacheService.getOrRead(1, 0x77, "BMP180", reader, NO_ZERO_WORD)
+                                           .isPresent());
+        assertArrayEquals(new int[] { 0x0001, 0x0001 }, calibrationCacheService.getOrRead(1, 0x77, "BMP180", reader, NO_ZERO_WORD)
+                                                                               .get());
+        assertTrue(calibrationCacheService.getOrRead(1, 0x77, "BMP180", Optional::empty, NO_ZERO_WORD)
+                                          .isPresent());
+    }
+
+    @Test
+    public void testPersistence(@TempDir Path directory)
+    {
+        Path file = directory.resolve("calibration.properties");
+        new CalibrationCacheServiceImpl(file.toString()).getOrRead(1, 0x76, "MS5837", () -> Optional.of(new int[] { 0x10C5, 0x88A6 }),
+                                                                   NO_ZERO_WORD);
+        assertTrue(Files.exists(file));
+
+        // a restart takes the persisted coefficients without reading the device
+        assertArrayEquals(new int[] { 0x10C5, 0x88A6 }, new CalibrationCacheServiceImpl(file.toString()).getOrRead(1, 0x76, "MS5837",
+                                                                                                                   Optional::empty,
+                                                                                                                   NO_ZERO_WORD)
+                                                                                                        .get());
+
+        // persisted coefficients failing the validation are read again
+        assertArrayEquals(new int[] { 0x0002 }, new CalibrationCacheServiceImpl(file.toString()).getOrRead(1, 0x76, "MS5837",
+                                                                                                           () -> Optional.of(new int[] { 0x0002 }),
+                                                                                                           words -> words.length == 1)
+                                                                                                .get());
+    }
+}
@@ -0,0 +1,155 @@
+package org.omnaest.pi.service.i2c.inventory.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.service.i2c.I2CService;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService.BusInventory;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService.DeviceInventory;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService.I2CInventory;
+
+/**
+ * @see I2CInventoryServiceImpl
+ */
+public class I2CInventoryServiceImplTest
+{
+
+    @Test
+    public void testScan()
+    {
+        // bus 1 has a MPU6050 and an unknown device, bus 3 a BMP180
+        Map<Integer, Map<Integer, Map<Integer, Byte>>> busToDevices = Map.of(1, Map.of(0x68, Map.of(0x75, (byte) 0x68), 0x40, Map.of()), 3,
+                                                                             Map.of(0x77, Map.of(0xD0, (byte) 0x55)));
+        I2CInventoryServiceImpl inventoryService = new I2CInventoryServiceImpl(new FakeI2CService(busToDevices), new int[] { 1, 3 },
+                                                                               new int[] { 0x76 });
+        try
+        {
+            assertFalse(inventoryService.isScanned(1));
+            assertFalse(inventoryService.isPresent(1, 0x10));
+
+            I2CInventory inventory = inventoryService.scan();
+            assertEquals(Arrays.asList(1, 3), inventory.getBuses()
+                                                      .stream()
+                                                      .map(BusInventory::getBusNumber)
+                                                      .toList());
+
+            List<DeviceInventory> devices = inventory.getBuses()
+                                                     .get(0)
+                                                     .getDevices();
+            assertEquals(2, devices.size());
+            assertEquals(0x40, devices.get(0)
+                                      .getDeviceAddress());
+            assertNull(devices.get(0)
+                              .getDeviceType());
+            assertEquals("MPU6050", devices.get(1)
+                                           .getDeviceType());
+            assertEquals("BMP180", inventoryService.findDevice(3, 0x77)
+                                                   .get()
+                                                   .getDeviceType());
+
+            assertTrue(inventoryService.isPresent(1, 0x68));
+            assertFalse(inventoryService.isPresent(1, 0x77));
+            assertFalse(inventoryService.isPresent(2, 0x77));
+            assertTrue(inventoryService.isScanned(3));
+            assertFalse(inventoryService.isScanned(2));
+            assertEquals(inventory, inventoryService.getInventory());
+        }
+        finally
+        {
+            inventoryService.shutdown();
+        }
+    }
+
+    @Test
+    public void testCommandBasedAddressIsNotIdentified()
+    {
+        // a MS5837 at 0x76 would be executing the id register pointer 0xD0 as command, which a BMP280 would answer with 0x58
+        Map<Integer, Map<Integer, Map<Integer, Byte>>> busToDevices = Map.of(1, Map.of(0x76, Map.of(0xD0, (byte) 0x58)));
+        I2CInventoryServiceImpl inventoryService = new I2CInventoryServiceImpl(new FakeI2CService(busToDevices), new int[] { 1 },
+                                                                               new int[] { 0x76 });
+        try
+        {
+            inventoryService.scan();
+            assertTrue(inventoryService.isPresent(1, 0x76));
+            assertNull(inventoryService.findDevice(1, 0x76)
+                                       .get()
+                                       .getDeviceType());
+        }
+        finally
+        {
+            inventoryService.shutdown();
+        }
+    }
+
+    private static class FakeI2CService implements I2CService
+    {
+        private final Map<Integer, Map<Integer, Map<Integer, Byte>>> busToDevices;
+
+        public FakeI2CService(Map<Integer, Map<Integer, Map<Integer, Byte>>> busToDevices)
+        {
+            super();
+            this.busToDevices = busToDevices;
+        }
+
+        @Override
+        public Optional<I2CBusControl> provision(int busNumber)
+        {
+            Map<Integer, Map<Integer, Byte>> devices = this.busToDevices.get(busNumber);
+            return Optional.ofNullable(devices)
+                           .map(d -> new I2CBusControl() {
+                               @Override
+                               public Optional<AddressConnector> connectTo(int deviceAddress)
+                               {
+                                   return Optional.empty();
+                               }
+
+                               @Override
+                               public Optional<BusSchedulerStatistics> getSchedulerStatistics()
+                               {
+                                   return Optional.empty();
+                               }
+
+                               @Override
+                               public boolean probe(int deviceAddress)
+                               {
+                                   return devices.containsKey(deviceAddress);
+                               }
+
+                               @Override
+                               public Optional<Byte> probe(int deviceAddress, int localAddress)
+                               {
+                                   return Optional.ofNullable(devices.get(deviceAddress))
+                                                  .map(registers -> registers.getOrDefault(localAddress, (byte) 0));
+                               }
+                           });
+        }
+
+        @Override
+        public Optional<I2CBusControl> provision(BusNumber busNumber)
+        {
+            return this.provision(busNumber.ordinal());
+        }
+
+        @Override
+        public List<Integer> getProvisionedBusNumbers()
+        {
+            return List.of(1);
+        }
+
+        @Override
+        public I2CMetrics getMetrics()
+        {
+            return I2CMetrics.builder()
+                             .buses(List.of())
+                             .build();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.omnaest.pi.service.sensor.pressure.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @see MS5837Prom
+ */
+public class MS5837PromTest
+{
+
+    @Test
+    public void testCrc4()
+    {
+        int[] words = new int[] { 0x10C5, 0x88A6, 0x8E00, 0x4F68, 0x5752, 0x6816, 0x6622 };
+        assertEquals(0x1, MS5837Prom.crc4(words));
+        assertTrue(MS5837Prom.isValid(words));
+
+        words[3] ^= 0x0100;
+        assertFalse(MS5837Prom.isValid(words));
+        assertFalse(MS5837Prom.isValid(new int[] { 0x10C5, 0x88A6 }));
+    }
+
+    @Test
+    public void testRejectsBlankCoefficients()
+    {
+        int[] zeros = new int[MS5837Prom.NUMBER_OF_WORDS];
+        assertEquals(0x0, MS5837Prom.crc4(zeros));
+        assertFalse(MS5837Prom.isValid(zeros));
+
+        int[] ones = new int[] { 0xFFFF, 0xFFFF, 0xFFFF, 0xFFFF, 0xFFFF, 0xFFFF, 0xFFFF };
+        ones[0] = MS5837Prom.crc4(ones) << 12 | 0x0FFF;
+        assertFalse(MS5837Prom.isValid(ones));
+
+        int[] words = new int[] { 0x00C5, 0x8000, 0x8000, 0x4000, 0x4000, 0x5000, 0x6000 };
+        assertTrue(MS5837Prom.isValid(words));
+        words[4] = 0x0000;
+        words[0] = MS5837Prom.crc4(words) << 12 | 0x00C5;
+        assertFalse(MS5837Prom.isValid(words));
+    }
+}
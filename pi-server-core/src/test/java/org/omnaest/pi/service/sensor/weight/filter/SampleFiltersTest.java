@@ -0,0 +1,80 @@
+package org.omnaest.pi.service.sensor.weight.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.client.domain.weight.WeightFilter;
+
+/**
+ * @see SampleFilters
+ */
+public class SampleFiltersTest
+{
+
+    @Test
+    public void testRunningMedian()
+    {
+        SampleFilter filter = SampleFilters.create(WeightFilter.runningMedian(3));
+        assertFalse(filter.getValue()
+                          .isPresent());
+
+        assertEquals(10.0, filter.add(10), 0.0);
+        assertEquals(505.0, filter.add(1000), 0.0);
+        assertEquals(12.0, filter.add(12), 0.0);
+        assertEquals(12.0, filter.add(11), 0.0);
+        assertEquals(11.0, filter.add(9), 0.0);
+    }
+
+    @Test
+    public void testTrimmedMean()
+    {
+        SampleFilter filter = SampleFilters.create(WeightFilter.trimmedMean(5, 0.2));
+        for (double sample : new double[] { 10, -500, 12, 11, 1000 })
+        {
+            filter.add(sample);
+        }
+        assertEquals(11.0, filter.getValue()
+                                 .get(),
+                     0.0);
+
+        // the oldest sample leaves the window
+        assertEquals(12.0, filter.add(13), 0.0);
+    }
+
+    @Test
+    public void testExponentialSmoothingAndPipeline()
+    {
+        SampleFilter filter = SampleFilters.create(WeightFilter.exponentialSmoothing(0.5));
+        assertEquals(10.0, filter.add(10), 0.0);
+        assertEquals(15.0, filter.add(20), 0.0);
+
+        SampleFilter pipeline = SampleFilters.create(WeightFilter.runningMedian(3)
+                                                                 .andThen(WeightFilter.exponentialSmoothing(0.5)));
+        pipeline.add(10);
+        pipeline.add(10);
+        assertEquals(10.0, pipeline.add(1000), 0.0);
+
+        assertEquals(42.0, SampleFilters.create(WeightFilter.none())
+                                        .add(42),
+                     0.0);
+    }
+
+    @Test
+    public void testKalman()
+    {
+        SampleFilter filter = SampleFilters.create(WeightFilter.kalman(0.0, 1.0));
+        assertEquals(10.0, filter.add(10), 0.0);
+        assertEquals(15.0, filter.add(20), 0.000001);
+        assertEquals(10.0, filter.add(0), 0.000001);
+    }
+
+    @Test
+    public void testInvalidParameters()
+    {
+        assertThrows(IllegalArgumentException.class, () -> SampleFilters.create(WeightFilter.runningMedian(0)));
+        assertThrows(IllegalArgumentException.class, () -> SampleFilters.create(WeightFilter.trimmedMean(10, 0.5)));
+        assertThrows(IllegalArgumentException.class, () -> SampleFilters.create(WeightFilter.exponentialSmoothing(0.0)));
+    }
+}
@@ -0,0 +1,139 @@
+package org.omnaest.pi.service.singleflight.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.service.singleflight.SingleFlightService.SingleFlightKey;
+
+/**
+ * @see SingleFlightServiceImpl
+ */
+public class SingleFlightServiceImplTest
+{
+    private static final SingleFlightKey KEY = SingleFlightKey.of(1, 0x77, "bmp180.measure");
+
+    @Test
+    public void testConcurrentCallersShareOneExecution() throws Exception
+    {
+        SingleFlightServiceImpl singleFlightService = new SingleFlightServiceImpl(true, 0);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int numberOfCallers = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfCallers);
+        try
+        {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executorService.submit(() -> singleFlightService.execute(KEY, () ->
+            {
+                leaderStarted.countDown();
+                awaitQuietly(release);
+                return executions.incrementAndGet();
+            })));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+            for (int ii = 1; ii < numberOfCallers; ii++)
+            {
+                results.add(executorService.submit(() -> singleFlightService.execute(KEY, () -> executions.incrementAndGet())));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<Integer> result : results)
+            {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS)
+                                      .intValue());
+            }
+            assertEquals(1, executions.get());
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDisabledExecutesEveryCall()
+    {
+        SingleFlightServiceImpl singleFlightService = new SingleFlightServiceImpl(false, 10000);
+        AtomicInteger executions = new AtomicInteger();
+
+        assertFalse(singleFlightService.isEnabled());
+        assertEquals(1, singleFlightService.execute(KEY, () -> executions.incrementAndGet())
+                                           .intValue());
+        assertEquals(2, singleFlightService.execute(KEY, () -> executions.incrementAndGet())
+                                           .intValue());
+    }
+
+    @Test
+    public void testFreshnessWindow() throws InterruptedException
+    {
+        AtomicInteger executions = new AtomicInteger();
+
+        SingleFlightServiceImpl withoutFreshness = new SingleFlightServiceImpl(true, 0);
+        withoutFreshness.execute(KEY, () -> executions.incrementAndGet());
+        Thread.sleep(2);
+        assertEquals(2, withoutFreshness.execute(KEY, () -> executions.incrementAndGet())
+                                        .intValue());
+
+        SingleFlightServiceImpl withFreshness = new SingleFlightServiceImpl(true, 60000);
+        assertEquals(3, withFreshness.execute(KEY, () -> executions.incrementAndGet())
+                                     .intValue());
+        assertEquals(3, withFreshness.execute(KEY, () -> executions.incrementAndGet())
+                                     .intValue());
+        assertEquals(4, withFreshness.execute(SingleFlightKey.of(1, 0x77, "other"), () -> executions.incrementAndGet())
+                                     .intValue());
+    }
+
+    @Test
+    public void testCompletedFlightsAreEvicted() throws InterruptedException
+    {
+        SingleFlightServiceImpl withoutFreshness = new SingleFlightServiceImpl(true, 0);
+        withoutFreshness.execute(KEY, () -> "value");
+        assertEquals(0, withoutFreshness.getNumberOfFlights());
+
+        SingleFlightServiceImpl withFreshness = new SingleFlightServiceImpl(true, 1);
+        withFreshness.execute(KEY, () -> "value");
+        assertEquals(1, withFreshness.getNumberOfFlights());
+        Thread.sleep(5);
+        withFreshness.execute(SingleFlightKey.of(1, 0x77, "other"), () -> "value");
+        assertEquals(1, withFreshness.getNumberOfFlights());
+    }
+
+    @Test
+    public void testFailureIsNotCached()
+    {
+        SingleFlightServiceImpl singleFlightService = new SingleFlightServiceImpl(true, 60000);
+
+        assertThrows(IllegalStateException.class, () -> singleFlightService.execute(KEY, () ->
+        {
+            throw new IllegalStateException("bus error");
+        }));
+        assertEquals("value", singleFlightService.execute(KEY, () -> "value"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+}
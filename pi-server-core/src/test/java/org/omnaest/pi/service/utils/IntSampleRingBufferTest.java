@@ -0,0 +1,72 @@
+package org.omnaest.pi.service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @see IntSampleRingBuffer
+ */
+public class IntSampleRingBufferTest
+{
+
+    @Test
+    public void testOverwriteOldestSample()
+    {
+        IntSampleRingBuffer buffer = new IntSampleRingBuffer(3);
+        assertFalse(buffer.getLatest()
+                          .isPresent());
+
+        buffer.add(1)
+              .add(2);
+        assertArrayEquals(new int[] { 1, 2 }, buffer.toArray());
+        assertEquals(2, buffer.getLatest()
+                              .getAsInt());
+
+        buffer.add(3)
+              .add(4)
+              .add(5);
+        assertArrayEquals(new int[] { 3, 4, 5 }, buffer.toArray());
+        assertEquals(5, buffer.getLatest()
+                              .getAsInt());
+        assertEquals(5, buffer.getNumberOfAddedSamples());
+    }
+
+    @Test
+    public void testSnapshotDuringConcurrentAddsIsConsecutive() throws InterruptedException
+    {
+        IntSampleRingBuffer buffer = new IntSampleRingBuffer(8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread producer = new Thread(() ->
+        {
+            int value = 0;
+            while (running.get())
+            {
+                buffer.add(value++);
+            }
+        });
+        producer.start();
+        try
+        {
+            for (int ii = 0; ii < 100000; ii++)
+            {
+                int[] samples = buffer.toArray();
+                assertTrue(samples.length <= 8);
+                for (int jj = 1; jj < samples.length; jj++)
+                {
+                    assertEquals(samples[jj - 1] + 1, samples[jj]);
+                }
+            }
+        }
+        finally
+        {
+            running.set(false);
+            producer.join();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.omnaest.pi.service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @see SampleRingBuffer
+ */
+public class SampleRingBufferTest
+{
+
+    @Test
+    public void testOverwriteOldestSample()
+    {
+        SampleRingBuffer<Integer> buffer = new SampleRingBuffer<>(3);
+        assertFalse(buffer.getLatest()
+                          .isPresent());
+
+        buffer.add(1)
+              .add(2);
+        assertEquals(Arrays.asList(1, 2), buffer.toList());
+        assertEquals(2, buffer.getLatest()
+                              .get()
+                              .intValue());
+
+        buffer.add(3)
+              .add(4)
+              .add(5);
+        assertEquals(Arrays.asList(3, 4, 5), buffer.toList());
+        assertEquals(5, buffer.getLatest()
+                              .get()
+                              .intValue());
+        assertEquals(5, buffer.getNumberOfAddedSamples());
+    }
+}
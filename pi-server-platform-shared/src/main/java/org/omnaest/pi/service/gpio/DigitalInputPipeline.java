@@ -0,0 +1,416 @@
+package org.omnaest.pi.service.gpio;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputEdgeRecorder.EdgeConsumer;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort.DigitalInputPinStateChange;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputMetrics;
+
+/**
+ * Event pipeline of a single digital input port. Every raw edge passes the {@link DigitalInputFilter} first and only the accepted edges are
+ * added to the {@link EdgeRingBuffer} and the {@link PulseMeter} and passed to the listeners. The pipeline does not allocate per edge, the
+ * listeners receive one of two shared {@link DigitalInputPinStateChange} instances.<br>
+ * <br>
+ * {@link #onEdge(long, boolean)} can be called from any thread. The edges of the pipeline are serialized by a producer lock, so the filter
+ * state, the {@link EdgeRingBuffer} and the {@link PulseMeter} only ever see one producer at a time. The listeners are never called while
+ * the producer lock is held, so a slow listener does not hold back the recording of the next edges.<br>
+ * <br>
+ * Without a filter, the listeners are called by the thread delivering the edge. A filter starts a dispatcher thread for the pin, which
+ * then calls the listeners in the order of the accepted edges and runs the checks of the filter stages, which have to look at the pin
+ * again later. The minimum pulse width re-samples the pin after that width, and an edge rejected by the debounce time schedules a trailing
+ * check at the end of the debounce window, which emits the transition, if the level differs from the last accepted one by then. There is at
+ * most one pending check per pin, which is reused for every edge. Call {@link #close()} to stop the dispatcher.
+ *
+ * @author omnaest
+ */
+public class DigitalInputPipeline
+{
+    private static final DigitalInputPinStateChange          RISING_EDGE              = new DigitalInputPinStateChange(false, true);
+    private static final DigitalInputPinStateChange          FALLING_EDGE             = new DigitalInputPinStateChange(true, false);
+    private static final long                                NO_PENDING_CHECK         = Long.MAX_VALUE;
+
+    /**
+     * Number of accepted edges, the listeners of a filtered pin can fall behind, before further notifications are dropped
+     */
+    private static final int                                 NOTIFICATION_CAPACITY    = 1024;
+
+    private final int                                        port;
+    private final BooleanSupplier                            pinReader;
+    private final List<Consumer<DigitalInputPinStateChange>> listeners                = new CopyOnWriteArrayList<>();
+    private final AtomicLong                                 numberOfAcceptedEdges    = new AtomicLong();
+    private final AtomicLong                                 numberOfRejectedGlitches = new AtomicLong();
+    private final Object                                     producerLock             = new Object();
+    private final EdgeConsumer                               notifier                 = (timestamp, level) -> this.notifyListeners(level);
+
+    private volatile FilterSettings                          filterSettings           = null;
+    private volatile EdgeRingBuffer                          edgeBuffer               = null;
+    private volatile PulseMeter                              pulseMeter               = null;
+    private volatile boolean                                 level;
+    private volatile boolean                                 closed                   = false;
+
+    private boolean                                          hasAcceptedEdge          = false;
+    private long                                             lastAcceptedTimestamp    = 0;
+    private boolean                                          hasPendingCheck          = false;
+    private boolean                                          isTrailingCheck          = false;
+    private long                                             pendingTimestamp         = 0;
+    private long                                             checkTimestamp           = 0;
+    private Thread                                           dispatcher               = null;
+    private EdgeRingBuffer                                   notifications            = null;
+
+    /**
+     * @param port
+     * @param pinReader
+     *            reads the current raw level of the pin, which is used for the initial level and the sampling of the filter
+     */
+    public DigitalInputPipeline(int port, BooleanSupplier pinReader)
+    {
+        super();
+        this.port = port;
+        this.pinReader = pinReader;
+        this.level = pinReader.getAsBoolean();
+    }
+
+    /**
+     * Passes a raw edge through the filter and on to the {@link EdgeRingBuffer}, the {@link PulseMeter} and the listeners
+     *
+     * @param timestamp
+     *            {@link System#nanoTime()} of the edge, as taken by the caller
+     * @param rawLevel
+     *            level reported with the edge
+     * @return true, if the edge has been accepted right away, an edge waiting for a scheduled check is delivered by that check
+     */
+    public boolean onEdge(long timestamp, boolean rawLevel)
+    {
+        boolean accepted;
+        boolean hasDispatcher;
+        synchronized (this.producerLock)
+        {
+            accepted = this.processEdge(timestamp, rawLevel);
+            hasDispatcher = this.dispatcher != null;
+        }
+
+        // without a dispatcher there is no filter, so the accepted level is the reported one
+        if (accepted && !hasDispatcher)
+        {
+            this.notifyListeners(rawLevel);
+        }
+        return accepted;
+    }
+
+    private boolean processEdge(long timestamp, boolean rawLevel)
+    {
+        FilterSettings filterSettings = this.filterSettings;
+        if (filterSettings == null)
+        {
+            return this.emit(timestamp, rawLevel);
+        }
+
+        if (this.hasPendingCheck)
+        {
+            // the scheduled check samples the pin anyway, a trailing check emits the transition with the time of the latest edge
+            if (this.isTrailingCheck)
+            {
+                this.pendingTimestamp = timestamp;
+            }
+            return this.rejectGlitch();
+        }
+        if (rawLevel == this.level)
+        {
+            // a repeated report of the current level is no glitch, as the level never changed
+            return false;
+        }
+        if (this.hasAcceptedEdge && timestamp - this.lastAcceptedTimestamp < filterSettings.getDebounceTimeInNanoseconds())
+        {
+            this.scheduleCheck(timestamp, this.lastAcceptedTimestamp + filterSettings.getDebounceTimeInNanoseconds(), true);
+            return this.rejectGlitch();
+        }
+        if (filterSettings.getMinimumPulseWidthInNanoseconds() > 0)
+        {
+            this.scheduleCheck(timestamp, timestamp + filterSettings.getMinimumPulseWidthInNanoseconds(), false);
+            return false;
+        }
+        return this.emit(timestamp, this.sampleLevel(filterSettings, rawLevel)) || this.rejectGlitch();
+    }
+
+    private void scheduleCheck(long timestamp, long checkTimestamp, boolean isTrailingCheck)
+    {
+        this.hasPendingCheck = true;
+        this.isTrailingCheck = isTrailingCheck;
+        this.pendingTimestamp = timestamp;
+        this.checkTimestamp = checkTimestamp;
+        LockSupport.unpark(this.dispatcher);
+    }
+
+    /**
+     * Runs the pending check, if it is due
+     *
+     * @return the remaining time until the pending check is due, {@link #NO_PENDING_CHECK} if there is none, or 0 if the check has run
+     */
+    private long runDueCheck()
+    {
+        synchronized (this.producerLock)
+        {
+            if (!this.hasPendingCheck)
+            {
+                return NO_PENDING_CHECK;
+            }
+            long remainingTime = this.checkTimestamp - System.nanoTime();
+            if (remainingTime > 0)
+            {
+                return remainingTime;
+            }
+
+            this.hasPendingCheck = false;
+            boolean level = this.sampleLevel(this.filterSettings, this.pinReader.getAsBoolean());
+            boolean emitted = this.emit(this.pendingTimestamp, level);
+            if (!emitted && !this.isTrailingCheck)
+            {
+                this.rejectGlitch();
+            }
+            return 0;
+        }
+    }
+
+    private void dispatch()
+    {
+        while (!this.closed)
+        {
+            this.notifications.drain(this.notifier);
+
+            long remainingTime = this.runDueCheck();
+            if (remainingTime == NO_PENDING_CHECK)
+            {
+                LockSupport.park(this);
+            }
+            else if (remainingTime > 0)
+            {
+                LockSupport.parkNanos(this, remainingTime);
+            }
+        }
+    }
+
+    private boolean sampleLevel(FilterSettings filterSettings, boolean level)
+    {
+        if (filterSettings != null && filterSettings.getNumberOfSamples() > 1)
+        {
+            return this.sampleMajority(filterSettings.getNumberOfSamples());
+        }
+        return level;
+    }
+
+    /**
+     * Records the transition to the given level, if it differs from the last accepted level, and hands it to the dispatcher, if there is one
+     *
+     * @param timestamp
+     * @param level
+     * @return
+     */
+    private boolean emit(long timestamp, boolean level)
+    {
+        if (level == this.level)
+        {
+            return false;
+        }
+
+        this.level = level;
+        this.hasAcceptedEdge = true;
+        this.lastAcceptedTimestamp = timestamp;
+        this.numberOfAcceptedEdges.lazySet(this.numberOfAcceptedEdges.get() + 1);
+
+        EdgeRingBuffer edgeBuffer = this.edgeBuffer;
+        if (edgeBuffer != null)
+        {
+            edgeBuffer.record(timestamp, level);
+        }
+        PulseMeter pulseMeter = this.pulseMeter;
+        if (pulseMeter != null)
+        {
+            pulseMeter.record(timestamp, level);
+        }
+        if (this.dispatcher != null)
+        {
+            this.notifications.record(timestamp, level);
+            LockSupport.unpark(this.dispatcher);
+        }
+        return true;
+    }
+
+    private void notifyListeners(boolean level)
+    {
+        DigitalInputPinStateChange stateChange = level ? RISING_EDGE : FALLING_EDGE;
+        for (int ii = 0; ii < this.listeners.size(); ii++)
+        {
+            this.listeners.get(ii)
+                          .accept(stateChange);
+        }
+    }
+
+    private boolean rejectGlitch()
+    {
+        this.numberOfRejectedGlitches.lazySet(this.numberOfRejectedGlitches.get() + 1);
+        return false;
+    }
+
+    private boolean sampleMajority(int numberOfSamples)
+    {
+        int numberOfHighSamples = 0;
+        for (int ii = 0; ii < numberOfSamples; ii++)
+        {
+            if (this.pinReader.getAsBoolean())
+            {
+                numberOfHighSamples++;
+            }
+        }
+        return 2 * numberOfHighSamples > numberOfSamples;
+    }
+
+    /**
+     * Sets the {@link DigitalInputFilter}, null disables the filter
+     *
+     * @param filter
+     * @return
+     */
+    public DigitalInputPipeline setFilter(DigitalInputFilter filter)
+    {
+        synchronized (this.producerLock)
+        {
+            if (filter != null && this.dispatcher == null && !this.closed)
+            {
+                this.notifications = new EdgeRingBuffer(this.port, NOTIFICATION_CAPACITY);
+                this.dispatcher = new Thread(this::dispatch, "gpio-input-filter-" + this.port);
+                this.dispatcher.setDaemon(true);
+                this.dispatcher.start();
+            }
+            this.filterSettings = filter != null ? new FilterSettings(filter) : null;
+        }
+        return this;
+    }
+
+    /**
+     * Stops the dispatcher thread of a filtered pipeline, after which no further listeners are called and no pending check runs
+     */
+    public void close()
+    {
+        synchronized (this.producerLock)
+        {
+            this.closed = true;
+            LockSupport.unpark(this.dispatcher);
+        }
+    }
+
+    public boolean hasFilter()
+    {
+        return this.filterSettings != null;
+    }
+
+    public DigitalInputPipeline addListener(Consumer<DigitalInputPinStateChange> listener)
+    {
+        this.listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Returns the current {@link EdgeRingBuffer} or creates a new one with the given capacity
+     *
+     * @param capacity
+     * @return
+     */
+    public synchronized EdgeRingBuffer getOrCreateEdgeBuffer(int capacity)
+    {
+        if (this.edgeBuffer == null)
+        {
+            this.edgeBuffer = new EdgeRingBuffer(this.port, capacity);
+        }
+        return this.edgeBuffer;
+    }
+
+    public synchronized DigitalInputPipeline removeEdgeBuffer()
+    {
+        this.edgeBuffer = null;
+        return this;
+    }
+
+    /**
+     * Returns the current {@link PulseMeter} or creates a new one with the given window size
+     *
+     * @param windowSize
+     * @return
+     */
+    public synchronized PulseMeter getOrCreatePulseMeter(int windowSize)
+    {
+        if (this.pulseMeter == null)
+        {
+            this.pulseMeter = new PulseMeter(this.port, windowSize);
+        }
+        return this.pulseMeter;
+    }
+
+    public synchronized DigitalInputPipeline removePulseMeter()
+    {
+        this.pulseMeter = null;
+        return this;
+    }
+
+    /**
+     * Returns the level after the last accepted edge
+     *
+     * @return
+     */
+    public boolean getLevel()
+    {
+        return this.level;
+    }
+
+    public int getPort()
+    {
+        return this.port;
+    }
+
+    public DigitalInputMetrics getMetrics()
+    {
+        return DigitalInputMetrics.builder()
+                                  .port(this.port)
+                                  .numberOfAcceptedEdges(this.numberOfAcceptedEdges.get())
+                                  .numberOfRejectedGlitches(this.numberOfRejectedGlitches.get())
+                                  .build();
+    }
+
+    /**
+     * {@link DigitalInputFilter} converted into nanoseconds once
+     */
+    private static class FilterSettings
+    {
+        private final long debounceTimeInNanoseconds;
+        private final long minimumPulseWidthInNanoseconds;
+        private final int  numberOfSamples;
+
+        public FilterSettings(DigitalInputFilter filter)
+        {
+            this.debounceTimeInNanoseconds = TimeUnit.MICROSECONDS.toNanos(filter.getDebounceTimeInMicroseconds());
+            this.minimumPulseWidthInNanoseconds = TimeUnit.MICROSECONDS.toNanos(filter.getMinimumPulseWidthInMicroseconds());
+            this.numberOfSamples = filter.getNumberOfSamples();
+        }
+
+        public long getDebounceTimeInNanoseconds()
+        {
+            return this.debounceTimeInNanoseconds;
+        }
+
+        public long getMinimumPulseWidthInNanoseconds()
+        {
+            return this.minimumPulseWidthInNanoseconds;
+        }
+
+        public int getNumberOfSamples()
+        {
+            return this.numberOfSamples;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.omnaest.pi.service.gpio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputEdgeRecorder;
+
+/**
+ * Lock free, preallocated ring buffer of edges for a single producer and a single consumer. The producer publishes an edge by a lazy write of
+ * its sequence after the slot has been filled, and the consumer releases the drained slots the same way, so neither side blocks or
+ * allocates. A full buffer drops new edges instead of overwriting the ones the consumer has not drained yet.
+ *
+ * @see DigitalInputEdgeRecorder
+ * @author omnaest
+ */
+public class EdgeRingBuffer implements DigitalInputEdgeRecorder
+{
+    private static final int MAXIMUM_CAPACITY   = 1 << 30;
+
+    private final int        port;
+    private final int        mask;
+    private final long[]     timestamps;
+    private final boolean[]  levels;
+
+    private final AtomicLong writeSequence      = new AtomicLong();
+    private final AtomicLong readSequence       = new AtomicLong();
+    private final AtomicLong droppedEdges       = new AtomicLong();
+
+    /**
+     * Read sequence as last seen by the producer, which only has to read the shared one again, when the buffer looks full
+     */
+    private long             cachedReadSequence = 0;
+
+    /**
+     * @param port
+     * @param capacity
+     *            number of edges, which is rounded up to the next power of two
+     */
+    public EdgeRingBuffer(int port, int capacity)
+    {
+        super();
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+        {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAXIMUM_CAPACITY + ": " + capacity);
+        }
+        int effectiveCapacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.port = port;
+        this.mask = effectiveCapacity - 1;
+        this.timestamps = new long[effectiveCapacity];
+        this.levels = new boolean[effectiveCapacity];
+    }
+
+    /**
+     * Records an edge. Must only be called by one producer at a time, see {@link DigitalInputPipeline}.
+     *
+     * @param timestamp
+     *            {@link System#nanoTime()} of the edge
+     * @param level
+     *            true for a high signal after the edge
+     * @return false, if the buffer was full and the edge has been dropped
+     */
+    public boolean record(long timestamp, boolean level)
+    {
+        long sequence = this.writeSequence.get();
+        if (sequence - this.cachedReadSequence > this.mask)
+        {
+            this.cachedReadSequence = this.readSequence.get();
+            if (sequence - this.cachedReadSequence > this.mask)
+            {
+                this.droppedEdges.lazySet(this.droppedEdges.get() + 1);
+                return false;
+            }
+        }
+
+        int index = (int) sequence & this.mask;
+        this.timestamps[index] = timestamp;
+        this.levels[index] = level;
+        this.writeSequence.lazySet(sequence + 1);
+        return true;
+    }
+
+    @Override
+    public int drainTo(long[] timestamps, boolean[] levels)
+    {
+        long start = this.readSequence.get();
+        int count = (int) Math.min(this.writeSequence.get() - start, Math.min(timestamps.length, levels.length));
+        for (int ii = 0; ii < count; ii++)
+        {
+            int index = (int) (start + ii) & this.mask;
+            timestamps[ii] = this.timestamps[index];
+            levels[ii] = this.levels[index];
+        }
+        this.readSequence.lazySet(start + count);
+        return count;
+    }
+
+    @Override
+    public int drain(EdgeConsumer consumer)
+    {
+        long start = this.readSequence.get();
+        int count = (int) (this.writeSequence.get() - start);
+        for (int ii = 0; ii < count; ii++)
+        {
+            int index = (int) (start + ii) & this.mask;
+            consumer.accept(this.timestamps[index], this.levels[index]);
+        }
+        this.readSequence.lazySet(start + count);
+        return count;
+    }
+
+    @Override
+    public long getNumberOfDroppedEdges()
+    {
+        return this.droppedEdges.get();
+    }
+
+    @Override
+    public int getPort()
+    {
+        return this.port;
+    }
+
+    @Override
+    public int getCapacity()
+    {
+        return this.timestamps.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EdgeRingBuffer [port=" + this.port + ", capacity=" + this.getCapacity() + ", dropped=" + this.getNumberOfDroppedEdges() + "]";
+    }
+}
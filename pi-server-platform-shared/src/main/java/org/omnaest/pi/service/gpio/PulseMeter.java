@@ -0,0 +1,183 @@
+package org.omnaest.pi.service.gpio;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPulseMeter;
+
+/**
+ * {@link DigitalInputPulseMeter} fed with the accepted edges of a single producer. The producer keeps the rolling window of periods and only
+ * publishes the average by a lazy write, so neither side locks or allocates per edge. An armed pulse width measurement is completed by the
+ * producer, which then unparks the thread waiting in {@link #awaitPulseWidth(long, TimeUnit)}.
+ *
+ * @author omnaest
+ */
+public class PulseMeter implements DigitalInputPulseMeter
+{
+    private static final long                            NO_PULSE_WIDTH          = -1;
+
+    private final int                                    port;
+    private final long[]                                 periods;
+
+    private final AtomicLong                             averagePeriod           = new AtomicLong();
+    private final AtomicLong                             lastRisingEdgeTimestamp = new AtomicLong();
+    private final AtomicReference<PulseWidthMeasurement> pulseWidthMeasurement   = new AtomicReference<>();
+
+    private boolean                                      hasRisingEdge           = false;
+    private int                                          periodIndex             = 0;
+    private int                                          numberOfPeriods         = 0;
+    private long                                         periodSum               = 0;
+
+    /**
+     * @param port
+     * @param windowSize
+     *            number of periods, the rolling period is averaged over
+     */
+    public PulseMeter(int port, int windowSize)
+    {
+        super();
+        if (windowSize <= 0)
+        {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.port = port;
+        this.periods = new long[windowSize];
+    }
+
+    /**
+     * Records an accepted edge. Must only be called by one producer at a time, see {@link DigitalInputPipeline}.
+     *
+     * @param timestamp
+     *            {@link System#nanoTime()} of the edge
+     * @param level
+     *            true for a high signal after the edge
+     */
+    public void record(long timestamp, boolean level)
+    {
+        if (level)
+        {
+            this.recordRisingEdge(timestamp);
+        }
+
+        PulseWidthMeasurement measurement = this.pulseWidthMeasurement.get();
+        if (measurement != null && measurement.pulseWidth == NO_PULSE_WIDTH && timestamp - measurement.armTimestamp >= 0)
+        {
+            if (level == measurement.level)
+            {
+                measurement.started = true;
+                measurement.startTimestamp = timestamp;
+            }
+            else if (measurement.started)
+            {
+                measurement.pulseWidth = timestamp - measurement.startTimestamp;
+                Thread waiter = measurement.waiter;
+                if (waiter != null)
+                {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+    }
+
+    private void recordRisingEdge(long timestamp)
+    {
+        if (this.hasRisingEdge)
+        {
+            long period = timestamp - this.lastRisingEdgeTimestamp.get();
+            this.periodSum += period - this.periods[this.periodIndex];
+            this.periods[this.periodIndex] = period;
+            this.periodIndex = (this.periodIndex + 1) % this.periods.length;
+            this.numberOfPeriods = Math.min(this.numberOfPeriods + 1, this.periods.length);
+            this.averagePeriod.lazySet(this.periodSum / this.numberOfPeriods);
+        }
+        this.hasRisingEdge = true;
+        this.lastRisingEdgeTimestamp.lazySet(timestamp);
+    }
+
+    @Override
+    public DigitalInputPulseMeter armPulseWidth(boolean level)
+    {
+        this.pulseWidthMeasurement.set(new PulseWidthMeasurement(level, System.nanoTime()));
+        return this;
+    }
+
+    @Override
+    public OptionalLong awaitPulseWidth(long timeout, TimeUnit timeUnit)
+    {
+        PulseWidthMeasurement measurement = this.pulseWidthMeasurement.get();
+        if (measurement == null)
+        {
+            throw new IllegalStateException("No pulse width measurement armed for port " + this.port);
+        }
+
+        // the waiter is published before the pulse width is checked, so the producer either sees it or the loop sees the pulse width
+        measurement.waiter = Thread.currentThread();
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        long remainingTime = timeUnit.toNanos(timeout);
+        while (measurement.pulseWidth == NO_PULSE_WIDTH && remainingTime > 0)
+        {
+            LockSupport.parkNanos(this, remainingTime);
+            remainingTime = deadline - System.nanoTime();
+        }
+        measurement.waiter = null;
+        this.pulseWidthMeasurement.compareAndSet(measurement, null);
+
+        long pulseWidth = measurement.pulseWidth;
+        return pulseWidth != NO_PULSE_WIDTH ? OptionalLong.of(pulseWidth) : OptionalLong.empty();
+    }
+
+    @Override
+    public long getPeriod()
+    {
+        long averagePeriod = this.averagePeriod.get();
+        if (averagePeriod == 0)
+        {
+            return 0;
+        }
+        return Math.max(averagePeriod, System.nanoTime() - this.lastRisingEdgeTimestamp.get());
+    }
+
+    @Override
+    public double getFrequency()
+    {
+        long period = this.getPeriod();
+        return period > 0 ? 1.0E9 / period : 0.0;
+    }
+
+    @Override
+    public int getPort()
+    {
+        return this.port;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PulseMeter [port=" + this.port + ", windowSize=" + this.periods.length + ", averagePeriod=" + this.averagePeriod.get() + "]";
+    }
+
+    /**
+     * Pulse width measurement, which can be armed and awaited by different threads. The start of the pulse is only accessed by the producer.
+     */
+    private static class PulseWidthMeasurement
+    {
+        private final boolean   level;
+        private final long      armTimestamp;
+
+        private volatile long   pulseWidth     = NO_PULSE_WIDTH;
+        private volatile Thread waiter         = null;
+
+        private boolean         started        = false;
+        private long            startTimestamp = 0;
+
+        public PulseWidthMeasurement(boolean level, long armTimestamp)
+        {
+            super();
+            this.level = level;
+            this.armTimestamp = armTimestamp;
+        }
+    }
+}
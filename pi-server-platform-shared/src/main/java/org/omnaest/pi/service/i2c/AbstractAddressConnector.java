@@ -1,14 +1,23 @@
 package org.omnaest.pi.service.i2c;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
 import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
 import org.omnaest.pi.service.i2c.I2CService.Register;
 import org.omnaest.pi.service.i2c.I2CService.RegisterBit;
 import org.omnaest.pi.service.i2c.I2CService.RegisterBits;
+import org.omnaest.pi.service.i2c.I2CService.Transaction;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.i2c.I2CService.WaitStatistics;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
 import org.omnaest.pi.service.utils.BitNumberUtils;
 import org.omnaest.pi.service.utils.ThreadUtils;
 import org.omnaest.utils.bitset.Bits;
@@ -18,17 +27,100 @@ import org.omnaest.utils.bitset.Bits;
  * implementation. The logic here is pure bit manipulation built only on top of the four raw primitives
  * ({@link #read(int, int, int)}, {@link #read(int, int)}, {@link #write(int, byte...)}, {@link #write(byte...)}) and
  * has no hardware dependency. Concrete subclasses only need to supply those four primitives.
+ * <p>
+ * Registers obtained via {@link #accessCachedRegister(int)} are routed through a per connector {@link RegisterCache},
+ * registers obtained via {@link #accessRegister(int)} always hit the device and drop any shadow copy of the bytes they
+ * write.
+ * <p>
+ * {@link Transaction}s are executed step by step using the same primitives while holding the monitor of the connector.
+ * Subclasses which can map steps onto native combined transfers override {@link #executeTransaction(List)}.
+ * <p>
+ * Waits for a device condition follow the {@link WaitStrategy} held by the {@link WaitControl} of the connector and fail after a timeout.
  *
  * @author Danny Kunz
  */
 public abstract class AbstractAddressConnector implements AddressConnector
 {
+    private final RegisterCache registerCache;
+    private final WaitControl   waitControl;
+
+    protected AbstractAddressConnector()
+    {
+        this(new RegisterCache(), new WaitControl());
+    }
+
+    /**
+     * Used by views like {@link #withPriority(Priority)} which share the shadow register cache and the {@link WaitControl} with the connector
+     * they are created from
+     * 
+     * @param registerCache
+     * @param waitControl
+     */
+    protected AbstractAddressConnector(RegisterCache registerCache, WaitControl waitControl)
+    {
+        super();
+        this.registerCache = registerCache;
+        this.waitControl = waitControl;
+    }
+
+    protected RegisterCache getRegisterCache()
+    {
+        return this.registerCache;
+    }
+
+    protected WaitControl getWaitControl()
+    {
+        return this.waitControl;
+    }
+
     @Override
     public abstract Optional<ByteArray> read(int localAddress, int start, int size);
 
     @Override
     public abstract Optional<ByteArray> read(int start, int size);
 
+    /**
+     * Falls back to {@link #read(int, int, int)} and copies the result into the given buffer. Subclasses should override this with a read
+     * directly into the buffer.
+     */
+    @Override
+    public boolean read(int localAddress, byte[] buffer, int offset, int size)
+    {
+        return this.read(localAddress, 0, size)
+                   .map(data ->
+                   {
+                       System.arraycopy(data.get(), 0, buffer, offset, size);
+                       return true;
+                   })
+                   .orElse(false);
+    }
+
+    @Override
+    public boolean read(int localAddress, ByteBuffer buffer)
+    {
+        int size = buffer.remaining();
+        if (buffer.hasArray())
+        {
+            boolean success = this.read(localAddress, buffer.array(), buffer.arrayOffset() + buffer.position(), size);
+            if (success)
+            {
+                buffer.position(buffer.limit());
+            }
+            return success;
+        }
+        else
+        {
+            // direct buffers have no backing array, so the data has to be copied
+            byte[] data = new byte[size];
+            boolean success = this.read(localAddress, data, 0, size);
+            if (success)
+            {
+                buffer.put(data);
+            }
+            return success;
+        }
+    }
+
     @Override
     public abstract AddressConnector write(int localAddress, byte... data);
 
@@ -45,10 +137,38 @@ public abstract class AbstractAddressConnector implements AddressConnector
     @Override
     public AddressConnector waitUntil(Predicate<AddressConnector> predicate)
     {
-        while (!predicate.test(this))
+        return this.waitUntil(predicate, DEFAULT_WAIT_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public AddressConnector waitUntil(Predicate<AddressConnector> predicate, int timeout, TimeUnit timeUnit)
+    {
+        WaitStrategy waitStrategy = this.waitControl.getWaitStrategy();
+        CircuitBreaker circuitBreaker = this.waitControl.getCircuitBreaker();
+        long start = System.nanoTime();
+        long deadline = start + timeUnit.toNanos(timeout);
+        int checkIndex = 0;
+        boolean conditionMet = false;
+        while (!conditionMet)
         {
-            this.wait(10, TimeUnit.MILLISECONDS);
+            long delayInNanos = Math.min(waitStrategy.getDelayBeforeCheckInNanos(checkIndex++), deadline - System.nanoTime());
+            if (delayInNanos > 0)
+            {
+                waitStrategy.awaitDelay(delayInNanos);
+            }
+            if (circuitBreaker.isOpen())
+            {
+                this.waitControl.record(checkIndex, System.nanoTime() - start, true);
+                throw new IllegalStateException("Circuit breaker of the I2C device is open");
+            }
+            conditionMet = predicate.test(this);
+            if (!conditionMet && System.nanoTime() - deadline >= 0)
+            {
+                this.waitControl.record(checkIndex, System.nanoTime() - start, true);
+                throw new IllegalStateException("Condition not met within timeout of " + timeUnit.toMillis(timeout) + "ms");
+            }
         }
+        this.waitControl.record(checkIndex, System.nanoTime() - start, false);
         return this;
     }
 
@@ -65,13 +185,186 @@ public abstract class AbstractAddressConnector implements AddressConnector
     @Override
     public Register accessRegister(int localAddress)
     {
-        AddressConnector addressConnector = this;
+        return this.accessRegister(localAddress, false);
+    }
+
+    @Override
+    public Register accessCachedRegister(int localAddress)
+    {
+        return this.accessRegister(localAddress, true);
+    }
+
+    @Override
+    public AddressConnector invalidateRegisterCache()
+    {
+        this.registerCache.invalidate();
+        return this;
+    }
+
+    /**
+     * Returns this connector, as bus accesses are not scheduled by default. Implementations with a scheduled bus override this.
+     */
+    @Override
+    public AddressConnector withPriority(Priority priority)
+    {
+        return this;
+    }
+
+    /**
+     * Executes the bus accesses of the returned {@link AsyncAddressConnector} directly in the thread which completes the previous step, as bus
+     * accesses are not scheduled by default and do not wait for a bus. Implementations with a scheduled bus override this.
+     */
+    @Override
+    public AsyncAddressConnector async()
+    {
+        return new AsyncAddressConnectorImpl(this, this.waitControl, Runnable::run);
+    }
+
+    @Override
+    public AddressConnector withWaitStrategy(WaitStrategy waitStrategy)
+    {
+        return this.withWaitControl(this.waitControl.withWaitStrategy(waitStrategy));
+    }
+
+    /**
+     * Returns a view on this connector which shares the device lock and the shadow register cache, but waits with the given
+     * {@link WaitControl}
+     * 
+     * @param waitControl
+     * @return
+     */
+    protected abstract AddressConnector withWaitControl(WaitControl waitControl);
+
+    @Override
+    public WaitStatistics getWaitStatistics()
+    {
+        return this.waitControl.getStatistics();
+    }
+
+    @Override
+    public Transaction transaction()
+    {
+        return new TransactionBuilder(this::executeTransaction);
+    }
+
+    /**
+     * Executes the given {@link TransactionStep}s one after another while holding the monitor of this connector
+     * 
+     * @param steps
+     * @return
+     */
+    protected Optional<TransactionResult> executeTransaction(List<TransactionStep> steps)
+    {
+        synchronized (this)
+        {
+            List<ByteArray> reads = new ArrayList<>();
+            for (TransactionStep step : steps)
+            {
+                if (!this.executeTransactionStep(step, reads))
+                {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new TransactionResult(reads));
+        }
+    }
+
+    /**
+     * Executes a single {@link TransactionStep} using the raw primitives and adds any read data to the given reads. Returns false, if a read
+     * failed.
+     * 
+     * @param step
+     * @param reads
+     * @return
+     */
+    protected boolean executeTransactionStep(TransactionStep step, List<ByteArray> reads)
+    {
+        switch (step.getType())
+        {
+            case WRITE:
+                this.write(step.getLocalAddress(), step.getData());
+                return true;
+            case WRITE_RAW:
+                this.write(step.getData());
+                return true;
+            case READ:
+                return this.read(step.getLocalAddress(), 0, step.getSize())
+                           .map(reads::add)
+                           .orElse(false);
+            case READ_RAW:
+                return this.read(0, step.getSize())
+                           .map(reads::add)
+                           .orElse(false);
+            case DELAY:
+                this.wait(step.getDuration(), step.getTimeUnit());
+                return true;
+            case WAIT_UNTIL_BIT_IS_TRUE:
+                this.waitUntilBitIsTrue(step.getLocalAddress(), step.getMask());
+                return true;
+            default:
+                throw new IllegalArgumentException("Unsupported transaction step type: " + step.getType());
+        }
+    }
+
+    private Optional<byte[]> readRegisterBytes(int localAddress, int numberOfBytes, boolean cached)
+    {
+        if (cached)
+        {
+            byte[] shadowBytes = this.registerCache.get(localAddress, numberOfBytes);
+            if (shadowBytes != null)
+            {
+                return Optional.of(shadowBytes);
+            }
+        }
+
+        Optional<byte[]> data = this.read(localAddress, 0, numberOfBytes)
+                                    .map(ByteArray::get);
+        if (cached)
+        {
+            data.ifPresent(bytes -> this.registerCache.put(localAddress, bytes));
+        }
+        return data;
+    }
+
+    private long readRegisterBitSequence(int localAddress, int numberOfBytes, boolean cached)
+    {
+        return this.readRegisterBytes(localAddress, numberOfBytes, cached)
+                   .map(data -> BitNumberUtils.toBitSequence(data, 0, Math.min(data.length, numberOfBytes)))
+                   .orElse(0L);
+    }
+
+    private void writeRegisterBitSequence(int localAddress, long bitSequence, int numberOfBytes, boolean cached)
+    {
+        byte[] data = new byte[numberOfBytes];
+        BitNumberUtils.fromBitSequence(bitSequence, data, 0, numberOfBytes);
+        this.writeRegisterBytes(localAddress, data, cached);
+    }
+
+    private void writeRegisterBytes(int localAddress, byte[] data, boolean cached)
+    {
+        if (cached)
+        {
+            if (!this.registerCache.contains(localAddress, data))
+            {
+                this.write(localAddress, data);
+                this.registerCache.put(localAddress, data);
+            }
+        }
+        else
+        {
+            this.write(localAddress, data);
+            this.registerCache.invalidate(localAddress, data.length);
+        }
+    }
+
+    private Register accessRegister(int localAddress, boolean cached)
+    {
         return new Register() {
 
             @Override
             public Register writeByte(byte value)
             {
-                addressConnector.write(localAddress, value);
+                writeRegisterBytes(localAddress, new byte[] { value }, cached);
                 return this;
             }
 
@@ -86,9 +379,9 @@ public abstract class AbstractAddressConnector implements AddressConnector
             @Override
             public byte readByte()
             {
-                return addressConnector.read(localAddress, 0, 1)
-                                       .flatMap(ByteArray::getFirstByte)
-                                       .orElse((byte) 0);
+                return readRegisterBytes(localAddress, 1, cached).filter(data -> data.length >= 1)
+                                                                 .map(data -> data[0])
+                                                                 .orElse((byte) 0);
             }
 
             @Override
@@ -100,57 +393,80 @@ public abstract class AbstractAddressConnector implements AddressConnector
             @Override
             public RegisterBits accessBits(int bitIndex, int numberOfBits)
             {
+                if (bitIndex < 0 || numberOfBits <= 0 || bitIndex + numberOfBits > Long.SIZE)
+                {
+                    throw new IllegalArgumentException("Register bits have to be within the first " + Long.SIZE + " bits: " + bitIndex + "+"
+                            + numberOfBits);
+                }
 
+                // precomputed once per accessor, so reads and writes are plain shifts and masks
+                int numberOfBytes = determineNumberOfBytesFromBits(bitIndex + numberOfBits);
+                long fieldMask = BitNumberUtils.mask(numberOfBits);
+                long registerMask = fieldMask << bitIndex;
                 return new RegisterBits() {
                     @Override
                     public RegisterBits write(Bits bits)
                     {
-                        Bits currentBits = this.readBytesAsBits();
-                        currentBits.setIndex(bitIndex, bits.clone()
-                                                           .setLength(numberOfBits));
-                        addressConnector.write(localAddress, currentBits.toBytes());
-                        return this;
+                        return this.write(BitNumberUtils.asLongFromLsbToMsb(bits));
                     }
 
                     @Override
                     public RegisterBits write(int value)
                     {
-                        return this.write(Bits.of(value));
+                        return this.write(value & 0xFFFFFFFFL);
+                    }
+
+                    @Override
+                    public RegisterBits write(long value)
+                    {
+                        long bitSequence = readRegisterBitSequence(localAddress, numberOfBytes, cached);
+                        writeRegisterBitSequence(localAddress, (bitSequence & ~registerMask) | ((value << bitIndex) & registerMask), numberOfBytes,
+                                                 cached);
+                        return this;
                     }
 
                     @Override
                     public int readAsBigEndianUnsignedInteger()
                     {
-                        return BitNumberUtils.mapBitsFromMsbToLsbAsUnsignedInteger(this.read());
+                        return (int) this.readAsBigEndianUnsignedLong();
                     }
 
                     @Override
                     public int readAsBigEndianSignedInteger()
                     {
-                        return BitNumberUtils.mapBitsFromMsbToLsbAsSignedInteger(this.read());
+                        return (int) BitNumberUtils.signExtend(this.readAsBigEndianUnsignedLong(), numberOfBits);
                     }
 
                     @Override
-                    public Bits read()
+                    public int readAsLittleEndianUnsignedInteger()
                     {
-                        return this.readBytesAsBits()
-                                   .setLength(numberOfBits);
+                        return (int) this.readAsLittleEndianUnsignedLong();
                     }
 
-                    private Bits readBytesAsBits()
+                    @Override
+                    public long readAsBigEndianUnsignedLong()
                     {
-                        int numberOfBytes = determineNumberOfBytesFromBits(bitIndex + numberOfBits);
-                        return addressConnector.read(localAddress, 0, numberOfBytes)
-                                               .map(ByteArray::get)
-                                               .map(Bits::of)
-                                               .orElse(Bits.newInstance()
-                                                           .setLength(numberOfBytes * 8));
+                        return BitNumberUtils.reorderFromMsbToLsb(this.readBitSequence(), numberOfBits);
                     }
 
                     @Override
-                    public int readAsLittleEndianUnsignedInteger()
+                    public long readAsLittleEndianUnsignedLong()
+                    {
+                        return this.readBitSequence();
+                    }
+
+                    @Override
+                    public Bits read()
+                    {
+                        byte[] data = new byte[determineNumberOfBytesFromBits(numberOfBits)];
+                        BitNumberUtils.fromBitSequence(this.readBitSequence(), data, 0, data.length);
+                        return Bits.of(data)
+                                   .setLength(numberOfBits);
+                    }
+
+                    private long readBitSequence()
                     {
-                        return BitNumberUtils.mapBitsFromLsbToMsbAsUnsignedInteger(this.read());
+                        return (readRegisterBitSequence(localAddress, numberOfBytes, cached) >>> bitIndex) & fieldMask;
                     }
                 };
             }
@@ -172,25 +488,20 @@ public abstract class AbstractAddressConnector implements AddressConnector
             @Override
             public RegisterBit accessBit(int index)
             {
+                int mask = 1 << index;
                 return new RegisterBit() {
 
                     @Override
                     public void writeValue(boolean value)
                     {
                         byte currentValue = readByte();
-                        byte newValue = Bits.of(currentValue)
-                                            .setLength(8)
-                                            .setIndex(index, value)
-                                            .toBytes()[0];
-                        writeByte(newValue);
+                        writeByte((byte) (value ? currentValue | mask : currentValue & ~mask));
                     }
 
                     @Override
                     public boolean readValue()
                     {
-                        byte value = readByte();
-                        return Bits.of(value)
-                                   .get(index);
+                        return (readByte() & mask) != 0;
                     }
 
                     @Override
@@ -0,0 +1,212 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy.ReadyListenerRegistration;
+
+/**
+ * {@link AsyncAddressConnector} on top of a blocking {@link AddressConnector}. The short bus accesses are executed on the given I/O executor,
+ * which is the executor of the {@link I2CBusScheduler} of the bus for a scheduled bus, whereas delays and poll intervals are scheduled on a
+ * single shared timer thread, so a waiting measurement does not occupy any thread. The poll intervals follow the {@link WaitStrategy} of the device and a strategy with a data ready signal triggers the next check
+ * as soon as the device signals readiness.
+ *
+ * @author Danny Kunz
+ */
+public class AsyncAddressConnectorImpl implements AsyncAddressConnector
+{
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("i2c-timer"));
+
+    private final AddressConnector                connector;
+    private final WaitControl                     waitControl;
+    private final Executor                        ioExecutor;
+    private final ScheduledExecutorService        timer;
+
+    public AsyncAddressConnectorImpl(AddressConnector connector, WaitControl waitControl, Executor ioExecutor)
+    {
+        this(connector, waitControl, ioExecutor, TIMER);
+    }
+
+    public AsyncAddressConnectorImpl(AddressConnector connector, WaitControl waitControl, Executor ioExecutor, ScheduledExecutorService timer)
+    {
+        super();
+        this.connector = connector;
+        this.waitControl = waitControl;
+        this.ioExecutor = ioExecutor;
+        this.timer = timer;
+    }
+
+    @Override
+    public CompletableFuture<ByteArray> readAsync(int localAddress, int size)
+    {
+        return this.supplyAsync(connector -> connector.read(localAddress, 0, size)
+                                                      .orElseThrow(() -> new IllegalStateException("Failed to read " + size + " bytes from local address "
+                                                              + localAddress)));
+    }
+
+    @Override
+    public CompletableFuture<AsyncAddressConnector> writeAsync(int localAddress, byte... data)
+    {
+        return this.supplyAsync(connector -> connector.write(localAddress, data))
+                   .thenApply(connector -> this);
+    }
+
+    @Override
+    public CompletableFuture<AsyncAddressConnector> writeAsync(byte... data)
+    {
+        return this.supplyAsync(connector -> connector.write(data))
+                   .thenApply(connector -> this);
+    }
+
+    @Override
+    public CompletableFuture<AsyncAddressConnector> delayAsync(int duration, TimeUnit timeUnit)
+    {
+        CompletableFuture<AsyncAddressConnector> result = new CompletableFuture<>();
+        this.timer.schedule(() -> result.complete(this), duration, timeUnit);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<AsyncAddressConnector> waitUntilAsync(Predicate<AddressConnector> predicate, int timeout, TimeUnit timeUnit)
+    {
+        CompletableFuture<AsyncAddressConnector> result = new CompletableFuture<>();
+        WaitStrategy waitStrategy = this.waitControl.getWaitStrategy();
+        long start = System.nanoTime();
+        new Poll(predicate, waitStrategy, start, start + timeUnit.toNanos(timeout), result).scheduleNextCheck();
+        return result;
+    }
+
+    @Override
+    public <R> CompletableFuture<R> supplyAsync(Function<AddressConnector, R> operation)
+    {
+        return CompletableFuture.supplyAsync(() -> operation.apply(this.connector), this.ioExecutor);
+    }
+
+    @Override
+    public AddressConnector sync()
+    {
+        return this.connector;
+    }
+
+    /**
+     * Single asynchronous wait which checks the condition on the I/O executor. The next check is triggered either by the timer after the delay of
+     * the {@link WaitStrategy} or by the data ready signal of the {@link WaitStrategy}, whichever comes first.
+     */
+    private class Poll
+    {
+        private final Predicate<AddressConnector>              predicate;
+        private final WaitStrategy                             waitStrategy;
+        private final long                                     start;
+        private final long                                     deadline;
+        private final CompletableFuture<AsyncAddressConnector> result;
+
+        private int                                            checkIndex = 0;
+
+        public Poll(Predicate<AddressConnector> predicate, WaitStrategy waitStrategy, long start, long deadline,
+                    CompletableFuture<AsyncAddressConnector> result)
+        {
+            super();
+            this.predicate = predicate;
+            this.waitStrategy = waitStrategy;
+            this.start = start;
+            this.deadline = deadline;
+            this.result = result;
+        }
+
+        public void scheduleNextCheck()
+        {
+            long delayInNanos = this.waitStrategy.getDelayBeforeCheckInNanos(this.checkIndex);
+            if (delayInNanos <= 0)
+            {
+                ioExecutor.execute(this::check);
+            }
+            else
+            {
+                // whichever of the ready signal and the timer comes first triggers the check and removes the other one
+                AtomicBoolean triggered = new AtomicBoolean();
+                AtomicReference<Runnable> cancelOther = new AtomicReference<>();
+                Runnable trigger = () ->
+                {
+                    if (triggered.compareAndSet(false, true))
+                    {
+                        Optional.ofNullable(cancelOther.get())
+                                .ifPresent(Runnable::run);
+                        ioExecutor.execute(this::check);
+                    }
+                };
+                Optional<ReadyListenerRegistration> registration = this.waitStrategy.addReadyListener(trigger);
+                ScheduledFuture<?> timeout = timer.schedule(trigger, Math.min(delayInNanos, Math.max(0, this.deadline - System.nanoTime())),
+                                                            TimeUnit.NANOSECONDS);
+                cancelOther.set(() ->
+                {
+                    registration.ifPresent(ReadyListenerRegistration::remove);
+                    timeout.cancel(false);
+                });
+                if (triggered.get())
+                {
+                    cancelOther.get()
+                               .run();
+                }
+            }
+        }
+
+        private void check()
+        {
+            try
+            {
+                this.checkIndex++;
+                if (waitControl.getCircuitBreaker()
+                               .isOpen())
+                {
+                    waitControl.record(this.checkIndex, System.nanoTime() - this.start, true);
+                    this.result.completeExceptionally(new IllegalStateException("Circuit breaker of the I2C device is open"));
+                }
+                else if (this.predicate.test(connector))
+                {
+                    waitControl.record(this.checkIndex, System.nanoTime() - this.start, false);
+                    this.result.complete(AsyncAddressConnectorImpl.this);
+                }
+                else if (System.nanoTime() - this.deadline >= 0)
+                {
+                    waitControl.record(this.checkIndex, System.nanoTime() - this.start, true);
+                    this.result.completeExceptionally(new TimeoutException("Condition not met within timeout"));
+                }
+                else
+                {
+                    this.scheduleNextCheck();
+                }
+            }
+            catch (Throwable e)
+            {
+                this.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String name)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
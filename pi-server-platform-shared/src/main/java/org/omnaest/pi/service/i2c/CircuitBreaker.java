@@ -0,0 +1,144 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.omnaest.pi.service.i2c.I2CService.CircuitBreakerState;
+
+/**
+ * Circuit breaker of a single I2C device. After the given number of consecutive failed bus accesses the breaker trips and every access is
+ * rejected immediately for the cooldown. Afterwards a single probing access is let through, which closes the breaker again on success or
+ * reopens it for another cooldown on failure.<br>
+ * <br>
+ * As long as the breaker is closed, {@link #tryAcquire()} and {@link #recordSuccess()} only read volatile fields.
+ *
+ * @author Danny Kunz
+ */
+public class CircuitBreaker
+{
+    public static final int              DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long             DEFAULT_COOLDOWN_MILLIS   = 5000;
+
+    private final int                    failureThreshold;
+    private final long                   cooldownInNanos;
+
+    private volatile CircuitBreakerState state                     = CircuitBreakerState.CLOSED;
+    private volatile int                 consecutiveFailures       = 0;
+    private long                         openedAt;
+    private boolean                      probeInFlight;
+    private long                         probeStartedAt;
+
+    private final LongAdder              numberOfRejections        = new LongAdder();
+    private final LongAdder              numberOfTrips             = new LongAdder();
+
+    public CircuitBreaker()
+    {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_COOLDOWN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long cooldown, TimeUnit timeUnit)
+    {
+        super();
+        if (failureThreshold <= 0)
+        {
+            throw new IllegalArgumentException("Failure threshold has to be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.cooldownInNanos = timeUnit.toNanos(cooldown);
+    }
+
+    /**
+     * Returns true, if a bus access may be executed. Every access which is allowed has to be followed by either {@link #recordSuccess()} or
+     * {@link #recordFailure()}.
+     *
+     * @return
+     */
+    public boolean tryAcquire()
+    {
+        if (this.state == CircuitBreakerState.CLOSED)
+        {
+            return true;
+        }
+
+        synchronized (this)
+        {
+            long now = System.nanoTime();
+            if (this.state == CircuitBreakerState.OPEN && now - this.openedAt >= this.cooldownInNanos)
+            {
+                this.state = CircuitBreakerState.HALF_OPEN;
+                this.probeInFlight = false;
+            }
+
+            // a probe which never reported back does not block the device forever
+            boolean probeExpired = this.probeInFlight && now - this.probeStartedAt >= this.cooldownInNanos;
+            if (this.state == CircuitBreakerState.CLOSED || (this.state == CircuitBreakerState.HALF_OPEN && (!this.probeInFlight || probeExpired)))
+            {
+                this.probeInFlight = this.state == CircuitBreakerState.HALF_OPEN;
+                this.probeStartedAt = now;
+                return true;
+            }
+        }
+
+        this.numberOfRejections.increment();
+        return false;
+    }
+
+    /**
+     * Returns true, if the breaker is open and its cooldown has not passed yet, so any access would be rejected
+     *
+     * @return
+     */
+    public boolean isOpen()
+    {
+        if (this.state != CircuitBreakerState.OPEN)
+        {
+            return false;
+        }
+        synchronized (this)
+        {
+            return this.state == CircuitBreakerState.OPEN && System.nanoTime() - this.openedAt < this.cooldownInNanos;
+        }
+    }
+
+    public void recordSuccess()
+    {
+        if (this.state == CircuitBreakerState.CLOSED && this.consecutiveFailures == 0)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            this.consecutiveFailures = 0;
+            this.probeInFlight = false;
+            this.state = CircuitBreakerState.CLOSED;
+        }
+    }
+
+    public synchronized void recordFailure()
+    {
+        this.consecutiveFailures++;
+        if (this.state == CircuitBreakerState.HALF_OPEN || (this.state == CircuitBreakerState.CLOSED && this.consecutiveFailures >= this.failureThreshold))
+        {
+            this.state = CircuitBreakerState.OPEN;
+            this.openedAt = System.nanoTime();
+            this.probeInFlight = false;
+            this.numberOfTrips.increment();
+        }
+    }
+
+    public CircuitBreakerState getState()
+    {
+        return this.state;
+    }
+
+    public long getNumberOfRejections()
+    {
+        return this.numberOfRejections.sum();
+    }
+
+    public long getNumberOfTrips()
+    {
+        return this.numberOfTrips.sum();
+    }
+}
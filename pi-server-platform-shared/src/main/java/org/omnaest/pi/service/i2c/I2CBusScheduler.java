@@ -0,0 +1,335 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.omnaest.pi.service.i2c.I2CService.BusSchedulerStatistics;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
+import org.omnaest.pi.service.i2c.I2CService.PriorityStatistics;
+import org.omnaest.pi.service.utils.FutureUtils;
+
+/**
+ * Dedicated thread which serializes all accesses of a single I2C bus. Submitted commands are queued per {@link Priority} and the
+ * scheduler always executes the oldest command of the highest {@link Priority} first. To prevent starvation, a command which waits longer
+ * than the aging threshold is executed before any younger command regardless of its {@link Priority}.
+ * <p>
+ * The steps of asynchronous device accesses block until the scheduler has executed them, so each bus has its own small I/O executor for them
+ * and a slow or busy bus never holds back the asynchronous accesses of another bus.
+ *
+ * @author Danny Kunz
+ */
+public class I2CBusScheduler
+{
+    private static final long                   DEFAULT_AGING_THRESHOLD_IN_MILLISECONDS = 250;
+    private static final int                    NUMBER_OF_IO_THREADS                    = 2;
+    private static final long                   IO_THREAD_KEEP_ALIVE_IN_SECONDS         = 60;
+
+    private final int                           busNumber;
+    private final long                          agingThresholdInNanos;
+    private final Map<Priority, Deque<Command>> priorityToQueue                         = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counters>       priorityToCounters                      = new EnumMap<>(Priority.class);
+    private final ReentrantLock                 lock                                    = new ReentrantLock();
+    private final Condition                     commandAvailable                        = this.lock.newCondition();
+    private final Thread                        thread;
+    private final ThreadPoolExecutor            ioExecutor;
+
+    private boolean                             running                                 = true;
+
+    public I2CBusScheduler(int busNumber)
+    {
+        this(busNumber, DEFAULT_AGING_THRESHOLD_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    public I2CBusScheduler(int busNumber, long agingThreshold, TimeUnit timeUnit)
+    {
+        super();
+        this.busNumber = busNumber;
+        this.agingThresholdInNanos = timeUnit.toNanos(agingThreshold);
+        for (Priority priority : Priority.values())
+        {
+            this.priorityToQueue.put(priority, new ArrayDeque<>());
+            this.priorityToCounters.put(priority, new Counters());
+        }
+
+        this.thread = new Thread(this::run, "i2c-bus-" + busNumber + "-scheduler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+        AtomicInteger ioThreadCounter = new AtomicInteger();
+        this.ioExecutor = new ThreadPoolExecutor(NUMBER_OF_IO_THREADS, NUMBER_OF_IO_THREADS, IO_THREAD_KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS,
+                                                 new LinkedBlockingQueue<>(), runnable ->
+                                                 {
+                                                     Thread ioThread = new Thread(runnable, "i2c-bus-" + busNumber + "-io-"
+                                                             + ioThreadCounter.incrementAndGet());
+                                                     ioThread.setDaemon(true);
+                                                     return ioThread;
+                                                 });
+        this.ioExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the given operation with the given {@link Priority} and returns a {@link CompletableFuture} which is completed on the scheduler
+     * thread with the result of the operation.
+     *
+     * @param priority
+     * @param operation
+     * @return
+     */
+    public <R> CompletableFuture<R> submit(Priority priority, Supplier<R> operation)
+    {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        this.lock.lock();
+        try
+        {
+            if (this.running)
+            {
+                this.priorityToQueue.get(priority)
+                                    .addLast(new Command(priority, System.nanoTime(), future, () ->
+                                    {
+                                        try
+                                        {
+                                            future.complete(operation.get());
+                                        }
+                                        catch (Throwable e)
+                                        {
+                                            future.completeExceptionally(e);
+                                        }
+                                    }));
+                this.commandAvailable.signal();
+            }
+            else
+            {
+                future.completeExceptionally(new IllegalStateException("Scheduler of I2C bus " + this.busNumber + " is shut down"));
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Similar to {@link #submit(Priority, Supplier)} but blocks until the operation has been executed. Any exception of the operation is
+     * rethrown in the calling thread. Called from the scheduler thread itself, the operation is executed directly.
+     *
+     * @param priority
+     * @param operation
+     * @return
+     */
+    public <R> R execute(Priority priority, Supplier<R> operation)
+    {
+        if (Thread.currentThread() == this.thread)
+        {
+            return operation.get();
+        }
+
+        return FutureUtils.join(this.submit(priority, operation));
+    }
+
+    /**
+     * Returns the {@link Executor} for the blocking steps of asynchronous accesses to the devices of this bus. Its threads are only started on
+     * demand and end again when idle.
+     *
+     * @return
+     */
+    public Executor getIOExecutor()
+    {
+        return this.ioExecutor;
+    }
+
+    public BusSchedulerStatistics getStatistics()
+    {
+        this.lock.lock();
+        try
+        {
+            return BusSchedulerStatistics.builder()
+                                         .busNumber(this.busNumber)
+                                         .queueDepth(this.priorityToQueue.values()
+                                                                         .stream()
+                                                                         .mapToInt(Deque::size)
+                                                                         .sum())
+                                         .priorityStatistics(Arrays.asList(Priority.values())
+                                                                   .stream()
+                                                                   .map(priority -> this.priorityToCounters.get(priority)
+                                                                                                           .toStatistics(priority,
+                                                                                                                         this.priorityToQueue.get(priority)
+                                                                                                                                             .size()))
+                                                                   .collect(Collectors.toList()))
+                                         .build();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the scheduler thread after the currently executed command. All still queued commands are completed exceptionally.
+     */
+    public void shutdown()
+    {
+        this.lock.lock();
+        try
+        {
+            this.running = false;
+            IllegalStateException exception = new IllegalStateException("Scheduler of I2C bus " + this.busNumber + " is shut down");
+            this.priorityToQueue.values()
+                                .forEach(queue ->
+                                {
+                                    queue.forEach(command -> command.fail(exception));
+                                    queue.clear();
+                                });
+            this.commandAvailable.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+        this.ioExecutor.shutdown();
+    }
+
+    private void run()
+    {
+        Command command;
+        while ((command = this.take()) != null)
+        {
+            this.priorityToCounters.get(command.getPriority())
+                                   .record(System.nanoTime() - command.getSubmitTime());
+            command.run();
+        }
+    }
+
+    private Command take()
+    {
+        this.lock.lock();
+        try
+        {
+            while (this.running && this.isEmpty())
+            {
+                this.commandAvailable.awaitUninterruptibly();
+            }
+            return this.running ? this.selectNext(System.nanoTime()) : null;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean isEmpty()
+    {
+        return this.priorityToQueue.values()
+                                   .stream()
+                                   .allMatch(Deque::isEmpty);
+    }
+
+    private Command selectNext(long now)
+    {
+        Deque<Command> agedQueue = null;
+        for (Deque<Command> queue : this.priorityToQueue.values())
+        {
+            Command head = queue.peekFirst();
+            if (head != null && now - head.getSubmitTime() > this.agingThresholdInNanos
+                    && (agedQueue == null || head.getSubmitTime() < agedQueue.peekFirst()
+                                                                             .getSubmitTime()))
+            {
+                agedQueue = queue;
+            }
+        }
+        if (agedQueue != null)
+        {
+            return agedQueue.pollFirst();
+        }
+
+        for (Priority priority : Priority.values())
+        {
+            Deque<Command> queue = this.priorityToQueue.get(priority);
+            if (!queue.isEmpty())
+            {
+                return queue.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    private static class Command
+    {
+        private final Priority             priority;
+        private final long                 submitTime;
+        private final CompletableFuture<?> future;
+        private final Runnable             operation;
+
+        public Command(Priority priority, long submitTime, CompletableFuture<?> future, Runnable operation)
+        {
+            super();
+            this.priority = priority;
+            this.submitTime = submitTime;
+            this.future = future;
+            this.operation = operation;
+        }
+
+        public Priority getPriority()
+        {
+            return this.priority;
+        }
+
+        public long getSubmitTime()
+        {
+            return this.submitTime;
+        }
+
+        public void run()
+        {
+            this.operation.run();
+        }
+
+        public void fail(Throwable exception)
+        {
+            this.future.completeExceptionally(exception);
+        }
+    }
+
+    private static class Counters
+    {
+        private final LongAdder  numberOfExecutedCommands = new LongAdder();
+        private final LongAdder  totalWaitTimeInNanos     = new LongAdder();
+        private final AtomicLong maxWaitTimeInNanos       = new AtomicLong();
+
+        public void record(long waitTimeInNanos)
+        {
+            this.numberOfExecutedCommands.increment();
+            this.totalWaitTimeInNanos.add(waitTimeInNanos);
+            this.maxWaitTimeInNanos.accumulateAndGet(waitTimeInNanos, Math::max);
+        }
+
+        public PriorityStatistics toStatistics(Priority priority, int queueDepth)
+        {
+            long numberOfExecutedCommands = this.numberOfExecutedCommands.sum();
+            return PriorityStatistics.builder()
+                                     .priority(priority)
+                                     .queueDepth(queueDepth)
+                                     .numberOfExecutedCommands(numberOfExecutedCommands)
+                                     .averageWaitTimeInMilliseconds(numberOfExecutedCommands > 0
+                                             ? this.totalWaitTimeInNanos.sum() / (double) numberOfExecutedCommands / 1000000.0
+                                             : 0.0)
+                                     .maxWaitTimeInMilliseconds(this.maxWaitTimeInNanos.get() / 1000000.0)
+                                     .build();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.omnaest.pi.service.i2c.I2CService.BusMetrics;
+import org.omnaest.pi.service.i2c.I2CService.DeviceMetrics;
+import org.omnaest.pi.service.i2c.I2CService.I2CMetrics;
+import org.omnaest.pi.service.i2c.I2CService.LatencyStatistics;
+import org.omnaest.pi.service.utils.LatencyHistogram;
+
+/**
+ * Records the {@link I2CMetrics} of an {@link I2CService}. Every device gets its own {@link DeviceRecorder}, which is looked up once when
+ * the device is connected, so recording an operation only touches the {@link LatencyHistogram}s and counters of that device. The bus
+ * metrics are aggregated from the device metrics when they are requested.<br>
+ * <br>
+ * As every bus access passes a {@link DeviceRecorder}, it also feeds the {@link CircuitBreaker} of the device.
+ *
+ * @author Danny Kunz
+ */
+public class I2CMetricsRecorder
+{
+    private final int                       failureThreshold;
+    private final long                      cooldownInMillis;
+    private final Map<Integer, BusRecorder> busNumberToRecorder = new ConcurrentHashMap<>();
+
+    public I2CMetricsRecorder()
+    {
+        this(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD, CircuitBreaker.DEFAULT_COOLDOWN_MILLIS);
+    }
+
+    /**
+     * @param failureThreshold
+     *            number of consecutive failures after which the {@link CircuitBreaker} of a device trips
+     * @param cooldownInMillis
+     *            duration the {@link CircuitBreaker} of a device rejects all accesses after it tripped
+     */
+    public I2CMetricsRecorder(int failureThreshold, long cooldownInMillis)
+    {
+        super();
+        this.failureThreshold = failureThreshold;
+        this.cooldownInMillis = cooldownInMillis;
+    }
+
+    public DeviceRecorder getOrCreateDeviceRecorder(int busNumber, int deviceAddress)
+    {
+        return this.busNumberToRecorder.computeIfAbsent(busNumber, BusRecorder::new)
+                                       .getOrCreateDeviceRecorder(deviceAddress);
+    }
+
+    private CircuitBreaker createCircuitBreaker()
+    {
+        return new CircuitBreaker(this.failureThreshold, this.cooldownInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public I2CMetrics getMetrics()
+    {
+        return I2CMetrics.builder()
+                         .buses(this.busNumberToRecorder.values()
+                                                        .stream()
+                                                        .sorted(Comparator.comparing(BusRecorder::getBusNumber))
+                                                        .map(BusRecorder::getMetrics)
+                                                        .collect(Collectors.toList()))
+                         .build();
+    }
+
+    private class BusRecorder
+    {
+        private final int                          busNumber;
+        private final long                         startTime         = System.nanoTime();
+        private final Map<Integer, DeviceRecorder> addressToRecorder = new ConcurrentHashMap<>();
+
+        public BusRecorder(int busNumber)
+        {
+            super();
+            this.busNumber = busNumber;
+        }
+
+        public int getBusNumber()
+        {
+            return this.busNumber;
+        }
+
+        public DeviceRecorder getOrCreateDeviceRecorder(int deviceAddress)
+        {
+            return this.addressToRecorder.computeIfAbsent(deviceAddress, address -> new DeviceRecorder(createCircuitBreaker()));
+        }
+
+        public BusMetrics getMetrics()
+        {
+            LatencyHistogram read = new LatencyHistogram();
+            LatencyHistogram write = new LatencyHistogram();
+            LatencyHistogram wait = new LatencyHistogram();
+            long bytesRead = 0;
+            long bytesWritten = 0;
+            long numberOfErrors = 0;
+            long numberOfNacks = 0;
+            long numberOfRejections = 0;
+            for (DeviceRecorder recorder : this.addressToRecorder.values())
+            {
+                read.add(recorder.read);
+                write.add(recorder.write);
+                wait.add(recorder.wait);
+                bytesRead += recorder.bytesRead.sum();
+                bytesWritten += recorder.bytesWritten.sum();
+                numberOfErrors += recorder.numberOfErrors.sum();
+                numberOfNacks += recorder.numberOfNacks.sum();
+                numberOfRejections += recorder.circuitBreaker.getNumberOfRejections();
+            }
+
+            long elapsedNanos = Math.max(1, System.nanoTime() - this.startTime);
+            double busOccupancy = Math.min(100.0, 100.0 * (read.getTotalNanos() + write.getTotalNanos()) / elapsedNanos);
+
+            List<DeviceMetrics> devices = this.addressToRecorder.entrySet()
+                                                                .stream()
+                                                                .sorted(Map.Entry.comparingByKey())
+                                                                .map(entry -> entry.getValue()
+                                                                                   .getMetrics(entry.getKey()))
+                                                                .collect(Collectors.toList());
+            return BusMetrics.builder()
+                             .busNumber(this.busNumber)
+                             .busOccupancyInPercent(busOccupancy)
+                             .bytesRead(bytesRead)
+                             .bytesWritten(bytesWritten)
+                             .numberOfErrors(numberOfErrors)
+                             .numberOfNacks(numberOfNacks)
+                             .numberOfRejections(numberOfRejections)
+                             .read(toLatencyStatistics(read))
+                             .write(toLatencyStatistics(write))
+                             .wait(toLatencyStatistics(wait))
+                             .devices(devices)
+                             .build();
+        }
+    }
+
+    /**
+     * Records the operations of a single device. Successful reads and writes close and errors trip its {@link CircuitBreaker}.
+     *
+     * @author Danny Kunz
+     */
+    public static class DeviceRecorder
+    {
+        private final LatencyHistogram read           = new LatencyHistogram();
+        private final LatencyHistogram write          = new LatencyHistogram();
+        private final LatencyHistogram wait           = new LatencyHistogram();
+        private final LongAdder        bytesRead      = new LongAdder();
+        private final LongAdder        bytesWritten   = new LongAdder();
+        private final LongAdder        numberOfErrors = new LongAdder();
+        private final LongAdder        numberOfNacks  = new LongAdder();
+        private final CircuitBreaker   circuitBreaker;
+
+        public DeviceRecorder()
+        {
+            this(new CircuitBreaker());
+        }
+
+        public DeviceRecorder(CircuitBreaker circuitBreaker)
+        {
+            super();
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        public CircuitBreaker getCircuitBreaker()
+        {
+            return this.circuitBreaker;
+        }
+
+        public void recordRead(long durationInNanos, int numberOfBytes)
+        {
+            this.read.record(durationInNanos);
+            this.bytesRead.add(numberOfBytes);
+            this.circuitBreaker.recordSuccess();
+        }
+
+        public void recordWrite(long durationInNanos, int numberOfBytes)
+        {
+            this.write.record(durationInNanos);
+            this.bytesWritten.add(numberOfBytes);
+            this.circuitBreaker.recordSuccess();
+        }
+
+        /**
+         * Records a combined write-then-read message with repeated start as read, as the written register address only selects what is read
+         *
+         * @param durationInNanos
+         * @param numberOfBytesWritten
+         * @param numberOfBytesRead
+         */
+        public void recordWriteAndRead(long durationInNanos, int numberOfBytesWritten, int numberOfBytesRead)
+        {
+            this.read.record(durationInNanos);
+            this.bytesRead.add(numberOfBytesRead);
+            this.bytesWritten.add(numberOfBytesWritten);
+            this.circuitBreaker.recordSuccess();
+        }
+
+        public void recordWait(long durationInNanos)
+        {
+            this.wait.record(durationInNanos);
+        }
+
+        /**
+         * Records a failed bus access
+         *
+         * @param nack
+         *            true if the device did not acknowledge its address or data
+         */
+        public void recordError(boolean nack)
+        {
+            this.numberOfErrors.increment();
+            if (nack)
+            {
+                this.numberOfNacks.increment();
+            }
+            this.circuitBreaker.recordFailure();
+        }
+
+        public DeviceMetrics getMetrics(int deviceAddress)
+        {
+            return DeviceMetrics.builder()
+                                .deviceAddress(deviceAddress)
+                                .bytesRead(this.bytesRead.sum())
+                                .bytesWritten(this.bytesWritten.sum())
+                                .numberOfErrors(this.numberOfErrors.sum())
+                                .numberOfNacks(this.numberOfNacks.sum())
+                                .circuitBreakerState(this.circuitBreaker.getState())
+                                .numberOfCircuitBreakerTrips(this.circuitBreaker.getNumberOfTrips())
+                                .numberOfRejections(this.circuitBreaker.getNumberOfRejections())
+                                .read(toLatencyStatistics(this.read))
+                                .write(toLatencyStatistics(this.write))
+                                .wait(toLatencyStatistics(this.wait))
+                                .build();
+        }
+    }
+
+    private static LatencyStatistics toLatencyStatistics(LatencyHistogram histogram)
+    {
+        return LatencyStatistics.builder()
+                                .count(histogram.getCount())
+                                .averageInMicroseconds(histogram.getAverageNanos() / 1000.0)
+                                .p50InMicroseconds(histogram.getPercentileNanos(50.0) / 1000.0)
+                                .p90InMicroseconds(histogram.getPercentileNanos(90.0) / 1000.0)
+                                .p99InMicroseconds(histogram.getPercentileNanos(99.0) / 1000.0)
+                                .maxInMicroseconds(histogram.getMaxNanos() / 1000.0)
+                                .build();
+    }
+}
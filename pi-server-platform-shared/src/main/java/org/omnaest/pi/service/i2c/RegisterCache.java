@@ -0,0 +1,112 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.Arrays;
+
+/**
+ * Shadow copy of the 8-bit register address space of a single I2C device. Each byte is either unknown or holds the
+ * last value read from or written to the device. Local addresses outside of {@code 0x00-0xFF} are never cached.
+ * <p>
+ * Used by {@link AbstractAddressConnector} to serve {@link I2CService.AddressConnector#accessCachedRegister(int)}
+ * registers from memory.
+ *
+ * @author Danny Kunz
+ */
+public class RegisterCache
+{
+    private static final int UNKNOWN                   = -1;
+    private static final int NUMBER_OF_LOCAL_ADDRESSES = 256;
+
+    private final int[]      localAddressToValue       = new int[NUMBER_OF_LOCAL_ADDRESSES];
+
+    public RegisterCache()
+    {
+        super();
+        this.invalidate();
+    }
+
+    /**
+     * Returns the shadow bytes starting at the given local address or null, if any of the bytes is unknown.
+     * 
+     * @param localAddress
+     * @param numberOfBytes
+     * @return
+     */
+    public synchronized byte[] get(int localAddress, int numberOfBytes)
+    {
+        if (!this.isCacheable(localAddress, numberOfBytes))
+        {
+            return null;
+        }
+
+        byte[] result = new byte[numberOfBytes];
+        for (int ii = 0; ii < numberOfBytes; ii++)
+        {
+            int value = this.localAddressToValue[localAddress + ii];
+            if (value == UNKNOWN)
+            {
+                return null;
+            }
+            result[ii] = (byte) value;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true, if all the given bytes are known and equal to the shadow bytes starting at the given local
+     * address.
+     * 
+     * @param localAddress
+     * @param data
+     * @return
+     */
+    public synchronized boolean contains(int localAddress, byte[] data)
+    {
+        if (!this.isCacheable(localAddress, data.length))
+        {
+            return false;
+        }
+
+        for (int ii = 0; ii < data.length; ii++)
+        {
+            if (this.localAddressToValue[localAddress + ii] != (data[ii] & 0xFF))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized RegisterCache put(int localAddress, byte[] data)
+    {
+        if (this.isCacheable(localAddress, data.length))
+        {
+            for (int ii = 0; ii < data.length; ii++)
+            {
+                this.localAddressToValue[localAddress + ii] = data[ii] & 0xFF;
+            }
+        }
+        return this;
+    }
+
+    public synchronized RegisterCache invalidate(int localAddress, int numberOfBytes)
+    {
+        int from = Math.max(0, localAddress);
+        int to = Math.min(NUMBER_OF_LOCAL_ADDRESSES, localAddress + numberOfBytes);
+        if (from < to)
+        {
+            Arrays.fill(this.localAddressToValue, from, to, UNKNOWN);
+        }
+        return this;
+    }
+
+    public synchronized RegisterCache invalidate()
+    {
+        Arrays.fill(this.localAddressToValue, UNKNOWN);
+        return this;
+    }
+
+    private boolean isCacheable(int localAddress, int numberOfBytes)
+    {
+        return localAddress >= 0 && numberOfBytes >= 0 && localAddress + numberOfBytes <= NUMBER_OF_LOCAL_ADDRESSES;
+    }
+}
@@ -0,0 +1,336 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.Register;
+import org.omnaest.pi.service.i2c.I2CService.RegisterBit;
+import org.omnaest.pi.service.i2c.I2CService.RegisterBits;
+import org.omnaest.pi.service.utils.BitNumberUtils;
+
+import lombok.Value;
+
+/**
+ * Declarative description of the registers of a chip type. Every constant of a field enum is mapped to a register address, a bit range, an
+ * {@link Endianness}, a signedness and a {@link Volatility}, e.g.<br>
+ * <br>
+ *
+ * <pre>
+ * RegisterMap.builder(Field.class)
+ *            .bit(Field.RESET, 0x00, 0, Volatility.VOLATILE)
+ *            .bits(Field.GAINS, 0x01, 0, 3, Volatility.CACHED)
+ *            .value(Field.ADC, 0x12, 24, Endianness.BIG_ENDIAN, true, Volatility.VOLATILE)
+ *            .build();
+ * </pre>
+ *
+ * The shadow register cache works per register address, so the {@link Volatility} is a property of the whole register: every field sharing a
+ * register byte with another field has to declare the same {@link Volatility}, which is verified by {@link Builder#build()}.<br>
+ * <br>
+ * A {@link RegisterMap} is immutable and meant to be held as constant per chip type. {@link #bind(AddressConnector)} compiles it once into
+ * a {@link RegisterAccessor} whose {@link RegisterBit}s and {@link RegisterBits} carry their precomputed masks and shifts, so accessing a
+ * field afterwards does not construct any objects.
+ *
+ * @author omnaest
+ * @param <F>
+ */
+public class RegisterMap<F extends Enum<F>>
+{
+    private final Class<F>           fieldType;
+    private final RegisterField<F>[] fields;
+
+    public static enum Volatility
+    {
+        /**
+         * The register is changed by the chip itself, e.g. status flags, measurements or self clearing bits, and is always read from the
+         * device. This applies to all fields of the register, including pure configuration bits next to a chip controlled bit.
+         */
+        VOLATILE,
+
+        /**
+         * The register is only changed by the host and is served from the shadow register cache, see
+         * {@link AddressConnector#accessCachedRegister(int)}
+         */
+        CACHED
+    }
+
+    public static enum Endianness
+    {
+        BIG_ENDIAN, LITTLE_ENDIAN
+    }
+
+    @Value
+    public static class RegisterField<F extends Enum<F>>
+    {
+        private final F          field;
+        private final int        localAddress;
+        private final int        bitIndex;
+        private final int        numberOfBits;
+        private final Endianness endianness;
+        private final boolean    signed;
+        private final Volatility volatility;
+    }
+
+    private RegisterMap(Class<F> fieldType, RegisterField<F>[] fields)
+    {
+        super();
+        this.fieldType = fieldType;
+        this.fields = fields;
+    }
+
+    public static <F extends Enum<F>> Builder<F> builder(Class<F> fieldType)
+    {
+        return new Builder<>(fieldType);
+    }
+
+    public RegisterField<F> getField(F field)
+    {
+        return this.fields[field.ordinal()];
+    }
+
+    /**
+     * Compiles this {@link RegisterMap} against the given {@link AddressConnector}. The returned {@link RegisterAccessor} should be kept as
+     * long as the {@link AddressConnector} is used.
+     *
+     * @param connector
+     * @return
+     */
+    public RegisterAccessor<F> bind(AddressConnector connector)
+    {
+        return new RegisterAccessor<>(connector, this.fields);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RegisterMap[" + this.fieldType.getSimpleName() + "]";
+    }
+
+    public static class Builder<F extends Enum<F>>
+    {
+        private final Class<F>                 fieldType;
+        private final Map<F, RegisterField<F>> fields;
+
+        private Builder(Class<F> fieldType)
+        {
+            super();
+            this.fieldType = fieldType;
+            this.fields = new EnumMap<>(fieldType);
+        }
+
+        /**
+         * Defines a single bit field of a one byte register
+         *
+         * @param field
+         * @param localAddress
+         * @param bitIndex
+         * @param volatility
+         * @return
+         */
+        public Builder<F> bit(F field, int localAddress, int bitIndex, Volatility volatility)
+        {
+            if (bitIndex < 0 || bitIndex >= Byte.SIZE)
+            {
+                throw new IllegalArgumentException("Bit index of " + field + " has to be within a single byte: " + bitIndex);
+            }
+            return this.add(new RegisterField<>(field, localAddress, bitIndex, 1, Endianness.LITTLE_ENDIAN, false, volatility));
+        }
+
+        /**
+         * Defines an unsigned bit field starting at the given bit index of the register
+         *
+         * @param field
+         * @param localAddress
+         * @param bitIndex
+         * @param numberOfBits
+         * @param volatility
+         * @return
+         */
+        public Builder<F> bits(F field, int localAddress, int bitIndex, int numberOfBits, Volatility volatility)
+        {
+            return this.add(new RegisterField<>(field, localAddress, bitIndex, numberOfBits, Endianness.LITTLE_ENDIAN, false, volatility));
+        }
+
+        /**
+         * Defines a numeric value spanning the given number of bits starting at the register address
+         *
+         * @param field
+         * @param localAddress
+         * @param numberOfBits
+         * @param endianness
+         * @param signed
+         * @param volatility
+         * @return
+         */
+        public Builder<F> value(F field, int localAddress, int numberOfBits, Endianness endianness, boolean signed, Volatility volatility)
+        {
+            if (Endianness.BIG_ENDIAN.equals(endianness) && numberOfBits % Byte.SIZE != 0)
+            {
+                throw new IllegalArgumentException("Big endian value " + field + " has to consist of whole bytes: " + numberOfBits);
+            }
+            return this.add(new RegisterField<>(field, localAddress, 0, numberOfBits, endianness, signed, volatility));
+        }
+
+        private Builder<F> add(RegisterField<F> registerField)
+        {
+            if (registerField.getBitIndex() < 0 || registerField.getNumberOfBits() <= 0
+                    || registerField.getBitIndex() + registerField.getNumberOfBits() > Long.SIZE)
+            {
+                throw new IllegalArgumentException("Register field " + registerField.getField() + " has to be within the first " + Long.SIZE + " bits: "
+                        + registerField.getBitIndex() + "+" + registerField.getNumberOfBits());
+            }
+            if (this.fields.putIfAbsent(registerField.getField(), registerField) != null)
+            {
+                throw new IllegalArgumentException("Register field " + registerField.getField() + " is defined twice");
+            }
+            return this;
+        }
+
+        /**
+         * Builds the {@link RegisterMap}, every constant of the field enum has to be defined and all fields of a register have to share the
+         * same {@link Volatility}
+         *
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public RegisterMap<F> build()
+        {
+            F[] constants = this.fieldType.getEnumConstants();
+            RegisterField<F>[] result = new RegisterField[constants.length];
+            Map<Integer, RegisterField<F>> addressToField = new HashMap<>();
+            for (F constant : constants)
+            {
+                RegisterField<F> registerField = this.fields.get(constant);
+                if (registerField == null)
+                {
+                    throw new IllegalStateException("Register field " + constant + " of " + this.fieldType.getSimpleName() + " is not defined");
+                }
+                this.validateVolatility(registerField, addressToField);
+                result[constant.ordinal()] = registerField;
+            }
+            return new RegisterMap<>(this.fieldType, result);
+        }
+
+        private void validateVolatility(RegisterField<F> registerField, Map<Integer, RegisterField<F>> addressToField)
+        {
+            int numberOfBytes = (registerField.getBitIndex() + registerField.getNumberOfBits() + Byte.SIZE - 1) / Byte.SIZE;
+            for (int localAddress = registerField.getLocalAddress(); localAddress < registerField.getLocalAddress() + numberOfBytes; localAddress++)
+            {
+                RegisterField<F> otherField = addressToField.putIfAbsent(localAddress, registerField);
+                if (otherField != null && otherField.getVolatility() != registerField.getVolatility())
+                {
+                    throw new IllegalStateException("Register 0x" + Integer.toHexString(localAddress) + " of " + this.fieldType.getSimpleName() + " mixes the "
+                            + otherField.getVolatility() + " field " + otherField.getField() + " with the " + registerField.getVolatility() + " field "
+                            + registerField.getField());
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link RegisterMap} compiled against an {@link AddressConnector}
+     *
+     * @author omnaest
+     * @param <F>
+     */
+    public static class RegisterAccessor<F extends Enum<F>>
+    {
+        private final AddressConnector   connector;
+        private final RegisterField<F>[] fields;
+        private final RegisterBit[]      bits;
+        private final RegisterBits[]     bitRanges;
+
+        private RegisterAccessor(AddressConnector connector, RegisterField<F>[] fields)
+        {
+            super();
+            this.connector = connector;
+            this.fields = fields;
+            this.bits = new RegisterBit[fields.length];
+            this.bitRanges = new RegisterBits[fields.length];
+            for (int ii = 0; ii < fields.length; ii++)
+            {
+                RegisterField<F> field = fields[ii];
+                Register register = Volatility.CACHED.equals(field.getVolatility()) ? connector.accessCachedRegister(field.getLocalAddress())
+                        : connector.accessRegister(field.getLocalAddress());
+                this.bitRanges[ii] = register.accessBits(field.getBitIndex(), field.getNumberOfBits());
+                if (field.getNumberOfBits() == 1)
+                {
+                    this.bits[ii] = register.accessBit(field.getBitIndex());
+                }
+            }
+        }
+
+        public AddressConnector getConnector()
+        {
+            return this.connector;
+        }
+
+        /**
+         * Returns the {@link RegisterBit} of a single bit field
+         *
+         * @param field
+         * @return
+         */
+        public RegisterBit bit(F field)
+        {
+            RegisterBit bit = this.bits[field.ordinal()];
+            if (bit == null)
+            {
+                throw new IllegalArgumentException("Register field " + field + " is not a single bit");
+            }
+            return bit;
+        }
+
+        public RegisterBits bits(F field)
+        {
+            return this.bitRanges[field.ordinal()];
+        }
+
+        /**
+         * Reads the field considering its {@link Endianness} and signedness
+         *
+         * @param field
+         * @return
+         */
+        public long read(F field)
+        {
+            int ordinal = field.ordinal();
+            RegisterField<F> registerField = this.fields[ordinal];
+            RegisterBits registerBits = this.bitRanges[ordinal];
+            long value = Endianness.BIG_ENDIAN.equals(registerField.getEndianness()) ? registerBits.readAsBigEndianUnsignedLong()
+                    : registerBits.readAsLittleEndianUnsignedLong();
+            return registerField.isSigned() ? BitNumberUtils.signExtend(value, registerField.getNumberOfBits()) : value;
+        }
+
+        public boolean isSet(F field)
+        {
+            return this.bit(field)
+                       .readValue();
+        }
+
+        /**
+         * Writes the field considering its {@link Endianness}
+         *
+         * @param field
+         * @param value
+         * @return
+         */
+        public RegisterAccessor<F> write(F field, long value)
+        {
+            int ordinal = field.ordinal();
+            RegisterField<F> registerField = this.fields[ordinal];
+            this.bitRanges[ordinal].write(Endianness.BIG_ENDIAN.equals(registerField.getEndianness())
+                    ? BitNumberUtils.reorderFromMsbToLsb(value, registerField.getNumberOfBits())
+                    : value);
+            return this;
+        }
+
+        public RegisterAccessor<F> write(F field, boolean value)
+        {
+            this.bit(field)
+                .writeValue(value);
+            return this;
+        }
+    }
+}
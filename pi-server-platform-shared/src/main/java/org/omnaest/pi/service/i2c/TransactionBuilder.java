@@ -0,0 +1,100 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.omnaest.pi.service.i2c.I2CService.Transaction;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.i2c.TransactionStep.Type;
+
+/**
+ * {@link Transaction} which collects {@link TransactionStep}s and hands them over to the given executor on {@link #execute()}
+ *
+ * @author Danny Kunz
+ */
+public class TransactionBuilder implements Transaction
+{
+    private final List<TransactionStep>                                        steps = new ArrayList<>();
+    private final Function<List<TransactionStep>, Optional<TransactionResult>> executor;
+
+    public TransactionBuilder(Function<List<TransactionStep>, Optional<TransactionResult>> executor)
+    {
+        super();
+        this.executor = executor;
+    }
+
+    @Override
+    public Transaction write(int localAddress, byte... data)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.WRITE)
+                                       .localAddress(localAddress)
+                                       .data(data)
+                                       .size(data.length)
+                                       .build());
+    }
+
+    @Override
+    public Transaction write(byte... data)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.WRITE_RAW)
+                                       .data(data)
+                                       .size(data.length)
+                                       .build());
+    }
+
+    @Override
+    public Transaction read(int localAddress, int size)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.READ)
+                                       .localAddress(localAddress)
+                                       .size(size)
+                                       .build());
+    }
+
+    @Override
+    public Transaction read(int size)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.READ_RAW)
+                                       .size(size)
+                                       .build());
+    }
+
+    @Override
+    public Transaction delay(int duration, TimeUnit timeUnit)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.DELAY)
+                                       .duration(duration)
+                                       .timeUnit(timeUnit)
+                                       .build());
+    }
+
+    @Override
+    public Transaction waitUntilBitIsTrue(int localAddress, byte mask)
+    {
+        return this.add(TransactionStep.builder()
+                                       .type(Type.WAIT_UNTIL_BIT_IS_TRUE)
+                                       .localAddress(localAddress)
+                                       .mask(mask)
+                                       .build());
+    }
+
+    @Override
+    public Optional<TransactionResult> execute()
+    {
+        return this.executor.apply(new ArrayList<>(this.steps));
+    }
+
+    private Transaction add(TransactionStep step)
+    {
+        this.steps.add(step);
+        return this;
+    }
+}
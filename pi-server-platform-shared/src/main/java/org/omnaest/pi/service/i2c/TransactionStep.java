@@ -0,0 +1,59 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.i2c.I2CService.Transaction;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Single queued step of a {@link Transaction}
+ *
+ * @author Danny Kunz
+ */
+@Value
+@Builder
+public class TransactionStep
+{
+    public static enum Type
+    {
+        WRITE, WRITE_RAW, READ, READ_RAW, DELAY, WAIT_UNTIL_BIT_IS_TRUE
+    }
+
+    private final Type     type;
+    private final int      localAddress;
+    private final byte[]   data;
+    private final int      size;
+    private final int      duration;
+    private final TimeUnit timeUnit;
+    private final byte     mask;
+
+    /**
+     * Returns true, if this step is a plain read or write, which accesses the bus directly
+     *
+     * @return
+     */
+    public boolean isBusAccess()
+    {
+        return Type.WRITE.equals(this.type) || Type.WRITE_RAW.equals(this.type) || Type.READ.equals(this.type) || Type.READ_RAW.equals(this.type);
+    }
+
+    /**
+     * Returns true, if the step at the given index is a raw write directly followed by a raw read. Both are sent as a single combined
+     * write-then-read message with repeated start, so they form one bus transaction. Every other read or write is a bus transaction on its
+     * own.
+     *
+     * @param steps
+     * @param index
+     * @return
+     */
+    public static boolean isCombinedWriteAndRead(List<TransactionStep> steps, int index)
+    {
+        return index + 1 < steps.size() && Type.WRITE_RAW.equals(steps.get(index)
+                                                                      .getType())
+                && Type.READ_RAW.equals(steps.get(index + 1)
+                                             .getType());
+    }
+}
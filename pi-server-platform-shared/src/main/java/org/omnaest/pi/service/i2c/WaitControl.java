@@ -0,0 +1,135 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder.DeviceRecorder;
+import org.omnaest.pi.service.i2c.I2CService.WaitStatistics;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+
+/**
+ * Holds the current {@link WaitStrategy} of a single device together with the wait time counters. Views created by
+ * {@link #withWaitStrategy(WaitStrategy)} have their own {@link WaitStrategy} but share the counters of the device. Every finished wait is
+ * additionally recorded into the {@link DeviceRecorder} of the device.
+ *
+ * @author Danny Kunz
+ */
+public class WaitControl
+{
+    private volatile WaitStrategy waitStrategy;
+    private final DeviceRecorder  deviceRecorder;
+    private final WaitCounters    counters;
+
+    public WaitControl()
+    {
+        this(new DeviceRecorder());
+    }
+
+    public WaitControl(DeviceRecorder deviceRecorder)
+    {
+        this(WaitStrategies.defaultStrategy(), deviceRecorder);
+    }
+
+    public WaitControl(WaitStrategy waitStrategy)
+    {
+        this(waitStrategy, new DeviceRecorder());
+    }
+
+    public WaitControl(WaitStrategy waitStrategy, DeviceRecorder deviceRecorder)
+    {
+        this(waitStrategy, deviceRecorder, new WaitCounters());
+    }
+
+    private WaitControl(WaitStrategy waitStrategy, DeviceRecorder deviceRecorder, WaitCounters counters)
+    {
+        super();
+        this.waitStrategy = waitStrategy;
+        this.deviceRecorder = deviceRecorder;
+        this.counters = counters;
+    }
+
+    public WaitStrategy getWaitStrategy()
+    {
+        return this.waitStrategy;
+    }
+
+    public WaitControl setWaitStrategy(WaitStrategy waitStrategy)
+    {
+        this.waitStrategy = this.validate(waitStrategy);
+        return this;
+    }
+
+    /**
+     * Returns a new {@link WaitControl} with the given {@link WaitStrategy}, which records its waits into the counters of this
+     * {@link WaitControl}
+     *
+     * @param waitStrategy
+     * @return
+     */
+    public WaitControl withWaitStrategy(WaitStrategy waitStrategy)
+    {
+        return new WaitControl(this.validate(waitStrategy), this.deviceRecorder, this.counters);
+    }
+
+    private WaitStrategy validate(WaitStrategy waitStrategy)
+    {
+        if (waitStrategy == null)
+        {
+            throw new IllegalArgumentException("Wait strategy must not be null");
+        }
+        return waitStrategy;
+    }
+
+    /**
+     * Records a finished wait
+     *
+     * @param numberOfChecks
+     * @param waitTimeInNanos
+     * @param timedOut
+     */
+    public void record(int numberOfChecks, long waitTimeInNanos, boolean timedOut)
+    {
+        this.counters.numberOfWaits.increment();
+        this.counters.numberOfChecks.add(numberOfChecks);
+        if (timedOut)
+        {
+            this.counters.numberOfTimeouts.increment();
+        }
+        this.counters.totalWaitTimeNanos.add(waitTimeInNanos);
+        this.counters.maxWaitTimeNanos.accumulateAndGet(waitTimeInNanos, Math::max);
+        this.deviceRecorder.recordWait(waitTimeInNanos);
+    }
+
+    /**
+     * Returns the {@link CircuitBreaker} of the device, waits are aborted as soon as it is open
+     *
+     * @return
+     */
+    public CircuitBreaker getCircuitBreaker()
+    {
+        return this.deviceRecorder.getCircuitBreaker();
+    }
+
+    public WaitStatistics getStatistics()
+    {
+        long numberOfWaits = this.counters.numberOfWaits.sum();
+        return WaitStatistics.builder()
+                             .waitStrategy(this.waitStrategy.getName())
+                             .numberOfWaits(numberOfWaits)
+                             .numberOfChecks(this.counters.numberOfChecks.sum())
+                             .numberOfTimeouts(this.counters.numberOfTimeouts.sum())
+                             .averageWaitTimeInMilliseconds(numberOfWaits > 0 ? this.counters.totalWaitTimeNanos.sum() / (double) numberOfWaits / 1000000.0
+                                     : 0.0)
+                             .maxWaitTimeInMilliseconds(this.counters.maxWaitTimeNanos.get() / 1000000.0)
+                             .build();
+    }
+
+    private static class WaitCounters
+    {
+        private final LongAdder  numberOfWaits      = new LongAdder();
+        private final LongAdder  numberOfChecks     = new LongAdder();
+        private final LongAdder  numberOfTimeouts   = new LongAdder();
+        private final LongAdder  totalWaitTimeNanos = new LongAdder();
+        private final AtomicLong maxWaitTimeNanos   = new AtomicLong();
+    }
+}
@@ -0,0 +1,238 @@
+package org.omnaest.pi.service.i2c;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort.DigitalInputPinStateChange;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy.ReadyListenerRegistration;
+import org.omnaest.pi.service.utils.ThreadUtils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Factory for the {@link WaitStrategy}s of an {@link I2CService.AddressConnector}
+ *
+ * @author Danny Kunz
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class WaitStrategies
+{
+    private static final WaitStrategy DEFAULT_STRATEGY = fixedInterval(10, TimeUnit.MILLISECONDS);
+
+    /**
+     * Returns the default {@link WaitStrategy} which checks the condition immediately and then every 10 milliseconds
+     *
+     * @return
+     */
+    public static WaitStrategy defaultStrategy()
+    {
+        return DEFAULT_STRATEGY;
+    }
+
+    /**
+     * Checks the condition immediately and then after every given interval
+     *
+     * @param interval
+     * @param timeUnit
+     * @return
+     */
+    public static WaitStrategy fixedInterval(int interval, TimeUnit timeUnit)
+    {
+        long intervalInNanos = timeUnit.toNanos(interval);
+        return new SleepingWaitStrategy("fixedInterval(" + timeUnit.toMillis(interval) + "ms)",
+                                        checkIndex -> checkIndex == 0 ? 0 : intervalInNanos);
+    }
+
+    /**
+     * Waits for the expected conversion time of the datasheet before the first check and then checks in tight poll intervals, as the
+     * condition is usually met right after the expected time.
+     *
+     * @param expectedDelay
+     * @param pollInterval
+     * @param timeUnit
+     * @return
+     */
+    public static WaitStrategy expectedDelayThenPoll(int expectedDelay, int pollInterval, TimeUnit timeUnit)
+    {
+        long expectedDelayInNanos = timeUnit.toNanos(expectedDelay);
+        long pollIntervalInNanos = timeUnit.toNanos(pollInterval);
+        return new SleepingWaitStrategy("expectedDelayThenPoll(" + timeUnit.toMicros(expectedDelay) + "us," + timeUnit.toMicros(pollInterval) + "us)",
+                                        checkIndex -> checkIndex == 0 ? expectedDelayInNanos : pollIntervalInNanos);
+    }
+
+    /**
+     * Checks the condition immediately and then doubles the delay between two checks starting with the initial delay until the given maximum
+     * delay is reached
+     *
+     * @param initialDelay
+     * @param maxDelay
+     * @param timeUnit
+     * @return
+     */
+    public static WaitStrategy exponentialBackoff(int initialDelay, int maxDelay, TimeUnit timeUnit)
+    {
+        long initialDelayInNanos = Math.max(1, timeUnit.toNanos(initialDelay));
+        long maxDelayInNanos = timeUnit.toNanos(maxDelay);
+        return new SleepingWaitStrategy("exponentialBackoff(" + timeUnit.toMicros(initialDelay) + "us," + timeUnit.toMicros(maxDelay) + "us)",
+                                        checkIndex ->
+                                        {
+                                            if (checkIndex == 0)
+                                            {
+                                                return 0;
+                                            }
+                                            long delay = initialDelayInNanos;
+                                            for (int ii = 1; ii < checkIndex && delay < maxDelayInNanos; ii++)
+                                            {
+                                                delay *= 2;
+                                            }
+                                            return Math.min(delay, maxDelayInNanos);
+                                        });
+    }
+
+    /**
+     * Waits for the edge of the data ready or interrupt pin of the device, which is connected to the given {@link DigitalInputGPIOPort}. The
+     * delays of the given fallback {@link WaitStrategy} are used as upper bound, so a missed edge does not block forever.
+     *
+     * @param dataReadyPort
+     *            enabled input port
+     * @param activeHigh
+     *            true, if the device pulls the pin high when data is ready, false if it pulls the pin low
+     * @param fallback
+     * @return
+     */
+    public static WaitStrategy dataReadyInterrupt(DigitalInputGPIOPort dataReadyPort, boolean activeHigh, WaitStrategy fallback)
+    {
+        return new DataReadyInterruptWaitStrategy(dataReadyPort, activeHigh, fallback);
+    }
+
+    private static interface DelayFunction
+    {
+        public long getDelayInNanos(int checkIndex);
+    }
+
+    private static class SleepingWaitStrategy implements WaitStrategy
+    {
+        private final String        name;
+        private final DelayFunction delayFunction;
+
+        public SleepingWaitStrategy(String name, DelayFunction delayFunction)
+        {
+            super();
+            this.name = name;
+            this.delayFunction = delayFunction;
+        }
+
+        @Override
+        public String getName()
+        {
+            return this.name;
+        }
+
+        @Override
+        public long getDelayBeforeCheckInNanos(int checkIndex)
+        {
+            return this.delayFunction.getDelayInNanos(checkIndex);
+        }
+
+        @Override
+        public void awaitDelay(long delayInNanos)
+        {
+            ThreadUtils.sleep(delayInNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.name;
+        }
+    }
+
+    private static class DataReadyInterruptWaitStrategy implements WaitStrategy
+    {
+        private final DigitalInputGPIOPort dataReadyPort;
+        private final boolean              activeHigh;
+        private final WaitStrategy         fallback;
+        private final Semaphore            signal         = new Semaphore(0);
+        private final Queue<Runnable>      readyListeners = new ConcurrentLinkedQueue<>();
+
+        public DataReadyInterruptWaitStrategy(DigitalInputGPIOPort dataReadyPort, boolean activeHigh, WaitStrategy fallback)
+        {
+            super();
+            this.dataReadyPort = dataReadyPort;
+            this.activeHigh = activeHigh;
+            this.fallback = fallback;
+            this.dataReadyPort.addStateChangeListener(this::handleStateChange);
+        }
+
+        @Override
+        public String getName()
+        {
+            return "dataReadyInterrupt(" + this.fallback.getName() + ")";
+        }
+
+        @Override
+        public long getDelayBeforeCheckInNanos(int checkIndex)
+        {
+            return this.isDataReady() ? 0 : this.fallback.getDelayBeforeCheckInNanos(checkIndex);
+        }
+
+        @Override
+        public void awaitDelay(long delayInNanos)
+        {
+            try
+            {
+                if (this.signal.tryAcquire(delayInNanos, TimeUnit.NANOSECONDS))
+                {
+                    // edges of earlier conversions must not end the next wait prematurely
+                    this.signal.drainPermits();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Optional<ReadyListenerRegistration> addReadyListener(Runnable listener)
+        {
+            this.readyListeners.add(listener);
+            if (this.isDataReady() && this.readyListeners.remove(listener))
+            {
+                listener.run();
+            }
+            return Optional.of(() -> this.readyListeners.remove(listener));
+        }
+
+        private boolean isDataReady()
+        {
+            return this.dataReadyPort.getState() == this.activeHigh;
+        }
+
+        private void handleStateChange(DigitalInputPinStateChange stateChange)
+        {
+            if (this.activeHigh ? stateChange.isRaisingEdge() : stateChange.isFallingEdge())
+            {
+                this.signal.release();
+
+                Runnable listener;
+                while ((listener = this.readyListeners.poll()) != null)
+                {
+                    listener.run();
+                }
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.getName();
+        }
+    }
+}
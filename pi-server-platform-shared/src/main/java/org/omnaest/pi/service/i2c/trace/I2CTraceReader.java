@@ -0,0 +1,92 @@
+package org.omnaest.pi.service.i2c.trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reads the {@link I2CTraceRecord}s of a trace file written by the {@link I2CTraceWriter}
+ *
+ * @author omnaest
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class I2CTraceReader
+{
+    /**
+     * Reads all complete records of the given trace file in the order they were appended. Records of version 1 files have no written data.
+     *
+     * @param file
+     * @return
+     */
+    public static List<I2CTraceRecord> read(Path file)
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return read(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<I2CTraceRecord> read(ByteBuffer buffer)
+    {
+        if (buffer.capacity() < I2CTraceWriter.HEADER_SIZE || buffer.getInt(0) != I2CTraceWriter.MAGIC_NUMBER)
+        {
+            throw new IllegalArgumentException("Not an I2C trace file");
+        }
+        int version = buffer.getInt(4);
+        if (version != I2CTraceWriter.VERSION && version != 1)
+        {
+            throw new IllegalArgumentException("Unsupported I2C trace version: " + version);
+        }
+        int recordHeaderSize = version == 1 ? I2CTraceWriter.RECORD_HEADER_SIZE_VERSION_1 : I2CTraceWriter.RECORD_HEADER_SIZE;
+
+        List<I2CTraceRecord> records = new ArrayList<>();
+        int index = I2CTraceWriter.HEADER_SIZE;
+        Operation[] operations = Operation.values();
+        while (index + recordHeaderSize <= buffer.capacity())
+        {
+            int recordLength = buffer.getShort(index);
+            if (recordLength < recordHeaderSize || index + recordLength > buffer.capacity())
+            {
+                break;
+            }
+
+            int writtenLength = version == 1 ? 0 : buffer.getShort(index + 24);
+            if (recordHeaderSize + writtenLength > recordLength)
+            {
+                break;
+            }
+            byte[] writtenData = new byte[writtenLength];
+            buffer.get(index + recordHeaderSize, writtenData);
+            byte[] payload = new byte[recordLength - recordHeaderSize - writtenLength];
+            buffer.get(index + recordHeaderSize + writtenLength, payload);
+            records.add(I2CTraceRecord.builder()
+                                      .operation(operations[buffer.get(index + 2)])
+                                      .success(buffer.get(index + 3) != 0)
+                                      .busNumber(buffer.get(index + 4) & 0xFF)
+                                      .deviceAddress(buffer.get(index + 5) & 0xFF)
+                                      .register(buffer.getShort(index + 6))
+                                      .timestampInNanos(buffer.getLong(index + 8))
+                                      .latencyInNanos(buffer.getLong(index + 16))
+                                      .writtenData(writtenData)
+                                      .payload(payload)
+                                      .build());
+            index += recordLength;
+        }
+        return records;
+    }
+}
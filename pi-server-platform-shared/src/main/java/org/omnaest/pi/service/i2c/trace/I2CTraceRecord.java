@@ -0,0 +1,51 @@
+package org.omnaest.pi.service.i2c.trace;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A single bus access read from an I2C trace
+ *
+ * @see I2CTraceWriter
+ * @see I2CTraceReader
+ * @author omnaest
+ */
+@Value
+@Builder
+public class I2CTraceRecord
+{
+    public static final int NO_REGISTER = -1;
+
+    /**
+     * Nanoseconds since the trace was opened
+     */
+    private final long      timestampInNanos;
+    private final int       busNumber;
+    private final int       deviceAddress;
+    private final Operation operation;
+
+    /**
+     * The register the access started at, or {@link #NO_REGISTER} for a raw access
+     */
+    private final int       register;
+
+    /**
+     * The written command bytes of a {@link Operation#WRITE_AND_READ}, empty for all other operations
+     */
+    private final byte[]    writtenData;
+
+    /**
+     * The read data for reads, the written data for writes
+     */
+    private final byte[]    payload;
+    private final long      latencyInNanos;
+    private final boolean   success;
+
+    /**
+     * Kind of bus access. {@link #WRITE_AND_READ} is a raw write followed by a raw read with repeated start, e.g. a command and its result.
+     */
+    public static enum Operation
+    {
+        READ, WRITE, WRITE_AND_READ
+    }
+}
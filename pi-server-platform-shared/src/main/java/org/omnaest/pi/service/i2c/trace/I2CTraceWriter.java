@@ -0,0 +1,217 @@
+package org.omnaest.pi.service.i2c.trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+
+/**
+ * Append only binary log of I2C bus accesses, backed by a memory mapped file of fixed capacity.<br>
+ * <br>
+ * Recording a bus access reserves its slot with a single atomic add and copies the record into the mapped file, without locking,
+ * allocating or a system call, so tracing can stay enabled on production hardware. Once the capacity is exhausted, further records are
+ * dropped and counted. The operating system writes the mapped pages back to the file, even if the process is killed.<br>
+ * <br>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes: the magic number, the format version and the start time in epoch
+ * milliseconds. Every record consists of a fixed header of {@value #RECORD_HEADER_SIZE} bytes followed by the written command bytes of a
+ * {@link Operation#WRITE_AND_READ} and its payload. The record length is written last, so a reader stops at the first record with a length
+ * of zero.<br>
+ * <br>
+ * Version 1 records have a header of {@value #RECORD_HEADER_SIZE_VERSION_1} bytes without the length of the written command bytes.
+ *
+ * @see I2CTraceReader
+ * @author omnaest
+ */
+public class I2CTraceWriter implements AutoCloseable
+{
+    public static final int             MAGIC_NUMBER                 = 0x49324354;
+    public static final int             VERSION                      = 2;
+    public static final int             HEADER_SIZE                  = 16;
+    public static final int             RECORD_HEADER_SIZE           = 26;
+    public static final int             RECORD_HEADER_SIZE_VERSION_1 = 24;
+    public static final int             MAX_PAYLOAD_SIZE             = Short.MAX_VALUE - RECORD_HEADER_SIZE;
+
+    private static final byte[]         NO_WRITTEN_DATA              = new byte[0];
+
+    private static final I2CTraceWriter DISABLED                     = new I2CTraceWriter(null, 0, 0);
+
+    private final FileChannel           channel;
+    private final MappedByteBuffer      buffer;
+    private final long                  startTime;
+    private final AtomicLong            position                     = new AtomicLong(HEADER_SIZE);
+    private final LongAdder             numberOfRecords              = new LongAdder();
+    private final LongAdder             numberOfDroppedRecords       = new LongAdder();
+
+    private I2CTraceWriter(FileChannel channel, long capacityInBytes, long startTime)
+    {
+        super();
+        this.channel = channel;
+        this.startTime = startTime;
+        try
+        {
+            this.buffer = channel != null ? channel.map(MapMode.READ_WRITE, 0, capacityInBytes) : null;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates or overwrites the given trace file with the given capacity
+     *
+     * @param file
+     * @param capacityInBytes
+     * @return
+     */
+    public static I2CTraceWriter open(Path file, long capacityInBytes)
+    {
+        if (capacityInBytes <= HEADER_SIZE || capacityInBytes > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Trace capacity has to be between " + HEADER_SIZE + " bytes and 2GB: " + capacityInBytes);
+        }
+        try
+        {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING);
+            I2CTraceWriter writer = new I2CTraceWriter(channel, capacityInBytes, System.nanoTime());
+            writer.buffer.putInt(0, MAGIC_NUMBER);
+            writer.buffer.putInt(4, VERSION);
+            writer.buffer.putLong(8, System.currentTimeMillis());
+            return writer;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a {@link I2CTraceWriter} which ignores all records
+     *
+     * @return
+     */
+    public static I2CTraceWriter disabled()
+    {
+        return DISABLED;
+    }
+
+    public boolean isEnabled()
+    {
+        return this.buffer != null;
+    }
+
+    /**
+     * Appends a single bus access to the trace
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @param operation
+     * @param register
+     *            the register the access started at or {@link I2CTraceRecord#NO_REGISTER}
+     * @param payload
+     *            the read or written data
+     * @param offset
+     * @param length
+     * @param startTime
+     *            {@link System#nanoTime()} at the start of the access
+     * @param latencyInNanos
+     * @param success
+     */
+    public void record(int busNumber, int deviceAddress, Operation operation, int register, byte[] payload, int offset, int length,
+                       long startTime, long latencyInNanos, boolean success)
+    {
+        this.record(busNumber, deviceAddress, operation, register, NO_WRITTEN_DATA, payload, offset, length, startTime, latencyInNanos, success);
+    }
+
+    /**
+     * Similar to {@link #record(int, int, Operation, int, byte[], int, int, long, long, boolean)} for a {@link Operation#WRITE_AND_READ},
+     * which keeps the written command bytes in addition to the read payload
+     *
+     * @param busNumber
+     * @param deviceAddress
+     * @param operation
+     * @param register
+     * @param writtenData
+     *            the written command bytes
+     * @param payload
+     *            the read data
+     * @param offset
+     * @param length
+     * @param startTime
+     * @param latencyInNanos
+     * @param success
+     */
+    public void record(int busNumber, int deviceAddress, Operation operation, int register, byte[] writtenData, byte[] payload, int offset,
+                       int length, long startTime, long latencyInNanos, boolean success)
+    {
+        if (this.buffer == null)
+        {
+            return;
+        }
+
+        int writtenLength = Math.min(writtenData.length, MAX_PAYLOAD_SIZE);
+        int payloadLength = Math.min(length, MAX_PAYLOAD_SIZE - writtenLength);
+        int recordLength = RECORD_HEADER_SIZE + writtenLength + payloadLength;
+        long recordPosition = this.position.getAndAdd(recordLength);
+        if (recordPosition + recordLength > this.buffer.capacity())
+        {
+            this.numberOfDroppedRecords.increment();
+            return;
+        }
+
+        int index = (int) recordPosition;
+        this.buffer.put(index + 2, (byte) operation.ordinal());
+        this.buffer.put(index + 3, (byte) (success ? 1 : 0));
+        this.buffer.put(index + 4, (byte) busNumber);
+        this.buffer.put(index + 5, (byte) deviceAddress);
+        this.buffer.putShort(index + 6, (short) register);
+        this.buffer.putLong(index + 8, startTime - this.startTime);
+        this.buffer.putLong(index + 16, latencyInNanos);
+        this.buffer.putShort(index + 24, (short) writtenLength);
+        if (writtenLength > 0)
+        {
+            this.buffer.put(index + RECORD_HEADER_SIZE, writtenData, 0, writtenLength);
+        }
+        if (payloadLength > 0)
+        {
+            this.buffer.put(index + RECORD_HEADER_SIZE + writtenLength, payload, offset, payloadLength);
+        }
+        this.buffer.putShort(index, (short) recordLength);
+        this.numberOfRecords.increment();
+    }
+
+    public long getNumberOfRecords()
+    {
+        return this.numberOfRecords.sum();
+    }
+
+    public long getNumberOfDroppedRecords()
+    {
+        return this.numberOfDroppedRecords.sum();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.buffer != null)
+        {
+            try
+            {
+                this.buffer.force();
+                this.channel.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
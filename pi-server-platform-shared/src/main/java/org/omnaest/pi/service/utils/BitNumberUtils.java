@@ -1,14 +1,16 @@
 package org.omnaest.pi.service.utils;
 
-import java.util.Optional;
-
 import org.omnaest.utils.bitset.Bits;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
 /**
- * Utility to translate bits into numbers.
+ * Utility to translate bits into numbers.<br>
+ * <br>
+ * A bit sequence is represented either as {@link Bits} or allocation free as long, whose bit 0 holds the bit with index 0 of the sequence.
+ * Register bytes are mapped onto such a sequence byte by byte starting with the lowest bit of the first byte, which is the same order
+ * {@link Bits#of(byte[])} uses.
  *
  * @author omnaest
  */
@@ -17,51 +19,136 @@ public class BitNumberUtils
 {
     public static int mapBitsFromMsbToLsbAsSignedInteger(Bits bits)
     {
-        int unsignedInteger = mapBitsFromMsbToLsbAsUnsignedInteger(bits);
-
-        Bits unsignedIntegerBits = Bits.of(unsignedInteger);
-
-        int shiftSize = Integer.SIZE - bits.getLength();
-        int divisor = Bits.of(true)
-                          .setLength(shiftSize + 1)
-                          .toInt() << shiftSize;
-        return unsignedIntegerBits.shiftLeft(shiftSize)
-                                  .toInt()
-               / divisor;
+        if (bits == null)
+        {
+            return 0;
+        }
+        return (int) signExtend(asLongFromMsbToLsb(bits), bits.getLength());
     }
 
     public static int mapBitsFromMsbToLsbAsUnsignedInteger(Bits bits)
     {
-        return Optional.ofNullable(bits)
-                       .map(BitNumberUtils::asLongFromMsbToLsb)
-                       .map(Long::intValue)
-                       .orElse(0);
+        return bits != null ? (int) asLongFromMsbToLsb(bits) : 0;
     }
 
     public static int mapBitsFromLsbToMsbAsUnsignedInteger(Bits bits)
     {
-        return Optional.ofNullable(bits)
-                       .map(BitNumberUtils::asLongFromLsbToMsb)
-                       .map(Long::intValue)
-                       .orElse(0);
+        return bits != null ? (int) asLongFromLsbToMsb(bits) : 0;
     }
 
     public static long asLongFromMsbToLsb(Bits bits)
+    {
+        return reorderFromMsbToLsb(bits.toLong(), bits.getLength());
+    }
+
+    public static long asLongFromLsbToMsb(Bits bits)
+    {
+        return bits.toLong();
+    }
+
+    /**
+     * Returns a long with the lowest given number of bits set
+     *
+     * @param numberOfBits
+     * @return
+     */
+    public static long mask(int numberOfBits)
+    {
+        return numberOfBits >= Long.SIZE ? -1L : (1L << numberOfBits) - 1;
+    }
+
+    /**
+     * Maps the given number of bytes starting at the given offset into a bit sequence, so the first byte forms the lowest 8 bits
+     *
+     * @param data
+     * @param offset
+     * @param numberOfBytes
+     *            at most 8
+     * @return
+     */
+    public static long toBitSequence(byte[] data, int offset, int numberOfBytes)
     {
         long result = 0;
-        for (Bits byteBits : bits.partition(8)
-                                 .toList())
+        for (int ii = 0; ii < numberOfBytes; ii++)
         {
-            for (boolean bitValue : byteBits.toReverseBooleanArray())
-            {
-                result = result * 2 + (bitValue ? 1 : 0);
-            }
+            result |= (data[offset + ii] & 0xFFL) << (ii * 8);
         }
         return result;
     }
 
-    public static long asLongFromLsbToMsb(Bits bits)
+    /**
+     * Inverse of {@link #toBitSequence(byte[], int, int)}
+     *
+     * @param bitSequence
+     * @param data
+     * @param offset
+     * @param numberOfBytes
+     */
+    public static void fromBitSequence(long bitSequence, byte[] data, int offset, int numberOfBytes)
     {
-        return bits.toLong();
+        for (int ii = 0; ii < numberOfBytes; ii++)
+        {
+            data[offset + ii] = (byte) (bitSequence >>> (ii * 8));
+        }
+    }
+
+    /**
+     * Returns the given number of bits starting at the given bit index of the bit sequence
+     *
+     * @param bitSequence
+     * @param bitIndex
+     * @param numberOfBits
+     * @return
+     */
+    public static long extractBits(long bitSequence, int bitIndex, int numberOfBits)
+    {
+        return (bitSequence >>> bitIndex) & mask(numberOfBits);
+    }
+
+    /**
+     * Replaces the given number of bits starting at the given bit index of the bit sequence with the lowest bits of the given value
+     *
+     * @param bitSequence
+     * @param bitIndex
+     * @param numberOfBits
+     * @param value
+     * @return
+     */
+    public static long replaceBits(long bitSequence, int bitIndex, int numberOfBits, long value)
+    {
+        long mask = mask(numberOfBits) << bitIndex;
+        return (bitSequence & ~mask) | ((value << bitIndex) & mask);
+    }
+
+    /**
+     * Interprets the given bit sequence as bytes ordered from the most significant to the least significant byte, like
+     * {@link #asLongFromMsbToLsb(Bits)} does. A last incomplete byte contributes only its remaining bits.
+     *
+     * @param bitSequence
+     * @param numberOfBits
+     * @return
+     */
+    public static long reorderFromMsbToLsb(long bitSequence, int numberOfBits)
+    {
+        long result = 0;
+        for (int bitIndex = 0; bitIndex < numberOfBits; bitIndex += 8)
+        {
+            int chunkSize = Math.min(8, numberOfBits - bitIndex);
+            result = (result << chunkSize) | ((bitSequence >>> bitIndex) & mask(chunkSize));
+        }
+        return result;
+    }
+
+    /**
+     * Sign extends the given unsigned value of the given number of bits
+     *
+     * @param value
+     * @param numberOfBits
+     * @return
+     */
+    public static long signExtend(long value, int numberOfBits)
+    {
+        int shift = Long.SIZE - numberOfBits;
+        return shift > 0 ? (value << shift) >> shift : value;
     }
 }
@@ -0,0 +1,45 @@
+package org.omnaest.pi.service.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Utility to bridge {@link CompletableFuture}s back into blocking code.
+ *
+ * @author Danny Kunz
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FutureUtils
+{
+    /**
+     * Waits for the given {@link CompletableFuture} and returns its result. If the {@link CompletableFuture} completed exceptionally, the
+     * original cause is rethrown instead of the wrapping {@link CompletionException}. Checked causes are wrapped into an
+     * {@link IllegalStateException}.
+     *
+     * @param future
+     * @return
+     */
+    public static <T> T join(CompletableFuture<T> future)
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
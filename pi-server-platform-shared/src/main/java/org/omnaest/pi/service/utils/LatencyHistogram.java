@@ -0,0 +1,143 @@
+package org.omnaest.pi.service.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram with log linear buckets in the style of an HDR histogram. Every power of two range of nanoseconds is split
+ * into {@value #SUB_BUCKET_COUNT} linear sub buckets, so a recorded value is resolved with a relative error of at most 1/
+ * {@value #SUB_BUCKET_COUNT} over the whole long range, while the histogram has a fixed size of a few kilobytes.<br>
+ * <br>
+ * {@link #record(long)} is a handful of shifts and atomic increments and does not allocate, so it can stay enabled in production. Reading
+ * percentiles scans the buckets and is meant for the rare metrics requests.
+ *
+ * @author omnaest
+ */
+public class LatencyHistogram
+{
+    private static final int    SUB_BUCKET_BITS  = 4;
+    private static final int    SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int    BUCKET_COUNT     = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts         = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder       count          = new LongAdder();
+    private final LongAdder       totalNanos     = new LongAdder();
+    private final AtomicLong      maxNanos       = new AtomicLong();
+
+    /**
+     * Records a single duration in nanoseconds, negative durations are recorded as zero
+     *
+     * @param nanos
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.count.increment();
+        this.totalNanos.add(value);
+        if (value > this.maxNanos.get())
+        {
+            this.maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Adds all recorded values of the given {@link LatencyHistogram} to this one
+     *
+     * @param histogram
+     * @return this
+     */
+    public LatencyHistogram add(LatencyHistogram histogram)
+    {
+        for (int ii = 0; ii < BUCKET_COUNT; ii++)
+        {
+            long bucketCount = histogram.counts.get(ii);
+            if (bucketCount > 0)
+            {
+                this.counts.addAndGet(ii, bucketCount);
+            }
+        }
+        this.count.add(histogram.count.sum());
+        this.totalNanos.add(histogram.totalNanos.sum());
+        this.maxNanos.accumulateAndGet(histogram.maxNanos.get(), Math::max);
+        return this;
+    }
+
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    public long getTotalNanos()
+    {
+        return this.totalNanos.sum();
+    }
+
+    public long getMaxNanos()
+    {
+        return this.maxNanos.get();
+    }
+
+    public double getAverageNanos()
+    {
+        long count = this.count.sum();
+        return count > 0 ? this.totalNanos.sum() / (double) count : 0.0;
+    }
+
+    /**
+     * Returns the highest value which is equivalent to the value at the given percentile, e.g. 99.0 for the 99th percentile. The result is
+     * never larger than the largest recorded value.
+     *
+     * @param percentile
+     *            between 0.0 and 100.0
+     * @return
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long totalCount = 0;
+        for (int ii = 0; ii < BUCKET_COUNT; ii++)
+        {
+            totalCount += this.counts.get(ii);
+        }
+        if (totalCount == 0)
+        {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount));
+        long cumulativeCount = 0;
+        for (int ii = 0; ii < BUCKET_COUNT; ii++)
+        {
+            cumulativeCount += this.counts.get(ii);
+            if (cumulativeCount >= targetCount)
+            {
+                return Math.min(highestEquivalentValue(ii), this.maxNanos.get());
+            }
+        }
+        return this.maxNanos.get();
+    }
+
+    static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestEquivalentValue(int bucketIndex)
+    {
+        if (bucketIndex < SUB_BUCKET_COUNT)
+        {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long subBucket = bucketIndex % SUB_BUCKET_COUNT;
+        long lowestValue = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+}
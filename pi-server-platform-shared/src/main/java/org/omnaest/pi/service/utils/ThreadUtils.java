@@ -5,7 +5,7 @@ import java.util.function.BooleanSupplier;
 
 public class ThreadUtils
 {
-    public static void sleep(int duration, TimeUnit timeUnit)
+    public static void sleep(long duration, TimeUnit timeUnit)
     {
         try
         {
@@ -17,19 +17,32 @@ public class ThreadUtils
         }
     }
 
+    /**
+     * Sleeps while the given condition is true. The delay between two checks starts with 1 millisecond and doubles up to an eighth of the
+     * given duration. If the condition is still true after the given duration, the given timeout handler is called once and this method
+     * returns.
+     * 
+     * @param duration
+     * @param timeUnit
+     * @param condition
+     * @param onTimeout
+     */
     public static void sleepWhile(int duration, TimeUnit timeUnit, BooleanSupplier condition, Runnable onTimeout)
     {
-        int counter = 0;
-        int durationInMilliseconds = (int) timeUnit.toMillis(duration);
+        long durationInNanos = timeUnit.toNanos(duration);
+        long maxDelayInNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), durationInNanos / 8);
+        long delayInNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        long start = System.nanoTime();
         while (condition.getAsBoolean())
         {
-            int delay = Math.min(Math.max(1, counter / 2), Math.max(1, Math.abs(durationInMilliseconds - counter) / 2));
-            counter += delay;
-            if (counter > durationInMilliseconds)
+            long remainingInNanos = durationInNanos - (System.nanoTime() - start);
+            if (remainingInNanos <= 0)
             {
                 onTimeout.run();
+                return;
             }
-            ThreadUtils.sleep(delay, TimeUnit.MILLISECONDS);
+            ThreadUtils.sleep(Math.min(delayInNanos, remainingInNanos), TimeUnit.NANOSECONDS);
+            delayInNanos = Math.min(delayInNanos * 2, maxDelayInNanos);
         }
     }
 
@@ -0,0 +1,230 @@
+package org.omnaest.pi.service.gpio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort.DigitalInputPinStateChange;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputMetrics;
+
+public class DigitalInputPipelineTest
+{
+    @Test
+    public void testUnfilteredEdgesReachListenersAndBuffer()
+    {
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, () -> false);
+        List<DigitalInputPinStateChange> stateChanges = new ArrayList<>();
+        pipeline.addListener(stateChanges::add);
+        EdgeRingBuffer edgeBuffer = pipeline.getOrCreateEdgeBuffer(8);
+
+        assertTrue(pipeline.onEdge(10, true));
+        assertFalse(pipeline.onEdge(20, true));
+        assertTrue(pipeline.onEdge(30, false));
+
+        assertEquals(2, stateChanges.size());
+        assertTrue(stateChanges.get(0)
+                               .isRaisingEdge());
+        assertTrue(stateChanges.get(1)
+                               .isFallingEdge());
+
+        long[] timestamps = new long[8];
+        boolean[] levels = new boolean[8];
+        assertEquals(2, edgeBuffer.drainTo(timestamps, levels));
+        assertEquals(30, timestamps[1]);
+
+        // the repeated report of the high level is no glitch
+        DigitalInputMetrics metrics = pipeline.getMetrics();
+        assertEquals(7, metrics.getPort());
+        assertEquals(2, metrics.getNumberOfAcceptedEdges());
+        assertEquals(0, metrics.getNumberOfRejectedGlitches());
+    }
+
+    @Test
+    public void testDebounce() throws InterruptedException
+    {
+        AtomicBoolean pin = new AtomicBoolean(false);
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, pin::get).setFilter(DigitalInputFilter.debounce(100000));
+
+        pin.set(true);
+        assertTrue(pipeline.onEdge(System.nanoTime(), true));
+        pin.set(false);
+        assertFalse(pipeline.onEdge(System.nanoTime(), false));
+        pin.set(true);
+        assertFalse(pipeline.onEdge(System.nanoTime(), true));
+        assertTrue(pipeline.getLevel());
+
+        // the trailing check at the end of the debounce time finds the level unchanged
+        Thread.sleep(300);
+        assertTrue(pipeline.getLevel());
+
+        pin.set(false);
+        assertTrue(pipeline.onEdge(System.nanoTime(), false));
+        assertFalse(pipeline.getLevel());
+        assertEquals(2, pipeline.getMetrics()
+                                .getNumberOfAcceptedEdges());
+        assertEquals(2, pipeline.getMetrics()
+                                .getNumberOfRejectedGlitches());
+    }
+
+    @Test
+    public void testTrailingDebounceCheckEmitsTransitionWithinDebounceTime() throws InterruptedException
+    {
+        AtomicBoolean pin = new AtomicBoolean(false);
+        CountDownLatch stateChanges = new CountDownLatch(2);
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, pin::get).setFilter(DigitalInputFilter.debounce(20000))
+                                                                             .addListener(stateChange -> stateChanges.countDown());
+
+        // a press shorter than the debounce time
+        pin.set(true);
+        assertTrue(pipeline.onEdge(System.nanoTime(), true));
+        pin.set(false);
+        assertFalse(pipeline.onEdge(System.nanoTime(), false));
+        assertTrue(pipeline.getLevel());
+
+        assertTrue(stateChanges.await(5, TimeUnit.SECONDS));
+        assertFalse(pipeline.getLevel());
+        assertEquals(2, pipeline.getMetrics()
+                                .getNumberOfAcceptedEdges());
+    }
+
+    @Test
+    public void testMajoritySampling()
+    {
+        Iterator<Boolean> samples = Arrays.asList(false, true, false, false, true, true)
+                                          .iterator();
+        AtomicBoolean initialized = new AtomicBoolean();
+        DigitalInputFilter filter = DigitalInputFilter.builder()
+                                                      .numberOfSamples(3)
+                                                      .build();
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, () -> initialized.getAndSet(true) ? samples.next() : false).setFilter(filter);
+
+        // the first samples only read one high level, so the edge is a glitch
+        assertFalse(pipeline.onEdge(10, true));
+        assertTrue(pipeline.onEdge(20, true));
+        assertTrue(pipeline.getLevel());
+    }
+
+    @Test
+    public void testMinimumPulseWidth() throws InterruptedException
+    {
+        AtomicBoolean pin = new AtomicBoolean(false);
+        CountDownLatch risingEdge = new CountDownLatch(1);
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, pin::get).setFilter(DigitalInputFilter.builder()
+                                                                                                          .minimumPulseWidthInMicroseconds(1000)
+                                                                                                          .build())
+                                                                             .addListener(stateChange -> risingEdge.countDown());
+
+        // the edge waits for the re-sample, which finds the pin low again after the minimum pulse width
+        assertFalse(pipeline.onEdge(System.nanoTime(), true));
+        Thread.sleep(100);
+        assertFalse(pipeline.getLevel());
+        assertEquals(1, pipeline.getMetrics()
+                                .getNumberOfRejectedGlitches());
+
+        pin.set(true);
+        assertFalse(pipeline.onEdge(System.nanoTime(), true));
+        assertTrue(risingEdge.await(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.getLevel());
+        assertEquals(1, pipeline.getMetrics()
+                                .getNumberOfRejectedGlitches());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotHoldBackTheEdges() throws InterruptedException
+    {
+        AtomicBoolean pin = new AtomicBoolean(false);
+        CountDownLatch listenerCalled = new CountDownLatch(1);
+        CountDownLatch listenerReleased = new CountDownLatch(1);
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, pin::get).setFilter(DigitalInputFilter.none())
+                                                                             .addListener(stateChange ->
+                                                                             {
+                                                                                 listenerCalled.countDown();
+                                                                                 try
+                                                                                 {
+                                                                                     listenerReleased.await();
+                                                                                 }
+                                                                                 catch (InterruptedException e)
+                                                                                 {
+                                                                                     //
+                                                                                 }
+                                                                             });
+        EdgeRingBuffer edgeBuffer = pipeline.getOrCreateEdgeBuffer(8);
+        try
+        {
+            pin.set(true);
+            assertTrue(pipeline.onEdge(System.nanoTime(), true));
+            assertTrue(listenerCalled.await(5, TimeUnit.SECONDS));
+
+            // the listener still blocks the dispatcher, but the next edges are recorded
+            pin.set(false);
+            assertTrue(pipeline.onEdge(System.nanoTime(), false));
+            pin.set(true);
+            assertTrue(pipeline.onEdge(System.nanoTime(), true));
+            assertEquals(3, edgeBuffer.drainTo(new long[8], new boolean[8]));
+        }
+        finally
+        {
+            listenerReleased.countDown();
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersAreSerialized() throws InterruptedException
+    {
+        DigitalInputPipeline pipeline = new DigitalInputPipeline(7, () -> false);
+        EdgeRingBuffer edgeBuffer = pipeline.getOrCreateEdgeBuffer(1 << 16);
+
+        int numberOfProducers = 4;
+        int numberOfEdgesPerProducer = 10000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int producerIndex = 0; producerIndex < numberOfProducers; producerIndex++)
+        {
+            Thread producer = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    //
+                }
+                for (int ii = 0; ii < numberOfEdgesPerProducer; ii++)
+                {
+                    pipeline.onEdge(System.nanoTime(), ii % 2 == 0);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        DigitalInputMetrics metrics = pipeline.getMetrics();
+        assertEquals(0, metrics.getNumberOfRejectedGlitches());
+
+        long[] timestamps = new long[1 << 16];
+        boolean[] levels = new boolean[1 << 16];
+        int numberOfEdges = edgeBuffer.drainTo(timestamps, levels);
+        assertEquals(metrics.getNumberOfAcceptedEdges(), numberOfEdges);
+        for (int ii = 1; ii < numberOfEdges; ii++)
+        {
+            assertTrue(levels[ii] != levels[ii - 1]);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.omnaest.pi.service.gpio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class EdgeRingBufferTest
+{
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo()
+    {
+        assertEquals(1, new EdgeRingBuffer(1, 1).getCapacity());
+        assertEquals(8, new EdgeRingBuffer(1, 5).getCapacity());
+        assertEquals(8, new EdgeRingBuffer(1, 8).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new EdgeRingBuffer(1, 0));
+    }
+
+    @Test
+    public void testDrainToInOrder()
+    {
+        EdgeRingBuffer buffer = new EdgeRingBuffer(3, 4);
+        buffer.record(10, true);
+        buffer.record(20, false);
+        buffer.record(30, true);
+
+        long[] timestamps = new long[2];
+        boolean[] levels = new boolean[2];
+        assertEquals(2, buffer.drainTo(timestamps, levels));
+        assertArrayEquals(new long[] { 10, 20 }, timestamps);
+        assertArrayEquals(new boolean[] { true, false }, levels);
+
+        assertEquals(1, buffer.drainTo(timestamps, levels));
+        assertEquals(30, timestamps[0]);
+        assertTrue(levels[0]);
+
+        assertEquals(0, buffer.drainTo(timestamps, levels));
+    }
+
+    @Test
+    public void testFullBufferDropsNewEdges()
+    {
+        EdgeRingBuffer buffer = new EdgeRingBuffer(3, 2);
+        assertTrue(buffer.record(10, true));
+        assertTrue(buffer.record(20, false));
+        assertFalse(buffer.record(30, true));
+        assertEquals(1, buffer.getNumberOfDroppedEdges());
+
+        List<Long> timestamps = new ArrayList<>();
+        assertEquals(2, buffer.drain((timestamp, level) -> timestamps.add(timestamp)));
+        assertEquals(20L, timestamps.get(1)
+                                    .longValue());
+
+        // the drained slots are free again and wrap around
+        assertTrue(buffer.record(40, true));
+        timestamps.clear();
+        assertEquals(1, buffer.drain((timestamp, level) -> timestamps.add(timestamp)));
+        assertEquals(40L, timestamps.get(0)
+                                    .longValue());
+    }
+
+    @Test
+    public void testConcurrentProducerAndConsumer() throws InterruptedException
+    {
+        int numberOfEdges = 1000000;
+        EdgeRingBuffer buffer = new EdgeRingBuffer(3, 64);
+        Thread producer = new Thread(() ->
+        {
+            for (int ii = 0; ii < numberOfEdges; ii++)
+            {
+                while (!buffer.record(ii, ii % 2 == 0))
+                {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        long[] timestamps = new long[16];
+        boolean[] levels = new boolean[16];
+        long expected = 0;
+        while (expected < numberOfEdges)
+        {
+            int count = buffer.drainTo(timestamps, levels);
+            for (int ii = 0; ii < count; ii++)
+            {
+                assertEquals(expected, timestamps[ii]);
+                assertEquals(expected % 2 == 0, levels[ii]);
+                expected++;
+            }
+        }
+        producer.join();
+    }
+}
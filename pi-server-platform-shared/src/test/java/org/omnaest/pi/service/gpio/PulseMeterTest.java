@@ -0,0 +1,108 @@
+package org.omnaest.pi.service.gpio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class PulseMeterTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testRollingPeriod()
+    {
+        PulseMeter pulseMeter = new PulseMeter(3, 2);
+        long start = System.nanoTime() - 5 * SECOND;
+        pulseMeter.record(start, true);
+        assertEquals(0, pulseMeter.getPeriod());
+        assertEquals(0.0, pulseMeter.getFrequency());
+
+        // periods of 0.5s, 2s and 1s, where the window only keeps the last two
+        pulseMeter.record(start + SECOND / 4, false);
+        pulseMeter.record(start + SECOND / 2, true);
+        pulseMeter.record(start + SECOND, false);
+        pulseMeter.record(start + 5 * SECOND / 2, true);
+        pulseMeter.record(start + 3 * SECOND, false);
+        pulseMeter.record(start + 7 * SECOND / 2, true);
+
+        assertEquals(3 * SECOND / 2, pulseMeter.getPeriod(), SECOND / 10);
+        assertEquals(2.0 / 3.0, pulseMeter.getFrequency(), 0.05);
+    }
+
+    @Test
+    public void testPeriodGrowsWhenPulsesStop()
+    {
+        PulseMeter pulseMeter = new PulseMeter(3, 4);
+        long start = System.nanoTime() - 10 * SECOND;
+        pulseMeter.record(start, true);
+        pulseMeter.record(start + SECOND, true);
+
+        assertEquals(9 * SECOND, pulseMeter.getPeriod(), SECOND / 10);
+    }
+
+    @Test
+    public void testPulseWidthOfArmedPulse() throws InterruptedException
+    {
+        PulseMeter pulseMeter = new PulseMeter(3, 1);
+        long beforeArming = System.nanoTime();
+        pulseMeter.armPulseWidth(true);
+
+        Thread producer = new Thread(() ->
+        {
+            // the pulse started before arming is ignored
+            pulseMeter.record(beforeArming - 1000, true);
+            pulseMeter.record(System.nanoTime(), false);
+
+            long timestamp = System.nanoTime();
+            pulseMeter.record(timestamp, true);
+            pulseMeter.record(timestamp + 5000, false);
+        });
+        producer.start();
+
+        assertEquals(OptionalLong.of(5000), pulseMeter.awaitPulseWidth(10, TimeUnit.SECONDS));
+        producer.join();
+    }
+
+    @Test
+    public void testPulseWidthAwaitedByAnotherThreadThanTheArmingOne() throws InterruptedException
+    {
+        PulseMeter pulseMeter = new PulseMeter(3, 1);
+        pulseMeter.armPulseWidth(true);
+
+        AtomicReference<OptionalLong> pulseWidth = new AtomicReference<>();
+        Thread waiter = new Thread(() -> pulseWidth.set(pulseMeter.awaitPulseWidth(10, TimeUnit.SECONDS)));
+        long start = System.nanoTime();
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING)
+        {
+            Thread.sleep(1);
+        }
+
+        long timestamp = System.nanoTime();
+        pulseMeter.record(timestamp, true);
+        pulseMeter.record(timestamp + 5000, false);
+        waiter.join();
+
+        assertEquals(OptionalLong.of(5000), pulseWidth.get());
+        assertTrue(System.nanoTime() - start < 5 * SECOND);
+    }
+
+    @Test
+    public void testPulseWidthTimeout()
+    {
+        PulseMeter pulseMeter = new PulseMeter(3, 1);
+        assertThrows(IllegalStateException.class, () -> pulseMeter.awaitPulseWidth(1, TimeUnit.MILLISECONDS));
+
+        pulseMeter.armPulseWidth(false);
+        pulseMeter.record(System.nanoTime(), false);
+        assertFalse(pulseMeter.awaitPulseWidth(1, TimeUnit.MILLISECONDS)
+                              .isPresent());
+    }
+}
@@ -0,0 +1,113 @@
+package org.omnaest.pi.service.gpio;
+
+import java.util.function.Consumer;
+
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputEdgeRecorder;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPinHandle;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPulseMeter;
+
+/**
+ * {@link DigitalInputGPIOPort} for tests, whose state is set via {@link #setState(boolean)} and which notifies its single state change
+ * listener synchronously
+ *
+ * @author Danny Kunz
+ */
+public class TestDigitalInputGPIOPort implements DigitalInputGPIOPort
+{
+    private volatile boolean                     state = false;
+    private Consumer<DigitalInputPinStateChange> listener;
+
+    public void setState(boolean state)
+    {
+        boolean previous = this.state;
+        this.state = state;
+        this.listener.accept(new DigitalInputPinStateChange(previous, state));
+    }
+
+    @Override
+    public DigitalInputGPIOPort enable()
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputGPIOPort disable()
+    {
+        return this;
+    }
+
+    @Override
+    public boolean getState()
+    {
+        return this.state;
+    }
+
+    @Override
+    public DigitalInputGPIOPort withNoPullResistance()
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputGPIOPort withPullDownResistance()
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputGPIOPort withPullUpResistance()
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputGPIOPort withInputFilter(DigitalInputFilter filter)
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputGPIOPort addStateChangeListener(Consumer<DigitalInputPinStateChange> stateChangeListener)
+    {
+        this.listener = stateChangeListener;
+        return this;
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public DigitalInputPinHandle asPinHandle()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DigitalInputEdgeRecorder recordEdges(int capacity)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DigitalInputGPIOPort stopRecordingEdges()
+    {
+        return this;
+    }
+
+    @Override
+    public DigitalInputPulseMeter measurePulses(int windowSize)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DigitalInputGPIOPort stopMeasuringPulses()
+    {
+        return this;
+    }
+}
@@ -0,0 +1,76 @@
+package org.omnaest.pi.service.i2c;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.service.i2c.I2CService.CircuitBreakerState;
+
+public class CircuitBreakerTest
+{
+
+    @Test
+    public void testTripsAfterConsecutiveFailures()
+    {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 1, TimeUnit.HOURS);
+
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.isOpen());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(1, circuitBreaker.getNumberOfTrips());
+        assertEquals(2, circuitBreaker.getNumberOfRejections());
+    }
+
+    @Test
+    public void testHalfOpenProbe() throws InterruptedException
+    {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS);
+        circuitBreaker.recordFailure();
+        assertFalse(circuitBreaker.tryAcquire());
+
+        Thread.sleep(40);
+        assertFalse(circuitBreaker.isOpen());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertEquals(2, circuitBreaker.getNumberOfTrips());
+
+        Thread.sleep(40);
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.recordSuccess();
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void testDeviceRecorderFeedsCircuitBreaker()
+    {
+        I2CMetricsRecorder.DeviceRecorder deviceRecorder = new I2CMetricsRecorder.DeviceRecorder(new CircuitBreaker(2, 1, TimeUnit.HOURS));
+        deviceRecorder.recordError(true);
+        deviceRecorder.recordRead(1000, 1);
+        deviceRecorder.recordError(true);
+        assertEquals(CircuitBreakerState.CLOSED, deviceRecorder.getCircuitBreaker()
+                                                               .getState());
+
+        deviceRecorder.recordError(false);
+        assertEquals(CircuitBreakerState.OPEN, deviceRecorder.getCircuitBreaker()
+                                                             .getState());
+    }
+}
@@ -0,0 +1,151 @@
+package org.omnaest.pi.service.i2c;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.service.i2c.I2CService.BusSchedulerStatistics;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
+import org.omnaest.pi.service.utils.ThreadUtils;
+
+public class I2CBusSchedulerTest
+{
+    private I2CBusScheduler scheduler;
+
+    @AfterEach
+    public void tearDown()
+    {
+        if (this.scheduler != null)
+        {
+            this.scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testHigherPriorityIsExecutedFirst() throws Exception
+    {
+        this.scheduler = new I2CBusScheduler(1, 10, TimeUnit.SECONDS);
+        CountDownLatch release = this.blockScheduler();
+
+        List<Priority> executionOrder = new CopyOnWriteArrayList<>();
+        CompletableFuture<?> background = this.scheduler.submit(Priority.BACKGROUND, () -> executionOrder.add(Priority.BACKGROUND));
+        CompletableFuture<?> interactive = this.scheduler.submit(Priority.INTERACTIVE, () -> executionOrder.add(Priority.INTERACTIVE));
+        CompletableFuture<?> actuator = this.scheduler.submit(Priority.ACTUATOR, () -> executionOrder.add(Priority.ACTUATOR));
+
+        assertEquals(3, this.scheduler.getStatistics()
+                                      .getQueueDepth());
+
+        release.countDown();
+        CompletableFuture.allOf(background, interactive, actuator)
+                         .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(Priority.ACTUATOR, Priority.INTERACTIVE, Priority.BACKGROUND), executionOrder);
+    }
+
+    @Test
+    public void testAgedCommandIsExecutedBeforeHigherPriority() throws Exception
+    {
+        this.scheduler = new I2CBusScheduler(1, 1, TimeUnit.MILLISECONDS);
+        CountDownLatch release = this.blockScheduler();
+
+        List<Priority> executionOrder = new CopyOnWriteArrayList<>();
+        CompletableFuture<?> background = this.scheduler.submit(Priority.BACKGROUND, () -> executionOrder.add(Priority.BACKGROUND));
+        ThreadUtils.sleep(20, TimeUnit.MILLISECONDS);
+        CompletableFuture<?> actuator = this.scheduler.submit(Priority.ACTUATOR, () -> executionOrder.add(Priority.ACTUATOR));
+
+        release.countDown();
+        CompletableFuture.allOf(background, actuator)
+                         .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(Priority.BACKGROUND, Priority.ACTUATOR), executionOrder);
+    }
+
+    @Test
+    public void testExecuteRethrowsExceptionOfOperation()
+    {
+        this.scheduler = new I2CBusScheduler(1);
+        assertThrows(IllegalArgumentException.class, () -> this.scheduler.execute(Priority.INTERACTIVE, () ->
+        {
+            throw new IllegalArgumentException();
+        }));
+    }
+
+    @Test
+    public void testExecuteFromSchedulerThreadRunsDirectly()
+    {
+        this.scheduler = new I2CBusScheduler(1);
+        int result = this.scheduler.execute(Priority.INTERACTIVE, () -> this.scheduler.execute(Priority.BACKGROUND, () -> 42));
+        assertEquals(42, result);
+    }
+
+    @Test
+    public void testStatistics()
+    {
+        this.scheduler = new I2CBusScheduler(2);
+        this.scheduler.execute(Priority.INTERACTIVE, () -> true);
+        this.scheduler.execute(Priority.INTERACTIVE, () -> true);
+        this.scheduler.execute(Priority.ACTUATOR, () -> true);
+
+        BusSchedulerStatistics statistics = this.scheduler.getStatistics();
+        assertEquals(2, statistics.getBusNumber());
+        assertEquals(0, statistics.getQueueDepth());
+        assertEquals(Arrays.asList(1l, 2l, 0l), statistics.getPriorityStatistics()
+                                                          .stream()
+                                                          .map(priorityStatistics -> priorityStatistics.getNumberOfExecutedCommands())
+                                                          .collect(Collectors.toList()));
+        assertTrue(statistics.getPriorityStatistics()
+                             .get(1)
+                             .getMaxWaitTimeInMilliseconds() >= 0.0);
+    }
+
+    @Test
+    public void testIOExecutorIsOwnedByTheBus() throws Exception
+    {
+        this.scheduler = new I2CBusScheduler(3);
+        String threadName = CompletableFuture.supplyAsync(() -> Thread.currentThread()
+                                                                      .getName(),
+                                                          this.scheduler.getIOExecutor())
+                                             .get(5, TimeUnit.SECONDS);
+        assertTrue(threadName.startsWith("i2c-bus-3-io-"), threadName);
+    }
+
+    @Test
+    public void testShutdownRejectsNewCommands()
+    {
+        this.scheduler = new I2CBusScheduler(1);
+        this.scheduler.shutdown();
+        CompletableFuture<Boolean> future = this.scheduler.submit(Priority.ACTUATOR, () -> true);
+        assertThrows(CompletionException.class, () -> future.join());
+    }
+
+    private CountDownLatch blockScheduler() throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        this.scheduler.submit(Priority.ACTUATOR, () ->
+        {
+            started.countDown();
+            try
+            {
+                return release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+        return release;
+    }
+}
@@ -0,0 +1,104 @@
+package org.omnaest.pi.service.i2c;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.omnaest.pi.service.gpio.TestDigitalInputGPIOPort;
+import org.omnaest.pi.service.i2c.I2CService.WaitStatistics;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy;
+import org.omnaest.pi.service.i2c.I2CService.WaitStrategy.ReadyListenerRegistration;
+
+public class WaitStrategiesTest
+{
+    @Test
+    public void testFixedInterval()
+    {
+        WaitStrategy waitStrategy = WaitStrategies.fixedInterval(10, TimeUnit.MILLISECONDS);
+        assertEquals(0, waitStrategy.getDelayBeforeCheckInNanos(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), waitStrategy.getDelayBeforeCheckInNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), waitStrategy.getDelayBeforeCheckInNanos(5));
+    }
+
+    @Test
+    public void testExpectedDelayThenPoll()
+    {
+        WaitStrategy waitStrategy = WaitStrategies.expectedDelayThenPoll(2500, 100, TimeUnit.MICROSECONDS);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(2500), waitStrategy.getDelayBeforeCheckInNanos(0));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100), waitStrategy.getDelayBeforeCheckInNanos(1));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100), waitStrategy.getDelayBeforeCheckInNanos(2));
+    }
+
+    @Test
+    public void testExponentialBackoffIsCapped()
+    {
+        WaitStrategy waitStrategy = WaitStrategies.exponentialBackoff(1, 5, TimeUnit.MILLISECONDS);
+        assertEquals(0, waitStrategy.getDelayBeforeCheckInNanos(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), waitStrategy.getDelayBeforeCheckInNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2), waitStrategy.getDelayBeforeCheckInNanos(2));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(4), waitStrategy.getDelayBeforeCheckInNanos(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), waitStrategy.getDelayBeforeCheckInNanos(4));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), waitStrategy.getDelayBeforeCheckInNanos(100));
+    }
+
+    @Test
+    public void testDataReadyInterruptEndsDelayOnEdge() throws InterruptedException
+    {
+        TestDigitalInputGPIOPort port = new TestDigitalInputGPIOPort();
+        WaitStrategy waitStrategy = WaitStrategies.dataReadyInterrupt(port, true, WaitStrategies.fixedInterval(10, TimeUnit.SECONDS));
+        assertEquals(TimeUnit.SECONDS.toNanos(10), waitStrategy.getDelayBeforeCheckInNanos(1));
+
+        CountDownLatch readyListenerCalled = new CountDownLatch(1);
+        assertTrue(waitStrategy.addReadyListener(readyListenerCalled::countDown)
+                               .isPresent());
+        AtomicBoolean removedListenerCalled = new AtomicBoolean();
+        waitStrategy.addReadyListener(() -> removedListenerCalled.set(true))
+                    .ifPresent(ReadyListenerRegistration::remove);
+
+        Thread edge = new Thread(() ->
+        {
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                //
+            }
+            port.setState(true);
+        });
+        edge.start();
+
+        long start = System.nanoTime();
+        waitStrategy.awaitDelay(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(readyListenerCalled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, waitStrategy.getDelayBeforeCheckInNanos(1));
+        assertFalse(removedListenerCalled.get());
+    }
+
+    @Test
+    public void testWaitControlStatistics()
+    {
+        WaitControl waitControl = new WaitControl();
+        assertEquals("fixedInterval(10ms)", waitControl.getStatistics()
+                                                       .getWaitStrategy());
+
+        waitControl.setWaitStrategy(WaitStrategies.exponentialBackoff(1, 8, TimeUnit.MILLISECONDS));
+        waitControl.record(3, TimeUnit.MILLISECONDS.toNanos(2), false);
+        waitControl.record(5, TimeUnit.MILLISECONDS.toNanos(4), true);
+
+        WaitStatistics statistics = waitControl.getStatistics();
+        assertEquals("exponentialBackoff(1000us,8000us)", statistics.getWaitStrategy());
+        assertEquals(2, statistics.getNumberOfWaits());
+        assertEquals(8, statistics.getNumberOfChecks());
+        assertEquals(1, statistics.getNumberOfTimeouts());
+        assertEquals(3.0, statistics.getAverageWaitTimeInMilliseconds(), 0.001);
+        assertEquals(4.0, statistics.getMaxWaitTimeInMilliseconds(), 0.001);
+    }
+}
@@ -0,0 +1,80 @@
+package org.omnaest.pi.service.i2c.trace;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+
+public class I2CTraceWriterTest
+{
+
+    @Test
+    public void testWriteAndRead(@TempDir Path directory)
+    {
+        Path traceFile = directory.resolve("i2c.trace");
+        try (I2CTraceWriter traceWriter = I2CTraceWriter.open(traceFile, 1024))
+        {
+            long startTime = System.nanoTime();
+            traceWriter.record(1, 0x77, Operation.WRITE, 0xF4, new byte[] {0x2E}, 0, 1, startTime, 150000, true);
+            traceWriter.record(1, 0x77, Operation.READ, 0xF6, new byte[] {0x00, 0x5A, (byte) 0xA5, 0x00}, 1, 2, startTime + 5000, 250000, true);
+            traceWriter.record(1, 0x76, Operation.WRITE_AND_READ, I2CTraceRecord.NO_REGISTER, new byte[3], 0, 0, startTime + 9000, 90000, false);
+            traceWriter.record(1, 0x40, Operation.WRITE_AND_READ, I2CTraceRecord.NO_REGISTER, new byte[] {(byte) 0xE3}, new byte[] {0x66, 0x4C}, 0, 2,
+                               startTime + 12000, 50000, true);
+            assertEquals(4, traceWriter.getNumberOfRecords());
+        }
+
+        List<I2CTraceRecord> records = I2CTraceReader.read(traceFile);
+        assertEquals(4, records.size());
+
+        I2CTraceRecord write = records.get(0);
+        assertEquals(Operation.WRITE, write.getOperation());
+        assertEquals(1, write.getBusNumber());
+        assertEquals(0x77, write.getDeviceAddress());
+        assertEquals(0xF4, write.getRegister());
+        assertArrayEquals(new byte[] {0x2E}, write.getPayload());
+        assertEquals(0, write.getWrittenData().length);
+        assertEquals(150000, write.getLatencyInNanos());
+        assertTrue(write.isSuccess());
+
+        I2CTraceRecord read = records.get(1);
+        assertEquals(Operation.READ, read.getOperation());
+        assertArrayEquals(new byte[] {0x5A, (byte) 0xA5}, read.getPayload());
+        assertEquals(5000, read.getTimestampInNanos() - write.getTimestampInNanos());
+
+        I2CTraceRecord failed = records.get(2);
+        assertEquals(I2CTraceRecord.NO_REGISTER, failed.getRegister());
+        assertEquals(0, failed.getPayload().length);
+        assertFalse(failed.isSuccess());
+
+        I2CTraceRecord writeAndRead = records.get(3);
+        assertEquals(Operation.WRITE_AND_READ, writeAndRead.getOperation());
+        assertArrayEquals(new byte[] {(byte) 0xE3}, writeAndRead.getWrittenData());
+        assertArrayEquals(new byte[] {0x66, 0x4C}, writeAndRead.getPayload());
+    }
+
+    @Test
+    public void testDropsRecordsBeyondCapacity(@TempDir Path directory)
+    {
+        Path traceFile = directory.resolve("i2c.trace");
+        int capacity = I2CTraceWriter.HEADER_SIZE + 2 * (I2CTraceWriter.RECORD_HEADER_SIZE + 4);
+        try (I2CTraceWriter traceWriter = I2CTraceWriter.open(traceFile, capacity))
+        {
+            for (int ii = 0; ii < 5; ii++)
+            {
+                traceWriter.record(1, 0x2A, Operation.READ, 0x12, new byte[4], 0, 4, System.nanoTime(), 1000, true);
+            }
+            assertEquals(2, traceWriter.getNumberOfRecords());
+            assertEquals(3, traceWriter.getNumberOfDroppedRecords());
+        }
+
+        assertEquals(2, I2CTraceReader.read(traceFile)
+                                      .size());
+    }
+}
@@ -1,5 +1,6 @@
 package org.omnaest.pi.service.utils;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.junit.jupiter.api.Test;
@@ -37,4 +38,22 @@ public class BitNumberUtilsTest
         int value = msb << 16 | isb << 8 | lsb;
         assertEquals(value, BitNumberUtils.mapBitsFromLsbToMsbAsUnsignedInteger(Bits.of(new byte[] {(byte) lsb, (byte) isb, (byte) msb})));
     }
+
+    @Test
+    public void testPrimitiveBitSequence()
+    {
+        byte[] data = new byte[] {(byte) 0x83, 0x07, 0x0F};
+        long bitSequence = BitNumberUtils.toBitSequence(data, 0, 3);
+        assertEquals(0x0F0783, bitSequence);
+        assertEquals(0x83070F, BitNumberUtils.reorderFromMsbToLsb(bitSequence, 24));
+        assertEquals(BitNumberUtils.mapBitsFromMsbToLsbAsSignedInteger(Bits.of(data)),
+                     (int) BitNumberUtils.signExtend(BitNumberUtils.reorderFromMsbToLsb(bitSequence, 24), 24));
+
+        assertEquals(0b110, BitNumberUtils.extractBits(bitSequence, 6, 3));
+        assertEquals(0x0F07A3, BitNumberUtils.replaceBits(bitSequence, 4, 4, 0xA));
+
+        byte[] result = new byte[3];
+        BitNumberUtils.fromBitSequence(bitSequence, result, 0, 3);
+        assertArrayEquals(data, result);
+    }
 }
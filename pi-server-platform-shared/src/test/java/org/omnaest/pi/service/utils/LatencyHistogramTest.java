@@ -0,0 +1,55 @@
+package org.omnaest.pi.service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest
+{
+
+    @Test
+    public void testBucketsCoverEveryValue()
+    {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE })
+        {
+            int bucketIndex = LatencyHistogram.bucketIndex(value);
+            long highestEquivalentValue = LatencyHistogram.highestEquivalentValue(bucketIndex);
+            assertTrue(highestEquivalentValue >= value, "" + value);
+            assertTrue(highestEquivalentValue - value <= value / 16, "" + value);
+        }
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ii = 1; ii <= 1000; ii++)
+        {
+            histogram.record(ii * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500.0, histogram.getAverageNanos(), 0.001);
+        assertEquals(1000000, histogram.getMaxNanos());
+        assertEquals(500000, histogram.getPercentileNanos(50.0), 500000 / 16);
+        assertEquals(900000, histogram.getPercentileNanos(90.0), 900000 / 16);
+        assertEquals(1000000, histogram.getPercentileNanos(100.0));
+    }
+
+    @Test
+    public void testAdd()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(-1);
+
+        LatencyHistogram sum = new LatencyHistogram().add(histogram)
+                                                     .add(histogram);
+        assertEquals(4, sum.getCount());
+        assertEquals(200, sum.getTotalNanos());
+        assertEquals(100, sum.getMaxNanos());
+        assertEquals(0, sum.getPercentileNanos(50.0));
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(99.0));
+    }
+}
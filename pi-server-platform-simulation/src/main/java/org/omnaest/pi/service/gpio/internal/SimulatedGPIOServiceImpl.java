@@ -1,18 +1,26 @@
 package org.omnaest.pi.service.gpio.internal;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.annotation.PreDestroy;
 
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.DigitalInputPipeline;
+import org.omnaest.pi.service.gpio.EdgeRingBuffer;
 import org.omnaest.pi.service.gpio.GPIOService;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort.DigitalInputPinStateChange;
 import org.omnaest.pi.service.gpio.GPIOSimulationControl;
+import org.omnaest.pi.service.gpio.PulseMeter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
@@ -50,10 +58,18 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
 
     private final ScheduledExecutorService      executorService          = Executors.newSingleThreadScheduledExecutor();
 
+    /*
+     * Port group operations hold this lock while they change or sample their ports, so a group read never observes a
+     * group write half applied.
+     */
+    private final Object                        portGroupLock            = new Object();
+
     @PreDestroy
     public void destroy()
     {
         this.executorService.shutdownNow();
+        this.portToDigitalInputState.values()
+                                    .forEach(state -> state.pipeline.close());
     }
 
     // ---- GPIOService ----
@@ -104,6 +120,29 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         return new SimulatedPwmGPIOPort(port);
     }
 
+    @Override
+    public DigitalOutputGPIOPortGroup getDigitalOutputGPIOPortGroup(int... ports)
+    {
+        return new SimulatedDigitalOutputGPIOPortGroup(this.validatePorts(ports));
+    }
+
+    @Override
+    public DigitalInputGPIOPortGroup getDigitalInputGPIOPortGroup(int... ports)
+    {
+        return new SimulatedDigitalInputGPIOPortGroup(this.validatePorts(ports));
+    }
+
+    @Override
+    public List<DigitalInputMetrics> getDigitalInputMetrics()
+    {
+        return this.portToDigitalInputState.values()
+                                           .stream()
+                                           .filter(state -> state.enabled)
+                                           .map(state -> state.pipeline.getMetrics())
+                                           .sorted(Comparator.comparing(DigitalInputMetrics::getPort))
+                                           .collect(Collectors.toList());
+    }
+
     // ---- GPIOSimulationControl ----
 
     @Override
@@ -112,18 +151,19 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         InputPortState state = this.inputStateOf(port);
         boolean previous;
         boolean current;
+        long timestamp;
         synchronized (state)
         {
             previous = state.state;
             current = active;
             state.state = current;
+            timestamp = System.nanoTime();
         }
 
         if (previous != current)
         {
-            DigitalInputPinStateChange stateChange = new DigitalInputPinStateChange(previous, current);
-            LOG.info("Digital input port " + port + " changed state: " + stateChange);
-            state.listeners.forEach(listener -> listener.accept(stateChange));
+            LOG.info("Digital input port " + port + " changed state: " + new DigitalInputPinStateChange(previous, current));
+            state.pipeline.onEdge(timestamp, current);
         }
         return this;
     }
@@ -189,7 +229,7 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
 
     private InputPortState inputStateOf(int port)
     {
-        return this.portToDigitalInputState.computeIfAbsent(port, p -> new InputPortState());
+        return this.portToDigitalInputState.computeIfAbsent(port, InputPortState::new);
     }
 
     private PwmPortState pwmStateOf(int port)
@@ -202,6 +242,33 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         return Math.max(0.0, Math.min(1.0, value));
     }
 
+    private int[] validatePorts(int[] ports)
+    {
+        if (ports.length == 0 || ports.length > 64)
+        {
+            throw new IllegalArgumentException("A port group needs between 1 and 64 ports: " + Arrays.toString(ports));
+        }
+        if (IntStream.of(ports)
+                     .distinct()
+                     .count() != ports.length)
+        {
+            throw new IllegalArgumentException("A port group must not contain a port twice: " + Arrays.toString(ports));
+        }
+        return ports.clone();
+    }
+
+    private static long allPortsMask(int[] ports)
+    {
+        return ports.length == 64 ? -1L : (1L << ports.length) - 1;
+    }
+
+    private static List<Integer> asList(int[] ports)
+    {
+        return IntStream.of(ports)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
     // ---- per-port in-memory state holders ----
 
     private static class OutputPortState
@@ -212,10 +279,18 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
 
     private static class InputPortState
     {
-        private volatile boolean                                                 enabled   = false;
-        private volatile boolean                                                 state     = false;
+        private volatile boolean           enabled = false;
+        private volatile boolean           state   = false;
 
-        private final CopyOnWriteArrayList<Consumer<DigitalInputPinStateChange>> listeners = new CopyOnWriteArrayList<>();
+        /**
+         * Filters the edges and passes them on to the listeners and the recorded edges
+         */
+        private final DigitalInputPipeline pipeline;
+
+        public InputPortState(int port)
+        {
+            this.pipeline = new DigitalInputPipeline(port, () -> this.state);
+        }
     }
 
     private static class PwmPortState
@@ -271,6 +346,17 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
             return SimulatedGPIOServiceImpl.this.outputStateOf(this.port).enabled;
         }
 
+        @Override
+        public DigitalOutputPinHandle asPinHandle()
+        {
+            OutputPortState state = SimulatedGPIOServiceImpl.this.outputStateOf(this.port);
+            if (!state.enabled)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital output");
+            }
+            return new SimulatedDigitalOutputPinHandle(this.port, state);
+        }
+
         @Override
         public String toString()
         {
@@ -280,7 +366,8 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
 
     private class SimulatedDigitalInputGPIOPort implements DigitalInputGPIOPort
     {
-        private final int port;
+        private final int          port;
+        private DigitalInputFilter filter = null;
 
         public SimulatedDigitalInputGPIOPort(int port)
         {
@@ -290,7 +377,12 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         @Override
         public DigitalInputGPIOPort enable()
         {
-            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).enabled = true;
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            state.enabled = true;
+            if (this.filter != null)
+            {
+                state.pipeline.setFilter(this.filter);
+            }
             LOG.info("Enabled port " + this.port + " for digital input");
             return this;
         }
@@ -298,7 +390,11 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         @Override
         public DigitalInputGPIOPort disable()
         {
-            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).enabled = false;
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            state.enabled = false;
+            state.pipeline.setFilter(null)
+                          .removeEdgeBuffer()
+                          .removePulseMeter();
             LOG.info("Disabled port " + this.port + " for digital input");
             return this;
         }
@@ -306,7 +402,15 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         @Override
         public boolean getState()
         {
-            return SimulatedGPIOServiceImpl.this.inputStateOf(this.port).state;
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            return state.pipeline.hasFilter() ? state.pipeline.getLevel() : state.state;
+        }
+
+        @Override
+        public DigitalInputGPIOPort withInputFilter(DigitalInputFilter filter)
+        {
+            this.filter = filter;
+            return this;
         }
 
         // pull-resistance selection has no in-memory-simulation equivalent - kept as fluent no-ops so callers
@@ -332,7 +436,7 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         @Override
         public DigitalInputGPIOPort addStateChangeListener(Consumer<DigitalInputPinStateChange> stateChangeListener)
         {
-            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).listeners.add(stateChangeListener);
+            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).pipeline.addListener(stateChangeListener);
             return this;
         }
 
@@ -342,6 +446,57 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
             return SimulatedGPIOServiceImpl.this.inputStateOf(this.port).enabled;
         }
 
+        @Override
+        public DigitalInputPinHandle asPinHandle()
+        {
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            if (!state.enabled)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital input");
+            }
+            return new SimulatedDigitalInputPinHandle(this.port, state);
+        }
+
+        @Override
+        public DigitalInputEdgeRecorder recordEdges(int capacity)
+        {
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            if (!state.enabled)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital input");
+            }
+            EdgeRingBuffer edgeBuffer = state.pipeline.getOrCreateEdgeBuffer(capacity);
+            LOG.info("Recording edges of port " + this.port + " into " + edgeBuffer);
+            return edgeBuffer;
+        }
+
+        @Override
+        public DigitalInputGPIOPort stopRecordingEdges()
+        {
+            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).pipeline.removeEdgeBuffer();
+            return this;
+        }
+
+        @Override
+        public DigitalInputPulseMeter measurePulses(int windowSize)
+        {
+            InputPortState state = SimulatedGPIOServiceImpl.this.inputStateOf(this.port);
+            if (!state.enabled)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital input");
+            }
+            PulseMeter pulseMeter = state.pipeline.getOrCreatePulseMeter(windowSize);
+            LOG.info("Measuring pulses of port " + this.port + " with " + pulseMeter);
+            return pulseMeter;
+        }
+
+        @Override
+        public DigitalInputGPIOPort stopMeasuringPulses()
+        {
+            SimulatedGPIOServiceImpl.this.inputStateOf(this.port).pipeline.removePulseMeter();
+            return this;
+        }
+
         @Override
         public String toString()
         {
@@ -349,6 +504,62 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
         }
     }
 
+    // ---- pin handles bound directly to the per-port state, a reset() detaches them from the maps above ----
+
+    private static class SimulatedDigitalOutputPinHandle implements DigitalOutputPinHandle
+    {
+        private final int             port;
+        private final OutputPortState state;
+
+        public SimulatedDigitalOutputPinHandle(int port, OutputPortState state)
+        {
+            this.port = port;
+            this.state = state;
+        }
+
+        @Override
+        public int getPort()
+        {
+            return this.port;
+        }
+
+        @Override
+        public boolean getState()
+        {
+            return this.state.state;
+        }
+
+        @Override
+        public void setState(boolean active)
+        {
+            this.state.state = active;
+        }
+    }
+
+    private static class SimulatedDigitalInputPinHandle implements DigitalInputPinHandle
+    {
+        private final int            port;
+        private final InputPortState state;
+
+        public SimulatedDigitalInputPinHandle(int port, InputPortState state)
+        {
+            this.port = port;
+            this.state = state;
+        }
+
+        @Override
+        public int getPort()
+        {
+            return this.port;
+        }
+
+        @Override
+        public boolean getState()
+        {
+            return this.state.state;
+        }
+    }
+
     private class SimulatedPwmGPIOPort implements PwmGPIOPort
     {
         private final int port;
@@ -388,4 +599,161 @@ public class SimulatedGPIOServiceImpl implements GPIOService, GPIOSimulationCont
             return this;
         }
     }
+
+    private class SimulatedDigitalOutputGPIOPortGroup implements DigitalOutputGPIOPortGroup
+    {
+        private final int[] ports;
+
+        public SimulatedDigitalOutputGPIOPortGroup(int[] ports)
+        {
+            this.ports = ports;
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup enable()
+        {
+            IntStream.of(this.ports)
+                     .forEach(port -> SimulatedGPIOServiceImpl.this.outputStateOf(port).enabled = true);
+            LOG.info("Enabled ports " + Arrays.toString(this.ports) + " for digital output");
+            return this;
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup disable()
+        {
+            IntStream.of(this.ports)
+                     .forEach(port -> SimulatedGPIOServiceImpl.this.outputStateOf(port).enabled = false);
+            LOG.info("Disabled ports " + Arrays.toString(this.ports) + " for digital output");
+            return this;
+        }
+
+        @Override
+        public List<Integer> getPorts()
+        {
+            return asList(this.ports);
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup setStates(long setMask, long clearMask)
+        {
+            if ((setMask & clearMask) != 0 || ((setMask | clearMask) & ~allPortsMask(this.ports)) != 0)
+            {
+                throw new IllegalArgumentException("Invalid masks for ports " + Arrays.toString(this.ports) + ": set=" + Long.toBinaryString(setMask)
+                                                   + ", clear=" + Long.toBinaryString(clearMask));
+            }
+
+            synchronized (SimulatedGPIOServiceImpl.this.portGroupLock)
+            {
+                for (int ii = 0; ii < this.ports.length; ii++)
+                {
+                    long bit = 1L << ii;
+                    if ((setMask & bit) != 0)
+                    {
+                        SimulatedGPIOServiceImpl.this.outputStateOf(this.ports[ii]).state = true;
+                    }
+                    else if ((clearMask & bit) != 0)
+                    {
+                        SimulatedGPIOServiceImpl.this.outputStateOf(this.ports[ii]).state = false;
+                    }
+                }
+            }
+            LOG.info("Sets the states for digital output ports " + Arrays.toString(this.ports) + ": set=" + Long.toBinaryString(setMask) + ", clear="
+                    + Long.toBinaryString(clearMask));
+            return this;
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup setStates(long states)
+        {
+            long mask = allPortsMask(this.ports);
+            return this.setStates(states & mask, ~states & mask);
+        }
+
+        @Override
+        public long getStates()
+        {
+            long states = 0;
+            synchronized (SimulatedGPIOServiceImpl.this.portGroupLock)
+            {
+                for (int ii = 0; ii < this.ports.length; ii++)
+                {
+                    if (SimulatedGPIOServiceImpl.this.outputStateOf(this.ports[ii]).state)
+                    {
+                        states |= 1L << ii;
+                    }
+                }
+            }
+            return states;
+        }
+    }
+
+    private class SimulatedDigitalInputGPIOPortGroup implements DigitalInputGPIOPortGroup
+    {
+        private final int[] ports;
+
+        public SimulatedDigitalInputGPIOPortGroup(int[] ports)
+        {
+            this.ports = ports;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup enable()
+        {
+            IntStream.of(this.ports)
+                     .forEach(port -> SimulatedGPIOServiceImpl.this.inputStateOf(port).enabled = true);
+            LOG.info("Enabled ports " + Arrays.toString(this.ports) + " for digital input");
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup disable()
+        {
+            IntStream.of(this.ports)
+                     .forEach(port -> SimulatedGPIOServiceImpl.this.inputStateOf(port).enabled = false);
+            LOG.info("Disabled ports " + Arrays.toString(this.ports) + " for digital input");
+            return this;
+        }
+
+        // pull-resistance selection has no in-memory-simulation equivalent, see SimulatedDigitalInputGPIOPort
+        @Override
+        public DigitalInputGPIOPortGroup withNoPullResistance()
+        {
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup withPullDownResistance()
+        {
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup withPullUpResistance()
+        {
+            return this;
+        }
+
+        @Override
+        public List<Integer> getPorts()
+        {
+            return asList(this.ports);
+        }
+
+        @Override
+        public long getStates()
+        {
+            long states = 0;
+            synchronized (SimulatedGPIOServiceImpl.this.portGroupLock)
+            {
+                for (int ii = 0; ii < this.ports.length; ii++)
+                {
+                    if (SimulatedGPIOServiceImpl.this.inputStateOf(this.ports[ii]).state)
+                    {
+                        states |= 1L << ii;
+                    }
+                }
+            }
+            return states;
+        }
+    }
 }
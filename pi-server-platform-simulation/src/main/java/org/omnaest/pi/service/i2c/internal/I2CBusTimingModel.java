@@ -0,0 +1,136 @@
+package org.omnaest.pi.service.i2c.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timing of the simulated I2C buses. A bus transaction costs a fixed overhead, e.g. for the system call and the start and stop condition,
+ * plus 9 clock cycles for every transferred byte including the device address and the acknowledge bit.<br>
+ * <br>
+ * In {@link Mode#REAL_TIME} the accessing thread is blocked for the cost of each transaction, so latencies and throughput can be measured
+ * like on hardware. In {@link Mode#VIRTUAL_TIME} the cost is only added to a clock per bus, so a benchmark runs at full speed and derives
+ * the throughput from {@link #getBusTimeInNanos(int)}. {@link Mode#NONE} has no cost at all.
+ *
+ * @author Danny Kunz
+ */
+public class I2CBusTimingModel
+{
+    private static final long              SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int               CYCLES_PER_BYTE      = 9;
+
+    private final Mode                     mode;
+    private final long                     clockSpeedInHz;
+    private final long                     transactionOverheadInNanos;
+    private final Map<Integer, LongAdder>  busNumberToBusTime   = new ConcurrentHashMap<>();
+
+    public static enum Mode
+    {
+        NONE, REAL_TIME, VIRTUAL_TIME
+    }
+
+    /**
+     * @param mode
+     * @param clockSpeedInHz
+     *            e.g. 100000 for the standard mode or 400000 for the fast mode of the Raspberry Pi I2C controller
+     * @param transactionOverheadInNanos
+     */
+    public I2CBusTimingModel(Mode mode, long clockSpeedInHz, long transactionOverheadInNanos)
+    {
+        super();
+        if (clockSpeedInHz <= 0)
+        {
+            throw new IllegalArgumentException("Clock speed has to be positive: " + clockSpeedInHz);
+        }
+        this.mode = mode;
+        this.clockSpeedInHz = clockSpeedInHz;
+        this.transactionOverheadInNanos = transactionOverheadInNanos;
+    }
+
+    public static I2CBusTimingModel none()
+    {
+        return new I2CBusTimingModel(Mode.NONE, 100000, 0);
+    }
+
+    public Mode getMode()
+    {
+        return this.mode;
+    }
+
+    /**
+     * Returns the cost of transferring the given number of bytes including the device address bytes
+     *
+     * @param numberOfBytes
+     * @param includeTransactionOverhead
+     *            false for the further messages of a batch, which share the overhead of the first message
+     * @return
+     */
+    public long getCostInNanos(int numberOfBytes, boolean includeTransactionOverhead)
+    {
+        if (Mode.NONE.equals(this.mode))
+        {
+            return 0;
+        }
+        return (includeTransactionOverhead ? this.transactionOverheadInNanos : 0)
+                + numberOfBytes * CYCLES_PER_BYTE * TimeUnit.SECONDS.toNanos(1) / this.clockSpeedInHz;
+    }
+
+    /**
+     * Lets the given cost elapse on the given bus. In {@link Mode#VIRTUAL_TIME} the cost only advances the clock of the bus, otherwise the
+     * current thread is blocked for the cost.
+     *
+     * @param busNumber
+     * @param costInNanos
+     * @return the part of the cost which has not elapsed in real time
+     */
+    public long elapse(int busNumber, long costInNanos)
+    {
+        if (costInNanos <= 0)
+        {
+            return 0;
+        }
+
+        this.busNumberToBusTime.computeIfAbsent(busNumber, bn -> new LongAdder())
+                               .add(costInNanos);
+        if (Mode.VIRTUAL_TIME.equals(this.mode))
+        {
+            return costInNanos;
+        }
+
+        // parking overshoots by tens of microseconds, so the end of a delay is spun
+        long deadline = System.nanoTime() + costInNanos;
+        long remainingNanos = costInNanos;
+        while (remainingNanos > 0)
+        {
+            if (remainingNanos > SPIN_THRESHOLD_NANOS)
+            {
+                LockSupport.parkNanos(remainingNanos - SPIN_THRESHOLD_NANOS);
+            }
+            else
+            {
+                Thread.onSpinWait();
+            }
+            remainingNanos = deadline - System.nanoTime();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the sum of all transaction costs which have elapsed on the given bus
+     *
+     * @param busNumber
+     * @return
+     */
+    public long getBusTimeInNanos(int busNumber)
+    {
+        LongAdder busTime = this.busNumberToBusTime.get(busNumber);
+        return busTime != null ? busTime.sum() : 0;
+    }
+
+    public void reset()
+    {
+        this.busNumberToBusTime.clear();
+    }
+}
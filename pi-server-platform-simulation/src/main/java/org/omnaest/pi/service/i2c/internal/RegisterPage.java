@@ -0,0 +1,75 @@
+package org.omnaest.pi.service.i2c.internal;
+
+/**
+ * Register store of a single simulated device backed by a primitive byte array, so multi byte reads and writes are a single
+ * {@link System#arraycopy(Object, int, Object, int, int)} without boxing. Registers which were never written read as {@code 0}.<br>
+ * <br>
+ * Accesses beyond the last register wrap around to the first register, like the auto incremented address pointer of a device, so e.g. a
+ * long FIFO burst read near the end of the page does not fail.
+ *
+ * @author Danny Kunz
+ */
+class RegisterPage
+{
+    private final byte[] data;
+    private boolean      written = false;
+
+    public RegisterPage(int size)
+    {
+        super();
+        this.data = new byte[size];
+    }
+
+    public synchronized void read(int localAddress, byte[] buffer, int offset, int size)
+    {
+        this.assertRange(localAddress, size);
+        int position = localAddress;
+        int copied = 0;
+        while (copied < size)
+        {
+            int length = Math.min(size - copied, this.data.length - position);
+            System.arraycopy(this.data, position, buffer, offset + copied, length);
+            copied += length;
+            position = 0;
+        }
+    }
+
+    public synchronized byte read(int localAddress)
+    {
+        this.assertRange(localAddress, 1);
+        return this.data[localAddress];
+    }
+
+    public synchronized void write(int localAddress, byte[] buffer, int offset, int size)
+    {
+        this.assertRange(localAddress, size);
+        int position = localAddress;
+        int copied = 0;
+        while (copied < size)
+        {
+            int length = Math.min(size - copied, this.data.length - position);
+            System.arraycopy(buffer, offset + copied, this.data, position, length);
+            copied += length;
+            position = 0;
+        }
+        this.written |= size > 0;
+    }
+
+    /**
+     * Returns true, if any register has been written
+     *
+     * @return
+     */
+    public synchronized boolean isWritten()
+    {
+        return this.written;
+    }
+
+    private void assertRange(int localAddress, int size)
+    {
+        if (localAddress < 0 || size < 0 || localAddress >= this.data.length)
+        {
+            throw new IllegalArgumentException("Register " + localAddress + " exceeds the simulated register page of " + this.data.length + " bytes");
+        }
+    }
+}
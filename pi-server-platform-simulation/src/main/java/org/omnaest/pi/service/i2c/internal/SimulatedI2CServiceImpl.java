@@ -1,22 +1,47 @@
 package org.omnaest.pi.service.i2c.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import org.omnaest.pi.service.i2c.AbstractAddressConnector;
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder;
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder.DeviceRecorder;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CSimulationControl;
+import org.omnaest.pi.service.i2c.RegisterCache;
+import org.omnaest.pi.service.i2c.TransactionStep;
+import org.omnaest.pi.service.i2c.WaitControl;
+import org.omnaest.pi.service.i2c.internal.I2CBusTimingModel.Mode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 /**
  * Simulated, in-memory {@link I2CService} implementation used under the {@code simulation} Spring profile. Holds a
- * sparse register store per device (keyed by bus number + device address) so that tests and an interactive
- * {@code simulation} boot can exercise I2C consumers without any pi4j hardware dependency.
+ * primitive {@link RegisterPage} of {@code pi.simulation.i2c.page-size} bytes per device (keyed by bus number + device
+ * address) so that tests and an interactive {@code simulation} boot can exercise I2C consumers without any pi4j hardware
+ * dependency.
  * <p>
  * Any local address that was never written (or preset via {@link I2CSimulationControl}) defaults to {@code 0} on
- * read - this mirrors freshly powered-on hardware registers being zeroed and keeps the sparse map small.
+ * read - this mirrors freshly powered-on hardware registers being zeroed.
+ * <p>
+ * Every access costs the time given by the {@link I2CBusTimingModel}, configured via {@code pi.simulation.i2c.timing.*}. By default
+ * accesses take no time.
+ * <p>
+ * Every device counts its bus transactions, so the effect of batching via {@link Transaction}s can be measured by tests. Reads, writes and
+ * waits are recorded by the {@link I2CMetricsRecorder} the same way as on real hardware.
+ * <p>
+ * Responses queued via {@link #queueReadResponse(int, int, int, long, byte...)} take precedence over the stored register data and delay the
+ * access by their latency, so a recorded bus trace can be replayed including its timing.
  *
  * @author Danny Kunz
  */
@@ -24,9 +49,52 @@ import org.springframework.stereotype.Service;
 @Profile("simulation")
 public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
 {
-    private final Map<DeviceKey, ConcurrentHashMap<Integer, Byte>> deviceToRegisters     = new ConcurrentHashMap<>();
+    public static final int                               DEFAULT_PAGE_SIZE       = 256;
+
+    private final Map<DeviceKey, RegisterPage>            deviceToRegisterPage    = new ConcurrentHashMap<>();
+
+    private final Map<DeviceKey, LongAdder>               deviceToBusTransactions = new ConcurrentHashMap<>();
+
+    private final Map<Integer, I2CBusControl>             busNumberToBusControl   = new ConcurrentHashMap<>();
+
+    private final Map<ResponseKey, Queue<QueuedResponse>> keyToQueuedResponses    = new ConcurrentHashMap<>();
+
+    private final I2CMetricsRecorder                      metricsRecorder         = new I2CMetricsRecorder();
+
+    private final int                                     pageSize;
+
+    private final I2CBusTimingModel                       timingModel;
+
+    public SimulatedI2CServiceImpl()
+    {
+        this(DEFAULT_PAGE_SIZE, I2CBusTimingModel.none());
+    }
+
+    @Autowired
+    public SimulatedI2CServiceImpl(@Value("${pi.simulation.i2c.page-size:256}") int pageSize,
+                                   @Value("${pi.simulation.i2c.timing.mode:NONE}") Mode timingMode,
+                                   @Value("${pi.simulation.i2c.timing.clock-speed-hz:100000}") long clockSpeedInHz,
+                                   @Value("${pi.simulation.i2c.timing.transaction-overhead-micros:0}") long transactionOverheadInMicroseconds)
+    {
+        this(pageSize, new I2CBusTimingModel(timingMode, clockSpeedInHz, TimeUnit.MICROSECONDS.toNanos(transactionOverheadInMicroseconds)));
+    }
 
-    private final Map<Integer, I2CBusControl>                      busNumberToBusControl = new ConcurrentHashMap<>();
+    /**
+     * @param pageSize
+     *            number of registers of every simulated device
+     * @param timingModel
+     */
+    public SimulatedI2CServiceImpl(int pageSize, I2CBusTimingModel timingModel)
+    {
+        super();
+        this.pageSize = pageSize;
+        this.timingModel = timingModel;
+    }
+
+    public I2CBusTimingModel getTimingModel()
+    {
+        return this.timingModel;
+    }
 
     @Override
     public Optional<I2CBusControl> provision(BusNumber busNumber)
@@ -43,11 +111,57 @@ public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
             @Override
             public Optional<AddressConnector> connectTo(int deviceAddress)
             {
-                return Optional.of(this.addressToConnector.computeIfAbsent(deviceAddress, address -> new SimulatedAddressConnector(bn, address)));
+                return Optional.of(this.addressToConnector.computeIfAbsent(deviceAddress, address ->
+                {
+                    DeviceRecorder deviceRecorder = metricsRecorder.getOrCreateDeviceRecorder(bn, address);
+                    return new SimulatedAddressConnector(bn, address, deviceRecorder);
+                }));
+            }
+
+            /**
+             * The simulated bus is not scheduled, as the in memory register store has no bus to contend for
+             */
+            @Override
+            public Optional<BusSchedulerStatistics> getSchedulerStatistics()
+            {
+                return Optional.empty();
+            }
+
+            /**
+             * A simulated device is present as soon as any of its registers has been preset or written
+             */
+            @Override
+            public boolean probe(int deviceAddress)
+            {
+                RegisterPage registerPage = deviceToRegisterPage.get(new DeviceKey(bn, deviceAddress));
+                return registerPage != null && registerPage.isWritten();
+            }
+
+            @Override
+            public Optional<Byte> probe(int deviceAddress, int localAddress)
+            {
+                return this.probe(deviceAddress) ? Optional.of(deviceToRegisterPage.get(new DeviceKey(bn, deviceAddress))
+                                                                                   .read(localAddress))
+                        : Optional.empty();
             }
         }));
     }
 
+    @Override
+    public List<Integer> getProvisionedBusNumbers()
+    {
+        return this.busNumberToBusControl.keySet()
+                                         .stream()
+                                         .sorted()
+                                         .collect(Collectors.toList());
+    }
+
+    @Override
+    public I2CMetrics getMetrics()
+    {
+        return this.metricsRecorder.getMetrics();
+    }
+
     @Override
     public I2CSimulationControl presetRegister(int busNumber, int deviceAddress, int localAddress, byte... data)
     {
@@ -58,50 +172,117 @@ public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
     @Override
     public Optional<byte[]> readRegister(int busNumber, int deviceAddress, int localAddress, int size)
     {
-        // The sparse store treats every (busNumber, deviceAddress) pair as implicitly provisioned - an unset local
+        // The store treats every (busNumber, deviceAddress) pair as implicitly provisioned - an unset local
         // address simply defaults to 0, so there is no "unprovisioned device" state to report as empty; this always
         // returns a present (possibly zero-filled) array.
         return Optional.of(this.readBytes(busNumber, deviceAddress, localAddress, size)
                                .get());
     }
 
+    @Override
+    public I2CSimulationControl queueReadResponse(int busNumber, int deviceAddress, int localAddress, long latencyInNanos, byte... data)
+    {
+        this.queuedResponsesOf(new ResponseKey(new DeviceKey(busNumber, deviceAddress), localAddress, false))
+            .add(new QueuedResponse(latencyInNanos, data));
+        return this;
+    }
+
+    @Override
+    public I2CSimulationControl queueWriteLatency(int busNumber, int deviceAddress, int localAddress, long latencyInNanos)
+    {
+        this.queuedResponsesOf(new ResponseKey(new DeviceKey(busNumber, deviceAddress), localAddress, true))
+            .add(new QueuedResponse(latencyInNanos, null));
+        return this;
+    }
+
+    @Override
+    public long getNumberOfBusTransactions(int busNumber, int deviceAddress)
+    {
+        return Optional.ofNullable(this.deviceToBusTransactions.get(new DeviceKey(busNumber, deviceAddress)))
+                       .map(LongAdder::sum)
+                       .orElse(0l);
+    }
+
     @Override
     public I2CSimulationControl reset()
     {
-        this.deviceToRegisters.clear();
+        this.deviceToRegisterPage.clear();
+        this.deviceToBusTransactions.clear();
+        this.keyToQueuedResponses.clear();
+        this.timingModel.reset();
         return this;
     }
 
     @Override
     public I2CSimulationControl reset(int busNumber, int deviceAddress)
     {
-        this.deviceToRegisters.remove(new DeviceKey(busNumber, deviceAddress));
+        this.deviceToRegisterPage.remove(new DeviceKey(busNumber, deviceAddress));
+        this.deviceToBusTransactions.remove(new DeviceKey(busNumber, deviceAddress));
+        this.keyToQueuedResponses.keySet()
+                                 .removeIf(key -> key.device()
+                                                     .equals(new DeviceKey(busNumber, deviceAddress)));
         return this;
     }
 
-    private Map<Integer, Byte> registersOf(int busNumber, int deviceAddress)
+    private RegisterPage registerPageOf(int busNumber, int deviceAddress)
     {
-        return this.deviceToRegisters.computeIfAbsent(new DeviceKey(busNumber, deviceAddress), key -> new ConcurrentHashMap<>());
+        return this.deviceToRegisterPage.computeIfAbsent(new DeviceKey(busNumber, deviceAddress), key -> new RegisterPage(this.pageSize));
     }
 
-    private ByteArray readBytes(int busNumber, int deviceAddress, int localAddress, int size)
+    private void countBusTransactions(int busNumber, int deviceAddress, int numberOfBusTransactions)
     {
-        Map<Integer, Byte> registers = this.registersOf(busNumber, deviceAddress);
-        byte[] result = new byte[size];
-        for (int i = 0; i < size; i++)
+        this.deviceToBusTransactions.computeIfAbsent(new DeviceKey(busNumber, deviceAddress), key -> new LongAdder())
+                                    .add(numberOfBusTransactions);
+    }
+
+    private Queue<QueuedResponse> queuedResponsesOf(ResponseKey key)
+    {
+        return this.keyToQueuedResponses.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+    }
+
+    /**
+     * Consumes the next queued response of the given register and stores the data of a read response into the registers. A queued read
+     * response of a different size is left in the queue.
+     *
+     * @return the latency of the consumed response or -1 if there was none
+     */
+    private long applyQueuedResponse(int busNumber, int deviceAddress, int localAddress, int size, boolean write)
+    {
+        if (this.keyToQueuedResponses.isEmpty())
+        {
+            return -1;
+        }
+        Queue<QueuedResponse> queuedResponses = this.keyToQueuedResponses.get(new ResponseKey(new DeviceKey(busNumber, deviceAddress), localAddress,
+                                                                                              write));
+        QueuedResponse response = queuedResponses != null ? queuedResponses.peek() : null;
+        if (response != null && (write || response.data().length == size) && queuedResponses.remove(response))
         {
-            result[i] = registers.getOrDefault(localAddress + i, (byte) 0);
+            if (!write)
+            {
+                this.writeBytes(busNumber, deviceAddress, localAddress, response.data());
+            }
+            return response.latencyInNanos();
         }
+        return -1;
+    }
+
+    private ByteArray readBytes(int busNumber, int deviceAddress, int localAddress, int size)
+    {
+        byte[] result = new byte[size];
+        this.readBytes(busNumber, deviceAddress, localAddress, result, 0, size);
         return new ByteArray(result);
     }
 
+    private void readBytes(int busNumber, int deviceAddress, int localAddress, byte[] buffer, int offset, int size)
+    {
+        this.registerPageOf(busNumber, deviceAddress)
+            .read(localAddress, buffer, offset, size);
+    }
+
     private void writeBytes(int busNumber, int deviceAddress, int localAddress, byte... data)
     {
-        Map<Integer, Byte> registers = this.registersOf(busNumber, deviceAddress);
-        for (int i = 0; i < data.length; i++)
-        {
-            registers.put(localAddress + i, data[i]);
-        }
+        this.registerPageOf(busNumber, deviceAddress)
+            .write(localAddress, data, 0, data.length);
     }
 
     /**
@@ -110,21 +291,66 @@ public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
     private static record DeviceKey(int busNumber, int deviceAddress) {
     }
 
+    /**
+     * Key of the queued responses of a single register, separately for reads and writes
+     */
+    private static record ResponseKey(DeviceKey device, int localAddress, boolean write) {
+    }
+
+    private static record QueuedResponse(long latencyInNanos, byte[] data) {
+    }
+
     private class SimulatedAddressConnector extends AbstractAddressConnector
     {
-        private final int busNumber;
-        private final int deviceAddress;
+        private final int            busNumber;
+        private final int            deviceAddress;
+        private final DeviceRecorder deviceRecorder;
+
+        /**
+         * Device lock shared by all views of the device
+         */
+        private final Object         lock;
 
-        public SimulatedAddressConnector(int busNumber, int deviceAddress)
+        /**
+         * True while a combined write-then-read of a {@link Transaction} is executed, which is counted as a single bus transaction up front
+         */
+        private boolean              batched = false;
+
+        public SimulatedAddressConnector(int busNumber, int deviceAddress, DeviceRecorder deviceRecorder)
+        {
+            this(busNumber, deviceAddress, deviceRecorder, new Object(), new RegisterCache(), new WaitControl(deviceRecorder));
+        }
+
+        private SimulatedAddressConnector(int busNumber, int deviceAddress, DeviceRecorder deviceRecorder, Object lock, RegisterCache registerCache,
+                                          WaitControl waitControl)
         {
+            super(registerCache, waitControl);
             this.busNumber = busNumber;
             this.deviceAddress = deviceAddress;
+            this.deviceRecorder = deviceRecorder;
+            this.lock = lock;
+        }
+
+        @Override
+        protected AddressConnector withWaitControl(WaitControl waitControl)
+        {
+            return new SimulatedAddressConnector(this.busNumber, this.deviceAddress, this.deviceRecorder, this.lock, this.getRegisterCache(),
+                                                 waitControl);
         }
 
         @Override
         public Optional<ByteArray> read(int localAddress, int start, int size)
         {
-            return Optional.of(readBytes(this.busNumber, this.deviceAddress, localAddress + start, size));
+            synchronized (this.lock)
+            {
+                long startTime = System.nanoTime();
+                this.countBusTransaction();
+                long latency = applyQueuedResponse(this.busNumber, this.deviceAddress, localAddress + start, size, false);
+                ByteArray result = readBytes(this.busNumber, this.deviceAddress, localAddress + start, size);
+                long virtualDuration = this.elapse(latency, size + 3);
+                this.deviceRecorder.recordRead(System.nanoTime() - startTime + virtualDuration, size);
+                return Optional.of(result);
+            }
         }
 
         @Override
@@ -133,11 +359,34 @@ public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
             return this.read(0, start, size);
         }
 
+        @Override
+        public boolean read(int localAddress, byte[] buffer, int offset, int size)
+        {
+            synchronized (this.lock)
+            {
+                long startTime = System.nanoTime();
+                this.countBusTransaction();
+                long latency = applyQueuedResponse(this.busNumber, this.deviceAddress, localAddress, size, false);
+                readBytes(this.busNumber, this.deviceAddress, localAddress, buffer, offset, size);
+                long virtualDuration = this.elapse(latency, size + 3);
+                this.deviceRecorder.recordRead(System.nanoTime() - startTime + virtualDuration, size);
+                return true;
+            }
+        }
+
         @Override
         public AddressConnector write(int localAddress, byte... data)
         {
-            writeBytes(this.busNumber, this.deviceAddress, localAddress, data);
-            return this;
+            synchronized (this.lock)
+            {
+                long startTime = System.nanoTime();
+                this.countBusTransaction();
+                long latency = applyQueuedResponse(this.busNumber, this.deviceAddress, localAddress, data.length, true);
+                writeBytes(this.busNumber, this.deviceAddress, localAddress, data);
+                long virtualDuration = this.elapse(latency, data.length + 2);
+                this.deviceRecorder.recordWrite(System.nanoTime() - startTime + virtualDuration, data.length + 1);
+                return this;
+            }
         }
 
         @Override
@@ -145,5 +394,79 @@ public class SimulatedI2CServiceImpl implements I2CService, I2CSimulationControl
         {
             return this.write(0, data);
         }
+
+        /**
+         * Counts a bus transaction per message the pi4j based implementation sends, so every read and write is counted on its own, except a
+         * raw write directly followed by a raw read, which is one combined write-then-read message
+         */
+        @Override
+        protected Optional<TransactionResult> executeTransaction(List<TransactionStep> steps)
+        {
+            synchronized (this.lock)
+            {
+                List<ByteArray> reads = new ArrayList<>();
+                for (int ii = 0; ii < steps.size(); ii++)
+                {
+                    boolean success;
+                    if (TransactionStep.isCombinedWriteAndRead(steps, ii))
+                    {
+                        success = this.executeCombinedWriteAndRead(steps.get(ii), steps.get(ii + 1), reads);
+                        ii++;
+                    }
+                    else
+                    {
+                        success = this.executeTransactionStep(steps.get(ii), reads);
+                    }
+                    if (!success)
+                    {
+                        return Optional.empty();
+                    }
+                }
+                return Optional.of(new TransactionResult(reads));
+            }
+        }
+
+        /**
+         * The read of a combined write-then-read returns the data of the local address of the first written command byte, so the response of
+         * a command based device is preset or queued for the local address of its command
+         */
+        private boolean executeCombinedWriteAndRead(TransactionStep write, TransactionStep read, List<ByteArray> reads)
+        {
+            countBusTransactions(this.busNumber, this.deviceAddress, 1);
+            timingModel.elapse(this.busNumber, timingModel.getCostInNanos(0, true));
+            this.batched = true;
+            try
+            {
+                byte[] command = write.getData();
+                int commandAddress = command.length > 0 ? command[0] & 0xFF : 0;
+                return this.executeTransactionStep(write, reads) && this.read(commandAddress, 0, read.getSize())
+                                                                        .map(reads::add)
+                                                                        .orElse(false);
+            }
+            finally
+            {
+                this.batched = false;
+            }
+        }
+
+        /**
+         * Lets the latency of a queued response or otherwise the cost of the given number of bytes elapse. The write and the read of a combined
+         * message share the transaction overhead, which elapses once up front.
+         *
+         * @return the duration which has not elapsed in real time
+         */
+        private long elapse(long queuedLatency, int numberOfBytes)
+        {
+            long cost = queuedLatency >= 0 ? queuedLatency : timingModel.getCostInNanos(numberOfBytes, !this.batched);
+            return timingModel.elapse(this.busNumber, cost);
+        }
+
+        private void countBusTransaction()
+        {
+            if (!this.batched)
+            {
+                countBusTransactions(this.busNumber, this.deviceAddress, 1);
+            }
+        }
     }
 }
@@ -0,0 +1,93 @@
+package org.omnaest.pi.service.i2c.trace;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.omnaest.pi.service.i2c.I2CSimulationControl;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+
+/**
+ * Feeds a bus trace recorded on real hardware by the {@link I2CTraceWriter} into a simulated I2C service. Every successful read of the
+ * trace is queued as response of its register together with its latency, every successful write as latency of its register, so the
+ * recorded workload can be run against the simulation to compare the throughput of scheduler or caching changes without hardware.<br>
+ * <br>
+ * The simulation treats raw reads and writes without a register as accesses of the local address 0, so traced raw accesses are queued for
+ * that local address. A traced {@link Operation#WRITE_AND_READ} is queued as response of the local address of its first written command
+ * byte, which the simulation reads for a combined write-then-read, while its written command is queued without latency for the local
+ * address 0.
+ *
+ * @see I2CSimulationControl#queueReadResponse(int, int, int, long, byte...)
+ * @author omnaest
+ */
+public class I2CTraceReplayer
+{
+    private final I2CSimulationControl simulationControl;
+    private double                     latencyFactor = 1.0;
+
+    public I2CTraceReplayer(I2CSimulationControl simulationControl)
+    {
+        super();
+        this.simulationControl = simulationControl;
+    }
+
+    /**
+     * Scales all replayed latencies by the given factor, e.g. 0.0 replays only the register responses without any timing
+     *
+     * @param latencyFactor
+     * @return
+     */
+    public I2CTraceReplayer withLatencyFactor(double latencyFactor)
+    {
+        this.latencyFactor = latencyFactor;
+        return this;
+    }
+
+    /**
+     * Queues all records of the given trace file
+     *
+     * @param traceFile
+     * @return number of queued records
+     */
+    public int replay(Path traceFile)
+    {
+        return this.replay(I2CTraceReader.read(traceFile));
+    }
+
+    /**
+     * Queues the given records, failed accesses are skipped
+     *
+     * @param records
+     * @return number of queued records
+     */
+    public int replay(List<I2CTraceRecord> records)
+    {
+        int numberOfQueuedRecords = 0;
+        for (I2CTraceRecord record : records)
+        {
+            if (record.isSuccess())
+            {
+                int localAddress = record.getRegister() != I2CTraceRecord.NO_REGISTER ? record.getRegister() : 0;
+                long latencyInNanos = Math.round(record.getLatencyInNanos() * this.latencyFactor);
+                if (Operation.WRITE_AND_READ.equals(record.getOperation()))
+                {
+                    byte[] writtenData = record.getWrittenData();
+                    int commandAddress = writtenData.length > 0 ? writtenData[0] & 0xFF : 0;
+                    this.simulationControl.queueWriteLatency(record.getBusNumber(), record.getDeviceAddress(), 0, 0)
+                                          .queueReadResponse(record.getBusNumber(), record.getDeviceAddress(), commandAddress, latencyInNanos,
+                                                             record.getPayload());
+                }
+                else if (Operation.WRITE.equals(record.getOperation()))
+                {
+                    this.simulationControl.queueWriteLatency(record.getBusNumber(), record.getDeviceAddress(), localAddress, latencyInNanos);
+                }
+                else
+                {
+                    this.simulationControl.queueReadResponse(record.getBusNumber(), record.getDeviceAddress(), localAddress, latencyInNanos,
+                                                             record.getPayload());
+                }
+                numberOfQueuedRecords++;
+            }
+        }
+        return numberOfQueuedRecords;
+    }
+}
@@ -2,18 +2,30 @@ package org.omnaest.pi.service.gpio.internal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputEdgeRecorder;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPortGroup;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalInputGPIOPort.DigitalInputPinStateChange;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputMetrics;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPinHandle;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputPulseMeter;
 import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPort;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputGPIOPortGroup;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalOutputPinHandle;
 import org.omnaest.pi.service.gpio.GPIOService.PwmGPIOPort;
 
 public class SimulatedGPIOServiceImplTest
@@ -101,6 +113,43 @@ public class SimulatedGPIOServiceImplTest
         assertEquals(2, observedChanges.size(), "no-op state re-assertion must not fire a listener");
     }
 
+    @Test
+    public void testDigitalOutputPortGroupSetsAndClearsMasks()
+    {
+        DigitalOutputGPIOPortGroup group = this.simulation.getDigitalOutputGPIOPortGroup(4, 5, 6)
+                                                          .enable();
+        assertTrue(this.simulation.isDigitalOutputEnabled(5));
+
+        group.setStates(0b101, 0b000);
+        assertTrue(this.simulation.getDigitalOutputState(4));
+        assertFalse(this.simulation.getDigitalOutputState(5));
+        assertTrue(this.simulation.getDigitalOutputState(6));
+
+        // ports outside both masks keep their state
+        group.setStates(0b010, 0b001);
+        assertEquals(0b110, group.getStates());
+
+        group.setStates(0b000);
+        assertEquals(0b000, group.getStates());
+
+        assertThrows(IllegalArgumentException.class, () -> group.setStates(0b001, 0b001));
+        assertThrows(IllegalArgumentException.class, () -> group.setStates(0b1000, 0b000));
+        assertThrows(IllegalArgumentException.class, () -> this.simulation.getDigitalOutputGPIOPortGroup(4, 4));
+    }
+
+    @Test
+    public void testDigitalInputPortGroupSamplesAllPorts()
+    {
+        DigitalInputGPIOPortGroup group = this.simulation.getDigitalInputGPIOPortGroup(20, 21, 22)
+                                                         .withPullDownResistance()
+                                                         .enable();
+        assertEquals(Arrays.asList(20, 21, 22), group.getPorts());
+
+        this.simulation.setDigitalInputState(20, true);
+        this.simulation.setDigitalInputState(22, true);
+        assertEquals(0b101, group.getStates());
+    }
+
     @Test
     public void testPwmValueAndControlSurface()
     {
@@ -184,4 +233,102 @@ public class SimulatedGPIOServiceImplTest
         this.simulation.setDigitalInputState(2, true);
         assertEquals(1, observedChanges.size(), "listener registered before reset must not fire after reset");
     }
+
+    @Test
+    public void testPinHandlesShareThePortState()
+    {
+        DigitalOutputGPIOPort outputPort = this.simulation.getDigitalOutputGPIOPort(4);
+        assertThrows(IllegalStateException.class, outputPort::asPinHandle);
+
+        DigitalOutputPinHandle outputHandle = outputPort.enable()
+                                                        .asPinHandle();
+        assertEquals(4, outputHandle.getPort());
+        outputHandle.setState(true);
+        assertTrue(this.simulation.getDigitalOutputState(4));
+        assertTrue(outputPort.getState());
+        outputHandle.setState(false);
+        assertFalse(this.simulation.getDigitalOutputState(4));
+
+        DigitalInputGPIOPort inputPort = this.simulation.getDigitalInputGPIOPort(5);
+        assertThrows(IllegalStateException.class, inputPort::asPinHandle);
+
+        DigitalInputPinHandle inputHandle = inputPort.enable()
+                                                     .asPinHandle();
+        assertFalse(inputHandle.getState());
+        this.simulation.setDigitalInputState(5, true);
+        assertTrue(inputHandle.getState());
+    }
+
+    @Test
+    public void testRecordedEdgesAreDrainedInOrder()
+    {
+        DigitalInputGPIOPort port = this.simulation.getDigitalInputGPIOPort(6);
+        assertThrows(IllegalStateException.class, () -> port.recordEdges(16));
+
+        DigitalInputEdgeRecorder recorder = port.enable()
+                                                .recordEdges(16);
+        this.simulation.setDigitalInputState(6, true);
+        this.simulation.setDigitalInputState(6, true);
+        this.simulation.setDigitalInputState(6, false);
+
+        long[] timestamps = new long[16];
+        boolean[] levels = new boolean[16];
+        assertEquals(2, recorder.drainTo(timestamps, levels));
+        assertTrue(levels[0]);
+        assertFalse(levels[1]);
+        assertTrue(timestamps[0] <= timestamps[1]);
+
+        port.stopRecordingEdges();
+        this.simulation.setDigitalInputState(6, true);
+        assertEquals(0, recorder.drainTo(timestamps, levels));
+    }
+
+    @Test
+    public void testInputFilterRejectsBouncingEdges() throws InterruptedException
+    {
+        DigitalInputGPIOPort port = this.simulation.getDigitalInputGPIOPort(7)
+                                                   .withInputFilter(DigitalInputFilter.debounce(TimeUnit.SECONDS.toMicros(10)))
+                                                   .enable();
+        List<DigitalInputPinStateChange> stateChanges = new CopyOnWriteArrayList<>();
+        port.addStateChangeListener(stateChanges::add);
+
+        this.simulation.setDigitalInputState(7, true);
+        this.simulation.setDigitalInputState(7, false);
+        assertTrue(port.getState());
+
+        // the listeners of a filtered port are called by its dispatcher thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stateChanges.isEmpty() && System.nanoTime() < deadline)
+        {
+            Thread.sleep(1);
+        }
+        assertEquals(1, stateChanges.size());
+
+        DigitalInputMetrics metrics = this.simulation.getDigitalInputMetrics()
+                                                     .get(0);
+        assertEquals(7, metrics.getPort());
+        assertEquals(1, metrics.getNumberOfAcceptedEdges());
+        assertEquals(1, metrics.getNumberOfRejectedGlitches());
+    }
+
+    @Test
+    public void testPulseMeterMeasuresPulseWidthAndPeriod()
+    {
+        DigitalInputGPIOPort port = this.simulation.getDigitalInputGPIOPort(8);
+        assertThrows(IllegalStateException.class, () -> port.measurePulses(4));
+
+        DigitalInputPulseMeter pulseMeter = port.enable()
+                                                .measurePulses(4);
+        pulseMeter.armPulseWidth(true);
+        this.simulation.setDigitalInputState(8, true);
+        this.simulation.setDigitalInputState(8, false);
+        OptionalLong pulseWidth = pulseMeter.awaitPulseWidth(1, TimeUnit.SECONDS);
+        assertTrue(pulseWidth.isPresent());
+        assertTrue(pulseWidth.getAsLong() >= 0);
+
+        assertEquals(0, pulseMeter.getPeriod());
+        this.simulation.setDigitalInputState(8, true);
+        assertTrue(pulseMeter.getPeriod() > 0);
+        assertTrue(pulseMeter.getFrequency() > 0.0);
+    }
 }
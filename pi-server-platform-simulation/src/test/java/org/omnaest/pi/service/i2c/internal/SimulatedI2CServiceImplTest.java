@@ -3,16 +3,41 @@ package org.omnaest.pi.service.i2c.internal;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.AsyncAddressConnector;
 import org.omnaest.pi.service.i2c.I2CService.BusNumber;
+import org.omnaest.pi.service.i2c.I2CService.BusMetrics;
 import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.I2CService.DeviceMetrics;
 import org.omnaest.pi.service.i2c.I2CService.Register;
+import org.omnaest.pi.service.i2c.I2CService.TransactionResult;
+import org.omnaest.pi.service.i2c.I2CService.WaitStatistics;
+import org.omnaest.pi.service.i2c.RegisterMap;
+import org.omnaest.pi.service.i2c.RegisterMap.Endianness;
+import org.omnaest.pi.service.i2c.RegisterMap.RegisterAccessor;
+import org.omnaest.pi.service.i2c.RegisterMap.Volatility;
+import org.omnaest.pi.service.i2c.WaitStrategies;
+import org.omnaest.pi.service.i2c.internal.I2CBusTimingModel.Mode;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+import org.omnaest.pi.service.i2c.trace.I2CTraceReplayer;
+import org.omnaest.pi.service.i2c.trace.I2CTraceWriter;
 
 public class SimulatedI2CServiceImplTest
 {
@@ -149,6 +174,368 @@ public class SimulatedI2CServiceImplTest
                                      .readAsBigEndianUnsignedInteger());
     }
 
+    @Test
+    public void testAccessBitsReadsFromBitIndex()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+        this.simulation.presetRegister(0, 0x2A, 0x02, (byte) 0b01010001);
+
+        assertEquals(0b101, connector.accessRegister(0x02)
+                                     .accessBits(4, 3)
+                                     .readAsLittleEndianUnsignedInteger());
+    }
+
+    @Test
+    public void testAccessBitsWithBitIndexAndSignedRead()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+        Register register = connector.accessRegister(0x02);
+        register.writeByte((byte) 0b10000001);
+
+        // bits 4..6 are replaced, the bits around the field stay untouched
+        register.accessBits(4, 3)
+                .write(0b101);
+        assertEquals((byte) 0b11010001, register.readByte());
+        assertEquals(0b101, register.accessBits(4, 3)
+                                    .readAsBigEndianUnsignedInteger());
+        assertEquals(0b101, register.accessBits(4, 3)
+                                    .read()
+                                    .toInt());
+
+        // 24 bit ADC value 0xFFFF38 (-200) stored most significant byte first
+        this.simulation.presetRegister(0, 0x2A, 0x12, (byte) 0xFF, (byte) 0xFF, (byte) 0x38);
+        assertEquals(-200, connector.accessRegister(0x12)
+                                    .accessBits(24)
+                                    .readAsBigEndianSignedInteger());
+        assertEquals(0xFFFF38l, connector.accessRegister(0x12)
+                                         .accessBits(24)
+                                         .readAsBigEndianUnsignedLong());
+        assertEquals(0x38FFFFl, connector.accessRegister(0x12)
+                                         .accessBits(24)
+                                         .readAsLittleEndianUnsignedLong());
+    }
+
+    @Test
+    public void testMetrics()
+    {
+        AddressConnector connector = this.simulation.provision(3)
+                                                    .orElseThrow()
+                                                    .connectTo(0x77)
+                                                    .orElseThrow();
+        connector.write(0xF4, (byte) 0x2E);
+        connector.read(0xF6, 0, 2);
+        connector.read(0xF6, new byte[3], 0, 3);
+        connector.waitUntil(c -> true);
+
+        BusMetrics busMetrics = this.simulation.getMetrics()
+                                               .getBuses()
+                                               .stream()
+                                               .filter(bus -> bus.getBusNumber() == 3)
+                                               .findFirst()
+                                               .orElseThrow();
+        assertEquals(5, busMetrics.getBytesRead());
+        assertEquals(2, busMetrics.getBytesWritten());
+        assertEquals(0, busMetrics.getNumberOfErrors());
+        assertTrue(busMetrics.getBusOccupancyInPercent() >= 0.0);
+
+        DeviceMetrics deviceMetrics = busMetrics.getDevices()
+                                                .get(0);
+        assertEquals(0x77, deviceMetrics.getDeviceAddress());
+        assertEquals(2, deviceMetrics.getRead()
+                                     .getCount());
+        assertEquals(1, deviceMetrics.getWrite()
+                                     .getCount());
+        assertEquals(1, deviceMetrics.getWait()
+                                     .getCount());
+        assertTrue(deviceMetrics.getRead()
+                                .getMaxInMicroseconds() >= deviceMetrics.getRead()
+                                                                        .getP50InMicroseconds());
+    }
+
+    private static enum TestField
+    {
+        READY, GAINS, CHANNEL, ADC, PRESSURE
+    }
+
+    @Test
+    public void testRegisterMap()
+    {
+        RegisterMap<TestField> registerMap = RegisterMap.builder(TestField.class)
+                                                        .bit(TestField.READY, 0x00, 5, Volatility.VOLATILE)
+                                                        .bits(TestField.GAINS, 0x01, 0, 3, Volatility.CACHED)
+                                                        .bit(TestField.CHANNEL, 0x01, 7, Volatility.CACHED)
+                                                        .value(TestField.ADC, 0x12, 24, Endianness.BIG_ENDIAN, true, Volatility.VOLATILE)
+                                                        .value(TestField.PRESSURE, 0x28, 24, Endianness.LITTLE_ENDIAN, false, Volatility.VOLATILE)
+                                                        .build();
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+        RegisterAccessor<TestField> accessor = registerMap.bind(connector);
+
+        // the compiled accessors are reused instead of being created per access
+        assertTrue(accessor.bit(TestField.READY) == accessor.bit(TestField.READY));
+        assertTrue(accessor.bits(TestField.GAINS) == accessor.bits(TestField.GAINS));
+
+        this.simulation.presetRegister(0, 0x2A, 0x00, (byte) 0b00100000);
+        assertTrue(accessor.isSet(TestField.READY));
+
+        accessor.write(TestField.GAINS, 0x7)
+                .write(TestField.CHANNEL, true);
+        assertArrayEquals(new byte[] { (byte) 0b10000111 }, this.simulation.readRegister(0, 0x2A, 0x01, 1)
+                                                                           .get());
+        assertEquals(0x7, accessor.read(TestField.GAINS));
+
+        this.simulation.presetRegister(0, 0x2A, 0x12, (byte) 0xFF, (byte) 0xFF, (byte) 0x38);
+        assertEquals(-200, accessor.read(TestField.ADC));
+        accessor.write(TestField.ADC, 0x123456);
+        assertArrayEquals(new byte[] { 0x12, 0x34, 0x56 }, this.simulation.readRegister(0, 0x2A, 0x12, 3)
+                                                                          .get());
+
+        this.simulation.presetRegister(0, 0x2A, 0x28, (byte) 0x56, (byte) 0x34, (byte) 0x12);
+        assertEquals(0x123456, accessor.read(TestField.PRESSURE));
+
+        assertThrows(IllegalArgumentException.class, () -> accessor.bit(TestField.GAINS));
+        assertThrows(IllegalStateException.class, () -> RegisterMap.builder(TestField.class)
+                                                                   .bit(TestField.READY, 0x00, 5, Volatility.VOLATILE)
+                                                                   .build());
+        assertThrows(IllegalArgumentException.class, () -> RegisterMap.builder(TestField.class)
+                                                                      .bit(TestField.READY, 0x00, 5, Volatility.VOLATILE)
+                                                                      .bit(TestField.READY, 0x00, 6, Volatility.VOLATILE));
+
+        // the volatile ADC value spans the register 0x13, which must not be cached for the channel bit
+        assertThrows(IllegalStateException.class, () -> RegisterMap.builder(TestField.class)
+                                                                   .bit(TestField.READY, 0x00, 5, Volatility.VOLATILE)
+                                                                   .bits(TestField.GAINS, 0x01, 0, 3, Volatility.CACHED)
+                                                                   .bit(TestField.CHANNEL, 0x13, 7, Volatility.CACHED)
+                                                                   .value(TestField.ADC, 0x12, 24, Endianness.BIG_ENDIAN, true, Volatility.VOLATILE)
+                                                                   .value(TestField.PRESSURE, 0x28, 24, Endianness.LITTLE_ENDIAN, false, Volatility.VOLATILE)
+                                                                   .build());
+    }
+
+    @Test
+    public void testCachedRegisterServesShadowCopyUntilInvalidated()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+        this.simulation.presetRegister(0, 0x2A, 0x01, (byte) 0x27);
+
+        Register register = connector.accessCachedRegister(0x01);
+        assertEquals((byte) 0x27, register.readByte());
+
+        // a change behind the back of the connector is not seen, as the shadow copy is served
+        this.simulation.presetRegister(0, 0x2A, 0x01, (byte) 0x11);
+        assertEquals((byte) 0x27, register.readByte());
+
+        connector.invalidateRegisterCache();
+        assertEquals((byte) 0x11, register.readByte());
+    }
+
+    @Test
+    public void testCachedRegisterBitWritesReachDevice()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+        this.simulation.presetRegister(0, 0x2A, 0x02, (byte) 0b00000001);
+
+        Register register = connector.accessCachedRegister(0x02);
+        register.accessBit(7)
+                .writeValue(true);
+        register.accessBits(4, 3)
+                .write(0b011);
+
+        assertArrayEquals(new byte[] {(byte) 0b10110001}, this.simulation.readRegister(0, 0x2A, 0x02, 1)
+                                                                         .orElseThrow());
+        assertTrue(register.accessBit(7)
+                           .readValue());
+        assertEquals(0b011, register.accessBits(4, 3)
+                                    .readAsLittleEndianUnsignedInteger());
+    }
+
+    @Test
+    public void testUncachedWriteDropsShadowCopy()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x2A)
+                                                    .orElseThrow();
+
+        Register cachedRegister = connector.accessCachedRegister(0x03);
+        cachedRegister.writeByte((byte) 0x0F);
+
+        connector.accessRegister(0x03)
+                 .writeByte((byte) 0x3C);
+        assertEquals((byte) 0x3C, cachedRegister.readByte());
+    }
+
+    @Test
+    public void testTransactionReturnsAllReadsInOrder()
+    {
+        AddressConnector connector = this.simulation.provision(BusNumber.BUS_1)
+                                                    .orElseThrow()
+                                                    .connectTo(0x76)
+                                                    .orElseThrow();
+        this.simulation.presetRegister(BusNumber.BUS_1.ordinal(), 0x76, 0xA2, (byte) 0x12, (byte) 0x34, (byte) 0x56, (byte) 0x78);
+
+        TransactionResult result = connector.transaction()
+                                            .write(0x10, (byte) 0x01)
+                                            .read(0xA2, 2)
+                                            .delay(1, TimeUnit.MILLISECONDS)
+                                            .read(0xA4, 2)
+                                            .read(0x10, 1)
+                                            .execute()
+                                            .orElseThrow();
+
+        assertEquals(3, result.size());
+        assertArrayEquals(new byte[] {0x12, 0x34}, result.get(0)
+                                                         .get());
+        assertArrayEquals(new byte[] {0x56, 0x78}, result.get(1)
+                                                         .get());
+        assertArrayEquals(new byte[] {0x01}, result.get(2)
+                                                   .get());
+    }
+
+    @Test
+    public void testTransactionCountsOneBusTransactionPerMessage()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x1E)
+                                                    .orElseThrow();
+
+        connector.write(0xB, (byte) 0x01)
+                 .write(0x9, (byte) 0x1D)
+                 .read(0x00, 0, 6);
+        assertEquals(3, this.simulation.getNumberOfBusTransactions(0, 0x1E));
+
+        // a transaction saves the scheduling, but every read and write is still a message of its own
+        this.simulation.reset(0, 0x1E);
+        connector.transaction()
+                 .write(0xB, (byte) 0x01)
+                 .write(0x9, (byte) 0x1D)
+                 .read(0x00, 6)
+                 .execute()
+                 .orElseThrow();
+        assertEquals(3, this.simulation.getNumberOfBusTransactions(0, 0x1E));
+
+        // a raw command directly followed by a raw read is a single combined write-then-read message
+        this.simulation.reset(0, 0x1E);
+        connector.transaction()
+                 .write((byte) 0x00)
+                 .read(3)
+                 .execute()
+                 .orElseThrow();
+        assertEquals(1, this.simulation.getNumberOfBusTransactions(0, 0x1E));
+
+        this.simulation.reset(0, 0x1E);
+        connector.transaction()
+                 .write((byte) 0x40)
+                 .delay(1, TimeUnit.MILLISECONDS)
+                 .read(0x00, 3)
+                 .execute()
+                 .orElseThrow();
+        assertEquals(2, this.simulation.getNumberOfBusTransactions(0, 0x1E));
+    }
+
+    @Test
+    public void testReadIntoCallerSuppliedBuffer()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x68)
+                                                    .orElseThrow();
+        this.simulation.presetRegister(0, 0x68, 67, (byte) 0xFF, (byte) 0x38, (byte) 0x01, (byte) 0x02);
+
+        byte[] buffer = new byte[6];
+        assertTrue(connector.read(67, buffer, 2, 4));
+        assertArrayEquals(new byte[] {0, 0, (byte) 0xFF, 0x38, 0x01, 0x02}, buffer);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(4);
+        assertTrue(connector.read(67, byteBuffer));
+        assertEquals(4, byteBuffer.position());
+        assertEquals(0xFF380102, byteBuffer.getInt(0));
+    }
+
+    @Test
+    public void testByteArrayDecodeHelpers()
+    {
+        byte[] data = new byte[] {(byte) 0xFF, (byte) 0x38, (byte) 0x80, (byte) 0x01};
+
+        assertEquals(-200, ByteArray.decodeInt16(data, 0, ByteOrder.BIG_ENDIAN));
+        assertEquals(0xFF38, ByteArray.decodeUnsignedInt16(data, 0, ByteOrder.BIG_ENDIAN));
+        assertEquals(0x38FF, ByteArray.decodeUnsignedInt16(data, 0, ByteOrder.LITTLE_ENDIAN));
+        assertEquals(0xFF3880, ByteArray.decodeUnsignedInt24(data, 0, ByteOrder.BIG_ENDIAN));
+        assertEquals(0xFF3880 - 0x1000000, ByteArray.decodeInt24(data, 0, ByteOrder.BIG_ENDIAN));
+        assertEquals(0x8038FF - 0x1000000, ByteArray.decodeInt24(data, 0, ByteOrder.LITTLE_ENDIAN));
+        assertEquals(0xFF388001, ByteArray.decodeInt32(data, 0, ByteOrder.BIG_ENDIAN));
+        assertEquals(0x018038FFl, ByteArray.decodeUnsignedInt32(data, 0, ByteOrder.LITTLE_ENDIAN));
+        assertEquals(0xFF388001l, ByteArray.decodeUnsignedInt32(data, 0, ByteOrder.BIG_ENDIAN));
+
+        ByteArray byteArray = new ByteArray(data);
+        assertArrayEquals(new int[] {0xFF38, 0x8001}, byteArray.asIntArrayFromMsbToLsb());
+        assertEquals(0xFF38, byteArray.asIntFromMsbToLsb());
+        assertEquals(-200, byteArray.asInt16(0, ByteOrder.BIG_ENDIAN));
+    }
+
+    @Test
+    public void testAsyncWriteDelayAndRead() throws Exception
+    {
+        AsyncAddressConnector connector = this.simulation.provision(0)
+                                                         .orElseThrow()
+                                                         .connectTo(0x77)
+                                                         .orElseThrow()
+                                                         .async();
+
+        ByteArray result = connector.writeAsync(0xF6, (byte) 0x12, (byte) 0x34)
+                                    .thenCompose(c -> c.delayAsync(5, TimeUnit.MILLISECONDS))
+                                    .thenCompose(c -> c.readAsync(0xF6, 2))
+                                    .get(5, TimeUnit.SECONDS);
+        assertArrayEquals(new byte[] {0x12, 0x34}, result.get());
+    }
+
+    @Test
+    public void testAsyncWaitUntilCompletesWhenConditionIsMet() throws Exception
+    {
+        AsyncAddressConnector connector = this.simulation.provision(0)
+                                                         .orElseThrow()
+                                                         .connectTo(0x2A)
+                                                         .orElseThrow()
+                                                         .async();
+
+        CompletableFuture<AsyncAddressConnector> future = connector.waitUntilAsync(c -> c.accessRegister(0x00)
+                                                                                         .accessBit(5)
+                                                                                         .readValue(),
+                                                                                   5, TimeUnit.SECONDS);
+        assertFalse(future.isDone());
+
+        this.simulation.presetRegister(0, 0x2A, 0x00, (byte) 0b00100000);
+        assertEquals(connector, future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAsyncWaitUntilFailsAfterTimeout()
+    {
+        AsyncAddressConnector connector = this.simulation.provision(0)
+                                                         .orElseThrow()
+                                                         .connectTo(0x2A)
+                                                         .orElseThrow()
+                                                         .async();
+
+        CompletableFuture<AsyncAddressConnector> future = connector.waitUntilAsync(c -> false, 20, TimeUnit.MILLISECONDS);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+    }
+
     @Test
     public void testWaitUntilBitIsTrueReturnsImmediatelyWhenPreset()
     {
@@ -164,6 +551,150 @@ public class SimulatedI2CServiceImplTest
         assertEquals(connector, result);
     }
 
+    @Test
+    public void testWaitUntilTimeout()
+    {
+        AddressConnector connector = this.simulation.provision(0)
+                                                    .orElseThrow()
+                                                    .connectTo(0x5E)
+                                                    .orElseThrow()
+                                                    .withWaitStrategy(WaitStrategies.fixedInterval(1, TimeUnit.MILLISECONDS));
+
+        assertThrows(IllegalStateException.class, () -> connector.waitUntil(c -> false, 20, TimeUnit.MILLISECONDS));
+        assertEquals(1, connector.getWaitStatistics()
+                                 .getNumberOfTimeouts());
+    }
+
+    @Test
+    public void testWaitStrategyAndWaitStatisticsPerDevice()
+    {
+        AddressConnector deviceConnector = this.simulation.provision(0)
+                                                          .orElseThrow()
+                                                          .connectTo(0x5C)
+                                                          .orElseThrow();
+        AddressConnector connector = deviceConnector.withWaitStrategy(WaitStrategies.exponentialBackoff(1, 4, TimeUnit.MILLISECONDS));
+
+        AtomicInteger numberOfChecks = new AtomicInteger();
+        connector.waitUntil(c -> numberOfChecks.incrementAndGet() >= 4);
+
+        WaitStatistics statistics = connector.getWaitStatistics();
+        assertEquals("exponentialBackoff(1000us,4000us)", statistics.getWaitStrategy());
+        assertEquals(1, statistics.getNumberOfWaits());
+        assertEquals(4, statistics.getNumberOfChecks());
+        assertEquals(0, statistics.getNumberOfTimeouts());
+        assertTrue(statistics.getMaxWaitTimeInMilliseconds() >= 7.0);
+
+        // the view does not change the wait strategy of the device connector, but shares its statistics
+        assertEquals("fixedInterval(10ms)", deviceConnector.getWaitStatistics()
+                                                           .getWaitStrategy());
+        assertEquals(1, deviceConnector.getWaitStatistics()
+                                       .getNumberOfWaits());
+        assertEquals("fixedInterval(10ms)", this.simulation.provision(0)
+                                                           .orElseThrow()
+                                                           .connectTo(0x5D)
+                                                           .orElseThrow()
+                                                           .getWaitStatistics()
+                                                           .getWaitStrategy());
+    }
+
+    @Test
+    public void testTraceReplay(@TempDir Path directory)
+    {
+        Path traceFile = directory.resolve("i2c.trace");
+        try (I2CTraceWriter traceWriter = I2CTraceWriter.open(traceFile, 4096))
+        {
+            long startTime = System.nanoTime();
+            traceWriter.record(1, 0x5C, Operation.WRITE, 0x10, new byte[] {0x50}, 0, 1, startTime, 1000, true);
+            traceWriter.record(1, 0x5C, Operation.READ, 0x28, new byte[] {0x01, 0x02, 0x03}, 0, 3, startTime, 2000000, true);
+            traceWriter.record(1, 0x5C, Operation.READ, 0x28, new byte[] {0x04, 0x05, 0x06}, 0, 3, startTime, 2000000, true);
+            traceWriter.record(1, 0x5C, Operation.READ, 0x28, new byte[0], 0, 0, startTime, 1000, false);
+            traceWriter.record(1, 0x40, Operation.WRITE_AND_READ, I2CTraceRecord.NO_REGISTER, new byte[] {(byte) 0xE3}, new byte[] {0x66, 0x4C}, 0, 2,
+                               startTime, 1000, true);
+        }
+
+        assertEquals(4, new I2CTraceReplayer(this.simulation).replay(traceFile));
+
+        AddressConnector connector = this.simulation.provision(1)
+                                                    .orElseThrow()
+                                                    .connectTo(0x5C)
+                                                    .orElseThrow();
+        connector.write(0x10, (byte) 0x50);
+        long startTime = System.nanoTime();
+        assertArrayEquals(new byte[] {0x01, 0x02, 0x03}, connector.read(0x28, 0, 3)
+                                                                  .orElseThrow()
+                                                                  .get());
+        assertArrayEquals(new byte[] {0x04, 0x05, 0x06}, connector.read(0x28, 0, 3)
+                                                                  .orElseThrow()
+                                                                  .get());
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(4));
+
+        // once the queued responses are consumed the register data is served again
+        assertArrayEquals(new byte[] {0x04, 0x05, 0x06}, connector.read(0x28, 0, 3)
+                                                                  .orElseThrow()
+                                                                  .get());
+
+        // a traced command and its result are replayed for the local address of the command
+        assertArrayEquals(new byte[] {0x66, 0x4C}, this.simulation.provision(1)
+                                                                  .orElseThrow()
+                                                                  .connectTo(0x40)
+                                                                  .orElseThrow()
+                                                                  .transaction()
+                                                                  .write((byte) 0xE3)
+                                                                  .read(2)
+                                                                  .execute()
+                                                                  .orElseThrow()
+                                                                  .get(0)
+                                                                  .get());
+    }
+
+    @Test
+    public void testVirtualTimingModel()
+    {
+        SimulatedI2CServiceImpl simulation = new SimulatedI2CServiceImpl(SimulatedI2CServiceImpl.DEFAULT_PAGE_SIZE,
+                                                                         new I2CBusTimingModel(Mode.VIRTUAL_TIME, 100000, 50000));
+        AddressConnector connector = simulation.provision(1)
+                                               .orElseThrow()
+                                               .connectTo(0x77)
+                                               .orElseThrow();
+        connector.read(0x10, 0, 2);
+        connector.write(0x20, (byte) 0x01);
+
+        // 50us overhead plus 90us per byte at 100kHz: read of 2 + 3 bytes, write of 1 + 2 bytes
+        assertEquals(500000 + 320000, simulation.getTimingModel()
+                                                .getBusTimeInNanos(1));
+        assertEquals(0, simulation.getTimingModel()
+                                  .getBusTimeInNanos(0));
+    }
+
+    @Test
+    public void testRealTimeTimingModel()
+    {
+        SimulatedI2CServiceImpl simulation = new SimulatedI2CServiceImpl(SimulatedI2CServiceImpl.DEFAULT_PAGE_SIZE,
+                                                                         new I2CBusTimingModel(Mode.REAL_TIME, 100000, 0));
+        AddressConnector connector = simulation.provision(1)
+                                               .orElseThrow()
+                                               .connectTo(0x77)
+                                               .orElseThrow();
+        long startTime = System.nanoTime();
+        connector.read(0x10, 0, 8);
+        assertTrue(System.nanoTime() - startTime >= 990000);
+    }
+
+    @Test
+    public void testAccessBeyondRegisterPage()
+    {
+        SimulatedI2CServiceImpl simulation = new SimulatedI2CServiceImpl(16, I2CBusTimingModel.none());
+        simulation.presetRegister(0, 0x40, 14, (byte) 0x11, (byte) 0x22);
+        assertThrows(IllegalArgumentException.class, () -> simulation.presetRegister(0, 0x40, 16, (byte) 0x11));
+
+        // like the auto incremented address pointer of a device, a burst access beyond the last register wraps around
+        simulation.presetRegister(0, 0x40, 15, (byte) 0x33, (byte) 0x44);
+        assertArrayEquals(new byte[] {0x11, 0x33, 0x44, 0x00}, simulation.readRegister(0, 0x40, 14, 4)
+                                                                         .orElseThrow());
+        assertEquals(40, simulation.readRegister(0, 0x40, 15, 40)
+                                   .orElseThrow().length);
+    }
+
     @Test
     public void testResetClearsAllDevices()
     {
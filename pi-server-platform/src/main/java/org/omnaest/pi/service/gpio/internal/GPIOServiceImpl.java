@@ -18,14 +18,24 @@
 */
 package org.omnaest.pi.service.gpio.internal;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
+import org.omnaest.pi.service.gpio.DigitalInputPipeline;
+import org.omnaest.pi.service.gpio.EdgeRingBuffer;
 import org.omnaest.pi.service.gpio.GPIOService;
+import org.omnaest.pi.service.gpio.PulseMeter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
@@ -36,28 +46,55 @@ import com.pi4j.io.gpio.GpioFactory;
 import com.pi4j.io.gpio.GpioPinDigitalInput;
 import com.pi4j.io.gpio.GpioPinDigitalOutput;
 import com.pi4j.io.gpio.GpioPinPwmOutput;
-import com.pi4j.io.gpio.PinEdge;
 import com.pi4j.io.gpio.PinMode;
 import com.pi4j.io.gpio.PinPullResistance;
 import com.pi4j.io.gpio.PinState;
 import com.pi4j.io.gpio.RaspiPin;
-import com.pi4j.io.gpio.event.GpioPinDigitalStateChangeEvent;
-import com.pi4j.io.gpio.event.GpioPinListenerDigital;
-import com.pi4j.io.gpio.event.PinEventType;
+import com.pi4j.wiringpi.GpioInterrupt;
+import com.pi4j.wiringpi.GpioInterruptEvent;
+import com.pi4j.wiringpi.GpioInterruptListener;
+import com.pi4j.wiringpi.GpioUtil;
 
 @Service
 @Profile("!simulation")
 public class GPIOServiceImpl implements GPIOService
 {
-    private static Logger                            LOG                    = LoggerFactory.getLogger(GPIOServiceImpl.class);
+    private static Logger                                    LOG                    = LoggerFactory.getLogger(GPIOServiceImpl.class);
 
-    private static final int                         PWM_DEFAULT_RANGE      = 100;
+    private static final int                                 PWM_DEFAULT_RANGE      = 100;
 
-    private GpioController                           gpioController;
+    /**
+     * Number of WiringPi pin addresses of {@link RaspiPin}, which index the pin tables
+     */
+    private static final int                                 PIN_TABLE_SIZE         = 32;
 
-    private final Map<Integer, GpioPinDigitalOutput> portToDigitalOutputPin = new ConcurrentHashMap<>();
-    private final Map<Integer, GpioPinDigitalInput>  portToDigitalInputPin  = new ConcurrentHashMap<>();
-    private final Map<Integer, GpioPinPwmOutput>     portToPWMOutputPin     = new ConcurrentHashMap<>();
+    /**
+     * Pin handles log only every 1024th call on trace level
+     */
+    private static final int                                 TRACE_SAMPLE_MASK      = 0x3FF;
+
+    private GpioController                                   gpioController;
+
+    private final Map<Integer, GpioPinDigitalOutput>         portToDigitalOutputPin = new ConcurrentHashMap<>();
+    private final Map<Integer, GpioPinDigitalInput>          portToDigitalInputPin  = new ConcurrentHashMap<>();
+    private final Map<Integer, GpioPinPwmOutput>             portToPWMOutputPin     = new ConcurrentHashMap<>();
+
+    /*
+     * The pin tables mirror the enabled digital pins of the maps above, so the state accessors and the pin handles resolve a pin by an
+     * array index instead of a map lookup
+     */
+    private final AtomicReferenceArray<GpioPinDigitalOutput> digitalOutputPinTable  = new AtomicReferenceArray<>(PIN_TABLE_SIZE);
+    private final AtomicReferenceArray<GpioPinDigitalInput>  digitalInputPinTable   = new AtomicReferenceArray<>(PIN_TABLE_SIZE);
+
+    private final Map<Integer, DigitalInputPipeline>         portToInputPipeline    = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<DigitalInputPipeline> inputPipelineTable     = new AtomicReferenceArray<>(PIN_TABLE_SIZE);
+
+    /**
+     * Receives the edges of all enabled input pins directly on the native pi4j thread, which waits for the edge interrupt of the pin. The
+     * timestamp is taken right there, so it does not include the latency of the pi4j event executor, which dispatches the events of the
+     * {@link GpioPinDigitalInput} listeners.
+     */
+    private final GpioInterruptListener                      interruptListener      = this::handleInterrupt;
 
     @PostConstruct
     public void init()
@@ -65,6 +102,7 @@ public class GPIOServiceImpl implements GPIOService
         try
         {
             this.gpioController = GpioFactory.getInstance();
+            GpioInterrupt.addListener(this.interruptListener);
         }
         catch (UnsatisfiedLinkError e)
         {
@@ -72,9 +110,21 @@ public class GPIOServiceImpl implements GPIOService
         }
     }
 
+    private void handleInterrupt(GpioInterruptEvent event)
+    {
+        long timestamp = System.nanoTime();
+        int port = event.getPin();
+        DigitalInputPipeline pipeline = port >= 0 && port < PIN_TABLE_SIZE ? this.inputPipelineTable.get(port) : null;
+        if (pipeline != null)
+        {
+            pipeline.onEdge(timestamp, event.getState());
+        }
+    }
+
     @PreDestroy
     public void destroy()
     {
+        GpioInterrupt.removeListener(this.interruptListener);
         this.gpioController.removeAllListeners();
         this.gpioController.shutdown();
     }
@@ -82,11 +132,13 @@ public class GPIOServiceImpl implements GPIOService
     @Override
     public void enableGPIOPortForDigitalOutput(int port)
     {
+        validatePort(port);
         if (!this.portToDigitalOutputPin.containsKey(port))
         {
             GpioPinDigitalOutput pin = this.gpioController.provisionDigitalOutputPin(RaspiPin.getPinByAddress(port));
             this.gpioController.export(PinMode.DIGITAL_OUTPUT, pin);
             this.portToDigitalOutputPin.put(port, pin);
+            this.digitalOutputPinTable.set(port, pin);
             LOG.info("Enabled port " + port + " for digital output");
         }
     }
@@ -94,6 +146,7 @@ public class GPIOServiceImpl implements GPIOService
     @Override
     public void enableGPIOPortForPWM(int port)
     {
+        validatePort(port);
         GpioPinPwmOutput pin = this.gpioController.provisionPwmOutputPin(RaspiPin.getPinByAddress(port));
         this.gpioController.export(PinMode.PWM_OUTPUT, pin);
         this.portToPWMOutputPin.put(port, pin);
@@ -120,6 +173,7 @@ public class GPIOServiceImpl implements GPIOService
     @Override
     public PwmGPIOPort getPwmGPIOPort(int port)
     {
+        validatePort(port);
         GpioController gpioController = this.gpioController;
         Map<Integer, GpioPinPwmOutput> portToPWMOutputPin = this.portToPWMOutputPin;
         return new PwmGPIOPort() {
@@ -176,8 +230,10 @@ public class GPIOServiceImpl implements GPIOService
     @Override
     public DigitalOutputGPIOPort getDigitalOutputGPIOPort(int port)
     {
+        validatePort(port);
         GpioController gpioController = this.gpioController;
         Map<Integer, GpioPinDigitalOutput> portToDigitalOutputPin = this.portToDigitalOutputPin;
+        AtomicReferenceArray<GpioPinDigitalOutput> digitalOutputPinTable = this.digitalOutputPinTable;
         return new DigitalOutputGPIOPort() {
             @Override
             public DigitalOutputGPIOPort enable()
@@ -186,6 +242,7 @@ public class GPIOServiceImpl implements GPIOService
                 {
                     GpioPinDigitalOutput pin = gpioController.provisionDigitalOutputPin(RaspiPin.getPinByAddress(digitalPort));
                     gpioController.export(PinMode.DIGITAL_OUTPUT, pin);
+                    digitalOutputPinTable.set(digitalPort, pin);
                     LOG.info("Enabled port " + port + " for digital output");
                     return pin;
                 });
@@ -197,6 +254,7 @@ public class GPIOServiceImpl implements GPIOService
             {
                 portToDigitalOutputPin.computeIfPresent(port, (digitalPort, pin) ->
                 {
+                    digitalOutputPinTable.set(digitalPort, null);
                     gpioController.unexport(pin);
                     gpioController.unprovisionPin(pin);
                     LOG.info("Disabled port " + digitalPort + " for digital output");
@@ -208,7 +266,7 @@ public class GPIOServiceImpl implements GPIOService
             @Override
             public boolean getState()
             {
-                GpioPinDigitalOutput pin = portToDigitalOutputPin.get(port);
+                GpioPinDigitalOutput pin = digitalOutputPinTable.get(port);
                 boolean active = PinState.HIGH.equals(gpioController.getState(pin));
                 LOG.info("Gets the state for digital output port " + port + ": " + active);
                 return active;
@@ -217,7 +275,7 @@ public class GPIOServiceImpl implements GPIOService
             @Override
             public DigitalOutputGPIOPort setState(boolean active)
             {
-                GpioPinDigitalOutput pin = portToDigitalOutputPin.get(port);
+                GpioPinDigitalOutput pin = digitalOutputPinTable.get(port);
                 gpioController.setState(active, pin);
                 LOG.info("Sets the state for digital output port " + port + " to " + active);
                 return this;
@@ -229,6 +287,17 @@ public class GPIOServiceImpl implements GPIOService
                 return portToDigitalOutputPin.containsKey(port);
             }
 
+            @Override
+            public DigitalOutputPinHandle asPinHandle()
+            {
+                GpioPinDigitalOutput pin = digitalOutputPinTable.get(port);
+                if (pin == null)
+                {
+                    throw new IllegalStateException("Port " + port + " is not enabled for digital output");
+                }
+                return new DigitalOutputPinHandleImpl(port, pin);
+            }
+
             @Override
             public String toString()
             {
@@ -246,22 +315,340 @@ public class GPIOServiceImpl implements GPIOService
     @Override
     public DigitalInputGPIOPort getDigitalInputGPIOPort(int port)
     {
+        validatePort(port);
         GpioController gpioController = this.gpioController;
         Map<Integer, GpioPinDigitalInput> portToDigitalInputPin = this.portToDigitalInputPin;
-        return new DigitalInputGPIOPortImpl(portToDigitalInputPin, port, gpioController);
+        return new DigitalInputGPIOPortImpl(portToDigitalInputPin, this.digitalInputPinTable, this.portToInputPipeline, this.inputPipelineTable, port,
+                                            gpioController);
     }
 
-    private static class DigitalInputGPIOPortImpl implements DigitalInputGPIOPort
+    @Override
+    public List<DigitalInputMetrics> getDigitalInputMetrics()
+    {
+        return this.portToInputPipeline.values()
+                                       .stream()
+                                       .map(DigitalInputPipeline::getMetrics)
+                                       .sorted(Comparator.comparing(DigitalInputMetrics::getPort))
+                                       .collect(Collectors.toList());
+    }
+
+    @Override
+    public DigitalOutputGPIOPortGroup getDigitalOutputGPIOPortGroup(int... ports)
+    {
+        return new DigitalOutputGPIOPortGroupImpl(this.validatePorts(ports));
+    }
+
+    @Override
+    public DigitalInputGPIOPortGroup getDigitalInputGPIOPortGroup(int... ports)
+    {
+        return new DigitalInputGPIOPortGroupImpl(this.validatePorts(ports));
+    }
+
+    private int[] validatePorts(int[] ports)
+    {
+        if (ports.length == 0 || ports.length > 64)
+        {
+            throw new IllegalArgumentException("A port group needs between 1 and 64 ports: " + Arrays.toString(ports));
+        }
+        if (IntStream.of(ports)
+                     .distinct()
+                     .count() != ports.length)
+        {
+            throw new IllegalArgumentException("A port group must not contain a port twice: " + Arrays.toString(ports));
+        }
+        IntStream.of(ports)
+                 .forEach(GPIOServiceImpl::validatePort);
+        return ports.clone();
+    }
+
+    private static void validatePort(int port)
+    {
+        if (port < 0 || port >= PIN_TABLE_SIZE)
+        {
+            throw new IllegalArgumentException("Port must be between 0 and " + (PIN_TABLE_SIZE - 1) + ": " + port);
+        }
+    }
+
+    private static long allPortsMask(int[] ports)
+    {
+        return ports.length == 64 ? -1L : (1L << ports.length) - 1;
+    }
+
+    private static List<Integer> asList(int[] ports)
+    {
+        return IntStream.of(ports)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * pi4j offers no bank wide register write, so a group change is done by one multi pin call for the cleared and one for the set pins,
+     * clearing first to never drive mutually exclusive pins high together
+     */
+    private class DigitalOutputGPIOPortGroupImpl implements DigitalOutputGPIOPortGroup
     {
-        private final Map<Integer, GpioPinDigitalInput> portToDigitalInputPin;
-        private final int                               port;
-        private final GpioController                    gpioController;
-        private PinPullResistance                       pullResistance = PinPullResistance.PULL_UP;
-        private boolean                                 enabled        = false;
+        private final int[]                   ports;
+        private final DigitalOutputGPIOPort[] digitalPorts;
+
+        public DigitalOutputGPIOPortGroupImpl(int[] ports)
+        {
+            this.ports = ports;
+            this.digitalPorts = IntStream.of(ports)
+                                         .mapToObj(GPIOServiceImpl.this::getDigitalOutputGPIOPort)
+                                         .toArray(DigitalOutputGPIOPort[]::new);
+        }
 
-        public DigitalInputGPIOPortImpl(Map<Integer, GpioPinDigitalInput> portToDigitalInputPin, int port, GpioController gpioController)
+        @Override
+        public DigitalOutputGPIOPortGroup enable()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalOutputGPIOPort::enable);
+            return this;
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup disable()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalOutputGPIOPort::disable);
+            return this;
+        }
+
+        @Override
+        public List<Integer> getPorts()
+        {
+            return asList(this.ports);
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup setStates(long setMask, long clearMask)
+        {
+            if ((setMask & clearMask) != 0 || ((setMask | clearMask) & ~allPortsMask(this.ports)) != 0)
+            {
+                throw new IllegalArgumentException("Invalid masks for ports " + Arrays.toString(this.ports) + ": set=" + Long.toBinaryString(setMask)
+                                                   + ", clear=" + Long.toBinaryString(clearMask));
+            }
+
+            GpioPinDigitalOutput[] clearPins = this.getPins(clearMask);
+            GpioPinDigitalOutput[] setPins = this.getPins(setMask);
+            if (clearPins.length > 0)
+            {
+                GPIOServiceImpl.this.gpioController.low(clearPins);
+            }
+            if (setPins.length > 0)
+            {
+                GPIOServiceImpl.this.gpioController.high(setPins);
+            }
+            LOG.debug("Sets the states for digital output ports " + Arrays.toString(this.ports) + ": set=" + Long.toBinaryString(setMask) + ", clear="
+                    + Long.toBinaryString(clearMask));
+            return this;
+        }
+
+        @Override
+        public DigitalOutputGPIOPortGroup setStates(long states)
+        {
+            long mask = allPortsMask(this.ports);
+            return this.setStates(states & mask, ~states & mask);
+        }
+
+        @Override
+        public long getStates()
+        {
+            long states = 0;
+            for (int ii = 0; ii < this.ports.length; ii++)
+            {
+                if (this.getPin(ii)
+                        .isHigh())
+                {
+                    states |= 1L << ii;
+                }
+            }
+            return states;
+        }
+
+        private GpioPinDigitalOutput[] getPins(long mask)
+        {
+            return IntStream.range(0, this.ports.length)
+                            .filter(index -> (mask & (1L << index)) != 0)
+                            .mapToObj(this::getPin)
+                            .toArray(GpioPinDigitalOutput[]::new);
+        }
+
+        private GpioPinDigitalOutput getPin(int index)
+        {
+            GpioPinDigitalOutput pin = GPIOServiceImpl.this.digitalOutputPinTable.get(this.ports[index]);
+            if (pin == null)
+            {
+                throw new IllegalStateException("Port " + this.ports[index] + " is not enabled for digital output");
+            }
+            return pin;
+        }
+    }
+
+    private class DigitalInputGPIOPortGroupImpl implements DigitalInputGPIOPortGroup
+    {
+        private final int[]                  ports;
+        private final DigitalInputGPIOPort[] digitalPorts;
+
+        public DigitalInputGPIOPortGroupImpl(int[] ports)
+        {
+            this.ports = ports;
+            this.digitalPorts = IntStream.of(ports)
+                                         .mapToObj(GPIOServiceImpl.this::getDigitalInputGPIOPort)
+                                         .toArray(DigitalInputGPIOPort[]::new);
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup enable()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalInputGPIOPort::enable);
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup disable()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalInputGPIOPort::disable);
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup withNoPullResistance()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalInputGPIOPort::withNoPullResistance);
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup withPullDownResistance()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalInputGPIOPort::withPullDownResistance);
+            return this;
+        }
+
+        @Override
+        public DigitalInputGPIOPortGroup withPullUpResistance()
+        {
+            Arrays.stream(this.digitalPorts)
+                  .forEach(DigitalInputGPIOPort::withPullUpResistance);
+            return this;
+        }
+
+        @Override
+        public List<Integer> getPorts()
+        {
+            return asList(this.ports);
+        }
+
+        @Override
+        public long getStates()
+        {
+            long states = 0;
+            for (int ii = 0; ii < this.ports.length; ii++)
+            {
+                GpioPinDigitalInput pin = GPIOServiceImpl.this.digitalInputPinTable.get(this.ports[ii]);
+                if (pin == null)
+                {
+                    throw new IllegalStateException("Port " + this.ports[ii] + " is not enabled for digital input");
+                }
+                if (pin.isHigh())
+                {
+                    states |= 1L << ii;
+                }
+            }
+            return states;
+        }
+    }
+
+    private static class DigitalOutputPinHandleImpl implements DigitalOutputPinHandle
+    {
+        private final int                  port;
+        private final GpioPinDigitalOutput pin;
+        private int                        calls = 0;
+
+        public DigitalOutputPinHandleImpl(int port, GpioPinDigitalOutput pin)
+        {
+            this.port = port;
+            this.pin = pin;
+        }
+
+        @Override
+        public int getPort()
+        {
+            return this.port;
+        }
+
+        @Override
+        public boolean getState()
+        {
+            return this.pin.isHigh();
+        }
+
+        @Override
+        public void setState(boolean active)
+        {
+            this.pin.setState(active);
+            if ((++this.calls & TRACE_SAMPLE_MASK) == 0 && LOG.isTraceEnabled())
+            {
+                LOG.trace("Set state of digital output port " + this.port + " to " + active + " (call " + this.calls + ")");
+            }
+        }
+    }
+
+    private static class DigitalInputPinHandleImpl implements DigitalInputPinHandle
+    {
+        private final int                 port;
+        private final GpioPinDigitalInput pin;
+        private int                       calls = 0;
+
+        public DigitalInputPinHandleImpl(int port, GpioPinDigitalInput pin)
+        {
+            this.port = port;
+            this.pin = pin;
+        }
+
+        @Override
+        public int getPort()
+        {
+            return this.port;
+        }
+
+        @Override
+        public boolean getState()
+        {
+            boolean active = this.pin.isHigh();
+            if ((++this.calls & TRACE_SAMPLE_MASK) == 0 && LOG.isTraceEnabled())
+            {
+                LOG.trace("Got state of digital input port " + this.port + ": " + active + " (call " + this.calls + ")");
+            }
+            return active;
+        }
+    }
+
+    private static class DigitalInputGPIOPortImpl implements DigitalInputGPIOPort
+    {
+        private final Map<Integer, GpioPinDigitalInput>          portToDigitalInputPin;
+        private final AtomicReferenceArray<GpioPinDigitalInput>  digitalInputPinTable;
+        private final Map<Integer, DigitalInputPipeline>         portToInputPipeline;
+        private final AtomicReferenceArray<DigitalInputPipeline> inputPipelineTable;
+        private final int                                        port;
+        private final GpioController                             gpioController;
+        private PinPullResistance                                pullResistance = PinPullResistance.PULL_UP;
+        private DigitalInputFilter                               filter         = null;
+        private boolean                                          enabled        = false;
+
+        public DigitalInputGPIOPortImpl(Map<Integer, GpioPinDigitalInput> portToDigitalInputPin, AtomicReferenceArray<GpioPinDigitalInput> digitalInputPinTable,
+                                        Map<Integer, DigitalInputPipeline> portToInputPipeline, AtomicReferenceArray<DigitalInputPipeline> inputPipelineTable,
+                                        int port, GpioController gpioController)
         {
             this.portToDigitalInputPin = portToDigitalInputPin;
+            this.digitalInputPinTable = digitalInputPinTable;
+            this.portToInputPipeline = portToInputPipeline;
+            this.inputPipelineTable = inputPipelineTable;
             this.port = port;
             this.gpioController = gpioController;
         }
@@ -298,6 +685,14 @@ public class GPIOServiceImpl implements GPIOService
             return this;
         }
 
+        @Override
+        public DigitalInputGPIOPort withInputFilter(DigitalInputFilter filter)
+        {
+            this.validatePortIsNotYetEnabled();
+            this.filter = filter;
+            return this;
+        }
+
         @Override
         public DigitalInputGPIOPort enable()
         {
@@ -305,18 +700,55 @@ public class GPIOServiceImpl implements GPIOService
             {
                 GpioPinDigitalInput pin = this.gpioController.provisionDigitalInputPin(RaspiPin.getPinByAddress(digitalPort), this.pullResistance);
                 this.gpioController.export(PinMode.DIGITAL_INPUT, pin);
+                this.digitalInputPinTable.set(digitalPort, pin);
+
+                // the edges are taken from the interrupt callback of the native pin monitor instead of a pin listener, which pi4j only
+                // calls after the hand-off to its shared event executor
+                DigitalInputPipeline pipeline = new DigitalInputPipeline(digitalPort, pin::isHigh);
+                this.portToInputPipeline.put(digitalPort, pipeline);
+                this.inputPipelineTable.set(digitalPort, pipeline);
+                GpioUtil.setEdgeDetection(digitalPort, GpioUtil.EDGE_BOTH);
+                if (GpioInterrupt.enablePinStateChangeCallback(digitalPort) < 0)
+                {
+                    throw new IllegalStateException("Unable to monitor the edges of port " + digitalPort);
+                }
+
                 this.enabled = true;
                 LOG.info("Enabled port " + this.port + " for digital input");
                 return pin;
             });
+            if (this.filter != null)
+            {
+                this.getPipeline()
+                    .setFilter(this.filter);
+                LOG.info("Filtering edges of port " + this.port + " with " + this.filter);
+            }
             return this;
         }
 
+        private DigitalInputPipeline getPipeline()
+        {
+            DigitalInputPipeline pipeline = this.portToInputPipeline.get(this.port);
+            if (pipeline == null)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital input");
+            }
+            return pipeline;
+        }
+
         @Override
         public DigitalInputGPIOPort disable()
         {
             this.portToDigitalInputPin.computeIfPresent(this.port, (digitalPort, pin) ->
             {
+                GpioInterrupt.disablePinStateChangeCallback(digitalPort);
+                this.digitalInputPinTable.set(digitalPort, null);
+                this.inputPipelineTable.set(digitalPort, null);
+                DigitalInputPipeline pipeline = this.portToInputPipeline.remove(digitalPort);
+                if (pipeline != null)
+                {
+                    pipeline.close();
+                }
                 pin.removeAllListeners();
                 pin.removeAllTriggers();
                 this.gpioController.unexport(pin);
@@ -334,10 +766,69 @@ public class GPIOServiceImpl implements GPIOService
             return this.enabled;
         }
 
+        @Override
+        public DigitalInputPinHandle asPinHandle()
+        {
+            GpioPinDigitalInput pin = this.digitalInputPinTable.get(this.port);
+            if (pin == null)
+            {
+                throw new IllegalStateException("Port " + this.port + " is not enabled for digital input");
+            }
+            return new DigitalInputPinHandleImpl(this.port, pin);
+        }
+
+        @Override
+        public DigitalInputEdgeRecorder recordEdges(int capacity)
+        {
+            EdgeRingBuffer edgeBuffer = this.getPipeline()
+                                            .getOrCreateEdgeBuffer(capacity);
+            LOG.info("Recording edges of port " + this.port + " into " + edgeBuffer);
+            return edgeBuffer;
+        }
+
+        @Override
+        public DigitalInputGPIOPort stopRecordingEdges()
+        {
+            DigitalInputPipeline pipeline = this.portToInputPipeline.get(this.port);
+            if (pipeline != null)
+            {
+                pipeline.removeEdgeBuffer();
+                LOG.info("Stopped to record edges of port " + this.port);
+            }
+            return this;
+        }
+
+        @Override
+        public DigitalInputPulseMeter measurePulses(int windowSize)
+        {
+            PulseMeter pulseMeter = this.getPipeline()
+                                        .getOrCreatePulseMeter(windowSize);
+            LOG.info("Measuring pulses of port " + this.port + " with " + pulseMeter);
+            return pulseMeter;
+        }
+
+        @Override
+        public DigitalInputGPIOPort stopMeasuringPulses()
+        {
+            DigitalInputPipeline pipeline = this.portToInputPipeline.get(this.port);
+            if (pipeline != null)
+            {
+                pipeline.removePulseMeter();
+                LOG.info("Stopped to measure pulses of port " + this.port);
+            }
+            return this;
+        }
+
         @Override
         public boolean getState()
         {
-            GpioPinDigitalInput pin = this.portToDigitalInputPin.get(this.port);
+            DigitalInputPipeline pipeline = this.portToInputPipeline.get(this.port);
+            if (pipeline != null && pipeline.hasFilter())
+            {
+                return pipeline.getLevel();
+            }
+
+            GpioPinDigitalInput pin = this.digitalInputPinTable.get(this.port);
             boolean active = PinState.HIGH.equals(this.gpioController.getState(pin));
             LOG.info("Gets the state for digital input port " + this.port + ": " + active);
             return active;
@@ -346,34 +837,8 @@ public class GPIOServiceImpl implements GPIOService
         @Override
         public DigitalInputGPIOPort addStateChangeListener(Consumer<DigitalInputPinStateChange> stateChangeListener)
         {
-            GpioPinDigitalInput pin = this.portToDigitalInputPin.get(this.port);
-            pin.addListener(new GpioPinListenerDigital() {
-                @Override
-                public void handleGpioPinDigitalStateChangeEvent(GpioPinDigitalStateChangeEvent event)
-                {
-                    PinEventType eventType = event.getEventType();
-                    if (PinEventType.DIGITAL_STATE_CHANGE.equals(eventType))
-                    {
-                        PinEdge edge = event.getEdge();
-                        if (PinEdge.FALLING.equals(edge))
-                        {
-                            stateChangeListener.accept(new DigitalInputPinStateChange(true, false));
-                        }
-                        else if (PinEdge.RISING.equals(edge))
-                        {
-                            stateChangeListener.accept(new DigitalInputPinStateChange(false, true));
-                        }
-                        else if (PinEdge.BOTH.equals(edge))
-                        {
-                            stateChangeListener.accept(new DigitalInputPinStateChange(true, true));
-                        }
-                        else if (PinEdge.NONE.equals(edge))
-                        {
-                            stateChangeListener.accept(new DigitalInputPinStateChange(false, false));
-                        }
-                    }
-                }
-            });
+            this.getPipeline()
+                .addListener(stateChangeListener);
             return this;
         }
 
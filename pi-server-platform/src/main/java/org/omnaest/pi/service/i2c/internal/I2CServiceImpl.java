@@ -1,14 +1,35 @@
 package org.omnaest.pi.service.i2c.internal;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
 
 import org.omnaest.pi.service.i2c.AbstractAddressConnector;
+import org.omnaest.pi.service.i2c.AsyncAddressConnectorImpl;
+import org.omnaest.pi.service.i2c.CircuitBreaker;
+import org.omnaest.pi.service.i2c.I2CBusScheduler;
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder;
+import org.omnaest.pi.service.i2c.I2CMetricsRecorder.DeviceRecorder;
 import org.omnaest.pi.service.i2c.I2CService;
+import org.omnaest.pi.service.i2c.RegisterCache;
+import org.omnaest.pi.service.i2c.TransactionStep;
+import org.omnaest.pi.service.i2c.TransactionStep.Type;
+import org.omnaest.pi.service.i2c.WaitControl;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord;
+import org.omnaest.pi.service.i2c.trace.I2CTraceRecord.Operation;
+import org.omnaest.pi.service.i2c.trace.I2CTraceWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
@@ -16,13 +37,53 @@ import com.pi4j.io.i2c.I2CBus;
 import com.pi4j.io.i2c.I2CDevice;
 import com.pi4j.io.i2c.I2CFactory;
 
+/**
+ * pi4j based {@link I2CService}. Every provisioned bus gets its own {@link I2CBusScheduler} thread which executes all accesses of that bus,
+ * so accesses from different request threads are serialized and ordered by their {@link Priority}. The duration of every device access
+ * on the bus is recorded by the {@link I2CMetricsRecorder}.<br>
+ * <br>
+ * Every device has a {@link CircuitBreaker}, which trips after {@code pi.i2c.circuit-breaker.failure-threshold} consecutive failed accesses.
+ * While it is open, reads fail and writes throw immediately without occupying the bus, and a failed connect is not retried, until after
+ * {@code pi.i2c.circuit-breaker.cooldown-millis} a single probing access is let through.<br>
+ * <br>
+ * If {@code pi.i2c.trace.file} is set, every device access is appended to that file by an {@link I2CTraceWriter}, so the traffic can be
+ * replayed on the simulation later.
+ */
 @Service
 @Profile("!simulation")
 public class I2CServiceImpl implements I2CService
 {
-    private static final Logger         LOG                   = LoggerFactory.getLogger(I2CServiceImpl.class);
+    private static final Logger           LOG                   = LoggerFactory.getLogger(I2CServiceImpl.class);
+
+    private Map<Integer, I2CBusControl>   busNumberToBusControl = new ConcurrentHashMap<>();
+
+    private Map<Integer, I2CBusScheduler> busNumberToScheduler  = new ConcurrentHashMap<>();
 
-    private Map<Integer, I2CBusControl> busNumberToBusControl = new ConcurrentHashMap<>();
+    private I2CMetricsRecorder            metricsRecorder;
+
+    private I2CTraceWriter                traceWriter;
+
+    public I2CServiceImpl(@Value("${pi.i2c.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${pi.i2c.circuit-breaker.cooldown-millis:5000}") long cooldownInMillis,
+                          @Value("${pi.i2c.trace.file:}") String traceFile, @Value("${pi.i2c.trace.capacity-mb:64}") int traceCapacityInMegabytes)
+    {
+        super();
+        this.metricsRecorder = new I2CMetricsRecorder(failureThreshold, cooldownInMillis);
+        this.traceWriter = traceFile.isEmpty() ? I2CTraceWriter.disabled()
+                : I2CTraceWriter.open(Paths.get(traceFile), traceCapacityInMegabytes * 1024L * 1024L);
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.busNumberToScheduler.values()
+                                 .forEach(I2CBusScheduler::shutdown);
+        if (this.traceWriter.getNumberOfDroppedRecords() > 0)
+        {
+            LOG.warn("I2C trace capacity exhausted, dropped " + this.traceWriter.getNumberOfDroppedRecords() + " records");
+        }
+        this.traceWriter.close();
+    }
 
     @Override
     public Optional<I2CBusControl> provision(BusNumber busNumber)
@@ -38,27 +99,108 @@ public class I2CServiceImpl implements I2CService
             try
             {
                 I2CBus bus = I2CFactory.getInstance(bn);
+                I2CBusScheduler scheduler = this.busNumberToScheduler.computeIfAbsent(bn, I2CBusScheduler::new);
                 return new I2CBusControl() {
-                    private Map<Integer, AddressConnector> addressToConnector = new ConcurrentHashMap<>();
+                    private Map<Integer, AddressConnector> addressToConnector  = new ConcurrentHashMap<>();
+                    private Map<Integer, ReentrantLock>    addressToDeviceLock = new ConcurrentHashMap<>();
+
+                    private ReentrantLock getDeviceLock(int address)
+                    {
+                        return this.addressToDeviceLock.computeIfAbsent(address, a -> new ReentrantLock());
+                    }
 
                     @Override
                     public Optional<AddressConnector> connectTo(int address)
                     {
-                        return Optional.ofNullable(this.addressToConnector.computeIfAbsent(address, a ->
+                        AddressConnector connector = this.addressToConnector.get(address);
+                        if (connector != null)
                         {
+                            return Optional.of(connector);
+                        }
 
+                        // a failed connect is not cached, so the circuit breaker prevents retrying it on every call
+                        DeviceRecorder deviceRecorder = metricsRecorder.getOrCreateDeviceRecorder(bn, address);
+                        if (!deviceRecorder.getCircuitBreaker()
+                                           .tryAcquire())
+                        {
+                            return Optional.empty();
+                        }
+                        return Optional.ofNullable(this.addressToConnector.computeIfAbsent(address, a ->
+                        {
                             try
                             {
                                 I2CDevice device = bus.getDevice(address);
-                                return new AddressConnectorImpl(device);
+                                deviceRecorder.getCircuitBreaker()
+                                              .recordSuccess();
+                                return new AddressConnectorImpl(device, scheduler, this.getDeviceLock(address), deviceRecorder,
+                                                                new DeviceTrace(traceWriter, bn, address));
                             }
                             catch (IOException e)
                             {
+                                deviceRecorder.recordError(false);
                                 LOG.error("Error connecting to I2C address " + address + " for bus " + busNumber, e);
                                 return null;
                             }
                         }));
                     }
+
+                    @Override
+                    public Optional<BusSchedulerStatistics> getSchedulerStatistics()
+                    {
+                        return Optional.of(scheduler.getStatistics());
+                    }
+
+                    /**
+                     * Probes hold the device lock of the address, so they never interleave with a {@link Transaction} of a connected device
+                     */
+                    @Override
+                    public boolean probe(int deviceAddress)
+                    {
+                        return this.executeProbe(deviceAddress, () ->
+                        {
+                            try
+                            {
+                                bus.getDevice(deviceAddress)
+                                   .read();
+                                return true;
+                            }
+                            catch (IOException e)
+                            {
+                                return false;
+                            }
+                        });
+                    }
+
+                    @Override
+                    public Optional<Byte> probe(int deviceAddress, int localAddress)
+                    {
+                        return this.executeProbe(deviceAddress, () ->
+                        {
+                            try
+                            {
+                                return Optional.of((byte) bus.getDevice(deviceAddress)
+                                                             .read(localAddress));
+                            }
+                            catch (IOException e)
+                            {
+                                return Optional.empty();
+                            }
+                        });
+                    }
+
+                    private <R> R executeProbe(int deviceAddress, Supplier<R> probe)
+                    {
+                        ReentrantLock deviceLock = this.getDeviceLock(deviceAddress);
+                        deviceLock.lock();
+                        try
+                        {
+                            return scheduler.execute(Priority.BACKGROUND, probe);
+                        }
+                        finally
+                        {
+                            deviceLock.unlock();
+                        }
+                    }
                 };
             }
             catch (Exception e)
@@ -70,73 +212,379 @@ public class I2CServiceImpl implements I2CService
 
     }
 
+    @Override
+    public List<Integer> getProvisionedBusNumbers()
+    {
+        return this.busNumberToBusControl.keySet()
+                                         .stream()
+                                         .sorted()
+                                         .collect(Collectors.toList());
+    }
+
+    @Override
+    public I2CMetrics getMetrics()
+    {
+        return this.metricsRecorder.getMetrics();
+    }
+
+    /**
+     * {@link AddressConnector} which executes every device access on the {@link I2CBusScheduler} of its bus. The device lock is held by the
+     * calling thread for the whole duration of a single access or {@link Transaction}, so accesses of the same device never interleave, while
+     * delays and polls of a {@link Transaction} do not block the bus for other devices.
+     */
     private static class AddressConnectorImpl extends AbstractAddressConnector
     {
-        private I2CDevice device;
+        private final I2CDevice       device;
+        private final I2CBusScheduler scheduler;
+        private final ReentrantLock   deviceLock;
+        private final DeviceRecorder  deviceRecorder;
+        private final DeviceTrace     trace;
+        private final Priority        priority;
+
+        public AddressConnectorImpl(I2CDevice device, I2CBusScheduler scheduler, ReentrantLock deviceLock, DeviceRecorder deviceRecorder,
+                                    DeviceTrace trace)
+        {
+            this(device, scheduler, deviceLock, new RegisterCache(), new WaitControl(deviceRecorder), deviceRecorder, trace,
+                 Priority.INTERACTIVE);
+        }
 
-        public AddressConnectorImpl(I2CDevice device)
+        private AddressConnectorImpl(I2CDevice device, I2CBusScheduler scheduler, ReentrantLock deviceLock, RegisterCache registerCache,
+                                     WaitControl waitControl, DeviceRecorder deviceRecorder, DeviceTrace trace, Priority priority)
         {
+            super(registerCache, waitControl);
             this.device = device;
+            this.scheduler = scheduler;
+            this.deviceLock = deviceLock;
+            this.deviceRecorder = deviceRecorder;
+            this.trace = trace;
+            this.priority = priority;
+        }
+
+        @Override
+        public AddressConnector withPriority(Priority priority)
+        {
+            return new AddressConnectorImpl(this.device, this.scheduler, this.deviceLock, this.getRegisterCache(), this.getWaitControl(),
+                                            this.deviceRecorder, this.trace, priority);
+        }
+
+        @Override
+        public AsyncAddressConnector async()
+        {
+            return new AsyncAddressConnectorImpl(this, this.getWaitControl(), this.scheduler.getIOExecutor());
+        }
+
+        @Override
+        protected AddressConnector withWaitControl(WaitControl waitControl)
+        {
+            return new AddressConnectorImpl(this.device, this.scheduler, this.deviceLock, this.getRegisterCache(), waitControl, this.deviceRecorder,
+                                            this.trace, this.priority);
         }
 
         @Override
         public Optional<ByteArray> read(int address, int start, int size)
         {
+            byte[] result = new byte[size];
+            return this.read(address, result, start, size) ? Optional.of(new ByteArray(result)) : Optional.empty();
+        }
+
+        @Override
+        public boolean read(int address, byte[] buffer, int offset, int size)
+        {
+            return this.isAcquired() && this.executeOnBus(() -> this.readFromDevice(address, buffer, offset, size));
+        }
+
+        @Override
+        public Optional<ByteArray> read(int start, int size)
+        {
+            byte[] result = new byte[size];
+            return this.isAcquired() && this.executeOnBus(() -> this.readFromDevice(result, start, size)) ? Optional.of(new ByteArray(result))
+                    : Optional.empty();
+        }
+
+        @Override
+        public AddressConnector write(int address, byte... data)
+        {
+            this.acquire();
+            this.executeOnBus(() -> this.writeToDevice(address, data));
+            return this;
+        }
+
+        @Override
+        public AddressConnector write(byte... data)
+        {
+            this.acquire();
+            this.executeOnBus(() -> this.writeToDevice(data));
+            return this;
+        }
+
+        private boolean isAcquired()
+        {
+            return this.deviceRecorder.getCircuitBreaker()
+                                      .tryAcquire();
+        }
+
+        private void acquire()
+        {
+            if (!this.isAcquired())
+            {
+                throw new IllegalStateException("Circuit breaker of I2C device " + this.device.getAddress() + " is open");
+            }
+        }
+
+        /**
+         * Executes consecutive reads and writes as a single command of the {@link I2CBusScheduler}, so they are scheduled once and not
+         * interleaved with the accesses of other devices. Every read and write is still its own bus transaction, except that a read with a
+         * local address and a raw command write directly followed by a raw read are each sent as one combined write-then-read message with
+         * repeated start (I2C_RDWR). Delays and polls are executed in the calling thread.
+         */
+        @Override
+        protected Optional<TransactionResult> executeTransaction(List<TransactionStep> steps)
+        {
+            this.deviceLock.lock();
             try
             {
-                byte[] result = new byte[size];
-                this.device.read(address, result, start, size);
-                return Optional.of(new ByteArray(result));
+                List<ByteArray> reads = new ArrayList<>();
+                int index = 0;
+                while (index < steps.size())
+                {
+                    if (steps.get(index)
+                             .isBusAccess())
+                    {
+                        int end = index;
+                        while (end < steps.size() && steps.get(end)
+                                                          .isBusAccess())
+                        {
+                            end++;
+                        }
+                        List<TransactionStep> batch = steps.subList(index, end);
+                        if (!this.isAcquired() || !this.executeOnBus(() -> this.executeBatch(batch, reads)))
+                        {
+                            return Optional.empty();
+                        }
+                        index = end;
+                    }
+                    else
+                    {
+                        if (!this.executeTransactionStep(steps.get(index), reads))
+                        {
+                            return Optional.empty();
+                        }
+                        index++;
+                    }
+                }
+                return Optional.of(new TransactionResult(reads));
+            }
+            finally
+            {
+                this.deviceLock.unlock();
+            }
+        }
+
+        private <R> R executeOnBus(Supplier<R> operation)
+        {
+            this.deviceLock.lock();
+            try
+            {
+                return this.scheduler.execute(this.priority, operation);
+            }
+            finally
+            {
+                this.deviceLock.unlock();
+            }
+        }
+
+        private boolean executeBatch(List<TransactionStep> batch, List<ByteArray> reads)
+        {
+            for (int ii = 0; ii < batch.size(); ii++)
+            {
+                TransactionStep step = batch.get(ii);
+                if (Type.READ.equals(step.getType()))
+                {
+                    if (!this.writeAndRead(new byte[] { (byte) step.getLocalAddress() }, step.getSize(), reads, Operation.READ))
+                    {
+                        return false;
+                    }
+                }
+                else if (TransactionStep.isCombinedWriteAndRead(batch, ii))
+                {
+                    if (!this.writeAndRead(step.getData(), batch.get(ii + 1)
+                                                                .getSize(),
+                                           reads, Operation.WRITE_AND_READ))
+                    {
+                        return false;
+                    }
+                    ii++;
+                }
+                else if (Type.READ_RAW.equals(step.getType()))
+                {
+                    byte[] result = new byte[step.getSize()];
+                    if (!this.readFromDevice(result, 0, step.getSize()))
+                    {
+                        return false;
+                    }
+                    reads.add(new ByteArray(result));
+                }
+                else if (Type.WRITE.equals(step.getType()))
+                {
+                    this.writeToDevice(step.getLocalAddress(), step.getData());
+                }
+                else
+                {
+                    this.writeToDevice(step.getData());
+                }
+            }
+            return true;
+        }
+
+        private boolean readFromDevice(int address, byte[] buffer, int offset, int size)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                this.device.read(address, buffer, offset, size);
+                long duration = System.nanoTime() - start;
+                this.deviceRecorder.recordRead(duration, size);
+                this.trace.record(Operation.READ, address, buffer, offset, size, start, duration, true);
+                return true;
             }
             catch (IOException e)
             {
-                LOG.error("Failed to read from address: " + address + " start: " + start, e);
-                return Optional.empty();
+                this.trace.record(Operation.READ, address, buffer, offset, 0, start, System.nanoTime() - start, false);
+                this.recordError(e);
+                LOG.error("Failed to read from address: " + address + " offset: " + offset, e);
+                return false;
             }
         }
 
-        @Override
-        public Optional<ByteArray> read(int start, int size)
+        private boolean readFromDevice(byte[] buffer, int start, int size)
         {
+            long startTime = System.nanoTime();
             try
             {
-                byte[] result = new byte[size];
-                this.device.read(result, start, size);
-                return Optional.of(new ByteArray(result));
+                this.device.read(buffer, start, size);
+                long duration = System.nanoTime() - startTime;
+                this.deviceRecorder.recordRead(duration, size);
+                this.trace.record(Operation.READ, I2CTraceRecord.NO_REGISTER, buffer, start, size, startTime, duration, true);
+                return true;
             }
             catch (IOException e)
             {
+                this.trace.record(Operation.READ, I2CTraceRecord.NO_REGISTER, buffer, start, 0, startTime, System.nanoTime() - startTime, false);
+                this.recordError(e);
                 LOG.error("Failed to read from start: " + start, e);
-                return Optional.empty();
+                return false;
             }
         }
 
-        @Override
-        public AddressConnector write(int address, byte... data)
+        private AddressConnector writeToDevice(int address, byte... data)
         {
+            long start = System.nanoTime();
             try
             {
                 this.device.write(address, data);
+                long duration = System.nanoTime() - start;
+                this.deviceRecorder.recordWrite(duration, data.length + 1);
+                this.trace.record(Operation.WRITE, address, data, 0, data.length, start, duration, true);
             }
             catch (IOException e)
             {
+                this.trace.record(Operation.WRITE, address, data, 0, data.length, start, System.nanoTime() - start, false);
+                this.recordError(e);
                 throw new IllegalStateException(e);
             }
             return this;
         }
 
-        @Override
-        public AddressConnector write(byte... data)
+        private AddressConnector writeToDevice(byte... data)
         {
+            long start = System.nanoTime();
             try
             {
                 this.device.write(data);
+                long duration = System.nanoTime() - start;
+                this.deviceRecorder.recordWrite(duration, data.length);
+                this.trace.record(Operation.WRITE, I2CTraceRecord.NO_REGISTER, data, 0, data.length, start, duration, true);
             }
             catch (IOException e)
             {
+                this.trace.record(Operation.WRITE, I2CTraceRecord.NO_REGISTER, data, 0, data.length, start, System.nanoTime() - start, false);
+                this.recordError(e);
                 throw new IllegalStateException(e);
             }
             return this;
         }
+
+        /**
+         * Writes the given data and reads the given number of bytes with repeated start. For a register read the written data is the register
+         * address, which is traced as {@link Operation#READ} of that register, otherwise the written command bytes are traced along with the
+         * read data.
+         */
+        private boolean writeAndRead(byte[] writeData, int size, List<ByteArray> reads, Operation operation)
+        {
+            long start = System.nanoTime();
+            boolean registerRead = Operation.READ.equals(operation);
+            int register = registerRead ? writeData[0] & 0xFF : I2CTraceRecord.NO_REGISTER;
+            byte[] writtenData = registerRead ? new byte[0] : writeData;
+            byte[] result = new byte[size];
+            try
+            {
+                this.device.read(writeData, 0, writeData.length, result, 0, size);
+                long duration = System.nanoTime() - start;
+                this.deviceRecorder.recordWriteAndRead(duration, writeData.length, size);
+                this.trace.record(operation, register, writtenData, result, 0, size, start, duration, true);
+                reads.add(new ByteArray(result));
+                return true;
+            }
+            catch (IOException e)
+            {
+                this.trace.record(operation, register, writtenData, result, 0, 0, start, System.nanoTime() - start, false);
+                this.recordError(e);
+                LOG.error("Failed to write and read: " + size + " bytes", e);
+                return false;
+            }
+        }
+
+        /**
+         * The i2c-dev driver reports a missing acknowledge of the device as EREMOTEIO, which surfaces as "Remote I/O error"
+         * 
+         * @param e
+         */
+        private void recordError(IOException e)
+        {
+            this.deviceRecorder.recordError(e.getMessage() != null && e.getMessage()
+                                                                       .contains("Remote I/O error"));
+        }
+    }
+
+    /**
+     * Binds the {@link I2CTraceWriter} to a single device
+     */
+    private static class DeviceTrace
+    {
+        private final I2CTraceWriter traceWriter;
+        private final int            busNumber;
+        private final int            deviceAddress;
+
+        public DeviceTrace(I2CTraceWriter traceWriter, int busNumber, int deviceAddress)
+        {
+            super();
+            this.traceWriter = traceWriter;
+            this.busNumber = busNumber;
+            this.deviceAddress = deviceAddress;
+        }
+
+        public void record(Operation operation, int register, byte[] payload, int offset, int length, long startTime, long latencyInNanos,
+                           boolean success)
+        {
+            this.traceWriter.record(this.busNumber, this.deviceAddress, operation, register, payload, offset, length, startTime, latencyInNanos,
+                                    success);
+        }
+
+        public void record(Operation operation, int register, byte[] writtenData, byte[] payload, int offset, int length, long startTime,
+                           long latencyInNanos, boolean success)
+        {
+            this.traceWriter.record(this.busNumber, this.deviceAddress, operation, register, writtenData, payload, offset, length, startTime,
+                                    latencyInNanos, success);
+        }
     }
 }
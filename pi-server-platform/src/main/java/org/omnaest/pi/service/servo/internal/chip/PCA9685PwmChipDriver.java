@@ -1,30 +1,30 @@
 package org.omnaest.pi.service.servo.internal.chip;
 
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import javax.annotation.PreDestroy;
 
+import org.omnaest.pi.service.i2c.I2CService;
+import org.omnaest.pi.service.i2c.I2CService.AddressConnector;
+import org.omnaest.pi.service.i2c.I2CService.Priority;
 import org.omnaest.pi.service.servo.chip.PwmChipDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import com.pi4j.gpio.extension.pca.PCA9685GpioProvider;
-import com.pi4j.gpio.extension.pca.PCA9685Pin;
-import com.pi4j.io.i2c.I2CBus;
-import com.pi4j.io.i2c.I2CFactory;
-import com.pi4j.io.i2c.I2CFactory.UnsupportedBusNumberException;
-
 /**
- * Real, pi4j-backed {@link PwmChipDriver} talking to a PCA9685 PWM chip over I2C. Used under the default (real
- * hardware) profile - i.e. whenever the {@code simulation} Spring profile is NOT active.
+ * Real {@link PwmChipDriver} talking to a PCA9685 PWM chip over I2C. Used under the default (real hardware) profile - i.e. whenever the
+ * {@code simulation} Spring profile is NOT active.
  * <p>
- * The I2C bus discovery and {@link PCA9685GpioProvider} construction below are moved verbatim (same graceful
- * error-swallowing lazy-init behaviour) from the former {@code ServoDriverServiceImpl.ensureInitialization()}, so
- * that class no longer needs any pi4j dependency.
+ * The chip is accessed via the {@link I2CService} with {@link Priority#ACTUATOR}, so servo updates are serialized with the other devices of
+ * the bus by its scheduler and jump ahead of interactive and background sensor reads. The register protocol follows the former pi4j
+ * {@code PCA9685GpioProvider}, including its frequency and frequency correction factor, and the I2C bus discovery keeps its graceful lazy
+ * initialization.
  *
  * @author Danny Kunz
  */
@@ -32,24 +32,59 @@ import com.pi4j.io.i2c.I2CFactory.UnsupportedBusNumberException;
 @Profile("!simulation")
 public class PCA9685PwmChipDriver implements PwmChipDriver
 {
-    private static final Logger          LOG = LoggerFactory.getLogger(PCA9685PwmChipDriver.class);
+    private static final Logger          LOG                         = LoggerFactory.getLogger(PCA9685PwmChipDriver.class);
+
+    private static final int[]           BUS_NUMBERS                 = { 1, 0, 2 };
+    private static final int             DEVICE_ADDRESS              = 0x40;
+    private static final int             NUMBER_OF_CHANNELS          = 16;
+
+    private static final int             MODE1                       = 0x00;
+    private static final int             LED0_ON_L                   = 0x06;
+    private static final int             ALL_LED_ON_L                = 0xFA;
+    private static final int             PRE_SCALE                   = 0xFE;
+
+    private static final int             MODE1_SLEEP                 = 0x10;
+    private static final int             MODE1_AUTO_INCREMENT        = 0x20;
+    private static final int             MODE1_RESTART               = 0x80;
+
+    /**
+     * Number of ticks of a pwm period, which is also the value of the full on and full off bit of the channel registers
+     */
+    private static final int             PWM_STEPS                   = 4096;
 
-    private volatile PCA9685GpioProvider provider;
+    private static final BigDecimal      CLOCK_FREQUENCY             = new BigDecimal("25000000");
+    private static final BigDecimal      FREQUENCY                   = new BigDecimal("48.828");
+    private static final BigDecimal      FREQUENCY_CORRECTION_FACTOR = new BigDecimal("1.0578");
+
+    @Autowired
+    private I2CService                   i2cService;
+
+    private volatile AddressConnector    connector;
+
+    private final int                    periodDurationMicros        = new BigDecimal("1000000").divide(FREQUENCY, 0, RoundingMode.HALF_UP)
+                                                                                                .intValue();
+    private final int[][]                channelToOnOffValues        = new int[NUMBER_OF_CHANNELS][2];
 
     private void ensureInitialization()
     {
-        if (this.provider == null)
+        if (this.connector == null)
         {
             synchronized (this)
             {
-                if (this.provider == null)
+                if (this.connector == null)
                 {
                     try
                     {
-                        I2CBus bus = this.newI2CBus();
-                        BigDecimal frequency = new BigDecimal("48.828");
-                        BigDecimal frequencyCorrectionFactor = new BigDecimal("1.0578");
-                        this.provider = new PCA9685GpioProvider(bus, 0x40, frequency, frequencyCorrectionFactor);
+                        AddressConnector connector = IntStream.of(BUS_NUMBERS)
+                                                              .mapToObj(busNumber -> this.i2cService.provision(busNumber)
+                                                                                                    .flatMap(bus -> bus.connectTo(DEVICE_ADDRESS)))
+                                                              .filter(optionalConnector -> optionalConnector.isPresent())
+                                                              .map(optionalConnector -> optionalConnector.get())
+                                                              .findFirst()
+                                                              .orElseThrow(() -> new IllegalStateException("No I2C bus available"))
+                                                              .withPriority(Priority.ACTUATOR);
+                        this.configure(connector);
+                        this.connector = connector;
                     }
                     catch (Exception e)
                     {
@@ -61,77 +96,125 @@ public class PCA9685PwmChipDriver implements PwmChipDriver
         }
     }
 
+    /**
+     * Sets the prescaler of the pwm frequency, which can only be written while the oscillator sleeps, and restarts the oscillator with
+     * register auto increment, so a channel is written in a single burst
+     *
+     * @param connector
+     */
+    private void configure(AddressConnector connector)
+    {
+        int prescale = CLOCK_FREQUENCY.divide(BigDecimal.valueOf(PWM_STEPS), 10, RoundingMode.HALF_UP)
+                                      .divide(FREQUENCY, 10, RoundingMode.HALF_UP)
+                                      .subtract(BigDecimal.ONE)
+                                      .multiply(FREQUENCY_CORRECTION_FACTOR)
+                                      .setScale(0, RoundingMode.HALF_UP)
+                                      .intValue();
+        connector.transaction()
+                 .write(MODE1, (byte) (MODE1_AUTO_INCREMENT | MODE1_SLEEP))
+                 .write(PRE_SCALE, (byte) prescale)
+                 .write(MODE1, (byte) MODE1_AUTO_INCREMENT)
+                 .delay(1, TimeUnit.MILLISECONDS)
+                 .write(MODE1, (byte) (MODE1_AUTO_INCREMENT | MODE1_RESTART))
+                 .execute()
+                 .orElseThrow(() -> new IllegalStateException("Unable to configure the PCA9685 PWM chip"));
+    }
+
+    private AddressConnector getConnector()
+    {
+        this.ensureInitialization();
+        AddressConnector connector = this.connector;
+        if (connector == null)
+        {
+            throw new IllegalStateException("PCA9685 PWM chip is not available");
+        }
+        return connector;
+    }
+
     @PreDestroy
     public void destroy()
     {
-        if (this.provider != null)
+        AddressConnector connector = this.connector;
+        if (connector != null)
         {
-            this.provider.shutdown();
+            try
+            {
+                connector.write(ALL_LED_ON_L, (byte) 0, (byte) 0, (byte) 0, (byte) (PWM_STEPS >> 8));
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to switch off the PCA9685 PWM channels", e);
+            }
         }
     }
 
     @Override
     public int getChannelCount()
     {
-        return PCA9685Pin.ALL.length;
+        return NUMBER_OF_CHANNELS;
     }
 
     @Override
     public int getPeriodDurationMicros()
     {
-        this.ensureInitialization();
-        return this.provider.getPeriodDurationMicros();
+        this.getConnector();
+        return this.periodDurationMicros;
     }
 
     @Override
     public void setPwm(int channel, int durationMicros)
     {
-        this.ensureInitialization();
-        this.provider.setPwm(PCA9685Pin.ALL[channel], durationMicros);
+        int offPosition = BigDecimal.valueOf(durationMicros)
+                                    .multiply(BigDecimal.valueOf(PWM_STEPS))
+                                    .divide(BigDecimal.valueOf(this.periodDurationMicros), 0, RoundingMode.HALF_UP)
+                                    .intValue();
+        if (offPosition < 0 || offPosition >= PWM_STEPS)
+        {
+            throw new IllegalArgumentException("Pulse duration of " + durationMicros + " us is outside of the period of " + this.periodDurationMicros
+                    + " us");
+        }
+        this.writeChannel(channel, 0, offPosition);
     }
 
     @Override
     public void setAlwaysOn(int channel)
     {
-        this.ensureInitialization();
-        this.provider.setAlwaysOn(PCA9685Pin.ALL[channel]);
+        this.writeChannel(channel, PWM_STEPS, 0);
     }
 
     @Override
     public void setAlwaysOff(int channel)
     {
-        this.ensureInitialization();
-        this.provider.setAlwaysOff(PCA9685Pin.ALL[channel]);
+        this.writeChannel(channel, 0, PWM_STEPS);
     }
 
     @Override
     public int[] getPwmOnOffValues(int channel)
     {
-        this.ensureInitialization();
-        return this.provider.getPwmOnOffValues(PCA9685Pin.ALL[channel]);
+        this.validateChannel(channel);
+        synchronized (this.channelToOnOffValues)
+        {
+            return this.channelToOnOffValues[channel].clone();
+        }
     }
 
-    private I2CBus newI2CBus() throws UnsupportedBusNumberException, IOException
+    private void writeChannel(int channel, int onPosition, int offPosition)
     {
-        return Arrays.asList(I2CBus.BUS_1, I2CBus.BUS_0, I2CBus.BUS_2)
-                     .stream()
-                     .map(index ->
-                     {
-                         try
-                         {
-                             I2CBus i2cBus = I2CFactory.getInstance(index);
-                             LOG.info("Created instance of bus " + index);
-                             return i2cBus;
-                         }
-                         catch (Exception e)
-                         {
-                             LOG.debug("", e);
-                             LOG.info("Tested bus " + index + " as not available");
-                             return null;
-                         }
-                     })
-                     .filter(factory -> factory != null)
-                     .findFirst()
-                     .orElseThrow(() -> new IllegalStateException("No I2C bus available"));
+        this.validateChannel(channel);
+        AddressConnector connector = this.getConnector();
+        synchronized (this.channelToOnOffValues)
+        {
+            connector.write(LED0_ON_L + 4 * channel, (byte) onPosition, (byte) (onPosition >> 8), (byte) offPosition, (byte) (offPosition >> 8));
+            this.channelToOnOffValues[channel][0] = onPosition;
+            this.channelToOnOffValues[channel][1] = offPosition;
+        }
+    }
+
+    private void validateChannel(int channel)
+    {
+        if (channel < 0 || channel >= NUMBER_OF_CHANNELS)
+        {
+            throw new IllegalArgumentException("Channel must be between 0 and " + (NUMBER_OF_CHANNELS - 1) + ": " + channel);
+        }
     }
 }
@@ -5,6 +5,8 @@ import java.util.Map;
 
 import org.omnaest.pi.service.compass.CompassService;
 import org.omnaest.pi.service.compass.CompassService.Module;
+import org.omnaest.pi.service.singleflight.SensorReadKeys;
+import org.omnaest.pi.service.singleflight.SingleFlightService;
 import org.springframework.stereotype.Component;
 
 import io.modelcontextprotocol.server.McpServerFeatures;
@@ -25,8 +27,9 @@ import lombok.RequiredArgsConstructor;
 public class CompassTools
 {
 
-    private final CompassService compassService;
-    private final McpToolSupport support;
+    private final CompassService      compassService;
+    private final SingleFlightService singleFlightService;
+    private final McpToolSupport      support;
 
     /**
      * Returns the {@link McpServerFeatures.SyncToolSpecification}s for all compass tools. Called once at server
@@ -48,9 +51,11 @@ public class CompassTools
                                                                Integer bus = McpArgs.optInt(args, "bus");
                                                                String moduleName = McpArgs.string(args, "module");
                                                                Module module = moduleName != null ? Module.valueOf(moduleName) : Module.QMC5883L;
-                                                               return compassService.onBus(bus != null ? bus : 1)
-                                                                                    .withModule(module)
-                                                                                    .getNorthDirectionAngle();
+                                                               int busNumber = bus != null ? bus : 1;
+                                                               return singleFlightService.execute(SensorReadKeys.compass(busNumber, module),
+                                                                                                  () -> compassService.onBus(busNumber)
+                                                                                                                      .withModule(module)
+                                                                                                                      .getNorthDirectionAngle());
                                                            }));
     }
 
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.omnaest.pi.service.EnvironmentService;
+import org.omnaest.pi.service.singleflight.SensorReadKeys;
+import org.omnaest.pi.service.singleflight.SingleFlightService;
 import org.springframework.stereotype.Component;
 
 import io.modelcontextprotocol.server.McpServerFeatures;
@@ -24,8 +26,9 @@ import lombok.RequiredArgsConstructor;
 public class EnvironmentTools
 {
 
-    private final EnvironmentService environmentService;
-    private final McpToolSupport     support;
+    private final EnvironmentService  environmentService;
+    private final SingleFlightService singleFlightService;
+    private final McpToolSupport      support;
 
     /**
      * Returns the {@link McpServerFeatures.SyncToolSpecification}s for all environment tools. Called once at server
@@ -46,9 +49,11 @@ public class EnvironmentTools
         return new McpServerFeatures.SyncToolSpecification(
                                                            environmentBmp180ReadTool(),
                                                            (exchange, args) -> support.handle("environment_bmp180_read",
-                                                                                              () -> environmentService.getOrCreateBMP180SensorInstance()
-                                                                                                                      .flatMap(sensor -> sensor.measure())
-                                                                                                                      .get()));
+                                                                                              () -> singleFlightService.execute(SensorReadKeys.bmp180(EnvironmentService.BUS_NUMBER.ordinal(),
+                                                                                                                                                      EnvironmentService.DEVICE_ADDRESS),
+                                                                                                                                () -> environmentService.getOrCreateBMP180SensorInstance()
+                                                                                                                                                        .flatMap(sensor -> sensor.measure())
+                                                                                                                                                        .get())));
     }
 
     // ---- tool schemas ----
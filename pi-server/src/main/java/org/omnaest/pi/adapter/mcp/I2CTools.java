@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService;
 import org.springframework.stereotype.Component;
 
 import io.modelcontextprotocol.server.McpServerFeatures;
@@ -14,12 +15,14 @@ import lombok.RequiredArgsConstructor;
 /**
  * Builds and exposes MCP tool specifications for the {@code i2c} bounded context — mirrors {@code DataController}'s
  * {@code I2CService} endpoints. Both the REST GET and PUT for {@code /i2c/...} map through {@code getI2CData}, so
- * this group exposes two tools.
+ * this group exposes two tools for the data access, plus one each for the {@code /i2c/metrics} and {@code /i2c/inventory} endpoints.
  *
  * <p>Tools owned by this group:
  * <ul>
  * <li>{@code i2c_read_byte}</li>
  * <li>{@code i2c_write_byte}</li>
+ * <li>{@code i2c_metrics}</li>
+ * <li>{@code i2c_inventory}</li>
  * </ul>
  */
 @Component
@@ -27,8 +30,9 @@ import lombok.RequiredArgsConstructor;
 public class I2CTools
 {
 
-    private final I2CService     i2cService;
-    private final McpToolSupport support;
+    private final I2CService          i2cService;
+    private final I2CInventoryService i2cInventoryService;
+    private final McpToolSupport      support;
 
     /**
      * Returns the {@link McpServerFeatures.SyncToolSpecification}s for all i2c tools. Called once at server startup
@@ -38,7 +42,9 @@ public class I2CTools
     {
         return List.of(
                        i2cReadByteSpec(),
-                       i2cWriteByteSpec());
+                       i2cWriteByteSpec(),
+                       i2cMetricsSpec(),
+                       i2cInventorySpec());
     }
 
     // ---- handlers ----
@@ -79,6 +85,24 @@ public class I2CTools
                                                            }));
     }
 
+    private McpServerFeatures.SyncToolSpecification i2cMetricsSpec()
+    {
+        return new McpServerFeatures.SyncToolSpecification(
+                                                           i2cMetricsTool(),
+                                                           (exchange, args) -> support.handle("i2c_metrics", () -> i2cService.getMetrics()));
+    }
+
+    private McpServerFeatures.SyncToolSpecification i2cInventorySpec()
+    {
+        return new McpServerFeatures.SyncToolSpecification(
+                                                           i2cInventoryTool(),
+                                                           (exchange, args) -> support.handle("i2c_inventory", () ->
+                                                           {
+                                                               Boolean rescan = McpArgs.optBoolean(args, "rescan");
+                                                               return Boolean.TRUE.equals(rescan) ? i2cInventoryService.scan() : i2cInventoryService.getInventory();
+                                                           }));
+    }
+
     // ---- tool schemas ----
 
     private static McpSchema.Tool i2cReadByteTool()
@@ -117,4 +141,32 @@ public class I2CTools
                                                                    null, null, null))
                              .build();
     }
+
+    private static McpSchema.Tool i2cMetricsTool()
+    {
+        return McpSchema.Tool.builder()
+                             .name("i2c_metrics")
+                             .description("Returns per bus and per device I2C metrics: read/write/wait latency percentiles in microseconds, "
+                                          + "bytes transferred, error and NACK counts, and the bus occupancy in percent.")
+                             .inputSchema(new McpSchema.JsonSchema(
+                                                                   "object",
+                                                                   Map.of(),
+                                                                   null, null, null, null))
+                             .build();
+    }
+
+    private static McpSchema.Tool i2cInventoryTool()
+    {
+        return McpSchema.Tool.builder()
+                             .name("i2c_inventory")
+                             .description("Returns the devices which responded on each I2C bus at the last scan, with the device type for devices "
+                                          + "identified by their id register. The inventory is refreshed in the background; "
+                                          + "optional rescan=true scans all buses now.")
+                             .inputSchema(new McpSchema.JsonSchema(
+                                                                   "object",
+                                                                   Map.of(
+                                                                          "rescan", Map.of("type", "boolean", "description", "Optional, scan all buses now (default: false)")),
+                                                                   null, null, null, null))
+                             .build();
+    }
 }
@@ -84,6 +84,18 @@ public final class McpArgs
         return (Boolean) args.get(key);
     }
 
+    /**
+     * Returns the value for {@code key} as a {@code Boolean} using a safe {@code instanceof Boolean} check, or
+     * {@code null} if {@code args} is {@code null}, the key is absent, or the value is not a {@code Boolean}.
+     */
+    public static Boolean optBoolean(Map<String, Object> args, String key)
+    {
+        if (args == null)
+            return null;
+        Object val = args.get(key);
+        return val instanceof Boolean b ? b : null;
+    }
+
     /**
      * Returns the value for {@code key} as a {@code String} converted to the given enum type via
      * {@link Enum#valueOf(Class, String)} (case-sensitive — matches Spring's existing
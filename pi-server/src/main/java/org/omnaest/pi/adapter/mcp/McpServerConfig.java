@@ -27,13 +27,13 @@ import io.modelcontextprotocol.server.transport.WebMvcStreamableServerTransportP
  * <li>{@link CameraTools} — 1 tool</li>
  * <li>{@link EnvironmentTools} — 1 tool</li>
  * <li>{@link CompassTools} — 1 tool</li>
- * <li>{@link I2CTools} — 2 tools</li>
+ * <li>{@link I2CTools} — 4 tools</li>
  * <li>{@link UltrasonicTools} — 2 tools</li>
  * <li>{@link WeightTools} — 1 tool</li>
- * <li>{@link SensorTools} — 8 tools</li>
+ * <li>{@link SensorTools} — 9 tools</li>
  * </ul>
  *
- * <p>Total registered tools: 35 — a 1:1 mirror of every {@code DataController} hardware endpoint (the generic
+ * <p>Total registered tools: 38 — a 1:1 mirror of every {@code DataController} hardware endpoint (the generic
  * reflection-based {@code /interaction} endpoint is deliberately excluded, see plan-59).
  *
  * <p>Ported near-verbatim from {@code ClaudeMemoryServer}'s {@code McpServerConfig} (package rename only).
@@ -5,10 +5,14 @@ import java.util.Map;
 
 import org.omnaest.pi.client.domain.flow.FlowSensorDefinition;
 import org.omnaest.pi.client.domain.pressure.MS5837Model;
+import org.omnaest.pi.client.domain.pressure.MS5837Oversampling;
 import org.omnaest.pi.service.rotary.RotaryEncoderService;
 import org.omnaest.pi.service.sensor.flow.FlowSensorService;
 import org.omnaest.pi.service.sensor.gyro.GyroscopeService;
 import org.omnaest.pi.service.sensor.pressure.PressureSensorMS5837Service;
+import org.omnaest.pi.service.singleflight.SensorReadKeys;
+import org.omnaest.pi.service.singleflight.SingleFlightService;
+import org.omnaest.pi.service.singleflight.SingleFlightService.SingleFlightKey;
 import org.springframework.stereotype.Component;
 
 import io.modelcontextprotocol.server.McpServerFeatures;
@@ -31,6 +35,7 @@ import lombok.RequiredArgsConstructor;
  * <li>{@code pressure_ms5837_enable}</li>
  * <li>{@code pressure_ms5837_read}</li>
  * <li>{@code pressure_ms5837_disable}</li>
+ * <li>{@code pressure_ms5837_sampler}</li>
  * </ul>
  */
 @Component
@@ -42,6 +47,7 @@ public class SensorTools
     private final GyroscopeService            gyroscopeService;
     private final FlowSensorService           flowSensorService;
     private final PressureSensorMS5837Service pressureSensorMS5837Service;
+    private final SingleFlightService         singleFlightService;
     private final McpToolSupport              support;
 
     /**
@@ -58,7 +64,8 @@ public class SensorTools
                        flowSensorDisableSpec(),
                        pressureMs5837EnableSpec(),
                        pressureMs5837ReadSpec(),
-                       pressureMs5837DisableSpec());
+                       pressureMs5837DisableSpec(),
+                       pressureMs5837SamplerSpec());
     }
 
     // ---- handlers ----
@@ -86,7 +93,10 @@ public class SensorTools
                                                                // bus mirrors DataController.getGyroscopeOrientation's @RequestParam shape exactly - it is
                                                                // accepted but never passed to GyroscopeService (same dead parameter as the REST endpoint).
                                                                Integer numberOfSamplings = McpArgs.optInt(args, "numberOfSamplings");
-                                                               return gyroscopeService.getOrientation(numberOfSamplings != null ? numberOfSamplings : 1);
+                                                               int samplings = numberOfSamplings != null ? numberOfSamplings : 1;
+                                                               SingleFlightKey key = SensorReadKeys.gyroscope(GyroscopeService.BUS_NUMBER.ordinal(), GyroscopeService.DEVICE_ADDRESS,
+                                                                                                              samplings);
+                                                               return singleFlightService.execute(key, () -> gyroscopeService.getOrientation(samplings));
                                                            }));
     }
 
@@ -136,7 +146,11 @@ public class SensorTools
                                                            (exchange, args) -> support.handle("pressure_ms5837_enable", () ->
                                                            {
                                                                MS5837Model model = McpArgs.requiredEnum(args, "model", MS5837Model.class);
-                                                               return pressureSensorMS5837Service.enableSensorAndGetSensorId(model);
+                                                               String oversampling = McpArgs.string(args, "oversampling");
+                                                               return oversampling != null
+                                                                       ? pressureSensorMS5837Service.enableSensorAndGetSensorId(model,
+                                                                                                                                MS5837Oversampling.valueOf(oversampling))
+                                                                       : pressureSensorMS5837Service.enableSensorAndGetSensorId(model);
                                                            }));
     }
 
@@ -147,8 +161,10 @@ public class SensorTools
                                                            (exchange, args) -> support.handle("pressure_ms5837_read", () ->
                                                            {
                                                                String sensorId = McpArgs.string(args, "sensorId");
-                                                               return pressureSensorMS5837Service.readSensor(sensorId)
-                                                                                                 .orElse(null);
+                                                               SingleFlightKey key = SensorReadKeys.ms5837(PressureSensorMS5837Service.BUS_NUMBER.ordinal(),
+                                                                                                           PressureSensorMS5837Service.DEVICE_ADDRESS, sensorId);
+                                                               return singleFlightService.execute(key, () -> pressureSensorMS5837Service.readSensor(sensorId))
+                                                                                         .orElse(null);
                                                            }));
     }
 
@@ -164,6 +180,18 @@ public class SensorTools
                                                            }));
     }
 
+    private McpServerFeatures.SyncToolSpecification pressureMs5837SamplerSpec()
+    {
+        return new McpServerFeatures.SyncToolSpecification(
+                                                           pressureMs5837SamplerTool(),
+                                                           (exchange, args) -> support.handle("pressure_ms5837_sampler", () ->
+                                                           {
+                                                               String sensorId = McpArgs.string(args, "sensorId");
+                                                               return pressureSensorMS5837Service.getSamplerStatistics(sensorId)
+                                                                                                 .orElse(null);
+                                                           }));
+    }
+
     // ---- tool schemas ----
 
     private static McpSchema.Tool rotaryEncoderReadTool()
@@ -247,10 +275,14 @@ public class SensorTools
         return McpSchema.Tool.builder()
                              .name("pressure_ms5837_enable")
                              .description("Enables an MS5837 pressure/temperature sensor of the given model on I2C bus 1 and returns "
-                                          + "its generated sensor id.")
+                                          + "its generated sensor id. With an oversampling the sensor is sampled continuously in the "
+                                          + "background and reads return the latest sample immediately.")
                              .inputSchema(new McpSchema.JsonSchema(
                                                                    "object",
-                                                                   Map.of("model", Map.of("type", "string", "description", "One of: MS5837_02BA, MS5837_30BA")),
+                                                                   Map.of("model", Map.of("type", "string", "description", "One of: MS5837_02BA, MS5837_30BA"),
+                                                                          "oversampling",
+                                                                          Map.of("type", "string", "description",
+                                                                                 "Optional, one of: OSR_256, OSR_512, OSR_1024, OSR_2048, OSR_4096, OSR_8192")),
                                                                    List.of("model"),
                                                                    null, null, null))
                              .build();
@@ -282,4 +314,18 @@ public class SensorTools
                                                                    null, null, null))
                              .build();
     }
+
+    private static McpSchema.Tool pressureMs5837SamplerTool()
+    {
+        return McpSchema.Tool.builder()
+                             .name("pressure_ms5837_sampler")
+                             .description("Returns the oversampling, the maximum and the achieved sample rate of a MS5837 sensor enabled "
+                                          + "with continuous sampling. Returns null if the sensorId is unknown or the sensor is sampled on demand.")
+                             .inputSchema(new McpSchema.JsonSchema(
+                                                                   "object",
+                                                                   Map.of("sensorId", Map.of("type", "string")),
+                                                                   List.of("sensorId"),
+                                                                   null, null, null))
+                             .build();
+    }
 }
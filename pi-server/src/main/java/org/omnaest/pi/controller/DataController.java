@@ -23,12 +23,14 @@ import java.util.Optional;
 
 import org.omnaest.pi.client.PiClient.Interaction;
 import org.omnaest.pi.client.domain.flow.FlowSensorDefinition;
+import org.omnaest.pi.client.domain.gpio.DigitalInputFilter;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderAddress;
 import org.omnaest.pi.client.domain.gpio.expander.GpioPortExpanderPort;
 import org.omnaest.pi.client.domain.gyro.Orientation;
 import org.omnaest.pi.client.domain.motor.L298nMotorControlDefinition;
 import org.omnaest.pi.client.domain.motor.MotorMovementDefinition;
 import org.omnaest.pi.client.domain.pressure.MS5837Model;
+import org.omnaest.pi.client.domain.pressure.MS5837Oversampling;
 import org.omnaest.pi.client.domain.pressure.PressureAndTemperature;
 import org.omnaest.pi.domain.BMP180Measurement;
 import org.omnaest.pi.domain.CameraSnapshot;
@@ -40,19 +42,27 @@ import org.omnaest.pi.service.UltrasonicService;
 import org.omnaest.pi.service.compass.CompassService;
 import org.omnaest.pi.service.compass.CompassService.Module;
 import org.omnaest.pi.service.gpio.GPIOService;
+import org.omnaest.pi.service.gpio.GPIOService.DigitalInputMetrics;
 import org.omnaest.pi.service.gpio.expander.GpioPortExpanderPCF8574Service;
 import org.omnaest.pi.service.i2c.I2CService;
 import org.omnaest.pi.service.i2c.I2CService.ByteArray;
+import org.omnaest.pi.service.i2c.I2CService.I2CMetrics;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService;
+import org.omnaest.pi.service.i2c.inventory.I2CInventoryService.I2CInventory;
 import org.omnaest.pi.service.motor.MotorControlService;
 import org.omnaest.pi.service.motor.MotorControlService.MotorControl;
 import org.omnaest.pi.service.rotary.RotaryEncoderService;
 import org.omnaest.pi.service.sensor.flow.FlowSensorService;
 import org.omnaest.pi.service.sensor.gyro.GyroscopeService;
 import org.omnaest.pi.service.sensor.pressure.PressureSensorMS5837Service;
+import org.omnaest.pi.service.sensor.pressure.PressureSensorMS5837Service.SamplerStatistics;
 import org.omnaest.pi.service.sensor.weight.WeightService;
 import org.omnaest.pi.service.sensor.weight.WeightService.Gain;
 import org.omnaest.pi.service.sensor.weight.WeightService.HX711PortConfiguration;
 import org.omnaest.pi.service.servo.ServoDriverService;
+import org.omnaest.pi.service.singleflight.SensorReadKeys;
+import org.omnaest.pi.service.singleflight.SingleFlightService;
+import org.omnaest.pi.service.singleflight.SingleFlightService.SingleFlightKey;
 import org.omnaest.utils.ClassUtils;
 import org.omnaest.utils.proxy.ProxyRecorderUtils;
 import org.omnaest.utils.proxy.ProxyRecorderUtils.ProxyRecording;
@@ -99,6 +109,9 @@ public class DataController
     @Autowired
     private I2CService                     i2cService;
 
+    @Autowired
+    private I2CInventoryService            i2cInventoryService;
+
     @Autowired
     private GpioPortExpanderPCF8574Service gpioPortExpanderPCF8574Service;
 
@@ -117,6 +130,9 @@ public class DataController
     @Autowired
     private EnvironmentService             environmentService;
 
+    @Autowired
+    private SingleFlightService            singleFlightService;
+
     @RequestMapping(method = RequestMethod.POST, path = "/snapshot")
     public CameraSnapshot getTemperatureData(@RequestBody CameraSnapshotOptions cameraSnapshotOptions)
     {
@@ -129,6 +145,20 @@ public class DataController
         this.gpioService.enableGPIOPortForDigitalOutput(port);
     }
 
+    @PutMapping("/gpio/{port}/digital/input/enable")
+    public void enableGPIODigitalInput(@PathVariable("port") int port, @RequestBody DigitalInputFilter filter)
+    {
+        this.gpioService.getDigitalInputGPIOPort(port)
+                        .withInputFilter(filter)
+                        .enable();
+    }
+
+    @GetMapping(path = "/gpio/digital/input/metrics")
+    public List<DigitalInputMetrics> getGPIODigitalInputMetrics()
+    {
+        return this.gpioService.getDigitalInputMetrics();
+    }
+
     @RequestMapping(method = RequestMethod.GET, path = "/gpio/{port}/digital/input")
     public boolean getGPIODigitalInput(@PathVariable("port") int port)
     {
@@ -236,9 +266,10 @@ public class DataController
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE, path = "/sensor/bmp180")
     public BMP180Measurement getBMP180TemperatureAndPressure()
     {
-        return this.environmentService.getOrCreateBMP180SensorInstance()
-                                      .flatMap(sensor -> sensor.measure())
-                                      .get();
+        SingleFlightKey key = SensorReadKeys.bmp180(EnvironmentService.BUS_NUMBER.ordinal(), EnvironmentService.DEVICE_ADDRESS);
+        return this.singleFlightService.execute(key, () -> this.environmentService.getOrCreateBMP180SensorInstance()
+                                                                                  .flatMap(sensor -> sensor.measure())
+                                                                                  .get());
     }
 
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE, path = "/sensor/rotaryencoder/pin")
@@ -251,15 +282,34 @@ public class DataController
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE, path = "/sensor/compass/i2c/direction")
     public int getCompassAngle(@RequestParam(name = "bus", defaultValue = "1") int bus, @RequestParam(name = "module", defaultValue = "QMC5883L") Module module)
     {
-        return this.compassService.onBus(bus)
-                                  .withModule(module)
-                                  .getNorthDirectionAngle();
+        return this.singleFlightService.execute(SensorReadKeys.compass(bus, module), () -> this.compassService.onBus(bus)
+                                                                                                              .withModule(module)
+                                                                                                              .getNorthDirectionAngle());
     }
 
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE, path = "/sensor/gyroscope/i2c/orientation")
     public Orientation getGyroscopeOrientation(@RequestParam(name = "bus", defaultValue = "1") int bus, @RequestParam(name = "numberOfSamplings", defaultValue = "1") int numberOfSamplings)
     {
-        return this.gyroscopeService.getOrientation(numberOfSamplings);
+        SingleFlightKey key = SensorReadKeys.gyroscope(GyroscopeService.BUS_NUMBER.ordinal(), GyroscopeService.DEVICE_ADDRESS, numberOfSamplings);
+        return this.singleFlightService.execute(key, () -> this.gyroscopeService.getOrientation(numberOfSamplings));
+    }
+
+    @GetMapping(path = "/i2c/metrics")
+    public I2CMetrics getI2CMetrics()
+    {
+        return this.i2cService.getMetrics();
+    }
+
+    @GetMapping(path = "/i2c/inventory")
+    public I2CInventory getI2CInventory()
+    {
+        return this.i2cInventoryService.getInventory();
+    }
+
+    @PostMapping(path = "/i2c/inventory/scan")
+    public I2CInventory scanI2CInventory()
+    {
+        return this.i2cInventoryService.scan();
     }
 
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE, path = "/i2c/bus/{bus}/address/{address}/{localaddress}/offset/{offset}")
@@ -335,10 +385,25 @@ public class DataController
         return this.pressureSensorMS5837Service.enableSensorAndGetSensorId(model);
     }
 
+    @PostMapping(path = "/sensor/pressure/MS5837/{model}/continuous/{oversampling}")
+    public String enableContinuousPressureSensorMS5837(@PathVariable(name = "model") MS5837Model model,
+                                                       @PathVariable(name = "oversampling") MS5837Oversampling oversampling)
+    {
+        return this.pressureSensorMS5837Service.enableSensorAndGetSensorId(model, oversampling);
+    }
+
+    @GetMapping(path = "/sensor/pressure/MS5837/{sensorId}/sampler")
+    public Optional<SamplerStatistics> getSamplerStatisticsOfPressureSensorMS5837(@PathVariable(name = "sensorId") String sensorId)
+    {
+        return this.pressureSensorMS5837Service.getSamplerStatistics(sensorId);
+    }
+
     @GetMapping(path = "/sensor/pressure/MS5837/{sensorId}")
     public Optional<PressureAndTemperature> getPressureAndTemperatureFromPressureSensorMS5837(@PathVariable(name = "sensorId") String sensorId)
     {
-        return this.pressureSensorMS5837Service.readSensor(sensorId);
+        SingleFlightKey key = SensorReadKeys.ms5837(PressureSensorMS5837Service.BUS_NUMBER.ordinal(), PressureSensorMS5837Service.DEVICE_ADDRESS,
+                                                    sensorId);
+        return this.singleFlightService.execute(key, () -> this.pressureSensorMS5837Service.readSensor(sensorId));
     }
 
     @DeleteMapping(path = "/sensor/pressure/MS5837/{sensorId}")
@@ -1,12 +1,14 @@
 package org.omnaest.pi.adapter.mcp;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.omnaest.pi.Application;
+import org.omnaest.pi.service.i2c.I2CSimulationControl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
@@ -22,24 +24,33 @@ import io.modelcontextprotocol.spec.McpSchema.TextContent;
  * against the REAL {@code EnvironmentService} bean wired under the {@code simulation} profile.
  *
  * <p>Note: the simulated I2C register store ({@code SimulatedI2CServiceImpl}) defaults every unset local address to
- * {@code 0} rather than reporting "absent", so an un-preset BMP180 device does not throw here (calibration and
- * measurement both complete, with NaN-ish derived values from zeroed calibration constants) - the mandatory
- * error-path coverage for {@code McpToolSupport.handle} is instead provided by {@code CameraToolsTest}, where
- * {@code CameraServicePI} unconditionally throws.
+ * {@code 0}, which the BMP180 calibration validation rejects, so the test presets the calibration EEPROM with the
+ * example coefficients of the datasheet - the mandatory error-path coverage for {@code McpToolSupport.handle} is
+ * instead provided by {@code CameraToolsTest}, where {@code CameraServicePI} unconditionally throws.
  */
 @SpringBootTest(classes = Application.class, properties = "spring.profiles.active=simulation")
 class EnvironmentToolsTest
 {
 
     @Autowired
-    private EnvironmentTools environmentTools;
+    private EnvironmentTools     environmentTools;
 
     @Autowired
-    private ObjectMapper     objectMapper;
+    private ObjectMapper         objectMapper;
+
+    @Autowired
+    private I2CSimulationControl i2cSimulationControl;
 
     @Test
     void read_returnsMeasurementShapeWithoutError() throws Exception
     {
+        // datasheet example: AC1..AC6, B1, B2, MB, MC, MD and an uncompensated temperature of 27898, i.e. 15.0 C
+        this.i2cSimulationControl.presetRegister(1, 0x77, 0xAA, (byte) 0x01, (byte) 0x98, (byte) 0xFF, (byte) 0xB8, (byte) 0xC7, (byte) 0xD1,
+                                                 (byte) 0x7F, (byte) 0xE5, (byte) 0x7F, (byte) 0xF5, (byte) 0x5A, (byte) 0x71, (byte) 0x18,
+                                                 (byte) 0x2E, (byte) 0x00, (byte) 0x04, (byte) 0x80, (byte) 0x00, (byte) 0xDD, (byte) 0xF9,
+                                                 (byte) 0x0B, (byte) 0x34);
+        this.i2cSimulationControl.presetRegister(1, 0x77, 0xF6, (byte) 0x6C, (byte) 0xFA, (byte) 0x00);
+
         SyncToolSpecification spec = specOf("environment_bmp180_read");
 
         CallToolResult result = spec.call()
@@ -50,6 +61,9 @@ class EnvironmentToolsTest
         assertThat(node.has("altitude")).isTrue();
         assertThat(node.has("pressure")).isTrue();
         assertThat(node.has("temperature")).isTrue();
+        assertThat(node.get("temperature")
+                       .get("temperatureCelsius")
+                       .asDouble()).isCloseTo(15.0, within(0.1));
     }
 
     private SyncToolSpecification specOf(String toolName)
@@ -81,6 +81,42 @@ class I2CToolsTest
         assertThat(registered[0]).isEqualTo((byte) 0x55);
     }
 
+    @Test
+    void metrics_reportsReadsAndWritesPerDevice()
+    {
+        int bus = 1;
+        int address = 0x42;
+        specOf("i2c_write_byte").call()
+                                .apply(null, Map.of("bus", bus, "address", address, "localaddress", 0x01, "offset", 0, "value", 0x12));
+        specOf("i2c_read_byte").call()
+                               .apply(null, Map.of("bus", bus, "address", address, "localaddress", 0x01, "offset", 0));
+
+        CallToolResult result = specOf("i2c_metrics").call()
+                                                     .apply(null, Map.of());
+
+        assertThat(result.isError()).isFalse();
+        assertThat(textOf(result)).contains("\"busNumber\":1")
+                                  .contains("\"deviceAddress\":66")
+                                  .contains("\"busOccupancyInPercent\"")
+                                  .contains("\"p99InMicroseconds\"");
+    }
+
+    @Test
+    void inventory_withRescan_identifiesDeviceByIdRegister()
+    {
+        int bus = 1;
+        int address = 0x5C;
+        // WHO_AM_I of the LPS28DFW
+        this.i2cSimulationControl.presetRegister(bus, address, 0x0F, (byte) 0xB4);
+
+        CallToolResult result = specOf("i2c_inventory").call()
+                                                       .apply(null, Map.of("rescan", true));
+
+        assertThat(result.isError()).isFalse();
+        assertThat(textOf(result)).contains("\"deviceAddress\":92")
+                                  .contains("\"deviceType\":\"LPS28DFW\"");
+    }
+
     private SyncToolSpecification specOf(String toolName)
     {
         List<SyncToolSpecification> specs = this.i2cTools.specs();
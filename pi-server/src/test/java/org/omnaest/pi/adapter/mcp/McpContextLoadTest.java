@@ -37,10 +37,10 @@ class McpContextLoadTest
     }
 
     @Test
-    void exactlyThirtyFiveToolsRegistered_noInteractionTool()
+    void exactlyThirtyEightToolsRegistered_noInteractionTool()
     {
         List<McpSchema.Tool> tools = this.mcpSyncServer.listTools();
-        assertThat(tools).hasSize(35);
+        assertThat(tools).hasSize(38);
 
         List<String> names = tools.stream()
                                   .map(McpSchema.Tool::name)
@@ -71,6 +71,8 @@ class McpContextLoadTest
                                                     "compass_read_angle",
                                                     "i2c_read_byte",
                                                     "i2c_write_byte",
+                                                    "i2c_metrics",
+                                                    "i2c_inventory",
                                                     "ultrasonic_init",
                                                     "ultrasonic_read_distance",
                                                     "weight_read_hx711",
@@ -81,7 +83,8 @@ class McpContextLoadTest
                                                     "flow_sensor_disable",
                                                     "pressure_ms5837_enable",
                                                     "pressure_ms5837_read",
-                                                    "pressure_ms5837_disable");
+                                                    "pressure_ms5837_disable",
+                                                    "pressure_ms5837_sampler");
     }
 
     @Test
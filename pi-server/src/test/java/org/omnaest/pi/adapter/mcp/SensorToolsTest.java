@@ -103,13 +103,15 @@ class SensorToolsTest
     @Test
     void pressureMs5837EnableThenReadThenDisable_reflectsSensorLifecycle()
     {
+        this.presetMs5837Prom();
         CallToolResult enableResult = specOf("pressure_ms5837_enable").call()
                                                                       .apply(null, Map.of("model", "MS5837_02BA"));
         assertThat(enableResult.isError()).isFalse();
         String sensorId = unquote(textOf(enableResult));
 
-        // all MS5837 registers default to 0 under simulation, so the calibration/decode formula is deterministic:
-        // pressureAbsolute=0.0, pressureRelative=0.0, temperature=20.0 for MS5837_02BA (see PressureSensorMS5837ServiceImpl).
+        // the simulated conversions read the command byte followed by zeros, i.e. D1=0x400000 and D2=0x500000, so with the preset PROM
+        // dT=D2-C5*256=0 and C1=C2, which gives pressureAbsolute=0.0, pressureRelative=0.0, temperature=20.0 for MS5837_02BA
+        // (see PressureSensorMS5837ServiceImpl).
         CallToolResult readResult = specOf("pressure_ms5837_read").call()
                                                                   .apply(null, Map.of("sensorId", sensorId));
         assertThat(readResult.isError()).isFalse();
@@ -128,6 +130,41 @@ class SensorToolsTest
         assertThat(textOf(readAfterDisable)).isEqualTo("null");
     }
 
+    @Test
+    void pressureMs5837ContinuousSampling_reportsOversamplingAndServesLatestSample() throws Exception
+    {
+        this.presetMs5837Prom();
+        CallToolResult enableResult = specOf("pressure_ms5837_enable").call()
+                                                                      .apply(null, Map.of("model", "MS5837_30BA", "oversampling", "OSR_256"));
+        assertThat(enableResult.isError()).isFalse();
+        String sensorId = unquote(textOf(enableResult));
+
+        JsonNode statistics = null;
+        for (int ii = 0; ii < 100 && (statistics == null || statistics.get("numberOfSamples")
+                                                                      .asLong() == 0); ii++)
+        {
+            Thread.sleep(10);
+            statistics = readJson(specOf("pressure_ms5837_sampler").call()
+                                                                   .apply(null, Map.of("sensorId", sensorId)));
+        }
+        assertThat(statistics.get("oversampling")
+                             .asText()).isEqualTo("OSR_256");
+        assertThat(statistics.get("numberOfSamples")
+                             .asLong()).isPositive();
+        assertThat(statistics.get("maximumSampleRateInHz")
+                             .asDouble()).isGreaterThan(1000.0);
+
+        CallToolResult readResult = specOf("pressure_ms5837_read").call()
+                                                                  .apply(null, Map.of("sensorId", sensorId));
+        assertThat(readResult.isError()).isFalse();
+        assertThat(readJson(readResult).has("temperature")).isTrue();
+
+        specOf("pressure_ms5837_disable").call()
+                                         .apply(null, Map.of("sensorId", sensorId));
+        assertThat(textOf(specOf("pressure_ms5837_sampler").call()
+                                                           .apply(null, Map.of("sensorId", sensorId)))).isEqualTo("null");
+    }
+
     @Test
     void pressureMs5837Read_unknownSensorIdReturnsNull()
     {
@@ -138,6 +175,16 @@ class SensorToolsTest
         assertThat(textOf(result)).isEqualTo("null");
     }
 
+    /**
+     * Presets a PROM with a valid CRC-4 and C1=C2=0x8000, C3=C4=0x4000, C5=0x5000, C6=0x6000, as a blank PROM is rejected
+     */
+    private void presetMs5837Prom()
+    {
+        this.i2cSimulationControl.presetRegister(1, 0x76, 0xA0, (byte) 0x00, (byte) 0xC5, (byte) 0x80, (byte) 0x00, (byte) 0x80, (byte) 0x00,
+                                                 (byte) 0x40, (byte) 0x00, (byte) 0x40, (byte) 0x00, (byte) 0x50, (byte) 0x00, (byte) 0x60,
+                                                 (byte) 0x00);
+    }
+
     private SyncToolSpecification specOf(String toolName)
     {
         List<SyncToolSpecification> specs = this.sensorTools.specs();